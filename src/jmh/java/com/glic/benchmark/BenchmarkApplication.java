@@ -0,0 +1,65 @@
+package com.glic.benchmark;
+
+import com.glic.config.WebConfig;
+import com.glic.controller.ProductController;
+import com.glic.model.Product;
+import com.glic.repository.ProductRepository;
+import com.glic.service.CatalogueVersion;
+import com.glic.service.ProductService;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * Minimal application hosting the product API on H2 for benchmarks.
+ * Imports only the product stack, so the SQS listener, producer and AWS
+ * clients are not started, and silences the SQL and debug logging that
+ * application.properties enables for development.
+ */
+@SpringBootConfiguration
+@EnableAutoConfiguration
+@EntityScan(basePackageClasses = Product.class)
+@EnableJpaRepositories(basePackageClasses = ProductRepository.class)
+@Import({ProductController.class, ProductService.class, CatalogueVersion.class, WebConfig.class})
+class BenchmarkApplication {
+
+    /**
+     * Default constructor for BenchmarkApplication.
+     * Required by Spring for configuration class instantiation.
+     */
+    BenchmarkApplication() {
+    }
+
+    /**
+     * Starts the application on a random port.
+     *
+     * @return the running application context
+     */
+    static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(BenchmarkApplication.class).run(
+                "--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.open-in-view=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.file.name=",
+                "--logging.level.root=WARN",
+                "--logging.level.com.glic=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+    }
+
+    /**
+     * Gets the port the application is listening on.
+     *
+     * @param context the running application context
+     * @return the HTTP port
+     */
+    static int port(ConfigurableApplicationContext context) {
+        return context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+    }
+}
@@ -0,0 +1,46 @@
+package com.glic.benchmark;
+
+import com.glic.model.Product;
+
+import java.math.BigDecimal;
+
+/**
+ * Factory for realistic product fixtures shared by the benchmarks.
+ */
+final class BenchmarkProducts {
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private BenchmarkProducts() {
+    }
+
+    /**
+     * Creates a product with a verbose description, similar to catalogue data.
+     *
+     * @param index a sequence number used to make the product unique
+     * @return the product
+     */
+    static Product product(int index) {
+        Product product = new Product();
+        product.setId((long) index + 1);
+        product.setName("Wireless Keyboard Pro " + index);
+        product.setDescription("Slim mechanical wireless keyboard with low-profile switches, "
+                + "per-key RGB lighting, USB-C charging and up to 40 hours of battery life (batch " + index + ")");
+        product.setPrice(new BigDecimal("89.99").add(BigDecimal.valueOf(index % 100)));
+        product.setQuantity(70 + index % 50);
+        return product;
+    }
+
+    /**
+     * Serializes a product as the JSON message body the listener receives.
+     *
+     * @param index a sequence number used to make the product unique
+     * @return the JSON body, without an ID
+     */
+    static String messageBody(int index) {
+        Product product = product(index);
+        return "{\"name\":\"" + product.getName() + "\",\"description\":\"" + product.getDescription()
+                + "\",\"price\":" + product.getPrice() + ",\"quantity\":" + product.getQuantity() + "}";
+    }
+}
@@ -0,0 +1,112 @@
+package com.glic.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.config.Config;
+import com.glic.listener.ListenerSettings;
+import com.glic.listener.ProductMessageValidator;
+import com.glic.listener.SqsMessageListener;
+import com.glic.logging.PayloadSampler;
+import com.glic.service.RestApiMetrics;
+import com.glic.service.RestApiService;
+import com.glic.service.WireFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the full per-message path: {@link SqsMessageListener#processMessage}
+ * deserializes the body, posts it through {@link RestApiService} to the real
+ * product API over loopback HTTP, which stores it in H2, and then deletes the
+ * message. Only SQS itself is replaced, by a client that acknowledges deletes
+ * locally.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark {
+
+    /**
+     * Number of distinct messages cycled through.
+     */
+    private static final int MESSAGES = 64;
+
+    /**
+     * The running product API.
+     */
+    private ConfigurableApplicationContext context;
+
+    /**
+     * The listener under test, created outside Spring so it does not poll.
+     */
+    private SqsMessageListener listener;
+
+    /**
+     * Messages to process.
+     */
+    private Message[] messages;
+
+    /**
+     * Index of the next message.
+     */
+    private int next;
+
+    /**
+     * Starts the product API and wires a listener against it.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        ObjectMapper objectMapper = new Config().objectMapper();
+        RestApiService restApiService = new RestApiService(
+                new RestTemplate(new HttpComponentsClientHttpRequestFactory()), objectMapper,
+                "http://localhost:" + BenchmarkApplication.port(context), WireFormat.JSON,
+                new RestApiMetrics(new SimpleMeterRegistry()),
+                new PayloadSampler(PayloadSampler.DEFAULT_SAMPLE_RATE, PayloadSampler.DEFAULT_MAX_LENGTH));
+        listener = new SqsMessageListener(new ListenerSettings(new NoOpSqsClient(), objectMapper, restApiService,
+                "benchmark-queue", new ProductMessageValidator(context.getBean(Validator.class))));
+        messages = new Message[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = Message.builder()
+                    .messageId("message-" + i)
+                    .receiptHandle("receipt-" + i)
+                    .body(BenchmarkProducts.messageBody(i))
+                    .build();
+        }
+    }
+
+    /**
+     * Stops the product API.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Processes one message.
+     */
+    @Benchmark
+    public void processMessage() {
+        listener.processMessage(messages[next++ & (MESSAGES - 1)]);
+    }
+}
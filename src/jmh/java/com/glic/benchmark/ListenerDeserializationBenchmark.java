@@ -0,0 +1,114 @@
+package com.glic.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.glic.config.Config;
+import com.glic.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the message body deserialization done by
+ * {@code SqsMessageListener.processMessage}: a JSON string read into a
+ * {@link Product}. Compares the listener's pre-bound reader with a lookup by
+ * class on the same mapper, and with a plain ObjectMapper using the reflective
+ * bean deserializer. Run with the {@code jmh} profile to get the allocation
+ * rate per operation ({@code gc.alloc.rate.norm}) from the GC profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDeserializationBenchmark {
+
+    /**
+     * Number of distinct message bodies cycled through.
+     */
+    private static final int BODIES = 64;
+
+    /**
+     * Mapper configured as the application's ObjectMapper bean.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * Reader bound to Product, as held by the listener.
+     */
+    private ObjectReader productReader;
+
+    /**
+     * Mapper without the application's modules, using the bean deserializer.
+     */
+    private ObjectMapper reflectiveMapper;
+
+    /**
+     * Message bodies to deserialize.
+     */
+    private String[] bodies;
+
+    /**
+     * Index of the next body.
+     */
+    private int next;
+
+    /**
+     * Builds the mappers and message bodies.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = new Config().objectMapper();
+        productReader = objectMapper.readerFor(Product.class);
+        reflectiveMapper = new ObjectMapper();
+        bodies = new String[BODIES];
+        for (int i = 0; i < BODIES; i++) {
+            bodies[i] = BenchmarkProducts.messageBody(i);
+        }
+    }
+
+    /**
+     * Deserializes one message body with the pre-bound reader.
+     *
+     * @return the product
+     * @throws IOException if deserialization fails
+     */
+    @Benchmark
+    public Product readProduct() throws IOException {
+        return productReader.readValue(bodies[next++ & (BODIES - 1)]);
+    }
+
+    /**
+     * Deserializes one message body, looking the deserializer up by class.
+     *
+     * @return the product
+     * @throws IOException if deserialization fails
+     */
+    @Benchmark
+    public Product readProductByClass() throws IOException {
+        return objectMapper.readValue(bodies[next++ & (BODIES - 1)], Product.class);
+    }
+
+    /**
+     * Deserializes one message body with the reflective bean deserializer.
+     *
+     * @return the product
+     * @throws IOException if deserialization fails
+     */
+    @Benchmark
+    public Product readProductReflective() throws IOException {
+        return reflectiveMapper.readValue(bodies[next++ & (BODIES - 1)], Product.class);
+    }
+}
@@ -0,0 +1,45 @@
+package com.glic.benchmark;
+
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageResponse;
+
+/**
+ * SQS client that acknowledges deletes without a network call, so listener
+ * benchmarks measure message processing rather than SQS latency.
+ */
+final class NoOpSqsClient implements SqsClient {
+
+    /**
+     * Shared response for every delete.
+     */
+    private static final DeleteMessageResponse DELETED = DeleteMessageResponse.builder().build();
+
+    /**
+     * Acknowledges the delete.
+     *
+     * @param request the delete request
+     * @return an empty response
+     */
+    @Override
+    public DeleteMessageResponse deleteMessage(DeleteMessageRequest request) {
+        return DELETED;
+    }
+
+    /**
+     * Gets the service name.
+     *
+     * @return the SQS service name
+     */
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    /**
+     * Does nothing; there are no resources to release.
+     */
+    @Override
+    public void close() {
+    }
+}
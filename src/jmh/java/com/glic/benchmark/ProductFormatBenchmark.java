@@ -0,0 +1,128 @@
+package com.glic.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.model.Product;
+import com.glic.service.WireFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compares JSON, Smile and CBOR for product payloads.
+ * Measures serialization and deserialization cost for a single product (the
+ * ingestion path) and for a catalogue page (the list endpoint), and prints the
+ * raw and gzip-compressed size of each payload once per trial so bytes on the
+ * wire can be compared alongside CPU time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductFormatBenchmark {
+
+    /**
+     * Type reference for product list payloads.
+     */
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    /**
+     * The format under test.
+     */
+    @Param({"JSON", "SMILE", "CBOR"})
+    public WireFormat format;
+
+    /**
+     * Number of products in the list payload.
+     */
+    @Param({"1", "500"})
+    public int products;
+
+    /**
+     * Mapper bound to the format under test.
+     */
+    private ObjectMapper mapper;
+
+    /**
+     * Products to serialize.
+     */
+    private List<Product> catalogue;
+
+    /**
+     * Pre-serialized list payload to deserialize.
+     */
+    private byte[] payload;
+
+    /**
+     * Builds the catalogue and payload and reports their sizes.
+     *
+     * @throws IOException if serialization fails
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        mapper = format.mapper(new ObjectMapper());
+        catalogue = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            catalogue.add(BenchmarkProducts.product(i));
+        }
+        payload = mapper.writeValueAsBytes(catalogue);
+        System.out.printf("%n[wire] format=%s products=%d raw=%d bytes gzip=%d bytes%n",
+                format, products, payload.length, gzip(payload).length);
+    }
+
+    /**
+     * Serializes the product list.
+     *
+     * @return the payload
+     * @throws IOException if serialization fails
+     */
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return mapper.writeValueAsBytes(catalogue);
+    }
+
+    /**
+     * Deserializes the product list.
+     *
+     * @return the products
+     * @throws IOException if deserialization fails
+     */
+    @Benchmark
+    public List<Product> deserialize() throws IOException {
+        return mapper.readValue(payload, PRODUCT_LIST);
+    }
+
+    /**
+     * Compresses a payload the way server response compression would.
+     *
+     * @param data the payload
+     * @return the gzip-compressed payload
+     * @throws IOException if compression fails
+     */
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,123 @@
+package com.glic.benchmark;
+
+import com.glic.model.Product;
+import com.glic.search.SearchHit;
+import com.glic.search.SearchSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures product search latency over a large synthetic catalogue.
+ * Names and descriptions are drawn from a fixed vocabulary with a skewed
+ * distribution, so common words have posting lists of hundreds of thousands
+ * of products and rare ones a handful, like real catalogue text. The index
+ * build time and size are printed once per trial.
+ * Run with: {@code ./mvnw -Pjmh test-compile exec:exec -Djmh.args="ProductSearchBenchmark"}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    /**
+     * Words products are made of, most common first.
+     */
+    private static final String[] VOCABULARY = {
+            "wireless", "black", "usb", "premium", "portable", "steel", "keyboard", "cable", "charger", "mouse",
+            "monitor", "stand", "adapter", "headphones", "speaker", "lamp", "desk", "chair", "bluetooth", "ergonomic",
+            "mechanical", "backlit", "compact", "travel", "laptop", "sleeve", "leather", "bamboo", "ceramic", "mug",
+            "thermal", "bottle", "kettle", "espresso", "grinder", "filter", "notebook", "pencil", "marker", "stapler",
+            "tripod", "webcam", "microphone", "router", "switch", "hub", "dock", "projector", "scanner", "printer"
+    };
+
+    /**
+     * Number of products indexed.
+     */
+    @Param({"1000000"})
+    public int products;
+
+    /**
+     * The query searched.
+     */
+    @Param({"wireless", "keyboard", "wire", "usb cable", "espresso grinder", "printer scanner tripod"})
+    public String query;
+
+    /**
+     * Most hits returned per search.
+     */
+    @Param({"20"})
+    public int limit;
+
+    /**
+     * The index under test.
+     */
+    private SearchSnapshot snapshot;
+
+    /**
+     * Builds the catalogue and its index and reports how long indexing took.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Product> catalogue = new ArrayList<>(products);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setId((long) i + 1);
+            product.setName(words(random, 3) + " " + i);
+            product.setDescription(words(random, 12));
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(1);
+            catalogue.add(product);
+        }
+        long start = System.nanoTime();
+        snapshot = SearchSnapshot.of(catalogue);
+        System.out.printf("%n[search] products=%d indexed in %d ms, '%s' matches %d of the top %d%n",
+                snapshot.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), query,
+                snapshot.search(query, limit).size(), limit);
+    }
+
+    /**
+     * Searches the catalogue.
+     *
+     * @return the hits
+     */
+    @Benchmark
+    public List<SearchHit> search() {
+        return snapshot.search(query, limit);
+    }
+
+    /**
+     * Picks words from the vocabulary, favouring the first ones.
+     *
+     * @param random the random source
+     * @param count the number of words
+     * @return the words separated by spaces
+     */
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            double skew = random.nextDouble();
+            text.append(i == 0 ? "" : " ").append(VOCABULARY[(int) (skew * skew * VOCABULARY.length)]);
+        }
+        return text.toString();
+    }
+}
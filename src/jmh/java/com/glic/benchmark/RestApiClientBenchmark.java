@@ -0,0 +1,108 @@
+package com.glic.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.config.Config;
+import com.glic.logging.PayloadSampler;
+import com.glic.model.Product;
+import com.glic.service.RestApiMetrics;
+import com.glic.service.RestApiService;
+import com.glic.service.WireFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link RestApiService#createProduct} against a local stub server.
+ * {@code createProduct} covers the full client path (request serialization,
+ * the pooled HTTP round trip over loopback and response parsing) while
+ * {@code serializeRequest} isolates the request body serialization it performs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestApiClientBenchmark {
+
+    /**
+     * The stub product API.
+     */
+    private StubProductApi stub;
+
+    /**
+     * Client configured as the application's RestApiService bean.
+     */
+    private RestApiService restApiService;
+
+    /**
+     * Mapper used for the serialization-only benchmark.
+     */
+    private ObjectMapper objectMapper;
+
+    /**
+     * The product sent with every request.
+     */
+    private Product product;
+
+    /**
+     * Starts the stub server and builds the client.
+     *
+     * @throws IOException if the stub server cannot be started
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new Config().objectMapper();
+        product = BenchmarkProducts.product(1);
+        product.setId(null);
+        stub = new StubProductApi(objectMapper.writeValueAsString(BenchmarkProducts.product(1)));
+        restApiService = new RestApiService(
+                new RestTemplate(new HttpComponentsClientHttpRequestFactory()), objectMapper, stub.baseUrl(),
+                WireFormat.JSON, new RestApiMetrics(new SimpleMeterRegistry()),
+                new PayloadSampler(PayloadSampler.DEFAULT_SAMPLE_RATE, PayloadSampler.DEFAULT_MAX_LENGTH));
+    }
+
+    /**
+     * Stops the stub server.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.close();
+    }
+
+    /**
+     * Creates a product through the REST client.
+     *
+     * @return the created product
+     */
+    @Benchmark
+    public Product createProduct() {
+        return restApiService.createProduct(product);
+    }
+
+    /**
+     * Serializes the request body the way {@code createProduct} does.
+     *
+     * @return the JSON body
+     * @throws IOException if serialization fails
+     */
+    @Benchmark
+    public String serializeRequest() throws IOException {
+        return objectMapper.writeValueAsString(product);
+    }
+}
@@ -0,0 +1,87 @@
+package com.glic.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local HTTP server standing in for the product API.
+ * Answers every POST to {@code /api/products} with a canned 201 response, so
+ * benchmarks of the REST client measure the client and the loopback round trip
+ * rather than the server.
+ */
+final class StubProductApi implements AutoCloseable {
+
+    /**
+     * The underlying JDK HTTP server.
+     */
+    private final HttpServer server;
+
+    /**
+     * Threads handling requests.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The canned response body.
+     */
+    private final byte[] response;
+
+    /**
+     * Starts a stub server on a random loopback port.
+     *
+     * @param responseBody the JSON body returned for every create request
+     * @throws IOException if the server cannot be started
+     */
+    StubProductApi(String responseBody) throws IOException {
+        this.response = responseBody.getBytes(StandardCharsets.UTF_8);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newFixedThreadPool(4);
+        server.createContext("/api/products", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Gets the base URL of the stub, suitable for {@code api.base.url}.
+     *
+     * @return the base URL
+     */
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Drains the request and writes the canned response.
+     *
+     * @param exchange the HTTP exchange
+     * @throws IOException if the exchange fails
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(201, response.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(response);
+        }
+    }
+
+    /**
+     * Stops the server.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,288 @@
+package com.glic.browse;
+
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.compression.MessageCompression;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking access to the SQS queue for dashboards and operators.
+ * Receives are issued with {@link SqsAsyncClient}, so a 20 second long poll
+ * occupies no servlet thread: single receives complete a future and streams
+ * chain the next receive off the completion of the previous one.
+ * In peek mode the visibility of every received message is reset to zero right
+ * after it is received, so the message stays available to the listener.
+ * Compressed bodies are returned decompressed, and claim-checked messages
+ * with their payload in place of the reference, which is left in the store
+ * for the listener.
+ */
+@Slf4j
+@Component
+public class QueueBrowser {
+
+    /**
+     * Maximum number of messages SQS returns from a single receive.
+     */
+    static final int MAX_MESSAGES = 10;
+
+    /**
+     * Long polling wait time for each receive, in seconds.
+     */
+    static final int WAIT_TIME_SECONDS = 20;
+
+    /**
+     * The asynchronous AWS SQS client.
+     */
+    private final SqsAsyncClient sqsAsyncClient;
+
+    /**
+     * The URL of the SQS queue.
+     */
+    private final String queueUrl;
+
+    /**
+     * Opens the payloads of claim-checked messages.
+     */
+    private final ClaimCheck claimCheck;
+
+    /**
+     * How long a stream stays open before the client has to reconnect, in milliseconds.
+     */
+    private final long streamTimeoutMs;
+
+    /**
+     * Constructs a new QueueBrowser.
+     *
+     * @param sqsAsyncClient the asynchronous AWS SQS client
+     * @param queueUrl the URL of the SQS queue
+     * @param claimCheck opens the payloads of claim-checked messages
+     * @param streamTimeoutMs how long a stream stays open, in milliseconds
+     */
+    public QueueBrowser(
+            SqsAsyncClient sqsAsyncClient,
+            @Value("${aws.sqs.url}") String queueUrl,
+            ClaimCheck claimCheck,
+            @Value("${aws.sqs.stream.timeout-ms:300000}") long streamTimeoutMs) {
+        this.sqsAsyncClient = sqsAsyncClient;
+        this.queueUrl = queueUrl;
+        this.claimCheck = claimCheck;
+        this.streamTimeoutMs = streamTimeoutMs;
+    }
+
+    /**
+     * Performs a single long-polling receive.
+     *
+     * @param peek whether to make the received messages visible again immediately
+     * @return a future completed with the received messages
+     */
+    public CompletableFuture<List<ReceivedMessage>> receive(boolean peek) {
+        return receiveBatch(peek).thenApply(this::toReceived);
+    }
+
+    /**
+     * Opens a Server-Sent Events stream that emits every received message as a
+     * {@code message} event until the client disconnects or the stream times out.
+     * Empty polls emit a comment so disconnected clients are noticed.
+     *
+     * @param peek whether to make the received messages visible again immediately
+     * @return the emitter the stream is written to
+     */
+    public SseEmitter stream(boolean peek) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+        Stream stream = new Stream(emitter, peek);
+        emitter.onCompletion(stream::close);
+        emitter.onTimeout(stream::close);
+        emitter.onError(error -> stream.close());
+        stream.poll();
+        return emitter;
+    }
+
+    /**
+     * Receives a batch of messages and, in peek mode, restores their visibility.
+     *
+     * @param peek whether to make the received messages visible again immediately
+     * @return a future completed with the received messages
+     */
+    private CompletableFuture<List<Message>> receiveBatch(boolean peek) {
+        ReceiveMessageRequest request = ReceiveMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .maxNumberOfMessages(MAX_MESSAGES)
+                .waitTimeSeconds(WAIT_TIME_SECONDS)
+                .attributeNamesWithStrings(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT.toString())
+                .messageAttributeNames(MessageCompression.ATTRIBUTE, ClaimCheck.ATTRIBUTE)
+                .build();
+        CompletableFuture<ReceiveMessageResponse> received = sqsAsyncClient.receiveMessage(request);
+        if (!peek) {
+            return received.thenApply(ReceiveMessageResponse::messages);
+        }
+        return received.thenCompose(response -> restoreVisibility(response.messages())
+                .thenApply(ignored -> response.messages()));
+    }
+
+    /**
+     * Makes messages visible again so the listener can pick them up.
+     * A failure is logged rather than propagated; the messages then simply
+     * become visible when their visibility timeout expires.
+     *
+     * @param messages the messages to release
+     * @return a future completed once SQS has answered
+     */
+    private CompletableFuture<Void> restoreVisibility(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .visibilityTimeout(0)
+                    .build());
+        }
+        return sqsAsyncClient.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                        .queueUrl(queueUrl)
+                        .entries(entries)
+                        .build())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        log.warn("Failed to restore visibility of {} peeked messages: {}", messages.size(), error.getMessage());
+                    } else if (response.hasFailed() && !response.failed().isEmpty()) {
+                        log.warn("Failed to restore visibility of {} of {} peeked messages",
+                                response.failed().size(), messages.size());
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Converts SDK messages into the response representation.
+     *
+     * @param messages the messages returned by SQS
+     * @return the received messages
+     */
+    private List<ReceivedMessage> toReceived(List<Message> messages) {
+        return messages.stream().map(this::toReceived).toList();
+    }
+
+    /**
+     * Converts an SDK message, reading the payload of a claim-checked message
+     * the way the listener does. A payload that cannot be read is reported by
+     * its reference.
+     *
+     * @param message the message returned by SQS
+     * @return the received message
+     */
+    private ReceivedMessage toReceived(Message message) {
+        ReceivedMessage received = ReceivedMessage.from(message);
+        if (!ClaimCheck.isReference(message)) {
+            return received;
+        }
+        try (InputStream payload = claimCheck.open(message.body())) {
+            return received.withBody(new String(payload.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.debug("Could not read claim-checked payload of message {}: {}", message.messageId(), e.getMessage());
+            return received;
+        }
+    }
+
+    /**
+     * One open stream. At most one receive is in flight at a time; the next one
+     * is issued from the completion of the previous one.
+     */
+    private final class Stream {
+
+        /**
+         * The emitter the stream is written to.
+         */
+        private final SseEmitter emitter;
+
+        /**
+         * Whether received messages are made visible again immediately.
+         */
+        private final boolean peek;
+
+        /**
+         * Whether the stream has been closed.
+         */
+        private volatile boolean closed;
+
+        /**
+         * Constructs a new Stream.
+         *
+         * @param emitter the emitter the stream is written to
+         * @param peek whether received messages are made visible again immediately
+         */
+        Stream(SseEmitter emitter, boolean peek) {
+            this.emitter = emitter;
+            this.peek = peek;
+        }
+
+        /**
+         * Issues the next receive unless the stream has been closed.
+         */
+        void poll() {
+            if (closed) {
+                return;
+            }
+            receiveBatch(peek).whenComplete(this::onReceived);
+        }
+
+        /**
+         * Writes the received messages to the client and polls again.
+         *
+         * @param messages the received messages, or null on failure
+         * @param error the failure, or null on success
+         */
+        private void onReceived(List<Message> messages, Throwable error) {
+            if (closed) {
+                return;
+            }
+            if (error != null) {
+                log.error("Error receiving messages for stream: {}", error.getMessage());
+                emitter.completeWithError(error);
+                return;
+            }
+            try {
+                if (messages.isEmpty()) {
+                    emitter.send(SseEmitter.event().comment("no messages"));
+                }
+                for (Message message : messages) {
+                    emitter.send(SseEmitter.event()
+                            .id(message.messageId())
+                            .name("message")
+                            .data(toReceived(message)));
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Stream client went away: {}", e.getMessage());
+                close();
+                return;
+            }
+            poll();
+        }
+
+        /**
+         * Stops polling. A receive still in flight completes in the background
+         * and its messages are discarded, becoming visible again after their
+         * visibility timeout (or immediately in peek mode).
+         */
+        void close() {
+            closed = true;
+        }
+    }
+}
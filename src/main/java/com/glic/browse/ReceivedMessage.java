@@ -0,0 +1,47 @@
+package com.glic.browse;
+
+import com.glic.compression.MalformedPayloadException;
+import com.glic.compression.MessageCompression;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+
+/**
+ * A message received from the SQS queue, as returned by the receive endpoints.
+ *
+ * @param messageId the SQS message ID
+ * @param receiptHandle the receipt handle of this receive, valid until the message becomes visible again
+ * @param body the message body, decompressed if it was sent compressed
+ * @param receiveCount how many times the message has been received, or null if SQS did not report it
+ */
+public record ReceivedMessage(String messageId, String receiptHandle, String body, Integer receiveCount) {
+
+    /**
+     * Converts an SDK message, restoring a body compressed by
+     * {@link MessageCompression} the way the listener does. A body that
+     * cannot be decoded is returned as it was received.
+     *
+     * @param message the message returned by SQS, with the {@value MessageCompression#ATTRIBUTE} attribute
+     * @return the received message
+     */
+    public static ReceivedMessage from(Message message) {
+        String receiveCount = message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+        String body;
+        try {
+            body = MessageCompression.decode(message);
+        } catch (MalformedPayloadException e) {
+            body = message.body();
+        }
+        return new ReceivedMessage(message.messageId(), message.receiptHandle(), body,
+                receiveCount == null ? null : Integer.valueOf(receiveCount));
+    }
+
+    /**
+     * Replaces the body, e.g. by the payload a claim-check reference refers to.
+     *
+     * @param body the new body
+     * @return a copy with the given body
+     */
+    public ReceivedMessage withBody(String body) {
+        return new ReceivedMessage(messageId, receiptHandle, body, receiveCount);
+    }
+}
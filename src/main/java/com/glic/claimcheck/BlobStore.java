@@ -0,0 +1,39 @@
+package com.glic.claimcheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Storage for message payloads too large to travel through SQS. Payloads
+ * are written once under a key chosen by the caller, read back as a stream
+ * and deleted once the message referring to them has been processed.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores a payload.
+     *
+     * @param key the key, made of letters, digits, dots, dashes and underscores
+     * @param content the payload
+     * @throws IOException if the payload cannot be stored
+     */
+    void put(String key, byte[] content) throws IOException;
+
+    /**
+     * Opens a stored payload for reading.
+     *
+     * @param key the key the payload was stored under
+     * @return a stream over the payload, to be closed by the caller
+     * @throws java.nio.file.NoSuchFileException if no payload is stored under the key
+     * @throws IOException if the payload cannot be read
+     */
+    InputStream open(String key) throws IOException;
+
+    /**
+     * Deletes a stored payload. Deleting a missing payload is not an error.
+     *
+     * @param key the key the payload was stored under
+     * @throws IOException if the payload cannot be deleted
+     */
+    void delete(String key) throws IOException;
+}
@@ -0,0 +1,195 @@
+package com.glic.claimcheck;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The claim-check pattern for payloads too large for SQS. A body of at least
+ * {@code aws.sqs.claim-check.threshold-bytes} is written to the
+ * {@link BlobStore} and only a reference, {@code claim-check:<key>}, is sent
+ * on the queue, flagged with the {@value #ATTRIBUTE} message attribute. The
+ * reference is the whole message body, so it survives quarantine and redrive
+ * unchanged; the consumer opens the payload when it processes the message and
+ * releases it once the message is deleted.
+ * <p>
+ * Consumers only follow references that carry the attribute, see
+ * {@link #isReference(Message)}: a client sending a body that merely looks
+ * like a reference cannot make the consumer read, and then delete, a payload
+ * it did not send.
+ * <p>
+ * Claim-checking is off unless {@code aws.sqs.claim-check.enabled} is set,
+ * because every consumer of the queue must be able to read the store: the
+ * filesystem store only suits a single host or a volume shared by all of
+ * them, and the S3 store is the one to use otherwise.
+ * <p>
+ * Payloads of messages that fail stay in the store for the retry or the
+ * quarantine entry that still refers to them.
+ */
+@Slf4j
+@Component
+public class ClaimCheck {
+
+    /**
+     * Start of a message body that refers to a stored payload.
+     */
+    public static final String PREFIX = "claim-check:";
+
+    /**
+     * Message attribute flagging a body as a reference sent by a claim-checking producer.
+     */
+    public static final String ATTRIBUTE = "claim-check";
+
+    /**
+     * Where payloads are stored.
+     */
+    private final BlobStore store;
+
+    /**
+     * Whether large bodies are stored on send.
+     */
+    private final boolean enabled;
+
+    /**
+     * Smallest body stored, in UTF-8 bytes.
+     */
+    private final int thresholdBytes;
+
+    /**
+     * Constructs a new ClaimCheck.
+     *
+     * @param store where payloads are stored
+     * @param enabled whether large bodies are stored on send
+     * @param thresholdBytes smallest body stored, in UTF-8 bytes
+     */
+    @Autowired
+    public ClaimCheck(
+            BlobStore store,
+            @Value("${aws.sqs.claim-check.enabled:false}") boolean enabled,
+            @Value("${aws.sqs.claim-check.threshold-bytes:204800}") int thresholdBytes) {
+        this.store = store;
+        this.enabled = enabled;
+        this.thresholdBytes = thresholdBytes;
+        if (enabled && store instanceof FileSystemBlobStore) {
+            log.warn("Claim-checking to the local filesystem: consumers on other hosts cannot read the payloads "
+                    + "unless the directory is shared with them");
+        }
+    }
+
+    /**
+     * Creates a claim check over an in-memory store that never stores on
+     * send, for listeners constructed without a blob store.
+     *
+     * @return the claim check
+     */
+    public static ClaimCheck inMemory() {
+        return new ClaimCheck(new InMemoryBlobStore(), false, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Checks whether a body is too large to be sent as it is.
+     *
+     * @param body the message body about to be sent
+     * @return true if the body should be stored and replaced by a reference
+     */
+    public boolean applies(String body) {
+        if (!enabled || body.length() * 3L < thresholdBytes) {
+            return false;
+        }
+        return body.length() >= thresholdBytes || body.getBytes(StandardCharsets.UTF_8).length >= thresholdBytes;
+    }
+
+    /**
+     * Stores a payload.
+     *
+     * @param body the payload
+     * @return the message body to send in its place
+     * @throws IOException if the payload cannot be stored
+     */
+    public String store(String body) throws IOException {
+        String key = UUID.randomUUID().toString();
+        store.put(key, body.getBytes(StandardCharsets.UTF_8));
+        log.debug("Stored payload of {} characters as {}", body.length(), key);
+        return PREFIX + key;
+    }
+
+    /**
+     * Gets the message attributes a reference is sent with.
+     *
+     * @return the {@value #ATTRIBUTE} attribute
+     */
+    public static Map<String, MessageAttributeValue> attributes() {
+        return Map.of(ATTRIBUTE, MessageAttributeValue.builder().dataType("String").stringValue("1").build());
+    }
+
+    /**
+     * Checks whether a received message refers to a stored payload: its body
+     * is a reference and it carries the {@value #ATTRIBUTE} attribute.
+     *
+     * @param message the message, received with the {@value #ATTRIBUTE} attribute
+     * @return true if the payload should be opened in place of the body
+     */
+    public static boolean isReference(Message message) {
+        return message.messageAttributes().containsKey(ATTRIBUTE) && isReference(message.body());
+    }
+
+    /**
+     * Checks whether a message body has the form of a reference. Consumers use
+     * {@link #isReference(Message)}, which also requires the attribute.
+     *
+     * @param body the message body
+     * @return true if the body is a claim-check reference
+     */
+    public static boolean isReference(String body) {
+        return body != null && body.startsWith(PREFIX);
+    }
+
+    /**
+     * Opens the payload a reference refers to.
+     *
+     * @param reference the message body
+     * @return a stream over the payload, to be closed by the caller
+     * @throws java.nio.file.NoSuchFileException if the payload no longer exists
+     * @throws IOException if the payload cannot be read
+     */
+    public InputStream open(String reference) throws IOException {
+        return store.open(key(reference));
+    }
+
+    /**
+     * Deletes the payload a reference refers to, once its message is done
+     * with. A failure is only logged: the payload is then left behind, but
+     * the message was processed.
+     *
+     * @param reference the message body
+     */
+    public void release(String reference) {
+        try {
+            store.delete(key(reference));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete claim-checked payload {}: {}", reference, e.getMessage());
+        }
+    }
+
+    /**
+     * Extracts the key from a reference.
+     *
+     * @param reference the message body
+     * @return the key
+     */
+    private static String key(String reference) {
+        if (!isReference(reference)) {
+            throw new IllegalArgumentException("Not a claim-check reference");
+        }
+        return reference.substring(PREFIX.length()).trim();
+    }
+}
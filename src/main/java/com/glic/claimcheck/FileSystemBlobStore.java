@@ -0,0 +1,212 @@
+package com.glic.claimcheck;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * Stores payloads as files in a local directory, for tests and on-premises
+ * deployments where the producers and consumers share a filesystem.
+ * <p>
+ * A payload is written to a temporary file and moved into place, so readers
+ * never see a partial payload. Reads map the file into memory rather than
+ * copying it through a read buffer: the payload is paged in by the operating
+ * system as the parser walks it, and pages already cached are not copied at
+ * all. The mapping is released by the garbage collector once the stream is
+ * unreachable, which on Linux does not stop the file from being deleted.
+ */
+public class FileSystemBlobStore implements BlobStore {
+
+    /**
+     * Keys that cannot escape the directory.
+     */
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9._-]+");
+
+    /**
+     * The directory payloads are stored in.
+     */
+    private final Path directory;
+
+    /**
+     * Constructs a new FileSystemBlobStore, creating its directory if needed.
+     *
+     * @param directory the directory payloads are stored in
+     * @throws IOException if the directory cannot be created
+     */
+    public FileSystemBlobStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    /**
+     * Stores a payload, replacing any payload stored under the same key.
+     *
+     * @param key the key
+     * @param content the payload
+     * @throws IOException if the payload cannot be written
+     */
+    @Override
+    public void put(String key, byte[] content) throws IOException {
+        Path target = resolve(key);
+        Path temporary = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.write(temporary, content);
+            Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Maps a stored payload into memory for reading.
+     *
+     * @param key the key the payload was stored under
+     * @return a stream over the mapped payload
+     * @throws java.nio.file.NoSuchFileException if no payload is stored under the key
+     * @throws IOException if the payload cannot be mapped
+     */
+    @Override
+    public InputStream open(String key) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ)) {
+            return new MappedInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Deletes a stored payload.
+     *
+     * @param key the key the payload was stored under
+     * @throws IOException if the file cannot be deleted
+     */
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Finds the file of a key.
+     *
+     * @param key the key
+     * @return the path of the file
+     * @throws IllegalArgumentException if the key could name a file outside the directory
+     */
+    private Path resolve(String key) {
+        if (!KEY.matcher(key).matches() || key.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        return directory.resolve(key);
+    }
+
+    /**
+     * An input stream over a memory-mapped file.
+     */
+    static final class MappedInputStream extends InputStream {
+
+        /**
+         * The mapped file; its position is the read position.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Position {@link #reset()} returns to.
+         */
+        private int mark;
+
+        /**
+         * Constructs a new MappedInputStream.
+         *
+         * @param buffer the mapped file
+         */
+        MappedInputStream(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        /**
+         * Reads one byte.
+         *
+         * @return the byte, or -1 at the end of the file
+         */
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        /**
+         * Reads bytes into an array.
+         *
+         * @param bytes the array
+         * @param offset where the first byte goes
+         * @param length the most bytes to read
+         * @return the number of bytes read, or -1 at the end of the file
+         */
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        /**
+         * Skips bytes.
+         *
+         * @param count the most bytes to skip
+         * @return the number of bytes skipped
+         */
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        /**
+         * Gets the number of bytes left.
+         *
+         * @return the bytes left in the file
+         */
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+
+        /**
+         * Indicates that the stream can be reset to a mark.
+         *
+         * @return true
+         */
+        @Override
+        public boolean markSupported() {
+            return true;
+        }
+
+        /**
+         * Marks the current position.
+         *
+         * @param readLimit ignored, since the whole file stays readable
+         */
+        @Override
+        public synchronized void mark(int readLimit) {
+            mark = buffer.position();
+        }
+
+        /**
+         * Returns to the marked position, or the start if none was marked.
+         */
+        @Override
+        public synchronized void reset() {
+            buffer.position(mark);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.glic.claimcheck;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps payloads in memory, for listeners constructed without a blob store
+ * and for tests.
+ */
+public class InMemoryBlobStore implements BlobStore {
+
+    /**
+     * The payloads by key.
+     */
+    private final Map<String, byte[]> blobs = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new, empty InMemoryBlobStore.
+     */
+    public InMemoryBlobStore() {
+    }
+
+    /**
+     * Stores a copy of a payload.
+     *
+     * @param key the key
+     * @param content the payload
+     */
+    @Override
+    public void put(String key, byte[] content) {
+        blobs.put(key, content.clone());
+    }
+
+    /**
+     * Opens a stored payload for reading.
+     *
+     * @param key the key the payload was stored under
+     * @return a stream over the payload
+     * @throws NoSuchFileException if no payload is stored under the key
+     */
+    @Override
+    public InputStream open(String key) throws NoSuchFileException {
+        byte[] content = blobs.get(key);
+        if (content == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new ByteArrayInputStream(content);
+    }
+
+    /**
+     * Deletes a stored payload.
+     *
+     * @param key the key the payload was stored under
+     */
+    @Override
+    public void delete(String key) {
+        blobs.remove(key);
+    }
+
+    /**
+     * Checks whether a payload is stored.
+     *
+     * @param key the key
+     * @return true if a payload is stored under the key
+     */
+    public boolean contains(String key) {
+        return blobs.containsKey(key);
+    }
+}
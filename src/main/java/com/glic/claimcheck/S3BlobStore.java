@@ -0,0 +1,239 @@
+package com.glic.claimcheck;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.http.ContentStreamProvider;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.auth.aws.signer.AwsV4HttpSigner;
+import software.amazon.awssdk.http.auth.spi.signer.SignedRequest;
+import software.amazon.awssdk.regions.Region;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.NoSuchFileException;
+import java.util.regex.Pattern;
+
+/**
+ * Stores payloads as objects in an S3 bucket, or in any store speaking the
+ * S3 REST API such as MinIO or Ceph. Objects are addressed path-style,
+ * {@code <endpoint>/<bucket>/<prefix><key>}, so a custom endpoint needs no
+ * DNS set up per bucket, and requests are signed with Signature Version 4.
+ * <p>
+ * Reads stream the object body from the HTTP response; nothing is buffered
+ * beyond what the parser asks for. Only the three object operations the
+ * claim check needs are implemented, on the HTTP client the SQS clients
+ * already use, so no S3 SDK is required.
+ */
+public class S3BlobStore implements BlobStore, AutoCloseable {
+
+    /**
+     * Prefixes that are safe in a path without encoding.
+     */
+    private static final Pattern PREFIX = Pattern.compile("[A-Za-z0-9._/-]*");
+
+    /**
+     * Keys that are safe in a path without encoding.
+     */
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9._-]+");
+
+    /**
+     * Sends the requests.
+     */
+    private final SdkHttpClient httpClient;
+
+    /**
+     * Signs the requests.
+     */
+    private final AwsV4HttpSigner signer = AwsV4HttpSigner.create();
+
+    /**
+     * Supplies the credentials requests are signed with.
+     */
+    private final AwsCredentialsProvider credentialsProvider;
+
+    /**
+     * The service endpoint, without a trailing slash.
+     */
+    private final String endpoint;
+
+    /**
+     * The bucket payloads are stored in.
+     */
+    private final String bucket;
+
+    /**
+     * Prepended to every key.
+     */
+    private final String prefix;
+
+    /**
+     * The region requests are signed for.
+     */
+    private final Region region;
+
+    /**
+     * Constructs a new S3BlobStore.
+     *
+     * @param httpClient sends the requests
+     * @param credentialsProvider supplies the credentials requests are signed with
+     * @param endpoint the service endpoint, such as {@code https://s3.us-east-1.amazonaws.com}
+     * @param bucket the bucket payloads are stored in
+     * @param prefix prepended to every key, such as {@code claim-check/}
+     * @param region the region requests are signed for
+     */
+    public S3BlobStore(SdkHttpClient httpClient, AwsCredentialsProvider credentialsProvider, URI endpoint,
+                       String bucket, String prefix, Region region) {
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalArgumentException("An S3 bucket is required");
+        }
+        if (!PREFIX.matcher(prefix).matches()) {
+            throw new IllegalArgumentException("Invalid S3 key prefix: " + prefix);
+        }
+        this.httpClient = httpClient;
+        this.credentialsProvider = credentialsProvider;
+        this.endpoint = endpoint.toString().replaceAll("/+$", "");
+        this.bucket = bucket;
+        this.prefix = prefix;
+        this.region = region;
+    }
+
+    /**
+     * Uploads a payload with PutObject.
+     *
+     * @param key the key
+     * @param content the payload
+     * @throws IOException if the request fails or is refused
+     */
+    @Override
+    public void put(String key, byte[] content) throws IOException {
+        HttpExecuteResponse response = execute(SdkHttpMethod.PUT, key, content);
+        try {
+            check(response, "PUT", key);
+        } finally {
+            close(response);
+        }
+    }
+
+    /**
+     * Streams a payload with GetObject.
+     *
+     * @param key the key the payload was stored under
+     * @return the response body
+     * @throws NoSuchFileException if the object does not exist
+     * @throws IOException if the request fails or is refused
+     */
+    @Override
+    public InputStream open(String key) throws IOException {
+        HttpExecuteResponse response = execute(SdkHttpMethod.GET, key, null);
+        int status = response.httpResponse().statusCode();
+        if (status == 404) {
+            close(response);
+            throw new NoSuchFileException(key);
+        }
+        try {
+            check(response, "GET", key);
+        } catch (IOException e) {
+            close(response);
+            throw e;
+        }
+        if (response.responseBody().isEmpty()) {
+            throw new IOException("S3 GET of " + key + " returned no body");
+        }
+        return response.responseBody().get();
+    }
+
+    /**
+     * Deletes a payload with DeleteObject.
+     *
+     * @param key the key the payload was stored under
+     * @throws IOException if the request fails or is refused
+     */
+    @Override
+    public void delete(String key) throws IOException {
+        HttpExecuteResponse response = execute(SdkHttpMethod.DELETE, key, null);
+        try {
+            if (response.httpResponse().statusCode() != 404) {
+                check(response, "DELETE", key);
+            }
+        } finally {
+            close(response);
+        }
+    }
+
+    /**
+     * Signs and sends a request for an object.
+     *
+     * @param method the HTTP method
+     * @param key the object key, without the prefix
+     * @param content the request body, or null for none
+     * @return the response
+     * @throws IOException if the request cannot be sent
+     */
+    private HttpExecuteResponse execute(SdkHttpMethod method, String key, byte[] content) throws IOException {
+        if (!KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid blob key: " + key);
+        }
+        SdkHttpRequest.Builder request = SdkHttpRequest.builder()
+                .method(method)
+                .uri(URI.create(endpoint + "/" + bucket + "/" + prefix + key));
+        ContentStreamProvider payload = null;
+        if (content != null) {
+            request.putHeader("Content-Length", Integer.toString(content.length));
+            request.putHeader("Content-Type", "application/octet-stream");
+            payload = () -> new ByteArrayInputStream(content);
+        }
+        ContentStreamProvider body = payload;
+        SignedRequest signed = signer.sign(sign -> sign
+                .identity(credentialsProvider.resolveCredentials())
+                .request(request.build())
+                .payload(body)
+                .putProperty(AwsV4HttpSigner.SERVICE_SIGNING_NAME, "s3")
+                .putProperty(AwsV4HttpSigner.REGION_NAME, region.id())
+                .putProperty(AwsV4HttpSigner.DOUBLE_URL_ENCODE, false)
+                .putProperty(AwsV4HttpSigner.NORMALIZE_PATH, false));
+        return httpClient.prepareRequest(HttpExecuteRequest.builder()
+                .request(signed.request())
+                .contentStreamProvider(signed.payload().orElse(null))
+                .build()).call();
+    }
+
+    /**
+     * Closes the HTTP client.
+     */
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    /**
+     * Fails unless a response reports success.
+     *
+     * @param response the response
+     * @param operation the HTTP method, for the message
+     * @param key the object key, for the message
+     * @throws IOException if the status is not 2xx
+     */
+    private static void check(HttpExecuteResponse response, String operation, String key) throws IOException {
+        int status = response.httpResponse().statusCode();
+        if (status < 200 || status >= 300) {
+            throw new IOException("S3 " + operation + " of " + key + " returned status " + status);
+        }
+    }
+
+    /**
+     * Releases the connection of a response whose body is not read.
+     *
+     * @param response the response
+     * @throws IOException if the body cannot be closed
+     */
+    private static void close(HttpExecuteResponse response) throws IOException {
+        if (response.responseBody().isPresent()) {
+            response.responseBody().get().close();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.glic.compression;
+
+/**
+ * Thrown when a compressed message body cannot be decoded: its encoding is
+ * unknown, it is not valid Base64, or the compressed data is corrupt. No
+ * retry can fix such a message.
+ */
+public class MalformedPayloadException extends RuntimeException {
+
+    /**
+     * Constructs a new MalformedPayloadException.
+     *
+     * @param message the reason the body cannot be decoded
+     */
+    public MalformedPayloadException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new MalformedPayloadException.
+     *
+     * @param message the reason the body cannot be decoded
+     * @param cause the failure of the decoder
+     */
+    public MalformedPayloadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,139 @@
+package com.glic.compression;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compresses message bodies before they are sent to SQS and restores them
+ * when they are received. Product descriptions are verbose text and SQS
+ * bills every 64 KB of a message, so a body of at least
+ * {@code aws.sqs.compression.threshold-bytes} is compressed with the codec
+ * named by {@code aws.sqs.compression.codec}, Base64-encoded to remain a
+ * valid message body, and flagged with the {@value #ATTRIBUTE} message
+ * attribute. Smaller bodies, and bodies that would not get smaller, are
+ * sent as they are.
+ * <p>
+ * Receivers go by the attribute alone: a message without it is read as
+ * plain text, so consumers keep reading messages from producers that do not
+ * compress, and every codec is decoded whatever this side is configured to
+ * send.
+ */
+@Component
+public class MessageCompression {
+
+    /**
+     * Message attribute naming the codec a body was compressed with.
+     */
+    public static final String ATTRIBUTE = "content-encoding";
+
+    /**
+     * A body ready to be sent.
+     *
+     * @param body the message body, compressed or as given
+     * @param attributes the message attributes to send it with; empty for a plain body
+     */
+    public record Encoded(String body, Map<String, MessageAttributeValue> attributes) {
+    }
+
+    /**
+     * Whether bodies are compressed on send.
+     */
+    private final boolean enabled;
+
+    /**
+     * The codec bodies are compressed with.
+     */
+    private final PayloadCodec codec;
+
+    /**
+     * Smallest body compressed, in UTF-8 bytes.
+     */
+    private final int thresholdBytes;
+
+    /**
+     * Constructs a new MessageCompression.
+     *
+     * @param enabled whether bodies are compressed on send
+     * @param codec the encoding name of the codec bodies are compressed with
+     * @param thresholdBytes smallest body compressed, in UTF-8 bytes
+     */
+    @Autowired
+    public MessageCompression(
+            @Value("${aws.sqs.compression.enabled:true}") boolean enabled,
+            @Value("${aws.sqs.compression.codec:gzip}") String codec,
+            @Value("${aws.sqs.compression.threshold-bytes:1024}") int thresholdBytes) {
+        this.enabled = enabled;
+        this.codec = PayloadCodec.forEncoding(codec);
+        this.thresholdBytes = thresholdBytes;
+    }
+
+    /**
+     * Compresses a body if it is large enough and compression pays off.
+     *
+     * @param body the message body
+     * @return the body to send and its attributes
+     */
+    public Encoded encode(String body) {
+        if (!enabled || body.length() * 3 < thresholdBytes) {
+            return new Encoded(body, Map.of());
+        }
+        byte[] plain = body.getBytes(StandardCharsets.UTF_8);
+        if (plain.length < thresholdBytes) {
+            return new Encoded(body, Map.of());
+        }
+        byte[] compressed = codec.compress(plain);
+        if ((compressed.length + 2) / 3 * 4 >= plain.length) {
+            return new Encoded(body, Map.of());
+        }
+        return new Encoded(Base64.getEncoder().encodeToString(compressed), Map.of(ATTRIBUTE,
+                MessageAttributeValue.builder().dataType("String").stringValue(codec.encoding()).build()));
+    }
+
+    /**
+     * Restores the body of a received message.
+     *
+     * @param message the message, received with the {@value #ATTRIBUTE} attribute
+     * @return the body as it was before compression
+     * @throws MalformedPayloadException if the body cannot be decoded
+     */
+    public static String decode(Message message) {
+        MessageAttributeValue encoding = message.messageAttributes().get(ATTRIBUTE);
+        if (encoding == null) {
+            return message.body();
+        }
+        byte[] compressed;
+        try {
+            compressed = Base64.getDecoder().decode(message.body());
+        } catch (IllegalArgumentException e) {
+            throw new MalformedPayloadException("Compressed body is not valid Base64", e);
+        }
+        return new String(PayloadCodec.forEncoding(encoding.stringValue()).decompress(compressed),
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Replaces a compressed message with its plain equivalent, so failure
+     * handling and quarantine see and re-send the original body.
+     *
+     * @param message the message
+     * @return the message itself if it is not compressed, otherwise a copy
+     *         with the decoded body and without the {@value #ATTRIBUTE} attribute
+     * @throws MalformedPayloadException if the body cannot be decoded
+     */
+    public static Message decompressed(Message message) {
+        if (!message.messageAttributes().containsKey(ATTRIBUTE)) {
+            return message;
+        }
+        Map<String, MessageAttributeValue> attributes = new HashMap<>(message.messageAttributes());
+        attributes.remove(ATTRIBUTE);
+        return message.toBuilder().body(decode(message)).messageAttributes(attributes).build();
+    }
+}
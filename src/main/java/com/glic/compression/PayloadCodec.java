@@ -0,0 +1,350 @@
+package com.glic.compression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdCompressCtx;
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compression algorithms for message bodies.
+ * <p>
+ * Compressors, decompressors and the buffers they write to are pooled, so
+ * compressing a message allocates no native zlib or zstd state and only the
+ * result array. Both codecs refuse to expand a body beyond
+ * {@link #MAX_DECODED_BYTES}, so a crafted message cannot exhaust the heap.
+ */
+public enum PayloadCodec {
+
+    /**
+     * Gzip (RFC 1952), readable by any gzip tool.
+     */
+    GZIP("gzip") {
+        @Override
+        byte[] compress(byte[] data) {
+            Deflater deflater = DEFLATERS.take();
+            Buffer out = BUFFERS.take();
+            try {
+                out.append(GZIP_HEADER, 0, GZIP_HEADER.length);
+                deflater.setInput(data);
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.reserve(data.length / 4 + 64);
+                    out.length += deflater.deflate(out.data, out.length, out.data.length - out.length);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(data);
+                out.appendIntLe((int) crc.getValue());
+                out.appendIntLe(data.length);
+                return out.toByteArray();
+            } finally {
+                deflater.reset();
+                DEFLATERS.give(deflater);
+                out.length = 0;
+                BUFFERS.give(out);
+            }
+        }
+
+        @Override
+        byte[] decompress(byte[] data) {
+            int offset = gzipHeaderLength(data);
+            if (data.length - offset < 8) {
+                throw new MalformedPayloadException("Gzip data is truncated");
+            }
+            Inflater inflater = INFLATERS.take();
+            Buffer out = BUFFERS.take();
+            try {
+                inflater.setInput(data, offset, data.length - offset - 8);
+                while (!inflater.finished()) {
+                    if (out.length >= MAX_DECODED_BYTES) {
+                        throw new MalformedPayloadException("Gzip data expands beyond " + MAX_DECODED_BYTES
+                                + " bytes");
+                    }
+                    out.reserve(Math.max(data.length * 4, 4096));
+                    int inflated = inflater.inflate(out.data, out.length, out.data.length - out.length);
+                    if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        throw new MalformedPayloadException("Gzip data is truncated");
+                    }
+                    out.length += inflated;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(out.data, 0, out.length);
+                int trailer = data.length - 8;
+                if (readIntLe(data, trailer) != (int) crc.getValue() || readIntLe(data, trailer + 4) != out.length) {
+                    throw new MalformedPayloadException("Gzip checksum does not match the data");
+                }
+                return out.toByteArray();
+            } catch (DataFormatException e) {
+                throw new MalformedPayloadException("Gzip data is corrupt", e);
+            } finally {
+                inflater.reset();
+                INFLATERS.give(inflater);
+                out.length = 0;
+                BUFFERS.give(out);
+            }
+        }
+    },
+
+    /**
+     * Zstandard (RFC 8878), which compresses about as well as gzip at a
+     * fraction of the CPU cost.
+     */
+    ZSTD("zstd") {
+        @Override
+        byte[] compress(byte[] data) {
+            ZstdCompressCtx context = ZSTD_COMPRESSORS.take();
+            try {
+                return context.compress(data);
+            } finally {
+                context.reset();
+                context.setLevel(ZSTD_LEVEL);
+                ZSTD_COMPRESSORS.give(context);
+            }
+        }
+
+        @Override
+        byte[] decompress(byte[] data) {
+            long size;
+            try {
+                size = Zstd.decompressedSize(data);
+            } catch (ZstdException e) {
+                throw new MalformedPayloadException("Zstd data is corrupt", e);
+            }
+            if (size <= 0 || size > MAX_DECODED_BYTES) {
+                throw new MalformedPayloadException("Zstd frame size " + size + " is missing or too large");
+            }
+            ZstdDecompressCtx context = ZSTD_DECOMPRESSORS.take();
+            try {
+                return context.decompress(data, (int) size);
+            } catch (ZstdException e) {
+                throw new MalformedPayloadException("Zstd data is corrupt", e);
+            } finally {
+                context.reset();
+                ZSTD_DECOMPRESSORS.give(context);
+            }
+        }
+    };
+
+    /**
+     * Largest body either codec expands a message to, in bytes.
+     */
+    public static final int MAX_DECODED_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Gzip member header: deflate, no flags, no modification time, unknown OS.
+     */
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    /**
+     * Zstd compression level; 3 is the library default.
+     */
+    private static final int ZSTD_LEVEL = 3;
+
+    /**
+     * Most idle objects kept in each pool.
+     */
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    /**
+     * Largest buffer given back to the pool; a larger one is left to the garbage collector.
+     */
+    private static final int MAX_POOLED_BUFFER = 1024 * 1024;
+
+    /**
+     * Raw deflate compressors; the gzip framing is written around their output.
+     */
+    private static final ResourcePool<Deflater> DEFLATERS = new ResourcePool<>(POOL_SIZE,
+            () -> new Deflater(Deflater.DEFAULT_COMPRESSION, true), deflater -> true, Deflater::end);
+
+    /**
+     * Raw deflate decompressors.
+     */
+    private static final ResourcePool<Inflater> INFLATERS = new ResourcePool<>(POOL_SIZE,
+            () -> new Inflater(true), inflater -> true, Inflater::end);
+
+    /**
+     * Zstd compression contexts.
+     */
+    private static final ResourcePool<ZstdCompressCtx> ZSTD_COMPRESSORS = new ResourcePool<>(POOL_SIZE,
+            () -> new ZstdCompressCtx().setLevel(ZSTD_LEVEL), context -> true, ZstdCompressCtx::close);
+
+    /**
+     * Zstd decompression contexts.
+     */
+    private static final ResourcePool<ZstdDecompressCtx> ZSTD_DECOMPRESSORS = new ResourcePool<>(POOL_SIZE,
+            ZstdDecompressCtx::new, context -> true, ZstdDecompressCtx::close);
+
+    /**
+     * Buffers gzip output is written to.
+     */
+    private static final ResourcePool<Buffer> BUFFERS = new ResourcePool<>(POOL_SIZE,
+            Buffer::new, buffer -> buffer.data.length <= MAX_POOLED_BUFFER, buffer -> { });
+
+    /**
+     * Name of the codec in the message attribute.
+     */
+    private final String encoding;
+
+    /**
+     * Constructs a new PayloadCodec.
+     *
+     * @param encoding name of the codec in the message attribute
+     */
+    PayloadCodec(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Gets the name of the codec in the message attribute.
+     *
+     * @return the encoding name
+     */
+    public String encoding() {
+        return encoding;
+    }
+
+    /**
+     * Finds a codec by its encoding name.
+     *
+     * @param encoding the encoding name, in any case
+     * @return the codec
+     * @throws MalformedPayloadException if no codec has that name
+     */
+    public static PayloadCodec forEncoding(String encoding) {
+        for (PayloadCodec codec : values()) {
+            if (codec.encoding.equalsIgnoreCase(encoding)) {
+                return codec;
+            }
+        }
+        throw new MalformedPayloadException("Unknown content encoding: " + encoding);
+    }
+
+    /**
+     * Compresses data.
+     *
+     * @param data the data
+     * @return the compressed data
+     */
+    abstract byte[] compress(byte[] data);
+
+    /**
+     * Decompresses data compressed by this codec.
+     *
+     * @param data the compressed data
+     * @return the data
+     * @throws MalformedPayloadException if the data is corrupt or expands beyond {@link #MAX_DECODED_BYTES}
+     */
+    abstract byte[] decompress(byte[] data);
+
+    /**
+     * Measures the header of a gzip member, skipping the optional fields
+     * other gzip writers may set.
+     *
+     * @param data the gzip data
+     * @return the offset of the deflate data
+     * @throws MalformedPayloadException if the data does not start with a gzip header
+     */
+    private static int gzipHeaderLength(byte[] data) {
+        if (data.length < 10 || data[0] != 0x1f || data[1] != (byte) 0x8b || data[2] != 8) {
+            throw new MalformedPayloadException("Not gzip data");
+        }
+        int flags = data[3];
+        int offset = 10;
+        if ((flags & 4) != 0 && data.length >= 12) {
+            offset += 2 + ((data[10] & 0xff) | (data[11] & 0xff) << 8);
+        }
+        for (int flag : new int[] {8, 16}) {
+            if ((flags & flag) != 0) {
+                while (offset < data.length && data[offset] != 0) {
+                    offset++;
+                }
+                offset++;
+            }
+        }
+        if ((flags & 2) != 0) {
+            offset += 2;
+        }
+        if (offset > data.length) {
+            throw new MalformedPayloadException("Gzip header is truncated");
+        }
+        return offset;
+    }
+
+    /**
+     * Reads a little-endian 32-bit integer.
+     *
+     * @param data the bytes
+     * @param offset where the integer starts
+     * @return the integer
+     */
+    private static int readIntLe(byte[] data, int offset) {
+        return (data[offset] & 0xff) | (data[offset + 1] & 0xff) << 8
+                | (data[offset + 2] & 0xff) << 16 | (data[offset + 3] & 0xff) << 24;
+    }
+
+    /**
+     * A growable byte array that gzip output is written to.
+     */
+    private static final class Buffer {
+
+        /**
+         * The bytes; only the first {@link #length} are written.
+         */
+        private byte[] data = new byte[8192];
+
+        /**
+         * Number of bytes written.
+         */
+        private int length;
+
+        /**
+         * Makes room for at least the given number of bytes after those written.
+         *
+         * @param bytes the bytes needed
+         */
+        void reserve(int bytes) {
+            if (data.length - length < bytes) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + bytes));
+            }
+        }
+
+        /**
+         * Appends bytes.
+         *
+         * @param bytes the bytes
+         * @param offset the first byte to append
+         * @param count the number of bytes to append
+         */
+        void append(byte[] bytes, int offset, int count) {
+            reserve(count);
+            System.arraycopy(bytes, offset, data, length, count);
+            length += count;
+        }
+
+        /**
+         * Appends a little-endian 32-bit integer.
+         *
+         * @param value the integer
+         */
+        void appendIntLe(int value) {
+            reserve(4);
+            for (int i = 0; i < 4; i++) {
+                data[length++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        /**
+         * Copies out the bytes written.
+         *
+         * @return the bytes
+         */
+        byte[] toByteArray() {
+            return Arrays.copyOf(data, length);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.glic.compression;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of reusable objects that are costly to create, such as
+ * native compression contexts and large buffers. Taking never blocks: an
+ * empty pool creates a new object, and an object given back to a full pool
+ * is discarded, so the pool only caps how many idle objects are kept.
+ *
+ * @param <T> the type of the pooled objects
+ */
+final class ResourcePool<T> {
+
+    /**
+     * The idle objects.
+     */
+    private final BlockingQueue<T> idle;
+
+    /**
+     * Creates an object when the pool is empty.
+     */
+    private final Supplier<T> factory;
+
+    /**
+     * Decides whether an object given back is worth keeping.
+     */
+    private final Predicate<T> reusable;
+
+    /**
+     * Releases an object that is not kept.
+     */
+    private final Consumer<T> discard;
+
+    /**
+     * Constructs a new ResourcePool.
+     *
+     * @param capacity the most idle objects kept
+     * @param factory creates an object when the pool is empty
+     * @param reusable decides whether an object given back is worth keeping
+     * @param discard releases an object that is not kept
+     */
+    ResourcePool(int capacity, Supplier<T> factory, Predicate<T> reusable, Consumer<T> discard) {
+        this.idle = new ArrayBlockingQueue<>(capacity);
+        this.factory = factory;
+        this.reusable = reusable;
+        this.discard = discard;
+    }
+
+    /**
+     * Takes an idle object, or creates one.
+     *
+     * @return the object, to be given back once used
+     */
+    T take() {
+        T object = idle.poll();
+        return object != null ? object : factory.get();
+    }
+
+    /**
+     * Gives an object back to the pool. The caller must have reset it.
+     *
+     * @param object the object taken from this pool
+     */
+    void give(T object) {
+        if (!reusable.test(object) || !idle.offer(object)) {
+            discard.accept(object);
+        }
+    }
+}
@@ -1,20 +1,46 @@
 package com.glic.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.glic.claimcheck.BlobStore;
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.claimcheck.FileSystemBlobStore;
+import com.glic.claimcheck.S3BlobStore;
+import com.glic.journal.JournalReplayer;
+import com.glic.json.ProductModule;
+import com.glic.listener.ListenerMetrics;
+import com.glic.listener.ListenerProperties;
+import com.glic.listener.ListenerSettings;
+import com.glic.listener.ProductMessageValidator;
+import com.glic.logging.PayloadSampler;
+import com.glic.quarantine.MessageFailureHandler;
+import com.glic.service.DeadlineRequestFactory;
+import com.glic.service.RestApiMetrics;
 import com.glic.service.RestApiService;
+import com.glic.service.WireFormat;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
 import software.amazon.awssdk.services.sqs.SqsClient;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
 /**
  * Configuration class for AWS and application components.
  * Provides beans for AWS SQS client, ObjectMapper, and REST API service.
  * This class handles the configuration of AWS SQS client and various application services.
  */
 @Configuration
+@EnableConfigurationProperties(ListenerProperties.class)
 public class Config {
 
     /**
@@ -48,14 +74,67 @@ public class Config {
     @Value("${api.base.url}")
     private String restApiBaseUrl;
 
+    /**
+     * The serialization format the REST API client uses for product writes.
+     */
+    @Value("${api.client.format:json}")
+    private WireFormat restApiClientFormat;
+
+    /**
+     * Connect timeout of REST API calls, in milliseconds.
+     */
+    @Value("${api.client.connect-timeout-ms:2000}")
+    private long restApiConnectTimeoutMs;
+
+    /**
+     * Response timeout of REST API calls made without a closer deadline, in milliseconds.
+     */
+    @Value("${api.client.response-timeout-ms:10000}")
+    private long restApiResponseTimeoutMs;
+
+    /**
+     * Where claim-checked payloads are stored: filesystem or s3.
+     */
+    @Value("${aws.sqs.claim-check.store:filesystem}")
+    private String claimCheckStore;
+
+    /**
+     * Directory claim-checked payloads are stored in by the filesystem store.
+     */
+    @Value("${aws.sqs.claim-check.directory:${java.io.tmpdir}/sqs-claim-check}")
+    private String claimCheckDirectory;
+
+    /**
+     * Endpoint of the S3-compatible store; empty for AWS S3 in {@link #awsRegion}.
+     */
+    @Value("${aws.sqs.claim-check.s3.endpoint:}")
+    private String claimCheckS3Endpoint;
+
+    /**
+     * Bucket claim-checked payloads are stored in by the S3 store.
+     */
+    @Value("${aws.sqs.claim-check.s3.bucket:}")
+    private String claimCheckS3Bucket;
+
+    /**
+     * Prefix of the keys of claim-checked payloads in the S3 bucket.
+     */
+    @Value("${aws.sqs.claim-check.s3.prefix:claim-check/}")
+    private String claimCheckS3Prefix;
+
     /**
      * Creates and configures a RestTemplate bean for making HTTP requests.
+     * Backed by Apache HttpClient so connections are pooled and gzip-encoded
+     * responses are requested and decompressed transparently. Calls time out
+     * after the configured connect and response timeouts, or sooner when made
+     * within a {@link com.glic.service.RequestDeadline}.
      *
      * @return A configured RestTemplate instance
      */
     @Bean
     public RestTemplate restTemplate() {
-        return new RestTemplate();
+        return new RestTemplate(new DeadlineRequestFactory(Duration.ofMillis(restApiConnectTimeoutMs),
+                Duration.ofMillis(restApiResponseTimeoutMs)));
     }
 
     /**
@@ -73,14 +152,52 @@ public class Config {
                 .build();
     }
 
+    /**
+     * Creates an asynchronous AWS SQS client bean, backed by the non-blocking
+     * Netty HTTP client, for receives that must not hold a thread while long polling.
+     * Credentials are resolved the same way as for {@link #sqsClient()}.
+     *
+     * @return a configured SqsAsyncClient instance
+     */
+    @Bean
+    public SqsAsyncClient sqsAsyncClient() {
+        return SqsAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .build();
+    }
+
+    /**
+     * Creates the store claim-checked payloads are written to. The filesystem
+     * store maps payloads into memory on read and suits tests and on-premises
+     * deployments with a shared volume; the S3 store talks to AWS S3 or any
+     * S3-compatible endpoint, with credentials from the default provider chain.
+     *
+     * @return the blob store selected by {@code aws.sqs.claim-check.store}
+     * @throws IOException if the filesystem store's directory cannot be created
+     */
+    @Bean
+    public BlobStore blobStore() throws IOException {
+        if ("s3".equalsIgnoreCase(claimCheckStore)) {
+            URI endpoint = URI.create(claimCheckS3Endpoint.isBlank()
+                    ? "https://s3." + awsRegion + ".amazonaws.com" : claimCheckS3Endpoint);
+            return new S3BlobStore(ApacheHttpClient.create(), DefaultCredentialsProvider.create(), endpoint,
+                    claimCheckS3Bucket, claimCheckS3Prefix, Region.of(awsRegion));
+        }
+        return new FileSystemBlobStore(Path.of(claimCheckDirectory));
+    }
+
     /**
      * Creates an ObjectMapper bean for JSON serialization/deserialization.
+     * Products are read by the streaming {@link ProductModule} deserializer;
+     * other types use Blackbird's generated accessors instead of reflection.
      *
      * @return a configured ObjectMapper instance
      */
     @Bean
     public ObjectMapper objectMapper() {
-        return new ObjectMapper();
+        return new ObjectMapper()
+                .registerModule(new BlackbirdModule())
+                .registerModule(new ProductModule());
     }
 
     /**
@@ -88,10 +205,48 @@ public class Config {
      *
      * @param restTemplate the RestTemplate instance for making HTTP requests
      * @param objectMapper the ObjectMapper instance for JSON serialization/deserialization
+     * @param restApiMetrics the meters REST API calls are recorded in
+     * @param payloadSampler decides which request and response bodies are logged
      * @return a configured RestApiService instance
      */
     @Bean
-    public RestApiService restApiService(RestTemplate restTemplate, ObjectMapper objectMapper) {
-        return new RestApiService(restTemplate, objectMapper, restApiBaseUrl);
+    public RestApiService restApiService(RestTemplate restTemplate, ObjectMapper objectMapper,
+                                         RestApiMetrics restApiMetrics, PayloadSampler payloadSampler) {
+        return new RestApiService(restTemplate, objectMapper, restApiBaseUrl, restApiClientFormat, restApiMetrics,
+                payloadSampler);
+    }
+
+    /**
+     * Collects what the SQS message listener is built from.
+     *
+     * @param sqsClient the AWS SQS client for queue operations
+     * @param objectMapper the ObjectMapper products are read with
+     * @param restApiService the service for making REST API calls
+     * @param messageValidator checks parsed products with the application's validator
+     * @param metrics the meters message processing is recorded in
+     * @param payloadSampler decides which message bodies are logged
+     * @param failureHandler quarantines or schedules retries of failed messages
+     * @param claimCheck opens and releases the payloads of claim-checked messages
+     * @param journal spills products to the local journal while the product API is failing
+     * @param properties the queues to consume and the worker budget they share
+     * @param pollingEnabled whether the listener starts with the application
+     * @return the listener settings
+     */
+    @Bean
+    public ListenerSettings listenerSettings(SqsClient sqsClient, ObjectMapper objectMapper,
+                                             RestApiService restApiService,
+                                             ProductMessageValidator messageValidator, ListenerMetrics metrics,
+                                             PayloadSampler payloadSampler, MessageFailureHandler failureHandler,
+                                             ClaimCheck claimCheck, JournalReplayer journal,
+                                             ListenerProperties properties,
+                                             @Value("${aws.sqs.polling.enabled:true}") boolean pollingEnabled) {
+        return new ListenerSettings(sqsClient, objectMapper, restApiService, sqsQueueUrl, messageValidator)
+                .metrics(metrics)
+                .payloadSampler(payloadSampler)
+                .failureHandler(failureHandler)
+                .claimCheck(claimCheck)
+                .journal(journal)
+                .properties(properties)
+                .pollingEnabled(pollingEnabled);
     }
 }
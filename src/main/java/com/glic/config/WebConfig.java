@@ -0,0 +1,71 @@
+package com.glic.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.service.WireFormat;
+import jakarta.servlet.Filter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuration class for HTTP content negotiation.
+ * Registers Smile and CBOR message converters next to the default JSON one so
+ * that product endpoints can read and write binary payloads when the client
+ * asks for them through Accept or Content-Type. Both converters reuse the
+ * configuration of the application's ObjectMapper. Because the product
+ * endpoints answer the same URL in different formats, their responses carry
+ * {@code Vary: Accept} so caches keep one entry per format.
+ */
+@Configuration
+public class WebConfig {
+
+    /**
+     * Default constructor for WebConfig.
+     * Required by Spring for configuration class instantiation.
+     */
+    public WebConfig() {
+    }
+
+    /**
+     * Creates the message converter for {@code application/x-jackson-smile}.
+     *
+     * @param objectMapper the application's JSON ObjectMapper
+     * @return a configured Smile message converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2SmileHttpMessageConverter(WireFormat.SMILE.mapper(objectMapper));
+    }
+
+    /**
+     * Creates the message converter for {@code application/cbor}.
+     *
+     * @param objectMapper the application's JSON ObjectMapper
+     * @return a configured CBOR message converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(ObjectMapper objectMapper) {
+        return new MappingJackson2CborHttpMessageConverter(WireFormat.CBOR.mapper(objectMapper));
+    }
+
+    /**
+     * Adds {@code Vary: Accept} to every product endpoint response, including
+     * 304 Not Modified and error responses, before the handler runs.
+     *
+     * @return the filter registration for {@code /api/products/*}
+     */
+    @Bean
+    public FilterRegistrationBean<Filter> varyAcceptFilter() {
+        FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+            ((HttpServletResponse) response).addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            chain.doFilter(request, response);
+        });
+        registration.addUrlPatterns("/api/products", "/api/products/*");
+        registration.setName("varyAcceptFilter");
+        return registration;
+    }
+}
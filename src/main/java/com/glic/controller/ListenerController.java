@@ -0,0 +1,178 @@
+package com.glic.controller;
+
+import com.glic.listener.ListenerStatus;
+import com.glic.listener.QueueLane;
+import com.glic.listener.SqsMessageListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Admin endpoints controlling the SQS listener at runtime, so ingestion can be
+ * throttled or stopped during an incident without a redeploy. Every endpoint
+ * answers with the listener status after the change. Sizes set here are
+ * overridden by the autoscaler on its next run if autoscaling is enabled.
+ */
+@RestController
+@RequestMapping("/api/admin/listener")
+public class ListenerController {
+
+    /**
+     * Logger for this class.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ListenerController.class);
+
+    /**
+     * Longest drain wait an admin request may ask for, in seconds.
+     */
+    private static final long MAX_DRAIN_SECONDS = 300;
+
+    /**
+     * The listener being controlled.
+     */
+    private final SqsMessageListener listener;
+
+    /**
+     * Constructor for ListenerController.
+     *
+     * @param listener the listener being controlled
+     */
+    public ListenerController(SqsMessageListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Shows the listener state, its workers and every queue.
+     *
+     * @return the listener status
+     */
+    @GetMapping
+    public ListenerStatus status() {
+        return listener.getStatus();
+    }
+
+    /**
+     * Starts a stopped listener, or resumes a paused one.
+     *
+     * @return the listener status
+     */
+    @PostMapping("/start")
+    public ListenerStatus start() {
+        logger.info("Admin: starting listener");
+        listener.start();
+        return listener.getStatus();
+    }
+
+    /**
+     * Stops the listener: buffered messages are made visible on their queues
+     * again and messages being processed are given the shutdown timeout to finish.
+     *
+     * @return the listener status
+     */
+    @PostMapping("/stop")
+    public ListenerStatus stop() {
+        logger.info("Admin: stopping listener");
+        listener.stop();
+        return listener.getStatus();
+    }
+
+    /**
+     * Stops receiving new messages; messages already received are still processed.
+     *
+     * @return the listener status
+     */
+    @PostMapping("/pause")
+    public ListenerStatus pause() {
+        logger.info("Admin: pausing listener");
+        listener.pause();
+        return listener.getStatus();
+    }
+
+    /**
+     * Resumes receiving messages.
+     *
+     * @return the listener status
+     */
+    @PostMapping("/resume")
+    public ListenerStatus resume() {
+        logger.info("Admin: resuming listener");
+        listener.resume();
+        return listener.getStatus();
+    }
+
+    /**
+     * Pauses receiving and waits for the messages already received to be processed.
+     *
+     * @param timeoutSeconds how long to wait, at most 300 seconds; 0 returns at once
+     * @return the listener status, PAUSED if it drained in time and DRAINING otherwise
+     */
+    @PostMapping("/drain")
+    public ListenerStatus drain(@RequestParam(defaultValue = "30") long timeoutSeconds) {
+        logger.info("Admin: draining listener for up to {} s", timeoutSeconds);
+        listener.drain(Duration.ofSeconds(Math.max(0, Math.min(timeoutSeconds, MAX_DRAIN_SECONDS))));
+        return listener.getStatus();
+    }
+
+    /**
+     * Changes the number of worker threads shared by all queues.
+     *
+     * @param count the new worker count
+     * @return the listener status, or 400 if the count is not positive
+     */
+    @PutMapping("/workers")
+    public ResponseEntity<ListenerStatus> resizeWorkers(@RequestParam int count) {
+        if (count < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Admin: resizing listener workers to {}", count);
+        listener.resizeWorkers(count);
+        return ResponseEntity.ok(listener.getStatus());
+    }
+
+    /**
+     * Changes a queue's concurrency, pollers and receive batch size; omitted values are kept.
+     *
+     * @param name the queue name
+     * @param concurrency the new concurrency limit, clamped to the queue's maximum
+     * @param pollers the new number of receive loops
+     * @param batchSize the new maximum number of messages per receive, between 1 and 10
+     * @return the listener status, 404 if there is no such queue, or 400 if a value is out of range
+     */
+    @PutMapping("/queues/{name}")
+    public ResponseEntity<ListenerStatus> resizeQueue(
+            @PathVariable String name,
+            @RequestParam Optional<Integer> concurrency,
+            @RequestParam Optional<Integer> pollers,
+            @RequestParam Optional<Integer> batchSize) {
+        Optional<QueueLane> lane = listener.findLane(name);
+        if (lane.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (concurrency.orElse(1) < 1 || pollers.orElse(1) < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        QueueLane queue = lane.get();
+        try {
+            batchSize.ifPresent(queue::setBatchSize);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Admin: rejected batch size for queue {}: {}", name, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        int newConcurrency = concurrency.orElse(queue.getConcurrency());
+        int newPollers = pollers.orElse(queue.getPollerCount());
+        logger.info("Admin: resizing queue {} to concurrency {}, pollers {}, batch size {}", name,
+                newConcurrency, newPollers, queue.getBatchSize());
+        listener.resizeLane(queue, newConcurrency, newPollers);
+        return ResponseEntity.ok(listener.getStatus());
+    }
+}
@@ -1,12 +1,29 @@
 package com.glic.controller;
 
 import com.glic.model.Product;
+import com.glic.readmodel.ProductReadStore;
+import com.glic.search.ProductSearchIndex;
+import com.glic.search.SearchHit;
+import com.glic.service.CatalogueVersion;
 import com.glic.service.ProductService;
+import com.glic.service.ProductWriteBehind;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST controller for managing Product entities.
@@ -26,41 +43,138 @@ public class ProductController {
      */
     private final ProductService productService;
 
+    /**
+     * Optional in-memory read store; null when {@code products.read-store.enabled} is off.
+     */
+    private final ProductReadStore readStore;
+
+    /**
+     * Catalogue-wide change counter used to compute ETags.
+     */
+    private final CatalogueVersion catalogueVersion;
+
+    /**
+     * Optional write-behind buffer for creates; null when {@code products.write-behind.enabled} is off.
+     */
+    private final ProductWriteBehind writeBehind;
+
+    /**
+     * Optional keyword search index; null when {@code products.search.enabled} is off.
+     */
+    private final ProductSearchIndex searchIndex;
+
     /**
      * Constructor for ProductController.
      *
      * @param productService the service for product operations
+     * @param readStore provider of the optional in-memory read store
+     * @param catalogueVersion the change counter used to compute ETags
+     * @param writeBehind provider of the optional write-behind buffer for creates
+     * @param searchIndex provider of the optional keyword search index
      */
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ObjectProvider<ProductReadStore> readStore,
+                             CatalogueVersion catalogueVersion, ObjectProvider<ProductWriteBehind> writeBehind,
+                             ObjectProvider<ProductSearchIndex> searchIndex) {
         this.productService = productService;
+        this.readStore = readStore.getIfAvailable();
+        this.catalogueVersion = catalogueVersion;
+        this.writeBehind = writeBehind.getIfAvailable();
+        this.searchIndex = searchIndex.getIfAvailable();
     }
 
     /**
      * Retrieves all products.
+     * When the read store is ready the pre-serialized catalogue is returned as is.
+     * Responds with 304 Not Modified when the client's If-None-Match matches the
+     * current catalogue ETag, without loading anything.
      *
-     * @return a list of all products
+     * @param request the current request, used for conditional GET handling
+     * @return a list of all products, or null when a 304 has already been prepared
      */
     @GetMapping
-    public List<Product> getAllProducts() {
+    public ResponseEntity<?> getAllProducts(WebRequest request) {
         logger.debug("Controller: Getting all products");
+        String etag = catalogueVersion.etag();
+        if (request.checkNotModified(etag)) {
+            logger.debug("Controller: Catalogue not modified since {}", etag);
+            return null;
+        }
+        if (canServeFromReadStore(request)) {
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(readStore.snapshot().listJson());
+        }
         List<Product> products = productService.getAllProducts();
         logger.debug("Controller: Found {} products", products.size());
-        return products;
+        return ResponseEntity.ok().eTag(etag).body(products);
+    }
+
+    /**
+     * Searches product names and descriptions for keywords.
+     * Every word of the query must appear in the product, either whole or as
+     * the start of a longer word, and products are returned best match first.
+     *
+     * @param query the keywords
+     * @param limit the most products returned
+     * @return ResponseEntity containing the matching products, 404 if search
+     *         is not enabled, or 503 while the index is still loading
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam("q") String query,
+                                                        @RequestParam(defaultValue = "20") int limit) {
+        logger.debug("Controller: Searching products for: {}", query);
+        if (searchIndex == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!searchIndex.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        List<SearchHit> hits = searchIndex.search(query, limit);
+        Map<Long, Product> found = productService.getProductsByIds(hits.stream().map(SearchHit::productId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<Product> products = hits.stream()
+                .map(hit -> found.get(hit.productId()))
+                .filter(Objects::nonNull)
+                .toList();
+        logger.debug("Controller: Found {} products for: {}", products.size(), query);
+        return ResponseEntity.ok(products);
     }
 
     /**
      * Retrieves a product by its ID.
+     * When the read store is ready the pre-serialized product is returned as is.
+     * Responds with 304 Not Modified when the client's If-None-Match matches the
+     * current catalogue ETag, without loading anything.
      *
      * @param id the ID of the product to find
-     * @return ResponseEntity containing the product if found, or 404 if not found
+     * @param request the current request, used for conditional GET handling
+     * @return ResponseEntity containing the product if found, or 404 if not found,
+     *         or null when a 304 has already been prepared
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
+    public ResponseEntity<?> getProductById(@PathVariable Long id, WebRequest request) {
         logger.debug("Controller: Getting product with id: {}", id);
+        String etag = catalogueVersion.etag();
+        if (request.checkNotModified(etag)) {
+            logger.debug("Controller: Product {} not modified since {}", id, etag);
+            return null;
+        }
+        if (canServeFromReadStore(request)) {
+            byte[] body = readStore.snapshot().get(id);
+            if (body == null) {
+                logger.debug("Controller: Product not found with id: {}", id);
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok().eTag(etag).contentType(MediaType.APPLICATION_JSON).body(body);
+        }
         return productService.getProductById(id)
                 .map(product -> {
                     logger.debug("Controller: Found product: {}", product);
-                    return ResponseEntity.ok(product);
+                    return ResponseEntity.ok().eTag(etag).body(product);
                 })
                 .orElseGet(() -> {
                     logger.debug("Controller: Product not found with id: {}", id);
@@ -70,16 +184,30 @@ public class ProductController {
 
     /**
      * Creates a new product.
+     * With the write-behind buffer enabled the product is written in the next
+     * batch and the response is sent once that batch has committed; a full
+     * buffer answers 503 so the caller backs off and retries.
      *
      * @param product the product to create
-     * @return ResponseEntity containing the created product
+     * @return completed with a ResponseEntity containing the created product,
+     *         or 503 if the write-behind buffer is full
      */
     @PostMapping
-    public ResponseEntity<Product> createProduct(@RequestBody Product product) {
+    public CompletableFuture<ResponseEntity<Product>> createProduct(@RequestBody Product product) {
         logger.debug("Controller: Creating product: {}", product);
+        if (writeBehind != null) {
+            try {
+                return writeBehind.submit(product).thenApply(ResponseEntity::ok);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Controller: Refusing product: {}", e.getMessage());
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "1")
+                        .build());
+            }
+        }
         Product createdProduct = productService.createProduct(product);
         logger.debug("Controller: Created product with id: {}", createdProduct.getId());
-        return ResponseEntity.ok(createdProduct);
+        return CompletableFuture.completedFuture(ResponseEntity.ok(createdProduct));
     }
 
     /**
@@ -120,4 +248,33 @@ public class ProductController {
             return ResponseEntity.notFound().build();
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * Determines whether a GET can be answered from the pre-serialized read store.
+     * The store only holds JSON, so clients that prefer a binary format are
+     * served through the regular message converters instead.
+     *
+     * @param request the current request
+     * @return true if the read store is ready and the client accepts JSON
+     */
+    private boolean canServeFromReadStore(WebRequest request) {
+        if (readStore == null || !readStore.isReady()) {
+            return false;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return true;
+        }
+        try {
+            MediaType preferred = null;
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (preferred == null || mediaType.getQualityValue() > preferred.getQualityValue()) {
+                    preferred = mediaType;
+                }
+            }
+            return preferred == null || preferred.isCompatibleWith(MediaType.APPLICATION_JSON);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+}
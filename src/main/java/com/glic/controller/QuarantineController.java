@@ -0,0 +1,86 @@
+package com.glic.controller;
+
+import com.glic.model.QuarantinedMessage;
+import com.glic.quarantine.QuarantineService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin endpoints for messages held in quarantine.
+ */
+@RestController
+@RequestMapping("/api/admin/quarantine")
+public class QuarantineController {
+
+    /**
+     * Largest page of quarantined messages returned at once.
+     */
+    private static final int MAX_LIMIT = 500;
+
+    /**
+     * Service managing quarantined messages.
+     */
+    private final QuarantineService quarantineService;
+
+    /**
+     * Constructor for QuarantineController.
+     *
+     * @param quarantineService the service managing quarantined messages
+     */
+    public QuarantineController(QuarantineService quarantineService) {
+        this.quarantineService = quarantineService;
+    }
+
+    /**
+     * Lists quarantined messages, most recent first.
+     *
+     * @param limit the maximum number of messages to return, at most 500
+     * @return the messages
+     */
+    @GetMapping
+    public List<QuarantinedMessage> list(@RequestParam(defaultValue = "50") int limit) {
+        return quarantineService.list(Math.max(1, Math.min(limit, MAX_LIMIT)));
+    }
+
+    /**
+     * Shows a quarantined message with its body and failure reason.
+     *
+     * @param id the quarantine entry ID
+     * @return the message, or 404 if there is no such entry
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<QuarantinedMessage> get(@PathVariable long id) {
+        return ResponseEntity.of(quarantineService.find(id));
+    }
+
+    /**
+     * Sends a quarantined message back to its source queue.
+     *
+     * @param id the quarantine entry ID
+     * @return the SQS message ID of the re-driven message, or 404 if there is no such entry
+     */
+    @PostMapping("/{id}/redrive")
+    public ResponseEntity<Map<String, String>> redrive(@PathVariable long id) {
+        return ResponseEntity.of(quarantineService.redrive(id).map(messageId -> Map.of("messageId", messageId)));
+    }
+
+    /**
+     * Discards a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     * @return 204 if the entry was discarded, or 404 if there is no such entry
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> discard(@PathVariable long id) {
+        return quarantineService.discard(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
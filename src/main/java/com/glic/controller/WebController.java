@@ -1,11 +1,23 @@
 package com.glic.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.glic.browse.QueueBrowser;
+import com.glic.browse.ReceivedMessage;
+import com.glic.compression.MessageCompression;
+import com.glic.json.ProductEnvelope;
+import com.glic.producer.BatchSendResult;
+import com.glic.producer.BatchingSqsProducer;
+import com.glic.producer.MessageEncoder;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
-import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 
@@ -28,48 +40,139 @@ public class WebController {
     }
     
     /**
-     * AWS SQS client for queue operations.
+     * Non-blocking receiver used to inspect the queue.
      */
     @Autowired
-    private SqsClient sqsClient;
-    
+    private QueueBrowser queueBrowser;
+
     /**
-     * The URL of the SQS queue.
+     * Producer that batches outgoing messages into SendMessageBatch calls.
      */
-    @Value("${aws.sqs.url}")
-    private String queueUrl;
+    @Autowired
+    private BatchingSqsProducer producer;
+
+    /**
+     * Compresses and claim-checks message bodies before they are sent.
+     */
+    @Autowired
+    private MessageEncoder encoder;
     
     /**
      * Sends a message to the SQS queue.
+     * The message is compressed if it is large, and stored in the blob store
+     * with only a reference sent if it is still too large; it is batched
+     * with concurrent sends and the request thread is released until SQS has
+     * accepted it.
      *
      * @param message The message to send
      * @return The message ID of the sent message
      */
     @PostMapping("/send")
-    public String sendMessage(@RequestBody String message) {
-        SendMessageRequest sendMessageRequest = SendMessageRequest.builder()
-                .queueUrl(queueUrl)
-                .messageBody(message)
-                .build();
-        
-        SendMessageResponse response = sqsClient.sendMessage(sendMessageRequest);
-        return "Message sent with ID: " + response.messageId();
+    public CompletableFuture<String> sendMessage(@RequestBody String message) {
+        return send(message).thenApply(messageId -> "Message sent with ID: " + messageId);
     }
-    
+
+    /**
+     * Sends several messages to the SQS queue.
+     * Each element of the JSON array becomes one message: strings are sent as is,
+     * any other JSON value is sent as its JSON text. A failure of one message
+     * does not affect the others.
+     *
+     * @param messages The messages to send
+     * @return The outcome of each message, in request order
+     */
+    @PostMapping("/send-batch")
+    public CompletableFuture<List<BatchSendResult>> sendMessageBatch(@RequestBody List<JsonNode> messages) {
+        List<CompletableFuture<BatchSendResult>> results = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            JsonNode message = messages.get(i);
+            int index = i;
+            results.add(send(message.isTextual() ? message.textValue() : message.toString())
+                    .handle((messageId, error) -> error == null
+                            ? new BatchSendResult(index, messageId, null)
+                            : new BatchSendResult(index, null, rootCause(error).getMessage())));
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(done -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Sends several products to the SQS queue packed into envelope messages.
+     * The products are packed, in request order, into as few envelopes as fit
+     * the SQS message size limit; the listener then processes each envelope's
+     * products in parallel. Every product is reported with the ID of the
+     * envelope that carries it, or the error that envelope failed with.
+     *
+     * @param products The products to send, as JSON objects
+     * @return The outcome of each product, in request order
+     */
+    @PostMapping("/send-products")
+    public CompletableFuture<List<BatchSendResult>> sendProducts(@RequestBody List<JsonNode> products) {
+        List<ProductEnvelope.Packed> envelopes = ProductEnvelope.pack(
+                products.stream().map(JsonNode::toString).toList(), ProductEnvelope.MAX_BYTES);
+        List<CompletableFuture<List<BatchSendResult>>> results = new ArrayList<>(envelopes.size());
+        for (ProductEnvelope.Packed envelope : envelopes) {
+            results.add(send(envelope.body())
+                    .handle((messageId, error) -> IntStream
+                            .range(envelope.firstItem(), envelope.firstItem() + envelope.itemCount())
+                            .mapToObj(index -> error == null
+                                    ? new BatchSendResult(index, messageId, null)
+                                    : new BatchSendResult(index, null, rootCause(error).getMessage()))
+                            .toList()));
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(done -> results.stream().flatMap(result -> result.join().stream()).toList());
+    }
+
     /**
      * Receives messages from the SQS queue.
+     * The request thread is released while SQS long polls for up to 20 seconds.
      *
+     * @param peek Whether to make the received messages visible again immediately
      * @return A list of received messages
      */
     @GetMapping("/receive")
-    public List<Message> receiveMessages() {
-        ReceiveMessageRequest receiveMessageRequest = ReceiveMessageRequest.builder()
-                .queueUrl(queueUrl)
-                .maxNumberOfMessages(10)
-                .waitTimeSeconds(20)
-                .build();
-        
-        ReceiveMessageResponse response = sqsClient.receiveMessage(receiveMessageRequest);
-        return response.messages();
+    public CompletableFuture<List<ReceivedMessage>> receiveMessages(
+            @RequestParam(defaultValue = "false") boolean peek) {
+        return queueBrowser.receive(peek);
+    }
+
+    /**
+     * Streams messages from the SQS queue as Server-Sent Events until the client
+     * disconnects or the stream times out.
+     *
+     * @param peek Whether to make the received messages visible again immediately
+     * @return The event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamMessages(@RequestParam(defaultValue = "false") boolean peek) {
+        return queueBrowser.stream(peek);
+    }
+
+    /**
+     * Compresses a message body if it is large enough, claim-checks it if it
+     * is still too large, and queues it for sending.
+     *
+     * @param body the message body
+     * @return a future completed with the SQS message ID
+     */
+    private CompletableFuture<String> send(String body) {
+        MessageCompression.Encoded encoded;
+        try {
+            encoded = encoder.encode(body);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return producer.send(encoded.body(), encoded.attributes());
+    }
+
+    /**
+     * Unwraps the exception a CompletableFuture stage was completed with.
+     *
+     * @param error the exception passed to a completion stage
+     * @return the underlying cause
+     */
+    private static Throwable rootCause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 }
@@ -0,0 +1,15 @@
+package com.glic.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The REST API answered the product create request for a message; the event
+ * duration is the whole call, from sending the request to the parsed response.
+ */
+@Name("com.glic.HttpRequestCompleted")
+@Label("HTTP Request Completed")
+@Description("The REST API answered the product create request for a message")
+public class HttpRequestCompletedEvent extends MessageEvent {
+}
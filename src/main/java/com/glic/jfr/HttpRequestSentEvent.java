@@ -0,0 +1,14 @@
+package com.glic.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The product create request for a message is about to be sent to the REST API.
+ */
+@Name("com.glic.HttpRequestSent")
+@Label("HTTP Request Sent")
+@Description("The product create request for a message was sent to the REST API")
+public class HttpRequestSentEvent extends MessageEvent {
+}
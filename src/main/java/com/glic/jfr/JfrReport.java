@@ -0,0 +1,235 @@
+package com.glic.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Summarizes the message lifecycle events in a Flight Recorder recording.
+ * Prints latency percentiles for every stage (queue time, deserialization, the
+ * REST call, the delete, total processing and database writes), failure counts
+ * per stage, and the per-stage breakdown of the slowest messages, which is
+ * usually enough to tell where tail latency comes from.
+ * <p>
+ * Record with {@code -XX:StartFlightRecording=filename=sqsmanager.jfr} and run
+ * {@code java -cp target/classes com.glic.jfr.JfrReport sqsmanager.jfr}.
+ */
+public final class JfrReport {
+
+    /**
+     * Number of slowest messages listed with their breakdown.
+     */
+    private static final int SLOWEST = 10;
+
+    /**
+     * Latency distribution of one stage.
+     *
+     * @param stage the stage name
+     * @param count the number of samples
+     * @param p50 the median
+     * @param p90 the 90th percentile
+     * @param p99 the 99th percentile
+     * @param p999 the 99.9th percentile
+     * @param max the slowest sample
+     */
+    public record StageStats(String stage, int count, Duration p50, Duration p90, Duration p99, Duration p999,
+                             Duration max) {
+    }
+
+    /**
+     * Per-stage timings of one message, in nanoseconds; -1 where the stage was not recorded.
+     *
+     * @param messageId the SQS message ID
+     * @param parse deserialization time
+     * @param http REST call time
+     * @param delete delete time
+     * @param total total processing time
+     */
+    public record MessageBreakdown(String messageId, long parse, long http, long delete, long total) {
+    }
+
+    /**
+     * The analysed recording.
+     *
+     * @param stages latency distributions in lifecycle order
+     * @param failures failure counts per stage
+     * @param slowest the slowest acknowledged messages, slowest first
+     */
+    public record Report(List<StageStats> stages, Map<String, Integer> failures, List<MessageBreakdown> slowest) {
+    }
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private JfrReport() {
+    }
+
+    /**
+     * Prints the report for a recording.
+     *
+     * @param args the path of the recording
+     * @throws IOException if the recording cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: JfrReport <recording.jfr>");
+            System.exit(2);
+        }
+        print(analyze(Path.of(args[0])), System.out);
+    }
+
+    /**
+     * Reads the lifecycle events of a recording.
+     *
+     * @param recording the recording file
+     * @return the report
+     * @throws IOException if the recording cannot be read
+     */
+    public static Report analyze(Path recording) throws IOException {
+        Map<String, List<Duration>> samples = new LinkedHashMap<>();
+        for (String stage : List.of("queue", "deserialize", "http", "delete", "total")) {
+            samples.put(stage, new ArrayList<>());
+        }
+        Map<String, Integer> failures = new LinkedHashMap<>();
+        Map<String, long[]> messages = new HashMap<>();
+
+        for (RecordedEvent event : RecordingFile.readAllEvents(recording)) {
+            String type = event.getEventType().getName();
+            switch (type) {
+                case "com.glic.MessageReceived" ->
+                        samples.get("queue").add(Duration.ofMillis(event.getLong("queueTime")));
+                case "com.glic.MessageDeserialized" -> {
+                    samples.get("deserialize").add(event.getDuration());
+                    timings(messages, event)[0] = event.getDuration().toNanos();
+                }
+                case "com.glic.HttpRequestCompleted" -> {
+                    samples.get("http").add(event.getDuration());
+                    timings(messages, event)[1] = event.getDuration().toNanos();
+                }
+                case "com.glic.MessageAcked" -> {
+                    samples.get("delete").add(event.getDuration());
+                    samples.get("total").add(Duration.ofNanos(event.getLong("processingTime")));
+                    long[] timings = timings(messages, event);
+                    timings[2] = event.getDuration().toNanos();
+                    timings[3] = event.getLong("processingTime");
+                }
+                case "com.glic.MessageFailed" -> failures.merge(event.getString("stage"), 1, Integer::sum);
+                case "com.glic.ProductWrite" -> samples
+                        .computeIfAbsent("db " + event.getString("operation"), key -> new ArrayList<>())
+                        .add(event.getDuration());
+                default -> {
+                }
+            }
+        }
+
+        List<StageStats> stages = new ArrayList<>();
+        samples.forEach((stage, durations) -> {
+            if (!durations.isEmpty()) {
+                stages.add(stats(stage, durations));
+            }
+        });
+        List<MessageBreakdown> slowest = messages.entrySet().stream()
+                .filter(entry -> entry.getValue()[3] >= 0)
+                .map(entry -> new MessageBreakdown(entry.getKey(), entry.getValue()[0], entry.getValue()[1],
+                        entry.getValue()[2], entry.getValue()[3]))
+                .sorted(Comparator.comparingLong(MessageBreakdown::total).reversed())
+                .limit(SLOWEST)
+                .toList();
+        return new Report(stages, failures, slowest);
+    }
+
+    /**
+     * Prints a report as plain text tables.
+     *
+     * @param report the report
+     * @param out the stream to print to
+     */
+    public static void print(Report report, PrintStream out) {
+        out.printf("%-14s %8s %10s %10s %10s %10s %10s%n", "stage", "count", "p50", "p90", "p99", "p99.9", "max");
+        for (StageStats stats : report.stages()) {
+            out.printf("%-14s %8d %10s %10s %10s %10s %10s%n", stats.stage(), stats.count(), format(stats.p50()),
+                    format(stats.p90()), format(stats.p99()), format(stats.p999()), format(stats.max()));
+        }
+        if (!report.failures().isEmpty()) {
+            out.println();
+            out.println("failures by stage:");
+            report.failures().forEach((stage, count) -> out.printf("  %-12s %d%n", stage, count));
+        }
+        if (!report.slowest().isEmpty()) {
+            out.println();
+            out.printf("slowest messages:%n%-38s %10s %10s %10s %10s%n", "message", "parse", "http", "delete", "total");
+            for (MessageBreakdown message : report.slowest()) {
+                out.printf("%-38s %10s %10s %10s %10s%n", message.messageId(), format(message.parse()),
+                        format(message.http()), format(message.delete()), format(message.total()));
+            }
+        }
+    }
+
+    /**
+     * Gets the timing slots of a message, creating them on first use.
+     *
+     * @param messages timings by message ID
+     * @param event an event carrying the message ID
+     * @return parse, http, delete and total nanoseconds
+     */
+    private static long[] timings(Map<String, long[]> messages, RecordedEvent event) {
+        return messages.computeIfAbsent(event.getString("messageId"), id -> new long[]{-1, -1, -1, -1});
+    }
+
+    /**
+     * Computes the latency distribution of one stage.
+     *
+     * @param stage the stage name
+     * @param durations the samples
+     * @return the distribution
+     */
+    private static StageStats stats(String stage, List<Duration> durations) {
+        long[] sorted = durations.stream().mapToLong(Duration::toNanos).toArray();
+        Arrays.sort(sorted);
+        return new StageStats(stage, sorted.length, percentile(sorted, 0.50), percentile(sorted, 0.90),
+                percentile(sorted, 0.99), percentile(sorted, 0.999), Duration.ofNanos(sorted[sorted.length - 1]));
+    }
+
+    /**
+     * Picks a percentile from sorted samples using the nearest-rank method.
+     *
+     * @param sorted the samples in ascending order
+     * @param percentile the percentile, between 0 and 1
+     * @return the sample at that rank
+     */
+    private static Duration percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return Duration.ofNanos(sorted[Math.max(0, index)]);
+    }
+
+    /**
+     * Formats a duration in milliseconds.
+     *
+     * @param duration the duration
+     * @return the formatted duration
+     */
+    private static String format(Duration duration) {
+        return format(duration.toNanos());
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds, or "-" if the stage was not recorded.
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the formatted duration
+     */
+    private static String format(long nanos) {
+        return nanos < 0 ? "-" : String.format("%.3fms", nanos / 1e6);
+    }
+}
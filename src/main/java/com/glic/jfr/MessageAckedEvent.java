@@ -0,0 +1,35 @@
+package com.glic.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * A processed message was deleted from the queue; the event duration is the
+ * DeleteMessage call.
+ */
+@Name("com.glic.MessageAcked")
+@Label("Message Acknowledged")
+@Description("A processed message was deleted from the queue")
+public class MessageAckedEvent extends MessageEvent {
+
+    /**
+     * Total time from the start of processing to the completed delete.
+     */
+    @Label("Processing Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long processingTime;
+
+    /**
+     * Records the event with the total processing time of the message.
+     *
+     * @param message the acknowledged message
+     * @param processingNanos the total processing time in nanoseconds
+     */
+    public void complete(Message message, long processingNanos) {
+        processingTime = processingNanos;
+        complete(message);
+    }
+}
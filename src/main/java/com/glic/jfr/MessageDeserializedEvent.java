@@ -0,0 +1,15 @@
+package com.glic.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Deserialization of a message body into a product; the event duration is the
+ * parsing time.
+ */
+@Name("com.glic.MessageDeserialized")
+@Label("Message Deserialized")
+@Description("A message body was deserialized into a product")
+public class MessageDeserializedEvent extends MessageEvent {
+}
@@ -0,0 +1,49 @@
+package com.glic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base class for the Flight Recorder events emitted while the listener processes
+ * a message. Every event carries the SQS message ID and the size of the body.
+ * Fields are only filled in when the event is actually recorded, so the events
+ * cost next to nothing while Flight Recorder is off.
+ */
+@Category({"SQS Manager", "Listener"})
+@StackTrace(false)
+public abstract class MessageEvent extends Event {
+
+    /**
+     * The SQS message ID.
+     */
+    @Label("Message ID")
+    String messageId;
+
+    /**
+     * The size of the message body in UTF-8 bytes.
+     */
+    @Label("Size")
+    @DataAmount
+    long size;
+
+    /**
+     * Ends the event and records it for the given message if the event is enabled
+     * and exceeds its threshold.
+     *
+     * @param message the message being processed
+     */
+    public void complete(Message message) {
+        end();
+        if (shouldCommit()) {
+            messageId = message.messageId();
+            size = message.body() == null ? 0 : message.body().getBytes(StandardCharsets.UTF_8).length;
+            commit();
+        }
+    }
+}
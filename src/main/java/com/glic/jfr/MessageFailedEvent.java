@@ -0,0 +1,41 @@
+package com.glic.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * Processing of a message failed and the message was left on the queue; the
+ * event duration is the time from the start of processing to the failure.
+ */
+@Name("com.glic.MessageFailed")
+@Label("Message Failed")
+@Description("Processing of a message failed")
+public class MessageFailedEvent extends MessageEvent {
+
+    /**
+     * The stage that failed: parse, create or delete.
+     */
+    @Label("Stage")
+    String stage;
+
+    /**
+     * The exception type and message.
+     */
+    @Label("Error")
+    String error;
+
+    /**
+     * Records the event with the failed stage and the error.
+     *
+     * @param message the failed message
+     * @param failedStage the stage that failed
+     * @param cause the exception that ended processing
+     */
+    public void complete(Message message, String failedStage, Throwable cause) {
+        stage = failedStage;
+        error = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        complete(message);
+    }
+}
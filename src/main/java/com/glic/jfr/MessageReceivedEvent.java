@@ -0,0 +1,45 @@
+package com.glic.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+/**
+ * A message returned by ReceiveMessage and handed to the listener.
+ */
+@Name("com.glic.MessageReceived")
+@Label("Message Received")
+@Description("A message was received from SQS and processing started")
+public class MessageReceivedEvent extends MessageEvent {
+
+    /**
+     * Time between SendMessage and the start of processing, from the SentTimestamp attribute.
+     */
+    @Label("Queue Time")
+    @Timespan(Timespan.MILLISECONDS)
+    long queueTime;
+
+    /**
+     * How many times SQS has delivered the message, including this delivery.
+     */
+    @Label("Receive Count")
+    int receiveCount;
+
+    /**
+     * Records the event with queue time and receive count taken from the message attributes.
+     *
+     * @param message the received message
+     * @param nowMillis the current wall-clock time in epoch milliseconds
+     */
+    public void complete(Message message, long nowMillis) {
+        if (shouldCommit()) {
+            String sent = message.attributesAsStrings().get("SentTimestamp");
+            String count = message.attributesAsStrings().get("ApproximateReceiveCount");
+            queueTime = sent == null ? 0 : Math.max(0, nowMillis - Long.parseLong(sent));
+            receiveCount = count == null ? 0 : Integer.parseInt(count);
+        }
+        complete(message);
+    }
+}
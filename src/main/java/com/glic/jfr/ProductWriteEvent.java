@@ -0,0 +1,49 @@
+package com.glic.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A product write through {@code ProductService}; the event duration covers
+ * the repository call, excluding the transaction commit. For a product
+ * created by {@code ProductWriteBehind} it covers the whole batch insert,
+ * commit included.
+ */
+@Name("com.glic.ProductWrite")
+@Label("Product Write")
+@Description("A product was created, updated or deleted in the database")
+@Category({"SQS Manager", "Database"})
+@StackTrace(false)
+public class ProductWriteEvent extends Event {
+
+    /**
+     * The write operation: create, update or delete.
+     */
+    @Label("Operation")
+    String operation;
+
+    /**
+     * The ID of the product written, if known.
+     */
+    @Label("Product ID")
+    long productId;
+
+    /**
+     * Ends the event and records it if enabled.
+     *
+     * @param writeOperation the write operation
+     * @param id the ID of the product written, or null if unknown
+     */
+    public void complete(String writeOperation, Long id) {
+        end();
+        if (shouldCommit()) {
+            operation = writeOperation;
+            productId = id == null ? 0 : id;
+            commit();
+        }
+    }
+}
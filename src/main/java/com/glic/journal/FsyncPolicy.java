@@ -0,0 +1,62 @@
+package com.glic.journal;
+
+import java.util.Locale;
+
+/**
+ * When the {@link SpillJournal} forces what it has written to disk. Messages
+ * are deleted from SQS as soon as they are appended, so the policy decides
+ * how much a power failure or kernel crash can lose; a crash of the JVM alone
+ * loses nothing, since the journal's memory-mapped pages belong to the
+ * operating system.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Every append and every replayed record is forced before the call
+     * returns; nothing acknowledged is ever lost, at the cost of one fsync
+     * per message.
+     */
+    ALWAYS,
+
+    /**
+     * Writes are forced every {@code aws.sqs.journal.fsync-interval-ms}, so
+     * at most that much acknowledged work is lost.
+     */
+    INTERVAL,
+
+    /**
+     * Writes are left for the operating system to flush when it chooses.
+     */
+    NEVER;
+
+    /**
+     * Finds a policy by name.
+     *
+     * @param name the policy name, in any case
+     * @return the policy
+     * @throws IllegalArgumentException if no policy has that name
+     */
+    public static FsyncPolicy forName(String name) {
+        for (FsyncPolicy policy : values()) {
+            if (policy.name().equalsIgnoreCase(name.trim())) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("Unknown journal fsync policy: " + name
+                + "; expected " + String.join(", ", names()));
+    }
+
+    /**
+     * Lists the policy names as they are configured.
+     *
+     * @return the lower-case names
+     */
+    private static String[] names() {
+        FsyncPolicy[] policies = values();
+        String[] names = new String[policies.length];
+        for (int i = 0; i < policies.length; i++) {
+            names[i] = policies[i].name().toLowerCase(Locale.ROOT);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,51 @@
+package com.glic.journal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A message spilled to the journal: the product it carried and where it came
+ * from, so a product that can never be created is quarantined under the
+ * original message.
+ *
+ * @param messageId the SQS message ID of the message
+ * @param queueUrl the URL of the queue the message was received from
+ * @param product the validated product, serialized as JSON
+ */
+record JournalEntry(String messageId, String queueUrl, byte[] product) {
+
+    /**
+     * Serializes the entry as a journal record.
+     *
+     * @return the message ID and queue URL in modified UTF-8, followed by the product
+     */
+    byte[] encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(product.length + messageId.length()
+                + queueUrl.length() + 4);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(messageId);
+            out.writeUTF(queueUrl);
+            out.write(product);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads an entry from a journal record.
+     *
+     * @param record the record written by {@link #encode()}
+     * @return the entry
+     * @throws IOException if the record is not an entry
+     */
+    static JournalEntry decode(byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            return new JournalEntry(in.readUTF(), in.readUTF(), in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package com.glic.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.glic.model.Product;
+import com.glic.quarantine.Failure;
+import com.glic.quarantine.FailureClassifier;
+import com.glic.quarantine.QuarantineService;
+import com.glic.service.RestApiService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Absorbs outages of the product API in a local {@link SpillJournal}.
+ * <p>
+ * When {@code aws.sqs.journal.enabled} is true, the API is considered down
+ * once {@code aws.sqs.journal.outage-failures} consecutive calls have failed
+ * with a transient error within {@code aws.sqs.journal.outage-window-ms}.
+ * From then on the listener spills every validated product to the journal
+ * instead of calling the API, and deletes its message at once, so it stops
+ * bouncing between consumers towards the dead-letter queue. A failure that is
+ * not part of an outage is retried through SQS as usual.
+ * <p>
+ * The journal is replayed into the API every
+ * {@code aws.sqs.journal.replay-interval-ms} on a thread of its own, so
+ * blocking API calls never hold up the application's shared scheduler, at no
+ * more than
+ * {@code aws.sqs.journal.replay-rate-per-second} products, so a recovering
+ * API is not flooded with the whole backlog. While the outage lasts the
+ * replay is its only probe: the first product it creates, like any product
+ * the listener creates, ends the outage, and new products go straight to the
+ * API again while the backlog drains behind them. Nothing is spilled once the
+ * outage is over, so the replay only has to outpace an inflow of zero. A
+ * transient failure stops the replay and retries the same product after a
+ * backoff that doubles up to {@code aws.sqs.journal.replay-max-backoff-ms};
+ * a product that can never be created is quarantined under its original
+ * message ID and skipped.
+ * <p>
+ * Meters, registered when the journal is enabled: the {@code sqs.journal.depth},
+ * {@code sqs.journal.bytes}, {@code sqs.journal.segments} and
+ * {@code sqs.journal.outage} (1 while the API is considered down) gauges,
+ * {@code sqs.journal.spilled}, {@code sqs.journal.replayed} tagged
+ * {@code outcome} created or quarantined, and
+ * {@code sqs.journal.replay.failures}.
+ */
+@Slf4j
+@Component
+public class JournalReplayer {
+
+    /**
+     * Stage recorded on quarantine entries of products that failed on replay.
+     */
+    static final String STAGE = "replay";
+
+    /**
+     * The journal, or null when spilling is disabled.
+     */
+    private final SpillJournal journal;
+
+    /**
+     * Reads spilled products.
+     */
+    private final ObjectReader productReader;
+
+    /**
+     * Writes products to be spilled.
+     */
+    private final ObjectWriter productWriter;
+
+    /**
+     * Creates the replayed products.
+     */
+    private final RestApiService restApiService;
+
+    /**
+     * Separates failures worth spilling or retrying from those that are not.
+     */
+    private final FailureClassifier classifier;
+
+    /**
+     * Keeps products that can never be created.
+     */
+    private final QuarantineService quarantineService;
+
+    /**
+     * Most products replayed per second.
+     */
+    private final double replayRatePerSecond;
+
+    /**
+     * Backoff after the first failed replay, in nanoseconds.
+     */
+    private final long initialBackoffNanos;
+
+    /**
+     * Longest backoff between failed replays, in nanoseconds.
+     */
+    private final long maxBackoffNanos;
+
+    /**
+     * Consecutive transient failures after which the API is considered down.
+     */
+    private final int outageFailures;
+
+    /**
+     * Time within which those failures must happen, in nanoseconds.
+     */
+    private final long outageWindowNanos;
+
+    /**
+     * Messages spilled to the journal.
+     */
+    private final Counter spilled;
+
+    /**
+     * Journaled products created by replay.
+     */
+    private final Counter replayed;
+
+    /**
+     * Journaled products quarantined by replay.
+     */
+    private final Counter quarantined;
+
+    /**
+     * Replays stopped by a transient failure.
+     */
+    private final Counter replayFailures;
+
+    /**
+     * Products the replay may still create before it must wait; only touched by the replay.
+     */
+    private double permits;
+
+    /**
+     * {@link System#nanoTime()} of the last replay, for accruing permits.
+     */
+    private long lastReplay = System.nanoTime();
+
+    /**
+     * {@link System#nanoTime()} before which no replay is attempted.
+     */
+    private long retryAt = System.nanoTime();
+
+    /**
+     * Current backoff after a failed replay, in nanoseconds.
+     */
+    private long backoffNanos;
+
+    /**
+     * Delay between replay runs, in milliseconds; 0 when replay is left to the caller.
+     */
+    private long replayIntervalMs;
+
+    /**
+     * Runs the replay, or null until started.
+     */
+    private ScheduledExecutorService replayScheduler;
+
+    /**
+     * Whether the API is considered down and every product is spilled.
+     */
+    private volatile boolean outage;
+
+    /**
+     * Consecutive transient failures of API calls, guarded by this replayer.
+     */
+    private volatile int failures;
+
+    /**
+     * {@link System#nanoTime()} of the first of the consecutive failures, guarded by this replayer.
+     */
+    private long firstFailure;
+
+    /**
+     * Creates the replayer, opening the journal if spilling is enabled.
+     *
+     * @param objectMapper serializes spilled products
+     * @param restApiService creates the replayed products
+     * @param classifier separates transient from permanent failures
+     * @param quarantineService keeps products that can never be created
+     * @param registry the registry the journal meters are published to
+     * @param enabled whether messages are spilled to the journal
+     * @param directory the directory the journal is kept in
+     * @param segmentBytes size of the journal's segment files, in bytes
+     * @param fsync when journal writes are forced to disk: always, interval or never
+     * @param replayRatePerSecond most products replayed per second
+     * @param replayIntervalMs delay between replay runs, in milliseconds
+     * @param replayMaxBackoffMs longest backoff between failed replays, in milliseconds
+     * @param outageFailures consecutive transient failures after which the API is considered down
+     * @param outageWindowMs time within which those failures must happen, in milliseconds
+     * @throws IOException if the journal cannot be opened
+     */
+    @Autowired
+    public JournalReplayer(
+            ObjectMapper objectMapper,
+            RestApiService restApiService,
+            FailureClassifier classifier,
+            QuarantineService quarantineService,
+            MeterRegistry registry,
+            @Value("${aws.sqs.journal.enabled:false}") boolean enabled,
+            @Value("${aws.sqs.journal.directory:${java.io.tmpdir}/sqs-journal}") String directory,
+            @Value("${aws.sqs.journal.segment-bytes:67108864}") int segmentBytes,
+            @Value("${aws.sqs.journal.fsync:interval}") String fsync,
+            @Value("${aws.sqs.journal.replay-rate-per-second:50}") double replayRatePerSecond,
+            @Value("${aws.sqs.journal.replay-interval-ms:100}") long replayIntervalMs,
+            @Value("${aws.sqs.journal.replay-max-backoff-ms:30000}") long replayMaxBackoffMs,
+            @Value("${aws.sqs.journal.outage-failures:5}") int outageFailures,
+            @Value("${aws.sqs.journal.outage-window-ms:10000}") long outageWindowMs) throws IOException {
+        this(enabled ? new SpillJournal(Path.of(directory), segmentBytes, FsyncPolicy.forName(fsync)) : null,
+                objectMapper, restApiService, classifier, quarantineService, registry, replayRatePerSecond,
+                replayMaxBackoffMs, outageFailures, outageWindowMs);
+        this.replayIntervalMs = Math.max(1, replayIntervalMs);
+    }
+
+    /**
+     * Creates a replayer over an open journal, whose caller runs {@link #replay()}.
+     *
+     * @param journal the journal, or null to disable spilling
+     * @param objectMapper serializes spilled products
+     * @param restApiService creates the replayed products
+     * @param classifier separates transient from permanent failures
+     * @param quarantineService keeps products that can never be created
+     * @param registry the registry the journal meters are published to
+     * @param replayRatePerSecond most products replayed per second
+     * @param replayMaxBackoffMs longest backoff between failed replays, in milliseconds
+     * @param outageFailures consecutive transient failures after which the API is considered down
+     * @param outageWindowMs time within which those failures must happen, in milliseconds
+     */
+    public JournalReplayer(SpillJournal journal, ObjectMapper objectMapper, RestApiService restApiService,
+                           FailureClassifier classifier, QuarantineService quarantineService,
+                           MeterRegistry registry, double replayRatePerSecond, long replayMaxBackoffMs,
+                           int outageFailures, long outageWindowMs) {
+        if (replayRatePerSecond <= 0) {
+            throw new IllegalArgumentException("The journal replay rate must be positive");
+        }
+        if (outageFailures < 1) {
+            throw new IllegalArgumentException("The failures that make an outage must be at least one");
+        }
+        this.journal = journal;
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.productWriter = objectMapper.writerFor(Product.class);
+        this.restApiService = restApiService;
+        this.classifier = classifier;
+        this.quarantineService = quarantineService;
+        this.replayRatePerSecond = replayRatePerSecond;
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, replayMaxBackoffMs));
+        this.initialBackoffNanos = Math.min(TimeUnit.MILLISECONDS.toNanos(500), maxBackoffNanos);
+        this.permits = Math.max(1, replayRatePerSecond);
+        this.outageFailures = outageFailures;
+        this.outageWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, outageWindowMs));
+        if (journal == null) {
+            this.spilled = null;
+            this.replayed = null;
+            this.quarantined = null;
+            this.replayFailures = null;
+            return;
+        }
+        this.spilled = Counter.builder("sqs.journal.spilled")
+                .description("Messages spilled to the local journal")
+                .register(registry);
+        this.replayed = replayCounter(registry, "created");
+        this.quarantined = replayCounter(registry, "quarantined");
+        this.replayFailures = Counter.builder("sqs.journal.replay.failures")
+                .description("Journal replays stopped by a transient failure of the product API")
+                .register(registry);
+        Gauge.builder("sqs.journal.depth", journal, SpillJournal::depth)
+                .description("Products waiting in the local journal")
+                .register(registry);
+        Gauge.builder("sqs.journal.bytes", journal, SpillJournal::pendingBytes)
+                .description("Bytes of products waiting in the local journal")
+                .register(registry);
+        Gauge.builder("sqs.journal.segments", journal, SpillJournal::segments)
+                .description("Segment files of the local journal")
+                .register(registry);
+        Gauge.builder("sqs.journal.outage", this, replayer -> replayer.outage ? 1 : 0)
+                .description("Whether the product API is considered down and products are spilled")
+                .register(registry);
+        log.info("Spilling to the local journal, {} products waiting", journal.depth());
+    }
+
+    /**
+     * Creates a replayer that never spills, for listeners constructed without a journal.
+     *
+     * @return the replayer
+     */
+    public static JournalReplayer disabled() {
+        return new JournalReplayer(null, new ObjectMapper(), null, null, null, null, 1, 1, 1, 1);
+    }
+
+    /**
+     * Checks whether new products must go to the journal rather than the API,
+     * because the API is considered down.
+     *
+     * @return true if spilling is enabled and the API is in an outage
+     */
+    public boolean isSpilling() {
+        return outage;
+    }
+
+    /**
+     * Records a failed API call and checks whether its product should be
+     * spilled rather than retried through SQS. A transient failure counts
+     * towards an outage, which starts once enough of them happen in a row
+     * within the outage window.
+     *
+     * @param error the failure of the call
+     * @return true if spilling is enabled, the failure may pass and the API is in an outage
+     */
+    public boolean onFailure(Throwable error) {
+        if (journal == null || classifier.classify(error).permanent()) {
+            return false;
+        }
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (failures == 0 || now - firstFailure > outageWindowNanos) {
+                failures = 0;
+                firstFailure = now;
+            }
+            failures++;
+            if (!outage && failures >= outageFailures) {
+                outage = true;
+                log.warn("Product API considered down after {} consecutive failures, spilling to the journal",
+                        failures);
+            }
+            return outage;
+        }
+    }
+
+    /**
+     * Records a successful API call, which ends an outage.
+     */
+    public void onSuccess() {
+        if (failures == 0 && !outage) {
+            return;
+        }
+        synchronized (this) {
+            failures = 0;
+            if (outage) {
+                outage = false;
+                log.info("Product API is back, {} products waiting in the journal",
+                        journal != null ? journal.depth() : 0);
+            }
+        }
+    }
+
+    /**
+     * Appends a product to the journal. The caller deletes the message once
+     * this returns.
+     *
+     * @param message the message the product was read from
+     * @param queueUrl the URL of the queue the message was received from
+     * @param product the validated product
+     * @throws IOException if the journal cannot be written
+     * @throws IllegalStateException if spilling is disabled
+     */
+    public void spill(Message message, String queueUrl, Product product) throws IOException {
+        if (journal == null) {
+            throw new IllegalStateException("The spill journal is disabled");
+        }
+        journal.append(new JournalEntry(message.messageId(), queueUrl, productWriter.writeValueAsBytes(product))
+                .encode());
+        spilled.increment();
+        log.debug("Spilled message {} to the journal, {} products waiting", message.messageId(), journal.depth());
+    }
+
+    /**
+     * Starts replaying the journal on its own thread, if spilling is enabled
+     * and the replayer was created by the application context.
+     */
+    @PostConstruct
+    public void start() {
+        if (journal == null || replayIntervalMs == 0) {
+            return;
+        }
+        replayScheduler = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("sqs-journal-replay-"));
+        replayScheduler.scheduleWithFixedDelay(this::replay, replayIntervalMs, replayIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Replays journaled products into the API, as many as the rate allows
+     * since the last replay, until the journal is empty or a call fails with
+     * a transient error.
+     */
+    public void replay() {
+        if (journal == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        permits = Math.min(Math.max(1, replayRatePerSecond),
+                permits + (now - lastReplay) * replayRatePerSecond / TimeUnit.SECONDS.toNanos(1));
+        lastReplay = now;
+        if (now - retryAt < 0) {
+            return;
+        }
+        try {
+            while (permits >= 1) {
+                byte[] record = journal.peek();
+                if (record == null) {
+                    return;
+                }
+                if (!replay(JournalEntry.decode(record))) {
+                    return;
+                }
+                permits--;
+                journal.advance();
+                backoffNanos = 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("Error replaying the spill journal: {}", e.getMessage());
+            backOff();
+        }
+    }
+
+    /**
+     * Forces the journal to disk, under the {@code interval} fsync policy.
+     */
+    @Scheduled(fixedDelayString = "${aws.sqs.journal.fsync-interval-ms:1000}")
+    public void flush() {
+        if (journal != null) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Stops the replay, waiting briefly for a run in progress, and forces the
+     * journal to disk before the application stops.
+     */
+    @PreDestroy
+    public void close() {
+        if (replayScheduler != null) {
+            replayScheduler.shutdown();
+            try {
+                if (!replayScheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("Timed out waiting for the journal replay to stop");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Creates or quarantines one journaled product.
+     *
+     * @param entry the journaled message
+     * @return true if the product is dealt with and can be consumed, false if the replay must back off
+     */
+    private boolean replay(JournalEntry entry) {
+        try {
+            restApiService.createProduct(productReader.readValue(entry.product()));
+            replayed.increment();
+            onSuccess();
+            return true;
+        } catch (Exception e) {
+            Failure failure = classifier.classify(e);
+            if (!failure.permanent()) {
+                onFailure(e);
+                replayFailures.increment();
+                log.warn("Replay of journaled message {} failed ({}), {} products waiting: {}", entry.messageId(),
+                        failure.reason(), journal.depth(), e.getMessage());
+                backOff();
+                return false;
+            }
+            quarantineService.quarantineSpilled(entry.messageId(), entry.queueUrl(),
+                    new String(entry.product(), StandardCharsets.UTF_8), STAGE, failure.reason(), e);
+            quarantined.increment();
+            return true;
+        }
+    }
+
+    /**
+     * Postpones the next replay, doubling the backoff up to its maximum.
+     */
+    private void backOff() {
+        backoffNanos = backoffNanos == 0 ? initialBackoffNanos : Math.min(maxBackoffNanos, backoffNanos * 2);
+        retryAt = System.nanoTime() + backoffNanos;
+    }
+
+    /**
+     * Registers a counter of replayed products for one outcome.
+     *
+     * @param registry the registry
+     * @param outcome the outcome
+     * @return the counter
+     */
+    private static Counter replayCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("sqs.journal.replayed")
+                .description("Journaled products replayed, by outcome")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
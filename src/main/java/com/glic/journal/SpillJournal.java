@@ -0,0 +1,563 @@
+package com.glic.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * A durable, append-only queue of records on local disk, read by a single
+ * consumer.
+ * <p>
+ * Records are appended to segment files of a fixed size that are mapped into
+ * memory, so an append is a copy into the page cache with no system call
+ * unless the {@link FsyncPolicy} asks for one. Each segment starts with a
+ * magic number and a version; each record is its length, the CRC-32C of its
+ * content and the content. A record that does not fit in the current segment
+ * starts the next one, and the rest of the full segment stays zero.
+ * <p>
+ * The consumer's position is kept in a small mapped {@code cursor} file with
+ * its own checksum, written each time a record is consumed. Segments the
+ * cursor has moved past are deleted, so the journal only ever holds the
+ * records still to be replayed plus the unused end of the last segment.
+ * <p>
+ * Opening a journal recovers it after a crash: it starts from the cursor, or
+ * from the oldest segment if the cursor is missing or torn, and scans the
+ * remaining records. The first record whose length or checksum is wrong ends
+ * its segment; in the last segment that is where appending continues, and
+ * the partial record is cleared. Recovery can therefore deliver a record
+ * twice, when its consumption had not reached the disk, but never delivers
+ * a torn one.
+ */
+@Slf4j
+public class SpillJournal implements AutoCloseable {
+
+    /**
+     * Magic number at the start of every segment, "SJNL".
+     */
+    static final int MAGIC = 0x534a4e4c;
+
+    /**
+     * Format version written after the magic number.
+     */
+    static final int VERSION = 1;
+
+    /**
+     * Bytes before the first record of a segment: magic number and version.
+     */
+    static final int SEGMENT_HEADER = 8;
+
+    /**
+     * Bytes before the content of a record: length and checksum.
+     */
+    static final int RECORD_HEADER = 8;
+
+    /**
+     * Smallest segment size accepted.
+     */
+    static final int MIN_SEGMENT_BYTES = 4096;
+
+    /**
+     * Name of the file holding the consumer's position.
+     */
+    static final String CURSOR_FILE = "cursor";
+
+    /**
+     * Size of the cursor file: segment ID, offset and checksum.
+     */
+    private static final int CURSOR_BYTES = 16;
+
+    /**
+     * Names of segment files, capturing the segment ID.
+     */
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{20})\\.log");
+
+    /**
+     * The directory the segments and cursor are kept in.
+     */
+    private final Path directory;
+
+    /**
+     * Size of new segments, in bytes.
+     */
+    private final int segmentBytes;
+
+    /**
+     * When writes are forced to disk.
+     */
+    private final FsyncPolicy fsyncPolicy;
+
+    /**
+     * The mapped cursor file.
+     */
+    private final MappedByteBuffer cursor;
+
+    /**
+     * The segment the next record is read from.
+     */
+    private Segment head;
+
+    /**
+     * Offset in {@link #head} of the next record to read.
+     */
+    private int readOffset;
+
+    /**
+     * The segment records are appended to.
+     */
+    private Segment tail;
+
+    /**
+     * Offset in {@link #tail} where the next record is written.
+     */
+    private int writeOffset;
+
+    /**
+     * Number of records not yet consumed; read without the lock.
+     */
+    private volatile long depth;
+
+    /**
+     * Content bytes of the records not yet consumed; read without the lock.
+     */
+    private volatile long pendingBytes;
+
+    /**
+     * Whether anything was written since the last {@link #flush()}.
+     */
+    private boolean dirty;
+
+    /**
+     * Opens a journal, creating its directory and first segment if needed and
+     * recovering the records left by a previous run.
+     *
+     * @param directory the directory the segments and cursor are kept in
+     * @param segmentBytes size of new segments, in bytes; bounds the largest record
+     * @param fsyncPolicy when writes are forced to disk
+     * @throws IOException if the journal cannot be created or read
+     */
+    public SpillJournal(Path directory, int segmentBytes, FsyncPolicy fsyncPolicy) throws IOException {
+        if (segmentBytes < MIN_SEGMENT_BYTES) {
+            throw new IllegalArgumentException("Journal segments must be at least " + MIN_SEGMENT_BYTES + " bytes");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.segmentBytes = segmentBytes;
+        this.fsyncPolicy = fsyncPolicy;
+        try (FileChannel channel = FileChannel.open(directory.resolve(CURSOR_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            this.cursor = channel.map(FileChannel.MapMode.READ_WRITE, 0, CURSOR_BYTES);
+        }
+        recover();
+    }
+
+    /**
+     * Appends a record.
+     *
+     * @param content the record, at least one byte
+     * @throws IllegalArgumentException if the record is empty or larger than a segment can hold
+     * @throws IOException if a new segment cannot be created
+     */
+    public synchronized void append(byte[] content) throws IOException {
+        if (content.length == 0 || content.length > maxRecordBytes()) {
+            throw new IllegalArgumentException("Journal records must be 1 to " + maxRecordBytes()
+                    + " bytes, not " + content.length);
+        }
+        if (writeOffset + RECORD_HEADER + content.length > tail.capacity()) {
+            roll();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(content);
+        MappedByteBuffer buffer = tail.buffer();
+        buffer.put(writeOffset + RECORD_HEADER, content);
+        buffer.putInt(writeOffset + 4, (int) crc.getValue());
+        buffer.putInt(writeOffset, content.length);
+        writeOffset += RECORD_HEADER + content.length;
+        depth++;
+        pendingBytes += content.length;
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            buffer.force();
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Reads the oldest record without consuming it.
+     *
+     * @return the record, or null if the journal is empty
+     * @throws IOException if the next segment cannot be opened
+     */
+    public synchronized byte[] peek() throws IOException {
+        if (depth == 0) {
+            return null;
+        }
+        skipSealedEnd();
+        int length = recordLength(head, readOffset);
+        if (length < 0) {
+            throw new IllegalStateException("Journal record at " + head.path().getFileName() + ":" + readOffset
+                    + " is unreadable");
+        }
+        byte[] content = new byte[length];
+        head.buffer().get(readOffset + RECORD_HEADER, content);
+        return content;
+    }
+
+    /**
+     * Consumes the record last returned by {@link #peek()}, deleting its
+     * segment once it holds no more records.
+     *
+     * @throws IllegalStateException if the journal is empty
+     * @throws IOException if the next segment cannot be opened or a consumed one deleted
+     */
+    public synchronized void advance() throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("The journal is empty");
+        }
+        skipSealedEnd();
+        int length = recordLength(head, readOffset);
+        readOffset += RECORD_HEADER + length;
+        depth--;
+        pendingBytes -= length;
+        writeCursor();
+        skipSealedEnd();
+    }
+
+    /**
+     * Forces the records appended and the position consumed since the last
+     * flush to disk. Called on a schedule under {@link FsyncPolicy#INTERVAL};
+     * does nothing under the other policies.
+     */
+    public synchronized void flush() {
+        if (fsyncPolicy == FsyncPolicy.INTERVAL && dirty) {
+            force();
+        }
+    }
+
+    /**
+     * Gets the number of records not yet consumed.
+     *
+     * @return the journal depth
+     */
+    public long depth() {
+        return depth;
+    }
+
+    /**
+     * Gets the content bytes of the records not yet consumed.
+     *
+     * @return the pending bytes
+     */
+    public long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Gets the number of segment files on disk.
+     *
+     * @return the segments from the one being read to the one being written
+     */
+    public synchronized long segments() {
+        return tail.id() - head.id() + 1;
+    }
+
+    /**
+     * Gets the largest record a segment can hold.
+     *
+     * @return the size limit of a record, in bytes
+     */
+    public int maxRecordBytes() {
+        return segmentBytes - SEGMENT_HEADER - RECORD_HEADER;
+    }
+
+    /**
+     * Forces everything written to disk, whatever the policy.
+     */
+    @Override
+    public synchronized void close() {
+        force();
+    }
+
+    /**
+     * Forces the last segment and the cursor to disk.
+     */
+    private void force() {
+        tail.buffer().force();
+        cursor.force();
+        dirty = false;
+    }
+
+    /**
+     * Finds the segments and the cursor, deletes segments that were consumed,
+     * counts the records left and positions the writer after the last valid one.
+     *
+     * @throws IOException if the segments cannot be listed, read or created
+     */
+    private void recover() throws IOException {
+        List<Long> ids = segmentIds();
+        if (ids.isEmpty()) {
+            head = create(1);
+            tail = head;
+            readOffset = SEGMENT_HEADER;
+            writeOffset = SEGMENT_HEADER;
+            writeCursor();
+            force();
+            return;
+        }
+        long first = ids.get(0);
+        long last = ids.get(ids.size() - 1);
+        long cursorId = cursor.getLong(0);
+        int cursorOffset = cursor.getInt(8);
+        boolean cursorValid = cursor.getInt(12) == cursorChecksum() && cursorId >= first && cursorId <= last
+                && cursorOffset >= SEGMENT_HEADER;
+        long headId = cursorValid ? cursorId : first;
+        for (long id : ids) {
+            if (id < headId) {
+                Files.deleteIfExists(segmentPath(id));
+            }
+        }
+        head = open(headId);
+        readOffset = cursorValid ? Math.min(cursorOffset, head.capacity()) : SEGMENT_HEADER;
+        long records = 0;
+        long bytes = 0;
+        Segment segment = head;
+        int offset = readOffset;
+        for (int index = ids.indexOf(headId); ; ) {
+            int length = recordLength(segment, offset);
+            if (length >= 0) {
+                records++;
+                bytes += length;
+                offset += RECORD_HEADER + length;
+                continue;
+            }
+            if (index == ids.size() - 1) {
+                break;
+            }
+            if (offset <= segment.capacity() - RECORD_HEADER && segment.buffer().getInt(offset) != 0) {
+                log.warn("Journal segment {} ends in a damaged record at {}; the records after it are skipped",
+                        segment.path().getFileName(), offset);
+            }
+            segment = open(ids.get(++index));
+            offset = SEGMENT_HEADER;
+        }
+        tail = segment;
+        writeOffset = offset;
+        if (!tail.valid()) {
+            log.warn("Journal segment {} has no valid header and is recreated", tail.path().getFileName());
+            boolean wasHead = tail == head;
+            Files.delete(tail.path());
+            tail = create(tail.id());
+            writeOffset = SEGMENT_HEADER;
+            if (wasHead) {
+                head = tail;
+                readOffset = SEGMENT_HEADER;
+            }
+        }
+        clearTorn(tail, writeOffset);
+        depth = records;
+        pendingBytes = bytes;
+        skipSealedEnd();
+        writeCursor();
+        force();
+        if (records > 0) {
+            log.info("Recovered {} journaled records ({} bytes) in {} segments from {}", records, bytes,
+                    segments(), directory);
+        }
+    }
+
+    /**
+     * Moves the reader on to the next segment while it stands at the end of
+     * a segment the writer has left, deleting each segment it leaves.
+     *
+     * @throws IOException if the next segment cannot be opened or the old one deleted
+     */
+    private void skipSealedEnd() throws IOException {
+        while (head != tail && recordLength(head, readOffset) < 0) {
+            Segment consumed = head;
+            head = consumed.id() + 1 == tail.id() ? tail : open(consumed.id() + 1);
+            readOffset = SEGMENT_HEADER;
+            writeCursor();
+            if (fsyncPolicy != FsyncPolicy.ALWAYS) {
+                cursor.force();
+            }
+            Files.deleteIfExists(consumed.path());
+            log.debug("Compacted journal segment {}", consumed.path().getFileName());
+        }
+    }
+
+    /**
+     * Seals the last segment and starts a new one.
+     *
+     * @throws IOException if the new segment cannot be created
+     */
+    private void roll() throws IOException {
+        tail.buffer().force();
+        tail = create(tail.id() + 1);
+        writeOffset = SEGMENT_HEADER;
+    }
+
+    /**
+     * Measures the record at an offset, checking its checksum.
+     *
+     * @param segment the segment
+     * @param offset the offset of the record
+     * @return the content length, or -1 if no valid record starts there
+     */
+    private static int recordLength(Segment segment, int offset) {
+        if (offset < SEGMENT_HEADER || offset > segment.capacity() - RECORD_HEADER || !segment.valid()) {
+            return -1;
+        }
+        MappedByteBuffer buffer = segment.buffer();
+        int length = buffer.getInt(offset);
+        if (length <= 0 || length > segment.capacity() - offset - RECORD_HEADER) {
+            return -1;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset + RECORD_HEADER, length));
+        return (int) crc.getValue() == buffer.getInt(offset + 4) ? length : -1;
+    }
+
+    /**
+     * Clears a partial record left at the end of the last segment by a
+     * crash, so it cannot be taken for part of a record appended later.
+     *
+     * @param segment the last segment
+     * @param offset where appending continues
+     */
+    private static void clearTorn(Segment segment, int offset) {
+        if (offset > segment.capacity() - RECORD_HEADER || segment.buffer().getInt(offset) == 0) {
+            return;
+        }
+        long declared = Integer.toUnsignedLong(segment.buffer().getInt(offset));
+        int end = (int) Math.min(segment.capacity(), offset + RECORD_HEADER + declared);
+        for (int i = offset; i < end; i++) {
+            segment.buffer().put(i, (byte) 0);
+        }
+        log.warn("Cleared a partial journal record at {}:{}", segment.path().getFileName(), offset);
+    }
+
+    /**
+     * Records the reader's position in the cursor file.
+     */
+    private void writeCursor() {
+        cursor.putLong(0, head.id());
+        cursor.putInt(8, readOffset);
+        cursor.putInt(12, cursorChecksum());
+        if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+            cursor.force();
+        } else {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Computes the checksum of the position in the cursor file.
+     *
+     * @return the CRC-32C of the segment ID and offset
+     */
+    private int cursorChecksum() {
+        CRC32C crc = new CRC32C();
+        crc.update(cursor.slice(0, 12));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Lists the segments on disk.
+     *
+     * @return the segment IDs, oldest first
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Long> segmentIds() throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(null);
+        return ids;
+    }
+
+    /**
+     * Creates and maps a new, empty segment.
+     *
+     * @param id the segment ID
+     * @return the segment
+     * @throws IOException if the file cannot be created
+     */
+    private Segment create(long id) throws IOException {
+        Path path = segmentPath(id);
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        return new Segment(id, path, buffer);
+    }
+
+    /**
+     * Maps an existing segment.
+     *
+     * @param id the segment ID
+     * @return the segment, mapped at its size on disk
+     * @throws IOException if the file cannot be mapped
+     */
+    private Segment open(long id) throws IOException {
+        Path path = segmentPath(id);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Names the file of a segment.
+     *
+     * @param id the segment ID
+     * @return the path of the segment file
+     */
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("segment-%020d.log", id));
+    }
+
+    /**
+     * A mapped segment file.
+     *
+     * @param id the segment ID, one more than the segment before it
+     * @param path the segment file
+     * @param buffer the mapped file
+     */
+    private record Segment(long id, Path path, MappedByteBuffer buffer) {
+
+        /**
+         * Gets the size of the segment.
+         *
+         * @return the capacity of the mapping, in bytes
+         */
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * Checks that the segment starts with the journal's magic number and version.
+         *
+         * @return true if the segment's records can be read
+         */
+        boolean valid() {
+            return capacity() >= SEGMENT_HEADER && buffer.getInt(0) == MAGIC && buffer.getInt(4) == VERSION;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.glic.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.glic.model.Product;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Streaming deserializer for {@link Product}, the payload of every SQS message
+ * and product API response.
+ * Reads the fields straight off the token stream with no reflection or
+ * property lookup: field names come interned from the parser's symbol table,
+ * and prices sent as JSON strings are parsed from the parser's character
+ * buffer without creating an intermediate String. Tokens outside these fast
+ * paths, such as a quantity sent as a string, fall back to the standard
+ * Jackson deserializers, so coercion and unknown-property handling behave as
+ * they would for the bean deserializer.
+ */
+public class ProductDeserializer extends StdDeserializer<Product> {
+
+    /**
+     * Constructs a new ProductDeserializer.
+     */
+    public ProductDeserializer() {
+        super(Product.class);
+    }
+
+    /**
+     * Reads a product from a JSON object.
+     *
+     * @param p the parser, positioned at the start of the object
+     * @param ctxt the deserialization context
+     * @return the product
+     * @throws IOException if the input is not a valid product
+     */
+    @Override
+    public Product deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        String name;
+        if (p.isExpectedStartObjectToken()) {
+            name = p.nextFieldName();
+        } else if (p.hasToken(JsonToken.FIELD_NAME)) {
+            name = p.currentName();
+        } else {
+            return (Product) ctxt.handleUnexpectedToken(Product.class, p);
+        }
+
+        Product product = new Product();
+        for (; name != null; name = p.nextFieldName()) {
+            JsonToken token = p.nextToken();
+            switch (name) {
+                case "id" -> product.setId(token == JsonToken.VALUE_NUMBER_INT ? Long.valueOf(p.getLongValue())
+                        : readScalar(p, ctxt, Long.class));
+                case "name" -> product.setName(readString(p, ctxt));
+                case "description" -> product.setDescription(readString(p, ctxt));
+                case "price" -> product.setPrice(readDecimal(p, ctxt));
+                case "quantity" -> product.setQuantity(token == JsonToken.VALUE_NUMBER_INT
+                        ? Integer.valueOf(p.getIntValue()) : readScalar(p, ctxt, Integer.class));
+                default -> ctxt.handleUnknownProperty(p, this, Product.class, name);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Reads a string field.
+     *
+     * @param p the parser, positioned at the value
+     * @param ctxt the deserialization context
+     * @return the string, or null for JSON null
+     * @throws IOException if the value cannot be read as a string
+     */
+    private static String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+        return p.hasToken(JsonToken.VALUE_STRING) ? p.getText() : readScalar(p, ctxt, String.class);
+    }
+
+    /**
+     * Reads the price, either a JSON number or a plain decimal string.
+     *
+     * @param p the parser, positioned at the value
+     * @param ctxt the deserialization context
+     * @return the price, or null for JSON null
+     * @throws IOException if the value is not a valid decimal
+     */
+    private static BigDecimal readDecimal(JsonParser p, DeserializationContext ctxt) throws IOException {
+        JsonToken token = p.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return p.getDecimalValue();
+        }
+        if (token == JsonToken.VALUE_STRING && isPlainDecimal(p.getTextCharacters(), p.getTextOffset(),
+                p.getTextLength())) {
+            return new BigDecimal(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+        }
+        return readScalar(p, ctxt, BigDecimal.class);
+    }
+
+    /**
+     * Checks that text is an optionally signed run of digits with at most one
+     * decimal point, which {@link BigDecimal} parses exactly as the standard
+     * deserializer would.
+     *
+     * @param chars the character buffer
+     * @param offset the start of the text
+     * @param length the length of the text
+     * @return true if the text can take the fast path
+     */
+    private static boolean isPlainDecimal(char[] chars, int offset, int length) {
+        int start = length > 0 && chars[offset] == '-' ? 1 : 0;
+        if (length - start == 0 || length - start > 32) {
+            return false;
+        }
+        boolean point = false;
+        for (int i = offset + start; i < offset + length; i++) {
+            char c = chars[i];
+            if (c == '.' && !point) {
+                point = true;
+            } else if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads a value through the standard deserializer for its type, handling
+     * JSON null and coercions outside the fast paths.
+     *
+     * @param p the parser, positioned at the value
+     * @param ctxt the deserialization context
+     * @param type the value type
+     * @param <T> the value type
+     * @return the value, or null for JSON null
+     * @throws IOException if the value cannot be read as the type
+     */
+    private static <T> T readScalar(JsonParser p, DeserializationContext ctxt, Class<T> type) throws IOException {
+        return p.hasToken(JsonToken.VALUE_NULL) ? null : ctxt.readValue(p, type);
+    }
+}
@@ -0,0 +1,263 @@
+package com.glic.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The product envelope message format: one SQS message carrying several
+ * products as a JSON array, {@code [{"name":"a",...},{"name":"b",...}]}, in
+ * place of a single product object. A body whose first non-blank character
+ * is {@code [} is an envelope; any other body is a single product, so both
+ * formats can share a queue.
+ * <p>
+ * {@link #read} walks an envelope one item at a time. Each item is located
+ * by skipping over its tokens and handed back as its own JSON text, so the
+ * products are never held in memory together and an item that is not a
+ * valid product does not stop the items after it from being read; only a
+ * JSON syntax error ends the walk. An envelope too large for a message can
+ * be read from a stream the same way, one item in memory at a time.
+ * {@link #pack} builds envelopes that stay within the SQS message size
+ * limit.
+ */
+public final class ProductEnvelope {
+
+    /**
+     * Largest message body SQS accepts, in UTF-8 bytes.
+     */
+    public static final int MAX_BYTES = 256 * 1024;
+
+    /**
+     * Not instantiable.
+     */
+    private ProductEnvelope() {
+    }
+
+    /**
+     * One item of an envelope.
+     *
+     * @param index the position of the item in the envelope
+     * @param json the JSON text of the item
+     */
+    public record Item(int index, String json) {
+    }
+
+    /**
+     * An envelope built by {@link #pack}.
+     *
+     * @param body the message body
+     * @param firstItem the position of the envelope's first item in the packed list
+     * @param itemCount the number of items in the envelope
+     */
+    public record Packed(String body, int firstItem, int itemCount) {
+    }
+
+    /**
+     * Checks whether a message body is an envelope.
+     *
+     * @param body the message body
+     * @return true if the first non-blank character is {@code [}
+     */
+    public static boolean isEnvelope(String body) {
+        if (body == null) {
+            return false;
+        }
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (!Character.isWhitespace(c)) {
+                return c == '[';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts reading an envelope.
+     *
+     * @param factory the factory the parser is created with
+     * @param body the message body
+     * @return a reader positioned before the first item
+     * @throws IOException if the body is not a JSON array
+     */
+    public static Reader read(JsonFactory factory, String body) throws IOException {
+        JsonParser parser = factory.createParser(body);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("Product envelope is not a JSON array");
+        }
+        return new Reader(factory, parser, body);
+    }
+
+    /**
+     * Starts reading an envelope from a stream. Each item is copied out of
+     * the stream as it is read, so its text is re-serialized rather than the
+     * original.
+     *
+     * @param factory the factory the parser is created with
+     * @param in the envelope, as UTF-8 JSON; closed with the reader
+     * @return a reader positioned before the first item
+     * @throws IOException if the stream does not hold a JSON array
+     */
+    public static Reader read(JsonFactory factory, InputStream in) throws IOException {
+        JsonParser parser = factory.createParser(in);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            parser.close();
+            throw new IOException("Product envelope is not a JSON array");
+        }
+        return new Reader(factory, parser, null);
+    }
+
+    /**
+     * Packs items into as few envelopes as fit within a size limit, keeping
+     * their order. An item too large for an envelope of its own still gets
+     * one, for the sender to reject.
+     *
+     * @param items the JSON text of each item
+     * @param maxBytes the largest envelope body, in UTF-8 bytes
+     * @return the envelopes
+     */
+    public static List<Packed> pack(List<String> items, int maxBytes) {
+        List<Packed> envelopes = new ArrayList<>();
+        StringBuilder body = new StringBuilder();
+        int bytes = 0;
+        int first = 0;
+        for (int i = 0; i < items.size(); i++) {
+            String item = items.get(i);
+            int size = item.getBytes(StandardCharsets.UTF_8).length;
+            if (i > first && bytes + 1 + size + 1 > maxBytes) {
+                envelopes.add(new Packed(body.append(']').toString(), first, i - first));
+                body.setLength(0);
+                first = i;
+            }
+            if (i == first) {
+                body.append('[');
+                bytes = 1;
+            } else {
+                body.append(',');
+                bytes++;
+            }
+            body.append(item);
+            bytes += size;
+        }
+        if (first < items.size()) {
+            envelopes.add(new Packed(body.append(']').toString(), first, items.size() - first));
+        }
+        return envelopes;
+    }
+
+    /**
+     * Reads the items of one envelope in order.
+     */
+    public static final class Reader implements Closeable {
+
+        /**
+         * Creates the generators items read from a stream are copied with.
+         */
+        private final JsonFactory factory;
+
+        /**
+         * Parser positioned on the last token read.
+         */
+        private final JsonParser parser;
+
+        /**
+         * The message body, which item texts are cut from, or null when reading a stream.
+         */
+        private final String body;
+
+        /**
+         * Position of the next item.
+         */
+        private int index;
+
+        /**
+         * Offset in the body just past the last item read.
+         */
+        private int consumed;
+
+        /**
+         * Constructs a new Reader.
+         *
+         * @param factory creates the generators items read from a stream are copied with
+         * @param parser the parser, positioned on the opening bracket
+         * @param body the message body, or null when reading a stream
+         */
+        private Reader(JsonFactory factory, JsonParser parser, String body) {
+            this.factory = factory;
+            this.parser = parser;
+            this.body = body;
+        }
+
+        /**
+         * Reads the next item.
+         *
+         * @return the item, or null after the last one
+         * @throws IOException if the envelope is not well-formed JSON
+         */
+        public Item next() throws IOException {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new IOException("Product envelope ends before its closing bracket");
+            }
+            if (token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            if (body == null) {
+                StringWriter text = new StringWriter();
+                try (JsonGenerator generator = factory.createGenerator(text)) {
+                    generator.copyCurrentStructure(parser);
+                }
+                return new Item(index++, text.toString());
+            }
+            int start = (int) parser.currentTokenLocation().getCharOffset();
+            if (token.isStructStart()) {
+                parser.skipChildren();
+            } else {
+                parser.finishToken();
+            }
+            consumed = (int) parser.currentLocation().getCharOffset();
+            return new Item(index++, body.substring(start, consumed));
+        }
+
+        /**
+         * Gets the position the next item would have.
+         *
+         * @return the number of items read so far
+         */
+        public int nextIndex() {
+            return index;
+        }
+
+        /**
+         * Gets the part of the body after the last item read, for reporting
+         * an envelope that could not be read to the end.
+         *
+         * @return the unread text, or an empty string when reading a stream
+         */
+        public String remainder() {
+            if (body == null) {
+                return "";
+            }
+            return body.substring(Math.min(consumed, body.length()));
+        }
+
+        /**
+         * Releases the parser.
+         *
+         * @throws IOException if the parser cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.glic.json;
+
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.glic.model.Product;
+
+/**
+ * Jackson module registering the streaming {@link ProductDeserializer}.
+ */
+public class ProductModule extends SimpleModule {
+
+    /**
+     * Constructs a new ProductModule.
+     */
+    public ProductModule() {
+        super("ProductModule");
+        addDeserializer(Product.class, new ProductDeserializer());
+    }
+}
@@ -0,0 +1,35 @@
+package com.glic.listener;
+
+import java.util.List;
+
+/**
+ * Thrown for a message whose product violates the constraints on
+ * {@link com.glic.model.Product}. Such a message can never succeed, however
+ * often it is redelivered.
+ */
+public class InvalidMessageException extends RuntimeException {
+
+    /**
+     * The constraint violations, as {@code property: message}.
+     */
+    private final List<String> violations;
+
+    /**
+     * Constructs a new InvalidMessageException.
+     *
+     * @param violations the constraint violations, as {@code property: message}
+     */
+    public InvalidMessageException(List<String> violations) {
+        super("Invalid product: " + String.join("; ", violations));
+        this.violations = List.copyOf(violations);
+    }
+
+    /**
+     * Gets the constraint violations.
+     *
+     * @return the violations, as {@code property: message}
+     */
+    public List<String> getViolations() {
+        return violations;
+    }
+}
@@ -0,0 +1,205 @@
+package com.glic.listener;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Resizes {@link SqsMessageListener} from the queue backlogs, so bursts are
+ * drained quickly without keeping threads around while the queues are idle.
+ * On every run it reads {@code ApproximateNumberOfMessages} and
+ * {@code ApproximateNumberOfMessagesNotVisible} of each queue and combines
+ * them with the throughput the listener measured since the last run: the
+ * processing rate, the mean time per message and the age of the oldest
+ * message received (SQS only publishes the age of the oldest message to
+ * CloudWatch, so the {@code SentTimestamp} of received messages stands in).
+ * <p>
+ * A queue needs enough concurrency to keep up with its current rate and drain
+ * its backlog within {@code target-drain-seconds}: by Little's law,
+ * {@code (rate + backlog / target) * time per message}. A queue whose
+ * messages are older than {@code max-message-age-seconds} gets at least
+ * double its current concurrency. Before the time per message is known, a
+ * queue with a backlog doubles. Concurrency shrinks by at most a quarter per
+ * run so a lull does not undo a scale-up at once. Each queue gets one poller
+ * per ten concurrent messages, up to {@code max-pollers}, and the workers are
+ * resized to the sum of the queues' concurrency within
+ * {@code min-workers} and {@code max-workers}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "aws.sqs.listener.autoscale.enabled", havingValue = "true")
+public class ListenerAutoscaler {
+
+    /**
+     * The AWS SQS client used to read the queue backlogs.
+     */
+    private final SqsClient sqsClient;
+
+    /**
+     * The listener being resized.
+     */
+    private final SqsMessageListener listener;
+
+    /**
+     * The autoscaling bounds and targets.
+     */
+    private final ListenerProperties.Autoscale settings;
+
+    /**
+     * Source of monotonic time in nanoseconds.
+     */
+    private final LongSupplier nanoTime;
+
+    /**
+     * Mean processing time per message of each queue, in seconds, from the last run that processed any.
+     */
+    private final Map<QueueLane, Double> secondsPerMessage = new HashMap<>();
+
+    /**
+     * Time of the previous run.
+     */
+    private long lastRun;
+
+    /**
+     * Constructs a new ListenerAutoscaler.
+     *
+     * @param sqsClient the AWS SQS client used to read the queue backlogs
+     * @param listener the listener being resized
+     * @param properties the listener configuration holding the autoscaling settings
+     */
+    @Autowired
+    public ListenerAutoscaler(SqsClient sqsClient, SqsMessageListener listener, ListenerProperties properties) {
+        this(sqsClient, listener, properties, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new ListenerAutoscaler with its own time source.
+     *
+     * @param sqsClient the AWS SQS client used to read the queue backlogs
+     * @param listener the listener being resized
+     * @param properties the listener configuration holding the autoscaling settings
+     * @param nanoTime source of monotonic time in nanoseconds
+     */
+    ListenerAutoscaler(SqsClient sqsClient, SqsMessageListener listener, ListenerProperties properties,
+                       LongSupplier nanoTime) {
+        this.sqsClient = sqsClient;
+        this.listener = listener;
+        this.settings = properties.getAutoscale();
+        this.nanoTime = nanoTime;
+        this.lastRun = nanoTime.getAsLong();
+    }
+
+    /**
+     * Resizes every queue and the workers from the latest backlog and throughput.
+     * A queue whose attributes cannot be read keeps its current size.
+     */
+    @Scheduled(fixedDelayString = "${aws.sqs.listener.autoscale.interval-ms:10000}")
+    public synchronized void rescale() {
+        long now = nanoTime.getAsLong();
+        double seconds = Math.max(0.001, (now - lastRun) / 1e9);
+        lastRun = now;
+
+        int total = 0;
+        for (QueueLane lane : listener.getLanes()) {
+            try {
+                Map<QueueAttributeName, String> attributes = backlog(lane);
+                long visible = Long.parseLong(
+                        attributes.getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, "0"));
+                long notVisible = Long.parseLong(
+                        attributes.getOrDefault(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, "0"));
+                int concurrency = desiredConcurrency(lane, visible, notVisible, seconds);
+                int pollers = pollersFor(concurrency);
+                if (concurrency != lane.getConcurrency() || pollers != lane.getPollerCount()) {
+                    log.info("Resizing queue {}: concurrency {} -> {}, pollers {} -> {} (visible {}, not visible {})",
+                            lane.getName(), lane.getConcurrency(), concurrency, lane.getPollerCount(), pollers,
+                            visible, notVisible);
+                }
+                listener.resizeLane(lane, concurrency, pollers);
+            } catch (Exception e) {
+                log.warn("Could not read the backlog of queue {}, keeping its size: {}", lane.getName(),
+                        e.getMessage());
+            }
+            total += lane.getConcurrency();
+        }
+
+        int workers = Math.max(settings.getMinWorkers(), Math.min(settings.getMaxWorkers(), total));
+        if (workers != listener.getWorkerCount()) {
+            log.info("Resizing listener workers {} -> {}", listener.getWorkerCount(), workers);
+        }
+        listener.resizeWorkers(workers);
+    }
+
+    /**
+     * Reads the backlog attributes of a queue.
+     *
+     * @param lane the queue
+     * @return the visible and not visible message counts
+     */
+    private Map<QueueAttributeName, String> backlog(QueueLane lane) {
+        return sqsClient.getQueueAttributes(GetQueueAttributesRequest.builder()
+                .queueUrl(lane.getUrl())
+                .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                        QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)
+                .build()).attributes();
+    }
+
+    /**
+     * Computes how many receive loops keep a queue's workers supplied: one per
+     * full receive of concurrent messages.
+     *
+     * @param concurrency the queue's concurrency limit
+     * @return the poller count, between 1 and {@code max-pollers}
+     */
+    private int pollersFor(int concurrency) {
+        int perPoller = SqsMessageListener.MAX_MESSAGES;
+        return Math.min(settings.getMaxPollers(), Math.max(1, (concurrency + perPoller - 1) / perPoller));
+    }
+
+    /**
+     * Computes the concurrency a queue needs, consuming the throughput sampled since the last run.
+     *
+     * @param lane the queue
+     * @param visible messages waiting in the queue
+     * @param notVisible messages received and not yet deleted, by any consumer
+     * @param seconds time since the last run
+     * @return the new concurrency limit, within the queue's bounds
+     */
+    int desiredConcurrency(QueueLane lane, long visible, long notVisible, double seconds) {
+        long processed = lane.takeProcessed();
+        long busyNanos = lane.takeBusyNanos();
+        long oldestAgeMillis = lane.takeOldestAgeMillis();
+        if (processed > 0) {
+            secondsPerMessage.put(lane, busyNanos / 1e9 / processed);
+        }
+
+        // Messages held elsewhere, such as retries waiting out their backoff, come back to this queue
+        long held = lane.getBuffered() + lane.getInFlight();
+        long backlog = visible + Math.max(0, notVisible - held);
+        int current = lane.getConcurrency();
+        Double perMessage = secondsPerMessage.get(lane);
+
+        int desired;
+        if (perMessage == null) {
+            desired = backlog > 0 ? current * 2 : 1;
+        } else {
+            double rate = processed / seconds;
+            desired = (int) Math.ceil((rate + (double) backlog / settings.getTargetDrainSeconds()) * perMessage);
+        }
+        if (backlog > 0 && oldestAgeMillis > settings.getMaxMessageAgeSeconds() * 1000L) {
+            desired = Math.max(desired, current * 2);
+        }
+        if (desired < current) {
+            desired = Math.max(desired, current - Math.max(1, current / 4));
+        }
+        return Math.max(1, Math.min(lane.getMaxConcurrency(), desired));
+    }
+}
@@ -0,0 +1,437 @@
+package com.glic.listener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Meters for the SQS listener.
+ * Every meter is registered once at construction and recorded with plain
+ * nanosecond durations, so instrumenting a message allocates nothing. All
+ * meters are tagged {@code queue} with the name of the queue they describe;
+ * {@link #forQueue(String)} gives the meters of another queue.
+ * <ul>
+ *   <li>{@code sqs.listener.stage} timers, tagged {@code stage}: receive,
+ *       parse, validate, create (the product API call) and delete;</li>
+ *   <li>{@code sqs.listener.message} timers for the whole message, tagged
+ *       {@code outcome} success, rejected (invalid product), failure,
+ *       expired (its deadline passed while it was processed) or spilled (its
+ *       product was left in the local journal for replay), which also count
+ *       messages;</li>
+ *   <li>{@code sqs.listener.envelope.items}: products of envelope messages,
+ *       tagged {@code outcome} created, rejected, failed or expired;</li>
+ *   <li>{@code sqs.listener.expired}: messages skipped because their
+ *       visibility timeout was about to run out, tagged {@code stage}
+ *       buffer (before a worker took them) or process;</li>
+ *   <li>{@code sqs.listener.duplicates}: deliveries of messages SQS had
+ *       delivered before, from {@code ApproximateReceiveCount};</li>
+ *   <li>{@code sqs.listener.message.age}: time from send to the start of
+ *       processing, from {@code SentTimestamp};</li>
+ *   <li>{@code sqs.listener.receive.batch.size}, the
+ *       {@code sqs.listener.in.flight} gauge and the
+ *       {@code sqs.listener.buffered} gauge of received messages waiting
+ *       for a worker.</li>
+ * </ul>
+ */
+@Component
+public class ListenerMetrics {
+
+    /**
+     * Queue name used for the meters of the single queue listened to when no
+     * queues are configured.
+     */
+    public static final String DEFAULT_QUEUE = "default";
+
+    /**
+     * The registry the meters are published to.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Name of the queue the meters describe.
+     */
+    private final String queue;
+
+    /**
+     * Time spent in ReceiveMessage calls, including long polling.
+     */
+    private final Timer receiveTimer;
+
+    /**
+     * Time spent deserializing message bodies.
+     */
+    private final Timer parseTimer;
+
+    /**
+     * Time spent validating parsed products.
+     */
+    private final Timer validateTimer;
+
+    /**
+     * Time spent creating products through the REST API.
+     */
+    private final Timer createTimer;
+
+    /**
+     * Time spent deleting processed messages.
+     */
+    private final Timer deleteTimer;
+
+    /**
+     * Total processing time of messages that were processed successfully.
+     */
+    private final Timer succeededTimer;
+
+    /**
+     * Total processing time of messages rejected as invalid.
+     */
+    private final Timer rejectedTimer;
+
+    /**
+     * Total processing time of messages that failed.
+     */
+    private final Timer failedTimer;
+
+    /**
+     * Total processing time of messages abandoned when their deadline passed.
+     */
+    private final Timer expiredTimer;
+
+    /**
+     * Total processing time of messages whose product was spilled to the journal.
+     */
+    private final Timer spilledTimer;
+
+    /**
+     * Messages whose deadline passed before a worker took them.
+     */
+    private final Counter expiredInBuffer;
+
+    /**
+     * Messages whose deadline passed while they were processed.
+     */
+    private final Counter expiredInProcess;
+
+    /**
+     * Envelope products created.
+     */
+    private final Counter itemsCreated;
+
+    /**
+     * Envelope products that were malformed or invalid.
+     */
+    private final Counter itemsRejected;
+
+    /**
+     * Envelope products whose creation failed.
+     */
+    private final Counter itemsFailed;
+
+    /**
+     * Envelope products not created before the message's deadline.
+     */
+    private final Counter itemsExpired;
+
+    /**
+     * Deliveries of messages that had been delivered before.
+     */
+    private final Counter duplicates;
+
+    /**
+     * Time messages spent in the queue before processing started.
+     */
+    private final Timer messageAge;
+
+    /**
+     * Number of messages returned per receive.
+     */
+    private final DistributionSummary batchSize;
+
+    /**
+     * Number of messages currently being processed.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Number of received messages waiting for a worker.
+     */
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    /**
+     * Registers the listener meters of the default queue.
+     *
+     * @param registry the registry the meters are published to
+     */
+    @Autowired
+    public ListenerMetrics(MeterRegistry registry) {
+        this(registry, DEFAULT_QUEUE);
+    }
+
+    /**
+     * Registers the listener meters of one queue.
+     *
+     * @param registry the registry the meters are published to
+     * @param queue the queue name the meters are tagged with
+     */
+    public ListenerMetrics(MeterRegistry registry, String queue) {
+        this.registry = registry;
+        this.queue = queue;
+        this.receiveTimer = stageTimer("receive");
+        this.parseTimer = stageTimer("parse");
+        this.validateTimer = stageTimer("validate");
+        this.createTimer = stageTimer("create");
+        this.deleteTimer = stageTimer("delete");
+        this.succeededTimer = messageTimer("success");
+        this.rejectedTimer = messageTimer("rejected");
+        this.failedTimer = messageTimer("failure");
+        this.expiredTimer = messageTimer("expired");
+        this.spilledTimer = messageTimer("spilled");
+        this.expiredInBuffer = expiredCounter("buffer");
+        this.expiredInProcess = expiredCounter("process");
+        this.itemsCreated = itemCounter("created");
+        this.itemsRejected = itemCounter("rejected");
+        this.itemsFailed = itemCounter("failed");
+        this.itemsExpired = itemCounter("expired");
+        this.duplicates = Counter.builder("sqs.listener.duplicates")
+                .description("Deliveries of messages that had been delivered before")
+                .tag("queue", queue)
+                .register(registry);
+        this.messageAge = Timer.builder("sqs.listener.message.age")
+                .description("Time from SendMessage to the start of processing")
+                .tag("queue", queue)
+                .publishPercentileHistogram()
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("sqs.listener.receive.batch.size")
+                .description("Messages returned per ReceiveMessage call")
+                .tag("queue", queue)
+                .register(registry);
+        Gauge.builder("sqs.listener.in.flight", inFlight, AtomicInteger::get)
+                .description("Messages currently being processed")
+                .tag("queue", queue)
+                .register(registry);
+        Gauge.builder("sqs.listener.buffered", buffered, AtomicInteger::get)
+                .description("Received messages waiting for a worker")
+                .tag("queue", queue)
+                .register(registry);
+    }
+
+    /**
+     * Gets the meters of a queue, registering them in the same registry on first use.
+     *
+     * @param queue the queue name
+     * @return these meters if they describe that queue, otherwise new meters tagged with it
+     */
+    public ListenerMetrics forQueue(String queue) {
+        return this.queue.equals(queue) ? this : new ListenerMetrics(registry, queue);
+    }
+
+    /**
+     * Records a completed receive.
+     *
+     * @param nanos the duration of the call
+     * @param messages the number of messages returned
+     */
+    public void received(long nanos, int messages) {
+        receiveTimer.record(nanos, TimeUnit.NANOSECONDS);
+        batchSize.record(messages);
+    }
+
+    /**
+     * Records how many received messages are waiting for a worker.
+     *
+     * @param count the number of buffered messages
+     */
+    public void buffered(int count) {
+        buffered.set(count);
+    }
+
+    /**
+     * Marks the start of processing a message and records its age and
+     * whether it is a redelivery.
+     *
+     * @param message the message
+     * @param nowMillis the current wall-clock time in epoch milliseconds
+     */
+    public void started(Message message, long nowMillis) {
+        inFlight.incrementAndGet();
+        String sent = message.attributesAsStrings().get("SentTimestamp");
+        if (sent != null) {
+            messageAge.record(Math.max(0, nowMillis - Long.parseLong(sent)), TimeUnit.MILLISECONDS);
+        }
+        String receiveCount = message.attributesAsStrings().get("ApproximateReceiveCount");
+        if (receiveCount != null && !"1".equals(receiveCount)) {
+            duplicates.increment();
+        }
+    }
+
+    /**
+     * Records the deserialization of a message body.
+     *
+     * @param nanos the duration
+     */
+    public void parsed(long nanos) {
+        parseTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the validation of a parsed product.
+     *
+     * @param nanos the duration
+     */
+    public void validated(long nanos) {
+        validateTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the REST API call creating the product.
+     *
+     * @param nanos the duration
+     */
+    public void created(long nanos) {
+        createTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the deletion of a processed message.
+     *
+     * @param nanos the duration
+     */
+    public void deleted(long nanos) {
+        deleteTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Marks a message as processed successfully.
+     *
+     * @param nanos the total processing time
+     */
+    public void succeeded(long nanos) {
+        succeededTimer.record(nanos, TimeUnit.NANOSECONDS);
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Marks a message as rejected because its product is invalid.
+     *
+     * @param nanos the processing time until the rejection
+     */
+    public void rejected(long nanos) {
+        rejectedTimer.record(nanos, TimeUnit.NANOSECONDS);
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Marks a message as failed.
+     *
+     * @param nanos the processing time until the failure
+     */
+    public void failed(long nanos) {
+        failedTimer.record(nanos, TimeUnit.NANOSECONDS);
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Marks a message as done because its product was spilled to the journal.
+     *
+     * @param nanos the total processing time
+     */
+    public void spilled(long nanos) {
+        spilledTimer.record(nanos, TimeUnit.NANOSECONDS);
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records a message skipped because its deadline passed before a worker took it.
+     */
+    public void expiredInBuffer() {
+        expiredInBuffer.increment();
+    }
+
+    /**
+     * Marks a message as abandoned because its deadline passed while it was processed.
+     *
+     * @param nanos the processing time until it was abandoned
+     */
+    public void expired(long nanos) {
+        expiredTimer.record(nanos, TimeUnit.NANOSECONDS);
+        expiredInProcess.increment();
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Records the outcome of the products of one envelope message.
+     *
+     * @param created the products created
+     * @param rejected the products that were malformed or invalid
+     * @param failed the products whose creation failed
+     * @param expired the products not created before the deadline
+     */
+    public void envelopeItems(int created, int rejected, int failed, int expired) {
+        itemsCreated.increment(created);
+        itemsRejected.increment(rejected);
+        itemsFailed.increment(failed);
+        itemsExpired.increment(expired);
+    }
+
+    /**
+     * Registers a counter of envelope products for one outcome.
+     *
+     * @param outcome the outcome
+     * @return the counter
+     */
+    private Counter itemCounter(String outcome) {
+        return Counter.builder("sqs.listener.envelope.items")
+                .description("Products of envelope messages by outcome")
+                .tags("queue", queue, "outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Registers a counter of expired messages for one stage.
+     *
+     * @param stage where the messages expired
+     * @return the counter
+     */
+    private Counter expiredCounter(String stage) {
+        return Counter.builder("sqs.listener.expired")
+                .description("Messages skipped because their visibility timeout was about to run out")
+                .tags("queue", queue, "stage", stage)
+                .register(registry);
+    }
+
+    /**
+     * Registers a timer for one processing stage.
+     *
+     * @param stage the stage name
+     * @return the timer
+     */
+    private Timer stageTimer(String stage) {
+        return Timer.builder("sqs.listener.stage")
+                .description("Time spent in each stage of message processing")
+                .tags("queue", queue, "stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Registers a timer for whole messages with the given outcome.
+     *
+     * @param outcome success, rejected, failure, expired or spilled
+     * @return the timer
+     */
+    private Timer messageTimer(String outcome) {
+        return Timer.builder("sqs.listener.message")
+                .description("Total time to process a message")
+                .tags("queue", queue, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,606 @@
+package com.glic.listener;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.validation.annotation.Validated;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Queues the listener consumes and the worker budget they share, bound from
+ * {@code aws.sqs.listener.*}.
+ * Each queue has a weight and a concurrency limit; {@link WeightedFairScheduler}
+ * shares the workers between queues with a backlog in proportion to their
+ * weights. When no queues are configured the listener consumes
+ * {@code aws.sqs.url} alone, as it always has. With {@code autoscale.enabled}
+ * {@link ListenerAutoscaler} resizes the workers, each queue's concurrency
+ * and its pollers from the queue backlogs; the configured concurrency is then
+ * the queue's upper bound.
+ */
+@Validated
+@ConfigurationProperties(prefix = "aws.sqs.listener")
+public class ListenerProperties {
+
+    /**
+     * Number of worker threads processing messages, shared by all queues.
+     */
+    @Positive
+    private int workers = 1;
+
+    /**
+     * The queues to consume; empty to consume {@code aws.sqs.url} alone.
+     */
+    @Valid
+    private List<Queue> queues = new ArrayList<>();
+
+    /**
+     * Backlog-driven resizing of the workers and pollers.
+     */
+    @Valid
+    private Autoscale autoscale = new Autoscale();
+
+    /**
+     * Pause between receives while a queue keeps returning nothing.
+     */
+    @Valid
+    private EmptyReceiveBackoff emptyReceiveBackoff = new EmptyReceiveBackoff();
+
+    /**
+     * Longest time stopping the listener waits for in-flight messages, in milliseconds.
+     */
+    @PositiveOrZero
+    private long shutdownTimeoutMs = 20000;
+
+    /**
+     * How long received messages stay hidden from other consumers, in seconds;
+     * a message is only worked on within this lease.
+     */
+    @Positive
+    @Max(43200)
+    private int visibilityTimeoutSeconds = 30;
+
+    /**
+     * Part of the lease kept back for deleting the message, in milliseconds;
+     * no new work on a message starts after its lease less this margin.
+     */
+    @PositiveOrZero
+    private long deadlineMarginMs = 2000;
+
+    /**
+     * Most products of one envelope message processed at once.
+     */
+    @Positive
+    private int envelopeParallelism = 4;
+
+    /**
+     * Gets the number of worker threads shared by all queues.
+     *
+     * @return the worker budget
+     */
+    public int getWorkers() {
+        return workers;
+    }
+
+    /**
+     * Sets the number of worker threads shared by all queues.
+     *
+     * @param workers the worker budget
+     */
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Gets the configured queues.
+     *
+     * @return the queues, possibly empty
+     */
+    public List<Queue> getQueues() {
+        return queues;
+    }
+
+    /**
+     * Sets the configured queues.
+     *
+     * @param queues the queues
+     */
+    public void setQueues(List<Queue> queues) {
+        this.queues = queues;
+    }
+
+    /**
+     * Gets the autoscaling settings.
+     *
+     * @return the autoscaling settings
+     */
+    public Autoscale getAutoscale() {
+        return autoscale;
+    }
+
+    /**
+     * Sets the autoscaling settings.
+     *
+     * @param autoscale the autoscaling settings
+     */
+    public void setAutoscale(Autoscale autoscale) {
+        this.autoscale = autoscale;
+    }
+
+    /**
+     * Gets the empty-receive backoff settings.
+     *
+     * @return the backoff settings
+     */
+    public EmptyReceiveBackoff getEmptyReceiveBackoff() {
+        return emptyReceiveBackoff;
+    }
+
+    /**
+     * Sets the empty-receive backoff settings.
+     *
+     * @param emptyReceiveBackoff the backoff settings
+     */
+    public void setEmptyReceiveBackoff(EmptyReceiveBackoff emptyReceiveBackoff) {
+        this.emptyReceiveBackoff = emptyReceiveBackoff;
+    }
+
+    /**
+     * Gets the longest time stopping the listener waits for in-flight messages.
+     *
+     * @return the timeout in milliseconds
+     */
+    public long getShutdownTimeoutMs() {
+        return shutdownTimeoutMs;
+    }
+
+    /**
+     * Sets the longest time stopping the listener waits for in-flight messages.
+     *
+     * @param shutdownTimeoutMs the timeout in milliseconds
+     */
+    public void setShutdownTimeoutMs(long shutdownTimeoutMs) {
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    /**
+     * Gets how long received messages stay hidden from other consumers.
+     *
+     * @return the visibility timeout in seconds
+     */
+    public int getVisibilityTimeoutSeconds() {
+        return visibilityTimeoutSeconds;
+    }
+
+    /**
+     * Sets how long received messages stay hidden from other consumers.
+     *
+     * @param visibilityTimeoutSeconds the visibility timeout in seconds
+     */
+    public void setVisibilityTimeoutSeconds(int visibilityTimeoutSeconds) {
+        this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+    }
+
+    /**
+     * Gets the part of the lease kept back for deleting the message.
+     *
+     * @return the margin in milliseconds
+     */
+    public long getDeadlineMarginMs() {
+        return deadlineMarginMs;
+    }
+
+    /**
+     * Sets the part of the lease kept back for deleting the message.
+     *
+     * @param deadlineMarginMs the margin in milliseconds
+     */
+    public void setDeadlineMarginMs(long deadlineMarginMs) {
+        this.deadlineMarginMs = deadlineMarginMs;
+    }
+
+    /**
+     * Gets the most products of one envelope message processed at once.
+     *
+     * @return the parallelism
+     */
+    public int getEnvelopeParallelism() {
+        return envelopeParallelism;
+    }
+
+    /**
+     * Sets the most products of one envelope message processed at once.
+     *
+     * @param envelopeParallelism the parallelism
+     */
+    public void setEnvelopeParallelism(int envelopeParallelism) {
+        this.envelopeParallelism = envelopeParallelism;
+    }
+
+    /**
+     * Gets the most workers the listener may run: the worker budget, or the
+     * autoscaling maximum if that is larger and autoscaling is enabled.
+     *
+     * @return the worker ceiling
+     */
+    public int maxWorkers() {
+        return autoscale.isEnabled() ? Math.max(workers, autoscale.getMaxWorkers()) : workers;
+    }
+
+    /**
+     * Resolves the queues to consume, filling in defaults.
+     * Queues without a name are named after the last segment of their URL and
+     * queues without a concurrency limit may use every worker the listener
+     * may run.
+     *
+     * @param defaultUrl the queue consumed when none are configured
+     * @return the queues in configuration order, never empty
+     */
+    public List<Queue> resolveQueues(String defaultUrl) {
+        if (queues.isEmpty()) {
+            Queue queue = new Queue();
+            queue.setName(ListenerMetrics.DEFAULT_QUEUE);
+            queue.setUrl(defaultUrl);
+            queue.setConcurrency(maxWorkers());
+            return List.of(queue);
+        }
+        List<Queue> resolved = new ArrayList<>(queues.size());
+        for (Queue configured : queues) {
+            Queue queue = new Queue();
+            String url = configured.getUrl();
+            String name = configured.getName();
+            queue.setName(name == null || name.isBlank() ? url.substring(url.lastIndexOf('/') + 1) : name);
+            queue.setUrl(url);
+            queue.setWeight(configured.getWeight());
+            queue.setConcurrency(configured.getConcurrency() > 0 ? configured.getConcurrency() : maxWorkers());
+            resolved.add(queue);
+        }
+        return resolved;
+    }
+
+    /**
+     * One queue the listener consumes.
+     */
+    public static class Queue {
+
+        /**
+         * Name of the queue in logs and meter tags; defaults to the last URL segment.
+         */
+        private String name;
+
+        /**
+         * The queue URL.
+         */
+        @NotBlank
+        private String url;
+
+        /**
+         * Share of the workers the queue gets, relative to the other queues, while they all have a backlog.
+         */
+        @Positive
+        private int weight = 1;
+
+        /**
+         * Maximum number of the queue's messages processed at once; 0 for the whole worker budget.
+         */
+        @PositiveOrZero
+        private int concurrency;
+
+        /**
+         * Gets the queue name.
+         *
+         * @return the name, or null if not configured
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Sets the queue name.
+         *
+         * @param name the name
+         */
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets the queue URL.
+         *
+         * @return the URL
+         */
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Sets the queue URL.
+         *
+         * @param url the URL
+         */
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        /**
+         * Gets the queue's weight.
+         *
+         * @return the weight
+         */
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Sets the queue's weight.
+         *
+         * @param weight the weight
+         */
+        public void setWeight(int weight) {
+            this.weight = weight;
+        }
+
+        /**
+         * Gets the queue's concurrency limit.
+         *
+         * @return the limit, 0 for the whole worker budget
+         */
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * Sets the queue's concurrency limit.
+         *
+         * @param concurrency the limit, 0 for the whole worker budget
+         */
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    /**
+     * Backlog-driven resizing of the listener, applied by {@link ListenerAutoscaler}.
+     */
+    public static class Autoscale {
+
+        /**
+         * Whether the workers and pollers are resized from the queue backlogs.
+         */
+        private boolean enabled;
+
+        /**
+         * Time between resizes, in milliseconds.
+         */
+        @Positive
+        private long intervalMs = 10000;
+
+        /**
+         * Fewest workers kept running, even while every queue is empty.
+         */
+        @Positive
+        private int minWorkers = 1;
+
+        /**
+         * Most workers started, however large the backlog.
+         */
+        @Positive
+        private int maxWorkers = 16;
+
+        /**
+         * Most concurrent receive loops per queue.
+         */
+        @Positive
+        private int maxPollers = 4;
+
+        /**
+         * Time within which a backlog should be drained, in seconds.
+         */
+        @Positive
+        private int targetDrainSeconds = 60;
+
+        /**
+         * Message age, in seconds, beyond which a queue's concurrency is doubled.
+         */
+        @Positive
+        private int maxMessageAgeSeconds = 300;
+
+        /**
+         * Checks whether autoscaling is enabled.
+         *
+         * @return true if the listener is resized from the queue backlogs
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Enables or disables autoscaling.
+         *
+         * @param enabled whether the listener is resized from the queue backlogs
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Gets the time between resizes.
+         *
+         * @return the interval in milliseconds
+         */
+        public long getIntervalMs() {
+            return intervalMs;
+        }
+
+        /**
+         * Sets the time between resizes.
+         *
+         * @param intervalMs the interval in milliseconds
+         */
+        public void setIntervalMs(long intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        /**
+         * Gets the fewest workers kept running.
+         *
+         * @return the worker floor
+         */
+        public int getMinWorkers() {
+            return minWorkers;
+        }
+
+        /**
+         * Sets the fewest workers kept running.
+         *
+         * @param minWorkers the worker floor
+         */
+        public void setMinWorkers(int minWorkers) {
+            this.minWorkers = minWorkers;
+        }
+
+        /**
+         * Gets the most workers started.
+         *
+         * @return the worker ceiling
+         */
+        public int getMaxWorkers() {
+            return maxWorkers;
+        }
+
+        /**
+         * Sets the most workers started.
+         *
+         * @param maxWorkers the worker ceiling
+         */
+        public void setMaxWorkers(int maxWorkers) {
+            this.maxWorkers = maxWorkers;
+        }
+
+        /**
+         * Gets the most concurrent receive loops per queue.
+         *
+         * @return the poller ceiling
+         */
+        public int getMaxPollers() {
+            return maxPollers;
+        }
+
+        /**
+         * Sets the most concurrent receive loops per queue.
+         *
+         * @param maxPollers the poller ceiling
+         */
+        public void setMaxPollers(int maxPollers) {
+            this.maxPollers = maxPollers;
+        }
+
+        /**
+         * Gets the time within which a backlog should be drained.
+         *
+         * @return the target in seconds
+         */
+        public int getTargetDrainSeconds() {
+            return targetDrainSeconds;
+        }
+
+        /**
+         * Sets the time within which a backlog should be drained.
+         *
+         * @param targetDrainSeconds the target in seconds
+         */
+        public void setTargetDrainSeconds(int targetDrainSeconds) {
+            this.targetDrainSeconds = targetDrainSeconds;
+        }
+
+        /**
+         * Gets the message age beyond which a queue's concurrency is doubled.
+         *
+         * @return the age in seconds
+         */
+        public int getMaxMessageAgeSeconds() {
+            return maxMessageAgeSeconds;
+        }
+
+        /**
+         * Sets the message age beyond which a queue's concurrency is doubled.
+         *
+         * @param maxMessageAgeSeconds the age in seconds
+         */
+        public void setMaxMessageAgeSeconds(int maxMessageAgeSeconds) {
+            this.maxMessageAgeSeconds = maxMessageAgeSeconds;
+        }
+    }
+
+    /**
+     * Exponential pause between receives that return nothing, so idle queues
+     * cost fewer ReceiveMessage calls.
+     */
+    public static class EmptyReceiveBackoff {
+
+        /**
+         * Pause after the first empty receive, in milliseconds.
+         */
+        @PositiveOrZero
+        private long initialMs = 100;
+
+        /**
+         * Longest pause, in milliseconds; 0 disables the backoff.
+         */
+        @PositiveOrZero
+        private long maxMs = 5000;
+
+        /**
+         * Gets the pause after the first empty receive.
+         *
+         * @return the pause in milliseconds
+         */
+        public long getInitialMs() {
+            return initialMs;
+        }
+
+        /**
+         * Sets the pause after the first empty receive.
+         *
+         * @param initialMs the pause in milliseconds
+         */
+        public void setInitialMs(long initialMs) {
+            this.initialMs = initialMs;
+        }
+
+        /**
+         * Gets the longest pause.
+         *
+         * @return the pause in milliseconds, 0 if the backoff is disabled
+         */
+        public long getMaxMs() {
+            return maxMs;
+        }
+
+        /**
+         * Sets the longest pause.
+         *
+         * @param maxMs the pause in milliseconds, 0 to disable the backoff
+         */
+        public void setMaxMs(long maxMs) {
+            this.maxMs = maxMs;
+        }
+
+        /**
+         * Computes the pause after a run of empty receives.
+         *
+         * @param emptyReceives the number of consecutive empty receives, at least 1
+         * @return the pause in milliseconds, doubling from the initial pause up to the maximum
+         */
+        public long pauseMs(int emptyReceives) {
+            if (maxMs <= 0 || initialMs <= 0) {
+                return 0;
+            }
+            return Math.min(maxMs, initialMs << Math.min(emptyReceives - 1, 30));
+        }
+    }
+}
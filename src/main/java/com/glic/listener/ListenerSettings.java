@@ -0,0 +1,290 @@
+package com.glic.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.journal.JournalReplayer;
+import com.glic.logging.PayloadSampler;
+import com.glic.quarantine.MessageFailureHandler;
+import com.glic.service.RestApiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.services.sqs.SqsClient;
+
+/**
+ * Everything a {@link SqsMessageListener} is built from.
+ * The clients, the validator and the fallback queue URL are required; every
+ * other collaborator has a default suited to a listener running without the
+ * rest of the application: private metrics, the default payload sampling, an
+ * in-memory quarantine, claim checks that never store, no spill journal and
+ * the default {@link ListenerProperties}. The application context sets all of
+ * them, see {@code Config#listenerSettings}.
+ */
+public class ListenerSettings {
+
+    /**
+     * The AWS SQS client for queue operations.
+     */
+    private final SqsClient sqsClient;
+
+    /**
+     * The ObjectMapper products are read with.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The service for making REST API calls.
+     */
+    private final RestApiService restApiService;
+
+    /**
+     * The queue consumed when none are configured.
+     */
+    private final String queueUrl;
+
+    /**
+     * Checks parsed products before they are sent to the REST API.
+     */
+    private final ProductMessageValidator messageValidator;
+
+    /**
+     * The meters message processing is recorded in; null for a private registry.
+     */
+    private ListenerMetrics metrics;
+
+    /**
+     * Decides which message bodies are logged.
+     */
+    private PayloadSampler payloadSampler =
+            new PayloadSampler(PayloadSampler.DEFAULT_SAMPLE_RATE, PayloadSampler.DEFAULT_MAX_LENGTH);
+
+    /**
+     * Quarantines or schedules retries of failed messages; null for an in-memory handler.
+     */
+    private MessageFailureHandler failureHandler;
+
+    /**
+     * Opens and releases the payloads of claim-checked messages.
+     */
+    private ClaimCheck claimCheck = ClaimCheck.inMemory();
+
+    /**
+     * Spills products to the local journal while the product API is failing.
+     */
+    private JournalReplayer journal = JournalReplayer.disabled();
+
+    /**
+     * The queues to consume and the worker budget they share.
+     */
+    private ListenerProperties properties = new ListenerProperties();
+
+    /**
+     * Whether the listener starts with the application.
+     */
+    private boolean pollingEnabled = true;
+
+    /**
+     * Constructs settings with the required collaborators and defaults for the rest.
+     *
+     * @param sqsClient the AWS SQS client for queue operations
+     * @param objectMapper the ObjectMapper products are read with
+     * @param restApiService the service for making REST API calls
+     * @param queueUrl the queue consumed when none are configured
+     * @param messageValidator checks parsed products before they are sent to the REST API
+     */
+    public ListenerSettings(
+            SqsClient sqsClient,
+            ObjectMapper objectMapper,
+            RestApiService restApiService,
+            String queueUrl,
+            ProductMessageValidator messageValidator) {
+        this.sqsClient = sqsClient;
+        this.objectMapper = objectMapper;
+        this.restApiService = restApiService;
+        this.queueUrl = queueUrl;
+        this.messageValidator = messageValidator;
+    }
+
+    /**
+     * Sets the meters message processing is recorded in.
+     *
+     * @param metrics the meters
+     * @return these settings
+     */
+    public ListenerSettings metrics(ListenerMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Sets what decides which message bodies are logged.
+     *
+     * @param payloadSampler the sampler
+     * @return these settings
+     */
+    public ListenerSettings payloadSampler(PayloadSampler payloadSampler) {
+        this.payloadSampler = payloadSampler;
+        return this;
+    }
+
+    /**
+     * Sets the handler quarantining or scheduling retries of failed messages.
+     *
+     * @param failureHandler the handler
+     * @return these settings
+     */
+    public ListenerSettings failureHandler(MessageFailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+        return this;
+    }
+
+    /**
+     * Sets what opens and releases the payloads of claim-checked messages.
+     *
+     * @param claimCheck the claim check
+     * @return these settings
+     */
+    public ListenerSettings claimCheck(ClaimCheck claimCheck) {
+        this.claimCheck = claimCheck;
+        return this;
+    }
+
+    /**
+     * Sets the spill journal products go to while the product API is failing.
+     *
+     * @param journal the journal replayer
+     * @return these settings
+     */
+    public ListenerSettings journal(JournalReplayer journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    /**
+     * Sets the queues to consume and the worker budget they share.
+     *
+     * @param properties the listener properties
+     * @return these settings
+     */
+    public ListenerSettings properties(ListenerProperties properties) {
+        this.properties = properties;
+        return this;
+    }
+
+    /**
+     * Sets whether the listener starts with the application.
+     *
+     * @param pollingEnabled true to start with the application
+     * @return these settings
+     */
+    public ListenerSettings pollingEnabled(boolean pollingEnabled) {
+        this.pollingEnabled = pollingEnabled;
+        return this;
+    }
+
+    /**
+     * Gets the AWS SQS client.
+     *
+     * @return the client
+     */
+    public SqsClient getSqsClient() {
+        return sqsClient;
+    }
+
+    /**
+     * Gets the ObjectMapper products are read with.
+     *
+     * @return the ObjectMapper
+     */
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Gets the service for making REST API calls.
+     *
+     * @return the service
+     */
+    public RestApiService getRestApiService() {
+        return restApiService;
+    }
+
+    /**
+     * Gets the queue consumed when none are configured.
+     *
+     * @return the queue URL
+     */
+    public String getQueueUrl() {
+        return queueUrl;
+    }
+
+    /**
+     * Gets the validator of parsed products.
+     *
+     * @return the validator
+     */
+    public ProductMessageValidator getMessageValidator() {
+        return messageValidator;
+    }
+
+    /**
+     * Gets the meters message processing is recorded in.
+     *
+     * @return the meters, in a private registry if none were set
+     */
+    public ListenerMetrics getMetrics() {
+        return metrics != null ? metrics : new ListenerMetrics(new SimpleMeterRegistry());
+    }
+
+    /**
+     * Gets what decides which message bodies are logged.
+     *
+     * @return the sampler
+     */
+    public PayloadSampler getPayloadSampler() {
+        return payloadSampler;
+    }
+
+    /**
+     * Gets the handler of failed messages.
+     *
+     * @return the handler, keeping quarantined messages in memory if none was set
+     */
+    public MessageFailureHandler getFailureHandler() {
+        return failureHandler != null ? failureHandler : MessageFailureHandler.inMemory(sqsClient);
+    }
+
+    /**
+     * Gets what opens and releases the payloads of claim-checked messages.
+     *
+     * @return the claim check
+     */
+    public ClaimCheck getClaimCheck() {
+        return claimCheck;
+    }
+
+    /**
+     * Gets the spill journal.
+     *
+     * @return the journal replayer
+     */
+    public JournalReplayer getJournal() {
+        return journal;
+    }
+
+    /**
+     * Gets the queues to consume and the worker budget they share.
+     *
+     * @return the listener properties
+     */
+    public ListenerProperties getProperties() {
+        return properties;
+    }
+
+    /**
+     * Indicates whether the listener starts with the application.
+     *
+     * @return true to start with the application
+     */
+    public boolean isPollingEnabled() {
+        return pollingEnabled;
+    }
+}
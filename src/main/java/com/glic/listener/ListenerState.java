@@ -0,0 +1,27 @@
+package com.glic.listener;
+
+/**
+ * Lifecycle state of {@link SqsMessageListener}.
+ */
+public enum ListenerState {
+
+    /**
+     * Not started, or stopped; no threads are running.
+     */
+    STOPPED,
+
+    /**
+     * Receiving and processing messages.
+     */
+    RUNNING,
+
+    /**
+     * Not receiving, but still processing messages received before the pause.
+     */
+    DRAINING,
+
+    /**
+     * Not receiving and holding no messages.
+     */
+    PAUSED
+}
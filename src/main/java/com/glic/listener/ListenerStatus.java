@@ -0,0 +1,42 @@
+package com.glic.listener;
+
+import java.util.List;
+
+/**
+ * Snapshot of {@link SqsMessageListener}, as reported by the admin endpoints.
+ *
+ * @param state the lifecycle state
+ * @param workers the number of worker threads that should be running
+ * @param queues the consumed queues in configuration order
+ */
+public record ListenerStatus(ListenerState state, int workers, List<QueueStatus> queues) {
+
+    /**
+     * Snapshot of one consumed queue.
+     *
+     * @param name the queue name
+     * @param url the queue URL
+     * @param weight the queue's share of the workers relative to the other queues
+     * @param concurrency the maximum number of the queue's messages processed at once
+     * @param maxConcurrency the highest concurrency the queue may be resized to
+     * @param pollers the number of receive loops polling the queue
+     * @param batchSize the maximum number of messages per receive
+     * @param buffered the received messages waiting for a worker
+     * @param inFlight the messages being processed
+     */
+    public record QueueStatus(String name, String url, int weight, int concurrency, int maxConcurrency, int pollers,
+                              int batchSize, int buffered, int inFlight) {
+
+        /**
+         * Takes a snapshot of a queue.
+         *
+         * @param lane the queue
+         * @return the snapshot
+         */
+        static QueueStatus of(QueueLane lane) {
+            return new QueueStatus(lane.getName(), lane.getUrl(), lane.getWeight(), lane.getConcurrency(),
+                    lane.getMaxConcurrency(), lane.getPollerCount(), lane.getBatchSize(), lane.getBuffered(),
+                    lane.getInFlight());
+        }
+    }
+}
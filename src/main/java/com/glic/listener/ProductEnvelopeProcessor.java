@@ -0,0 +1,258 @@
+package com.glic.listener;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.glic.json.ProductEnvelope;
+import com.glic.model.Product;
+import com.glic.quarantine.FailedItem;
+import com.glic.service.RequestDeadline;
+import com.glic.service.RestApiService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Processes the products of a {@link ProductEnvelope} in parallel. Items are
+ * read from the envelope one at a time and handed to the item executor, with
+ * at most {@code parallelism} of an envelope's items in progress at once, so
+ * a large envelope is neither parsed up front nor allowed to take every
+ * item thread. Every item is parsed, validated and created on its own and
+ * gets its own {@link ItemResult}; one item failing does not affect the
+ * others. Items not started by the message's deadline are reported as
+ * expired.
+ */
+final class ProductEnvelopeProcessor {
+
+    /**
+     * What became of an envelope item.
+     */
+    enum Outcome {
+
+        /**
+         * The product was created.
+         */
+        CREATED,
+
+        /**
+         * The item is malformed or its product is invalid.
+         */
+        REJECTED,
+
+        /**
+         * Creating the product failed.
+         */
+        FAILED,
+
+        /**
+         * The message's deadline passed before the product was created.
+         */
+        EXPIRED
+    }
+
+    /**
+     * The result of one envelope item. Only the items that were not created
+     * keep their JSON text, so a large envelope's created products are not
+     * held in memory until its last item is done.
+     *
+     * @param index the position of the item in the envelope
+     * @param json the JSON text of the item, or null if its product was created
+     * @param outcome what became of it
+     * @param stage the last stage reached
+     * @param error the failure, or null if the product was created
+     */
+    record ItemResult(int index, String json, Outcome outcome, String stage, Throwable error) {
+
+        /**
+         * Reports an item that was not created.
+         *
+         * @param item the item
+         * @param outcome what became of it
+         * @param stage the last stage reached
+         * @param error the failure
+         */
+        ItemResult(ProductEnvelope.Item item, Outcome outcome, String stage, Throwable error) {
+            this(item.index(), item.json(), outcome, stage, error);
+        }
+
+        /**
+         * Reports an item whose product was created.
+         *
+         * @param item the item
+         * @return the result, without the item's text
+         */
+        static ItemResult created(ProductEnvelope.Item item) {
+            return new ItemResult(item.index(), null, Outcome.CREATED, "create", null);
+        }
+
+        /**
+         * Describes the item for the failure handler.
+         *
+         * @return the item as a failed item
+         */
+        FailedItem toFailedItem() {
+            return new FailedItem(index, json, stage, error);
+        }
+    }
+
+    /**
+     * Reader bound to {@link Product}.
+     */
+    private final ObjectReader productReader;
+
+    /**
+     * Checks parsed products before they are sent to the REST API.
+     */
+    private final ProductMessageValidator messageValidator;
+
+    /**
+     * The service for making REST API calls.
+     */
+    private final RestApiService restApiService;
+
+    /**
+     * The threads items are processed on.
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Most items of one envelope in progress at once.
+     */
+    private final int parallelism;
+
+    /**
+     * Constructs a new ProductEnvelopeProcessor.
+     *
+     * @param productReader reader bound to {@link Product}
+     * @param messageValidator checks parsed products before they are sent to the REST API
+     * @param restApiService the service for making REST API calls
+     * @param executor the threads items are processed on
+     * @param parallelism most items of one envelope in progress at once
+     */
+    ProductEnvelopeProcessor(ObjectReader productReader, ProductMessageValidator messageValidator,
+                             RestApiService restApiService, ExecutorService executor, int parallelism) {
+        this.productReader = productReader;
+        this.messageValidator = messageValidator;
+        this.restApiService = restApiService;
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Processes every item of an envelope and waits for all of them. If the
+     * envelope stops being well-formed JSON part way, the items before that
+     * point are processed and the unreadable rest is reported as one
+     * rejected item.
+     *
+     * @param dispatch the envelope message, with its queue and deadline
+     * @return the result of each item, in envelope order
+     * @throws IOException if the body is not a JSON array
+     * @throws InterruptedException if the thread is interrupted while waiting for an item thread
+     */
+    List<ItemResult> process(WeightedFairScheduler.Dispatch dispatch) throws IOException, InterruptedException {
+        return process(dispatch, ProductEnvelope.read(productReader.getFactory(), dispatch.message().body()));
+    }
+
+    /**
+     * Processes every item of an envelope stored outside the message, reading
+     * it from a stream as the items are handed out.
+     *
+     * @param dispatch the envelope message, with its queue and deadline
+     * @param payload the envelope
+     * @return the result of each item, in envelope order
+     * @throws IOException if the payload is not a JSON array or cannot be read
+     * @throws InterruptedException if the thread is interrupted while waiting for an item thread
+     */
+    List<ItemResult> process(WeightedFairScheduler.Dispatch dispatch, InputStream payload)
+            throws IOException, InterruptedException {
+        return process(dispatch, ProductEnvelope.read(productReader.getFactory(), payload));
+    }
+
+    /**
+     * Processes the items an envelope reader hands out.
+     *
+     * @param dispatch the envelope message, with its queue and deadline
+     * @param envelope the reader, closed once the last item is read
+     * @return the result of each item, in envelope order
+     * @throws IOException if the reader cannot be closed
+     * @throws InterruptedException if the thread is interrupted while waiting for an item thread
+     */
+    private List<ItemResult> process(WeightedFairScheduler.Dispatch dispatch, ProductEnvelope.Reader envelope)
+            throws IOException, InterruptedException {
+        Semaphore window = new Semaphore(parallelism);
+        List<CompletableFuture<ItemResult>> results = new ArrayList<>();
+        try (ProductEnvelope.Reader reader = envelope) {
+            while (true) {
+                ProductEnvelope.Item item;
+                try {
+                    item = reader.next();
+                } catch (IOException e) {
+                    results.add(CompletableFuture.completedFuture(new ItemResult(
+                            new ProductEnvelope.Item(reader.nextIndex(), reader.remainder()),
+                            Outcome.REJECTED, "parse", e)));
+                    break;
+                }
+                if (item == null) {
+                    break;
+                }
+                window.acquire();
+                if (dispatch.isExpired(System.nanoTime())) {
+                    window.release();
+                    results.add(CompletableFuture.completedFuture(expired(item, "parse")));
+                    continue;
+                }
+                results.add(CompletableFuture.supplyAsync(() -> process(item, dispatch), executor)
+                        .whenComplete((result, error) -> window.release()));
+            }
+        }
+        return results.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * Parses, validates and creates the product of one item.
+     *
+     * @param item the item
+     * @param dispatch the envelope message, whose deadline bounds the product API call
+     * @return the result
+     */
+    private ItemResult process(ProductEnvelope.Item item, WeightedFairScheduler.Dispatch dispatch) {
+        String stage = "parse";
+        try {
+            Product product = productReader.readValue(item.json());
+            stage = "validate";
+            List<String> violations = messageValidator.validate(product);
+            if (!violations.isEmpty()) {
+                return new ItemResult(item, Outcome.REJECTED, stage, new InvalidMessageException(violations));
+            }
+            stage = "create";
+            if (dispatch.isExpired(System.nanoTime())) {
+                return expired(item, stage);
+            }
+            try (RequestDeadline.Scope ignored = dispatch.openDeadline()) {
+                restApiService.createProduct(product);
+            }
+            return ItemResult.created(item);
+        } catch (Exception e) {
+            if (dispatch.isExpired(System.nanoTime())) {
+                return expired(item, stage);
+            }
+            return new ItemResult(item, "parse".equals(stage) ? Outcome.REJECTED : Outcome.FAILED, stage, e);
+        }
+    }
+
+    /**
+     * Reports an item the deadline left no time for; it is retried like a transient failure.
+     *
+     * @param item the item
+     * @param stage the last stage reached
+     * @return the result
+     */
+    private static ItemResult expired(ProductEnvelope.Item item, String stage) {
+        return new ItemResult(item, Outcome.EXPIRED, stage,
+                new TimeoutException("Deadline passed before the item was processed"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.glic.listener;
+
+import com.glic.model.Product;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.metadata.BeanDescriptor;
+import jakarta.validation.metadata.ConstraintDescriptor;
+import jakarta.validation.metadata.PropertyDescriptor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Annotation;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Checks products parsed from SQS messages against the Bean Validation
+ * constraints on {@link Product} before any network call is made.
+ * Products that pass a hand-written check of those constraints are accepted
+ * without calling the validator; all others go through the shared
+ * {@link Validator}, which decides and reports the violations. The fast check
+ * is only used while the constraints declared on Product are exactly the ones
+ * it mirrors, so adding or changing a constraint falls back to the validator
+ * for every message instead of letting invalid products through.
+ */
+@Slf4j
+@Component
+public class ProductMessageValidator {
+
+    /**
+     * The constraints {@link #passesFastCheck(Product)} mirrors, as built by
+     * {@link #constraintSignature(BeanDescriptor)}.
+     */
+    private static final Set<String> FAST_CHECK_CONSTRAINTS = Set.of(
+            "name@NotBlank",
+            "price@NotNull",
+            "price@DecimalMin(0.0,false)",
+            "quantity@NotNull",
+            "quantity@Min(0)");
+
+    /**
+     * The shared Bean Validation validator.
+     */
+    private final Validator validator;
+
+    /**
+     * Whether products passing the fast check skip the validator.
+     */
+    private final boolean fastCheckEnabled;
+
+    /**
+     * Constructs a new ProductMessageValidator.
+     *
+     * @param validator the Bean Validation validator
+     */
+    public ProductMessageValidator(Validator validator) {
+        this.validator = validator;
+        Set<String> declared = constraintSignature(validator.getConstraintsForClass(Product.class));
+        this.fastCheckEnabled = declared.equals(FAST_CHECK_CONSTRAINTS);
+        if (!fastCheckEnabled) {
+            log.warn("Product constraints {} differ from the fast check {}; validating every message in full",
+                    declared, FAST_CHECK_CONSTRAINTS);
+        }
+    }
+
+    /**
+     * Validates a product.
+     *
+     * @param product the product parsed from a message
+     * @return the violations as {@code property: message}, sorted; empty if the product is valid
+     */
+    public List<String> validate(Product product) {
+        if (fastCheckEnabled && passesFastCheck(product)) {
+            return List.of();
+        }
+        Set<ConstraintViolation<Product>> violations = validator.validate(product);
+        if (violations.isEmpty()) {
+            return List.of();
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * Checks the constraints declared on Product without reflection.
+     * Mirrors the validators' semantics exactly for accepted values: NotBlank
+     * trims, DecimalMin is exclusive, and nulls fail NotNull.
+     *
+     * @param product the product
+     * @return true if the product satisfies every constraint
+     */
+    private static boolean passesFastCheck(Product product) {
+        String name = product.getName();
+        BigDecimal price = product.getPrice();
+        Integer quantity = product.getQuantity();
+        return name != null && !name.trim().isEmpty()
+                && price != null && price.signum() > 0
+                && quantity != null && quantity >= 0;
+    }
+
+    /**
+     * Describes the constraints declared on a bean, one entry per property
+     * and constraint, including the bounds of DecimalMin and Min.
+     *
+     * @param bean the bean's constraint metadata
+     * @return the constraint descriptions
+     */
+    private static Set<String> constraintSignature(BeanDescriptor bean) {
+        Set<String> signature = new TreeSet<>();
+        for (ConstraintDescriptor<?> constraint : bean.getConstraintDescriptors()) {
+            signature.add("@" + describe(constraint.getAnnotation()));
+        }
+        for (PropertyDescriptor property : bean.getConstrainedProperties()) {
+            for (ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                signature.add(property.getPropertyName() + "@" + describe(constraint.getAnnotation()));
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Describes a constraint annotation.
+     *
+     * @param annotation the constraint annotation
+     * @return its simple name, with the bound for DecimalMin and Min
+     */
+    private static String describe(Annotation annotation) {
+        if (annotation instanceof DecimalMin decimalMin) {
+            return "DecimalMin(" + decimalMin.value() + "," + decimalMin.inclusive() + ")";
+        }
+        if (annotation instanceof Min min) {
+            return "Min(" + min.value() + ")";
+        }
+        return annotation.annotationType().getSimpleName();
+    }
+}
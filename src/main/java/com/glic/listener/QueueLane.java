@@ -0,0 +1,345 @@
+package com.glic.listener;
+
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.compression.MessageCompression;
+import com.glic.quarantine.MessageFailureHandler;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One queue consumed by {@link SqsMessageListener}: its configuration, its
+ * meters, its pollers, the throughput samples {@link ListenerAutoscaler}
+ * reads and the scheduling state {@link WeightedFairScheduler} keeps for it.
+ * The scheduling state is only touched under the scheduler's lock; the
+ * {@link #getBuffered()} and {@link #getInFlight()} snapshots may be read
+ * from anywhere.
+ */
+public final class QueueLane {
+
+    /**
+     * Name of the queue in logs and meter tags.
+     */
+    private final String name;
+
+    /**
+     * The queue URL.
+     */
+    private final String url;
+
+    /**
+     * Share of the workers the queue gets relative to the other queues.
+     */
+    private final int weight;
+
+    /**
+     * Maximum number of the queue's messages processed at once; changed only under the scheduler lock.
+     */
+    private volatile int concurrency;
+
+    /**
+     * Upper bound for {@link #concurrency} when the listener is resized.
+     */
+    private final int maxConcurrency;
+
+    /**
+     * The receive loops polling this queue.
+     */
+    private final ThreadBudget pollers = new ThreadBudget(1);
+
+    /**
+     * Messages processed since the last throughput sample.
+     */
+    private final LongAdder processed = new LongAdder();
+
+    /**
+     * Processing time of those messages, in nanoseconds.
+     */
+    private final LongAdder busyNanos = new LongAdder();
+
+    /**
+     * Age of the oldest message received since the last sample, in milliseconds.
+     */
+    private final AtomicLong oldestAgeMillis = new AtomicLong();
+
+    /**
+     * Meters of this queue.
+     */
+    private final ListenerMetrics metrics;
+
+    /**
+     * The receive request, rebuilt only when the batch size changes.
+     */
+    private volatile ReceiveMessageRequest receiveRequest;
+
+    /**
+     * Received messages waiting for a worker, in arrival order.
+     */
+    final ArrayDeque<WeightedFairScheduler.Dispatch> buffer = new ArrayDeque<>();
+
+    /**
+     * Virtual time of the queue's next dispatch; advances by 1/weight per message.
+     */
+    double pass;
+
+    /**
+     * Number of buffered messages, mirrored from {@link #buffer} for lock-free reads.
+     */
+    private volatile int buffered;
+
+    /**
+     * Number of the queue's messages being processed.
+     */
+    private volatile int inFlight;
+
+    /**
+     * Constructs a new QueueLane.
+     *
+     * @param name the queue name
+     * @param url the queue URL
+     * @param weight the queue's weight, at least 1
+     * @param concurrency the queue's initial concurrency limit, at least 1
+     * @param maxConcurrency the highest concurrency limit the queue may be resized to
+     * @param metrics the queue's meters
+     * @param maxMessages initial maximum number of messages per receive, between 1 and 10
+     * @param waitTimeSeconds long polling wait time per receive
+     * @param visibilityTimeoutSeconds how long received messages stay hidden from other consumers
+     */
+    QueueLane(String name, String url, int weight, int concurrency, int maxConcurrency, ListenerMetrics metrics,
+              int maxMessages, int waitTimeSeconds, int visibilityTimeoutSeconds) {
+        if (weight < 1 || concurrency < 1 || maxConcurrency < concurrency) {
+            throw new IllegalArgumentException("Queue " + name + " needs a positive weight and concurrency");
+        }
+        this.name = name;
+        this.url = url;
+        this.weight = weight;
+        this.concurrency = concurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.metrics = metrics;
+        this.receiveRequest = ReceiveMessageRequest.builder()
+                .queueUrl(url)
+                .maxNumberOfMessages(maxMessages)
+                .waitTimeSeconds(waitTimeSeconds)
+                .visibilityTimeout(visibilityTimeoutSeconds)
+                .attributeNamesWithStrings(
+                        MessageSystemAttributeName.SENT_TIMESTAMP.toString(),
+                        MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT.toString())
+                .messageAttributeNames(MessageFailureHandler.ATTEMPTS_ATTRIBUTE, MessageCompression.ATTRIBUTE,
+                        ClaimCheck.ATTRIBUTE)
+                .build();
+    }
+
+    /**
+     * Gets how long received messages stay hidden from other consumers.
+     *
+     * @return the visibility timeout in seconds
+     */
+    public int getVisibilityTimeoutSeconds() {
+        return receiveRequest.visibilityTimeout();
+    }
+
+    /**
+     * Gets the queue name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the queue URL.
+     *
+     * @return the URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * Gets the queue's weight.
+     *
+     * @return the weight
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Gets the queue's concurrency limit.
+     *
+     * @return the limit
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Gets the highest concurrency limit the queue may be resized to.
+     *
+     * @return the limit's upper bound
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * Gets the number of receive loops that should poll this queue.
+     *
+     * @return the poller count
+     */
+    public int getPollerCount() {
+        return pollers.getTarget();
+    }
+
+    /**
+     * Gets the maximum number of messages per receive.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return receiveRequest.maxNumberOfMessages();
+    }
+
+    /**
+     * Changes the maximum number of messages per receive, from the next receive on.
+     *
+     * @param batchSize the batch size, between 1 and 10
+     * @throws IllegalArgumentException if the batch size is out of range
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize < 1 || batchSize > SqsMessageListener.MAX_MESSAGES) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + SqsMessageListener.MAX_MESSAGES);
+        }
+        receiveRequest = receiveRequest.toBuilder().maxNumberOfMessages(batchSize).build();
+    }
+
+    /**
+     * Gets the number of received messages waiting for a worker.
+     *
+     * @return the buffered message count
+     */
+    public int getBuffered() {
+        return buffered;
+    }
+
+    /**
+     * Gets the number of the queue's messages being processed.
+     *
+     * @return the in-flight message count
+     */
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Gets the meters of this queue.
+     *
+     * @return the meters
+     */
+    ListenerMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets the receive request for this queue.
+     *
+     * @return the request
+     */
+    ReceiveMessageRequest receiveRequest() {
+        return receiveRequest;
+    }
+
+    /**
+     * Gets the receive loops polling this queue.
+     *
+     * @return the poller budget
+     */
+    ThreadBudget pollers() {
+        return pollers;
+    }
+
+    /**
+     * Changes the concurrency limit; called under the scheduler lock.
+     *
+     * @param concurrency the new limit, clamped to 1 and {@link #getMaxConcurrency()}
+     */
+    void concurrencyChanged(int concurrency) {
+        this.concurrency = Math.max(1, Math.min(maxConcurrency, concurrency));
+    }
+
+    /**
+     * Records a processed message for the throughput sample.
+     *
+     * @param nanos the time spent processing it
+     */
+    void recordProcessed(long nanos) {
+        processed.increment();
+        busyNanos.add(nanos);
+    }
+
+    /**
+     * Records the age of a received message for the throughput sample.
+     *
+     * @param ageMillis the time since the message was sent
+     */
+    void recordReceivedAge(long ageMillis) {
+        oldestAgeMillis.accumulateAndGet(ageMillis, Math::max);
+    }
+
+    /**
+     * Takes the number of messages processed since the last call.
+     *
+     * @return the processed message count
+     */
+    long takeProcessed() {
+        return processed.sumThenReset();
+    }
+
+    /**
+     * Takes the processing time of those messages.
+     *
+     * @return the processing time in nanoseconds
+     */
+    long takeBusyNanos() {
+        return busyNanos.sumThenReset();
+    }
+
+    /**
+     * Takes the age of the oldest message received since the last call.
+     *
+     * @return the age in milliseconds, 0 if nothing was received
+     */
+    long takeOldestAgeMillis() {
+        return oldestAgeMillis.getAndSet(0);
+    }
+
+    /**
+     * Publishes the buffer size after the buffer changed; called under the scheduler lock.
+     */
+    void bufferChanged() {
+        buffered = buffer.size();
+        metrics.buffered(buffered);
+    }
+
+    /**
+     * Adjusts the in-flight count; called under the scheduler lock.
+     *
+     * @param delta the change
+     */
+    void inFlightChanged(int delta) {
+        inFlight += delta;
+    }
+
+    /**
+     * Checks whether the queue has neither buffered nor in-flight messages.
+     *
+     * @return true if the queue is idle
+     */
+    boolean isIdle() {
+        return buffer.isEmpty() && inFlight == 0;
+    }
+}
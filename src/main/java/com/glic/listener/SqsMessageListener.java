@@ -1,27 +1,104 @@
 package com.glic.listener;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.compression.MessageCompression;
+import com.glic.jfr.HttpRequestCompletedEvent;
+import com.glic.jfr.HttpRequestSentEvent;
+import com.glic.jfr.MessageAckedEvent;
+import com.glic.jfr.MessageDeserializedEvent;
+import com.glic.jfr.MessageFailedEvent;
+import com.glic.jfr.MessageReceivedEvent;
+import com.glic.journal.JournalReplayer;
+import com.glic.json.ProductEnvelope;
+import com.glic.logging.PayloadSampler;
 import com.glic.model.Product;
+import com.glic.quarantine.FailedItem;
+import com.glic.quarantine.MessageFailureHandler;
+import com.glic.service.RequestDeadline;
 import com.glic.service.RestApiService;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Listener class for processing messages from an AWS SQS queue.
- * Continuously polls the queue for messages and processes them by creating
+ * Listener class for processing messages from AWS SQS queues.
+ * Continuously polls the queues for messages and processes them by creating
  * products through a REST API call.
+ * <p>
+ * Every queue configured under {@code aws.sqs.listener.queues} (or just
+ * {@code aws.sqs.url}) gets its own poller thread, which keeps the queue's
+ * buffer topped up. A shared pool of {@code aws.sqs.listener.workers} workers
+ * takes messages from the buffers through a {@link WeightedFairScheduler}, so
+ * under load the queues get workers in proportion to their weights and idle
+ * capacity goes to whichever queues have a backlog. The number of workers,
+ * each queue's concurrency and its number of pollers can be changed while the
+ * listener runs, which {@link ListenerAutoscaler} does from the queue
+ * backlogs. A poller whose receives keep coming back empty pauses for
+ * exponentially longer between them, up to
+ * {@code aws.sqs.listener.empty-receive-backoff.max-ms}.
+ * <p>
+ * The listener starts with the application unless
+ * {@code aws.sqs.polling.enabled} is false, and can be stopped and started
+ * again, or paused, resumed and drained while it runs; see
+ * {@link #getState()}. Every start runs on fresh threads, and threads of a
+ * previous run exit once they notice it has ended.
+ * <p>
+ * Stopping is graceful: receiving stops at once and outstanding long polls
+ * are interrupted, messages received but not yet taken by a worker are made
+ * visible again so another consumer picks them up immediately, and the
+ * messages being processed are given up to
+ * {@code aws.sqs.listener.shutdown-timeout-ms} to finish and be deleted.
+ * <p>
+ * Messages are received with a visibility timeout of
+ * {@code aws.sqs.listener.visibility-timeout-seconds}, and each must be done
+ * by the end of that lease less {@code aws.sqs.listener.deadline-margin-ms}:
+ * past it the message may already be redelivered to another consumer. A
+ * worker skips a message whose deadline passed while it was buffered, never
+ * starts the product API call after the deadline, bounds the call's timeouts
+ * by it through {@link RequestDeadline}, and leaves the failure handling of
+ * a message that ran out of time to its next delivery.
+ * <p>
+ * A message whose body is a JSON array is a {@link ProductEnvelope} of
+ * several products. Its items are processed in parallel, up to
+ * {@code aws.sqs.listener.envelope-parallelism} at once, each on its own:
+ * the items that cannot succeed are quarantined one by one, the items that
+ * may succeed later go back to the queue as a new, delayed envelope, and the
+ * original envelope is deleted, so a created product is never created again
+ * because another item of its envelope failed.
+ * <p>
+ * A body compressed by {@link MessageCompression} is restored before it is
+ * parsed, and failure handling works on the restored message, so quarantined
+ * and re-sent messages carry the plain body.
+ * <p>
+ * A message whose body is a {@link ClaimCheck} reference, flagged as one by
+ * the producer, is read from the blob store as a stream when a worker
+ * processes it, so its payload is never held as one string, and the payload
+ * is deleted after the message is.
+ * <p>
+ * With the {@link JournalReplayer} spill journal enabled, once the product API
+ * is considered down after repeated transient failures, every product is
+ * written to the local journal and its message deleted, rather than left to
+ * SQS redelivery, until a call succeeds again; the journal is replayed into
+ * the API at a controlled rate.
  */
 @Slf4j
 @Component
@@ -33,9 +110,9 @@ public class SqsMessageListener {
     private final SqsClient sqsClient;
 
     /**
-     * The ObjectMapper instance for JSON deserialization.
+     * Reader bound to {@link Product}, built once from the application's ObjectMapper.
      */
-    private final ObjectMapper objectMapper;
+    private final ObjectReader productReader;
 
     /**
      * The service for making REST API calls.
@@ -43,9 +120,79 @@ public class SqsMessageListener {
     private final RestApiService restApiService;
 
     /**
-     * The URL of the SQS queue to poll from.
+     * Decides which message bodies are logged and how much of each.
      */
-    private final String queueUrl;
+    private final PayloadSampler payloadSampler;
+
+    /**
+     * Checks parsed products before they are sent to the REST API.
+     */
+    private final ProductMessageValidator messageValidator;
+
+    /**
+     * Quarantines or schedules retries of messages whose processing failed.
+     */
+    private final MessageFailureHandler failureHandler;
+
+    /**
+     * Opens and releases the payloads of claim-checked messages.
+     */
+    private final ClaimCheck claimCheck;
+
+    /**
+     * Spills products to the local journal while the product API is failing.
+     */
+    private final JournalReplayer journal;
+
+    /**
+     * Processes the products of envelope messages.
+     */
+    private final ProductEnvelopeProcessor envelopeProcessor;
+
+    /**
+     * The threads envelope items are processed on, shared by all workers.
+     */
+    private final ExecutorService itemService;
+
+    /**
+     * The queues consumed, in configuration order.
+     */
+    private final List<QueueLane> lanes;
+
+    /**
+     * Shares the workers between the queues.
+     */
+    private final WeightedFairScheduler scheduler;
+
+    /**
+     * The worker threads processing messages.
+     */
+    private final ThreadBudget workers;
+
+    /**
+     * Pause between receives that return nothing.
+     */
+    private final ListenerProperties.EmptyReceiveBackoff emptyReceiveBackoff;
+
+    /**
+     * Longest time stopping waits for in-flight messages, in milliseconds.
+     */
+    private final long shutdownTimeoutMs;
+
+    /**
+     * Part of a message's lease kept back for deleting it, in nanoseconds.
+     */
+    private final long deadlineMarginNanos;
+
+    /**
+     * Messages being processed by a worker, with the queue they came from.
+     */
+    private final Set<WeightedFairScheduler.Dispatch> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether the listener starts with the application.
+     */
+    private final boolean pollingEnabled;
 
     /**
      * Flag indicating whether the message listener is running.
@@ -53,9 +200,29 @@ public class SqsMessageListener {
     private final AtomicBoolean isRunning;
 
     /**
-     * The executor service for running the message polling thread.
+     * Whether receiving is paused while the listener runs.
+     */
+    private volatile boolean paused;
+
+    /**
+     * Number of the current run; loops of earlier runs exit when it changes.
+     */
+    private volatile int generation;
+
+    /**
+     * Monitor paused pollers wait on until the listener is resumed or stopped.
      */
-    private final ExecutorService executorService;
+    private final Object pauseMonitor = new Object();
+
+    /**
+     * The executor service running the polling threads of every queue; replaced on every start.
+     */
+    private volatile ExecutorService pollerService;
+
+    /**
+     * The executor service running the worker threads; replaced on every start.
+     */
+    private volatile ExecutorService workerService;
 
     /**
      * Maximum number of retry attempts for failed operations.
@@ -70,7 +237,7 @@ public class SqsMessageListener {
     /**
      * Maximum number of messages to receive in a single poll.
      */
-    private static final int MAX_MESSAGES = 10;
+    static final int MAX_MESSAGES = 10;
 
     /**
      * Time in seconds to wait for messages in long polling.
@@ -78,46 +245,120 @@ public class SqsMessageListener {
     private static final int WAIT_TIME_SECONDS = 20;
 
     /**
-     * Constructs a new SqsMessageListener with the required dependencies.
+     * Most leading whitespace skipped when looking for the start of a claim-checked payload.
+     */
+    private static final int PEEK_LIMIT = 64 * 1024;
+
+    /**
+     * Time in milliseconds pollers and workers wait before re-checking whether the listener still runs.
+     */
+    private static final long IDLE_CHECK_MS = 1000;
+
+    /**
+     * Constructs a new SqsMessageListener.
      *
-     * @param sqsClient The AWS SQS client for queue operations
-     * @param objectMapper The ObjectMapper for JSON deserialization
-     * @param restApiService The service for making REST API calls
-     * @param queueUrl The URL of the SQS queue to poll from
+     * @param settings The clients, collaborators and configuration the listener is built from
      */
-    @Autowired
-    public SqsMessageListener(
-            SqsClient sqsClient,
-            ObjectMapper objectMapper,
-            RestApiService restApiService,
-            @Value("${aws.sqs.url}") String queueUrl) {
-        this.sqsClient = sqsClient;
-        this.objectMapper = objectMapper;
-        this.restApiService = restApiService;
-        this.queueUrl = queueUrl;
+    public SqsMessageListener(ListenerSettings settings) {
+        ListenerProperties properties = settings.getProperties();
+        ListenerMetrics metrics = settings.getMetrics();
+        this.sqsClient = settings.getSqsClient();
+        this.productReader = settings.getObjectMapper().readerFor(Product.class);
+        this.restApiService = settings.getRestApiService();
+        this.payloadSampler = settings.getPayloadSampler();
+        this.messageValidator = settings.getMessageValidator();
+        this.failureHandler = settings.getFailureHandler();
+        this.claimCheck = settings.getClaimCheck();
+        this.journal = settings.getJournal();
+        CustomizableThreadFactory itemThreads = new CustomizableThreadFactory("sqs-item-");
+        itemThreads.setDaemon(true);
+        this.itemService = Executors.newCachedThreadPool(itemThreads);
+        this.envelopeProcessor = new ProductEnvelopeProcessor(productReader, messageValidator, restApiService,
+                itemService, properties.getEnvelopeParallelism());
+        this.lanes = properties.resolveQueues(settings.getQueueUrl()).stream()
+                .map(queue -> new QueueLane(queue.getName(), queue.getUrl(), queue.getWeight(),
+                        Math.min(queue.getConcurrency(), properties.getWorkers()), queue.getConcurrency(),
+                        metrics.forQueue(queue.getName()), MAX_MESSAGES, WAIT_TIME_SECONDS,
+                        properties.getVisibilityTimeoutSeconds()))
+                .toList();
+        this.scheduler = new WeightedFairScheduler(lanes);
+        this.workers = new ThreadBudget(properties.getWorkers());
+        this.emptyReceiveBackoff = properties.getEmptyReceiveBackoff();
+        this.shutdownTimeoutMs = properties.getShutdownTimeoutMs();
+        this.deadlineMarginNanos = TimeUnit.MILLISECONDS.toNanos(properties.getDeadlineMarginMs());
+        this.pollingEnabled = settings.isPollingEnabled();
         this.isRunning = new AtomicBoolean(false);
-        this.executorService = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * Gets the queues this listener consumes.
+     *
+     * @return the queues in configuration order
+     */
+    public List<QueueLane> getLanes() {
+        return lanes;
+    }
+
+    /**
+     * Gets the number of worker threads that should be processing messages.
+     *
+     * @return the worker count
+     */
+    public int getWorkerCount() {
+        return workers.getTarget();
+    }
+
+    /**
+     * Changes the number of worker threads. Extra workers start at once if the
+     * listener runs; surplus workers finish their current message and exit.
+     *
+     * @param count the new worker count, at least 1
+     */
+    public synchronized void resizeWorkers(int count) {
+        workers.resize(count);
+        if (isRunning.get()) {
+            workers.fill(workerService, this::processMessages);
+        }
+    }
+
+    /**
+     * Changes a queue's concurrency limit and number of pollers.
+     *
+     * @param lane the queue
+     * @param concurrency the new concurrency limit, clamped to the queue's bounds
+     * @param pollers the new number of receive loops, at least 1
+     */
+    public synchronized void resizeLane(QueueLane lane, int concurrency, int pollers) {
+        scheduler.resize(lane, concurrency);
+        lane.pollers().resize(pollers);
+        if (isRunning.get()) {
+            lane.pollers().fill(pollerService, () -> pollMessages(lane));
+        }
     }
 
     /**
      * Starts the message listener and begins polling for messages.
-     * This method is called to manually start the listener.
+     * This method is called to manually start the listener; it resumes a
+     * paused listener and does nothing if the listener already runs.
      */
-    public void start() {
+    public synchronized void start() {
+        if (isRunning.get()) {
+            resume();
+            return;
+        }
         log.info("Starting SQS message listener");
-        isRunning.set(true);
-        executorService.submit(this::pollMessages);
+        launch();
         log.info("SQS message listener started");
     }
 
     /**
-     * Stops the message listener and stops polling for messages.
-     * This method is called to manually stop the listener.
+     * Stops the message listener and stops polling for messages, waiting for
+     * the messages being processed as described in the class comment.
+     * This method is called to manually stop the listener; it can be started again.
      */
-    public void stop() {
+    public synchronized void stop() {
         log.info("Stopping SQS message listener");
-        isRunning.set(false);
-        executorService.shutdown();
+        halt();
         log.info("SQS message listener stopped");
     }
 
@@ -130,56 +371,313 @@ public class SqsMessageListener {
     }
 
     /**
-     * Initializes the message listener and starts polling for messages.
+     * Initializes the message listener and starts polling for messages,
+     * unless {@code aws.sqs.polling.enabled} is false.
      * This method is called after the bean is constructed and all dependencies are injected.
      */
     @PostConstruct
-    public void init() {
+    public synchronized void init() {
+        if (!pollingEnabled) {
+            log.info("SQS polling is disabled; the listener waits to be started");
+            return;
+        }
         log.info("Initializing SQS message listener");
-        isRunning.set(true);
-        executorService.submit(this::pollMessages);
+        launch();
         log.info("SQS message listener initialized and started");
     }
 
     /**
-     * Shuts down the message listener and stops polling for messages.
+     * Shuts down the message listener and stops polling for messages, waiting
+     * for the messages being processed as described in the class comment.
      * This method is called before the bean is destroyed.
      */
     @PreDestroy
-    public void shutdown() {
+    public synchronized void shutdown() {
         log.info("Shutting down SQS message listener");
-        isRunning.set(false);
-        executorService.shutdown();
+        halt();
+        itemService.shutdownNow();
         log.info("SQS message listener shut down");
     }
 
     /**
-     * Continuously polls the SQS queue for messages and processes them.
-     * This method runs in a separate thread and handles message processing
-     * with retry logic for error cases.
+     * Stops receiving new messages. Messages already received are still
+     * processed, so the state is {@link ListenerState#DRAINING} until they
+     * are done and {@link ListenerState#PAUSED} afterwards.
+     */
+    public synchronized void pause() {
+        if (isRunning.get() && !paused) {
+            paused = true;
+            log.info("SQS message listener paused");
+        }
+    }
+
+    /**
+     * Resumes receiving after {@link #pause()}, or starts a stopped listener.
+     */
+    public synchronized void resume() {
+        if (!isRunning.get()) {
+            start();
+            return;
+        }
+        if (paused) {
+            synchronized (pauseMonitor) {
+                paused = false;
+                pauseMonitor.notifyAll();
+            }
+            log.info("SQS message listener resumed");
+        }
+    }
+
+    /**
+     * Pauses receiving and waits for the messages already received to be processed.
+     *
+     * @param timeout the maximum time to wait
+     * @return true if no messages are left, false if the wait timed out or was interrupted
+     */
+    public boolean drain(Duration timeout) {
+        pause();
+        try {
+            return scheduler.awaitIdle(timeout.toNanos());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Gets the lifecycle state.
+     *
+     * @return the current state
+     */
+    public ListenerState getState() {
+        if (!isRunning.get()) {
+            return ListenerState.STOPPED;
+        }
+        if (!paused) {
+            return ListenerState.RUNNING;
+        }
+        return lanes.stream().allMatch(lane -> lane.getBuffered() == 0 && lane.getInFlight() == 0)
+                ? ListenerState.PAUSED : ListenerState.DRAINING;
+    }
+
+    /**
+     * Takes a snapshot of the state, the workers and every queue.
+     *
+     * @return the snapshot
+     */
+    public ListenerStatus getStatus() {
+        return new ListenerStatus(getState(), workers.getTarget(),
+                lanes.stream().map(ListenerStatus.QueueStatus::of).toList());
+    }
+
+    /**
+     * Finds a consumed queue by name.
+     *
+     * @param name the queue name
+     * @return the queue, or empty if no queue has that name
+     */
+    public Optional<QueueLane> findLane(String name) {
+        return lanes.stream().filter(lane -> lane.getName().equals(name)).findFirst();
+    }
+
+    /**
+     * Starts a new run on fresh threads: one or more pollers per queue and the shared workers.
+     */
+    private void launch() {
+        generation++;
+        pollerService = Executors.newCachedThreadPool(new CustomizableThreadFactory("sqs-poller-"));
+        workerService = Executors.newCachedThreadPool(new CustomizableThreadFactory("sqs-worker-"));
+        paused = false;
+        isRunning.set(true);
+        for (QueueLane lane : lanes) {
+            lane.pollers().reset();
+            lane.pollers().fill(pollerService, () -> pollMessages(lane));
+        }
+        workers.reset();
+        workers.fill(workerService, this::processMessages);
+        log.info("Listening to {} with {} workers", lanes.stream()
+                .map(lane -> lane.getName() + " (weight " + lane.getWeight() + ", concurrency "
+                        + lane.getConcurrency() + ")")
+                .toList(), workers.getTarget());
+    }
+
+    /**
+     * Ends the current run. Pollers are interrupted, so a long poll does not
+     * hold up the shutdown, and the messages they buffered are released; the
+     * workers finish their current message, for up to the shutdown timeout,
+     * and are interrupted if they take longer.
+     */
+    private void halt() {
+        if (!isRunning.getAndSet(false)) {
+            return;
+        }
+        synchronized (pauseMonitor) {
+            paused = false;
+            pauseMonitor.notifyAll();
+        }
+        ExecutorService pollers = pollerService;
+        ExecutorService workerThreads = workerService;
+        pollers.shutdownNow();
+        workerThreads.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownTimeoutMs);
+        try {
+            if (!pollers.awaitTermination(remaining(deadline), TimeUnit.NANOSECONDS)) {
+                log.warn("SQS pollers did not stop within {} ms", shutdownTimeoutMs);
+            }
+            releaseBuffered();
+            if (!scheduler.awaitInFlight(remaining(deadline))) {
+                log.warn("Abandoning {} in-flight messages after {} ms; they reappear when their "
+                        + "visibility timeouts expire: {}", inFlight.size(), shutdownTimeoutMs,
+                        inFlight.stream().map(dispatch -> dispatch.message().messageId()).toList());
+                workerThreads.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            releaseBuffered();
+            workerThreads.shutdownNow();
+        }
+    }
+
+    /**
+     * Gets the time left until a deadline.
+     *
+     * @param deadline the deadline, in {@link System#nanoTime()} terms
+     * @return the nanoseconds left, never negative
+     */
+    private static long remaining(long deadline) {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+
+    /**
+     * Makes every buffered message visible again, so it need not wait for its
+     * visibility timeout before another consumer can receive it.
+     */
+    private void releaseBuffered() {
+        scheduler.drainBuffered().forEach(this::release);
+    }
+
+    /**
+     * Makes received messages visible again, in batches of at most ten.
+     * A failure is logged rather than propagated; the messages then simply
+     * become visible when their visibility timeout expires.
+     *
+     * @param lane the queue the messages were received from
+     * @param messages the messages to release
      */
-    private void pollMessages() {
-        while (isRunning.get()) {
+    private void release(QueueLane lane, List<Message> messages) {
+        for (int from = 0; from < messages.size(); from += MAX_MESSAGES) {
+            List<Message> batch = messages.subList(from, Math.min(from + MAX_MESSAGES, messages.size()));
+            List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                        .id(Integer.toString(i))
+                        .receiptHandle(batch.get(i).receiptHandle())
+                        .visibilityTimeout(0)
+                        .build());
+            }
             try {
-                ReceiveMessageRequest request = ReceiveMessageRequest.builder()
-                        .queueUrl(queueUrl)
-                        .maxNumberOfMessages(MAX_MESSAGES)
-                        .waitTimeSeconds(WAIT_TIME_SECONDS)
-                        .build();
-
-                log.debug("Polling SQS queue for messages");
-                ReceiveMessageResponse response = sqsClient.receiveMessage(request);
+                ChangeMessageVisibilityBatchResponse response = sqsClient.changeMessageVisibilityBatch(
+                        ChangeMessageVisibilityBatchRequest.builder()
+                                .queueUrl(lane.getUrl())
+                                .entries(entries)
+                                .build());
+                if (response.hasFailed() && !response.failed().isEmpty()) {
+                    log.warn("Failed to release {} of {} buffered messages of queue {}",
+                            response.failed().size(), batch.size(), lane.getName());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Failed to release {} buffered messages of queue {}: {}", batch.size(), lane.getName(),
+                        e.getMessage());
+            }
+        }
+        log.info("Released {} buffered messages of queue {}", messages.size(), lane.getName());
+    }
+
+    /**
+     * Checks whether a loop started in the given run should keep going.
+     *
+     * @param run the run the loop belongs to
+     * @return true while that run is the current one and has not been stopped
+     */
+    private boolean isCurrent(int run) {
+        return isRunning.get() && generation == run;
+    }
+
+    /**
+     * Blocks a poller while receiving is paused, waking up periodically to
+     * notice a stop.
+     *
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private void awaitResume() throws InterruptedException {
+        synchronized (pauseMonitor) {
+            if (paused) {
+                pauseMonitor.wait(IDLE_CHECK_MS);
+            }
+        }
+    }
+
+    /**
+     * Continuously polls one SQS queue for messages and hands them to the
+     * scheduler. A receive is only issued while the queue's buffer holds
+     * fewer messages than it may process at once, so a queue that is not
+     * getting workers stops pulling messages whose visibility timeouts would
+     * run out in the buffer. Consecutive empty receives back off
+     * exponentially. This method runs in a separate thread and handles
+     * message processing with retry logic for error cases; it returns when
+     * the listener stops or the queue has more pollers than it should, and
+     * receives nothing while the listener is paused.
+     *
+     * @param lane the queue to poll
+     */
+    private void pollMessages(QueueLane lane) {
+        int run = generation;
+        int emptyReceives = 0;
+        while (isCurrent(run) && lane.pollers().proceed()) {
+            try {
+                if (paused) {
+                    awaitResume();
+                    continue;
+                }
+                if (!scheduler.awaitDemand(lane, TimeUnit.MILLISECONDS.toNanos(IDLE_CHECK_MS))) {
+                    continue;
+                }
+                log.debug("Polling SQS queue {} for messages", lane.getName());
+                long start = System.nanoTime();
+                ReceiveMessageResponse response = sqsClient.receiveMessage(lane.receiveRequest());
                 List<Message> messages = response.messages();
+                long received = System.nanoTime();
+                lane.metrics().received(received - start, messages.size());
 
                 if (messages.isEmpty()) {
-                    log.debug("No messages received from SQS queue");
+                    long pause = emptyReceiveBackoff.pauseMs(++emptyReceives);
+                    log.debug("No messages received from SQS queue {}, pausing {} ms", lane.getName(), pause);
+                    if (pause > 0) {
+                        Thread.sleep(pause);
+                    }
                     continue;
                 }
 
-                log.debug("Received {} messages from SQS queue", messages.size());
-                processMessages(messages);
+                emptyReceives = 0;
+                log.debug("Received {} messages from SQS queue {}", messages.size(), lane.getName());
+                long now = System.currentTimeMillis();
+                for (Message message : messages) {
+                    String sent = message.attributesAsStrings().get("SentTimestamp");
+                    if (sent != null) {
+                        lane.recordReceivedAge(now - Long.parseLong(sent));
+                    }
+                }
+                scheduler.offer(lane, messages, deadline(lane, received));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Polling interrupted: {}", e.getMessage());
+                return;
             } catch (Exception e) {
-                log.error("Error polling SQS queue: {}", e.getMessage());
+                if (!isCurrent(run)) {
+                    log.debug("Receive from SQS queue {} cancelled by stop: {}", lane.getName(), e.getMessage());
+                    return;
+                }
+                log.error("Error polling SQS queue {}: {}", lane.getName(), e.getMessage());
                 try {
                     Thread.sleep(RETRY_DELAY_MS);
                 } catch (InterruptedException ie) {
@@ -191,55 +689,341 @@ public class SqsMessageListener {
     }
 
     /**
-     * Processes a list of messages received from the SQS queue.
-     * Each message is deserialized into a Product and created through the REST API.
-     *
-     * @param messages the list of messages to process
+     * Processes messages taken from the scheduler until the listener stops.
+     * Each message is deserialized into a Product and created through the REST API;
+     * failures are logged and handled without stopping the worker. Returns
+     * when the listener stops or more workers run than it should.
      */
-    private void processMessages(List<Message> messages) {
-        for (Message message : messages) {
+    private void processMessages() {
+        int run = generation;
+        while (isCurrent(run) && workers.proceed()) {
+            WeightedFairScheduler.Dispatch dispatch;
             try {
-                log.debug("Processing message: {}", message.body());
-                Product product = objectMapper.readValue(message.body(), Product.class);
-                restApiService.createProduct(product);
-                log.debug("Successfully processed message and created product");
-                
-                // Delete the message after successful processing
-                DeleteMessageRequest deleteRequest = DeleteMessageRequest.builder()
-                        .queueUrl(queueUrl)
-                        .receiptHandle(message.receiptHandle())
-                        .build();
-                sqsClient.deleteMessage(deleteRequest);
-                log.debug("Successfully deleted message from queue");
+                dispatch = scheduler.take(TimeUnit.MILLISECONDS.toNanos(IDLE_CHECK_MS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (dispatch == null) {
+                continue;
+            }
+            Message message = dispatch.message();
+            long start = System.nanoTime();
+            inFlight.add(dispatch);
+            try {
+                handleMessage(dispatch);
             } catch (Exception e) {
-                log.error("Error processing message: {}", e.getMessage());
+                log.error("Error processing message {} from {}: {}; body: {}", message.messageId(),
+                        dispatch.lane().getName(), e.getMessage(), payloadSampler.abbreviate(message.body()));
+            } finally {
+                inFlight.remove(dispatch);
+                dispatch.lane().recordProcessed(System.nanoTime() - start);
+                scheduler.done(dispatch.lane());
             }
         }
     }
 
     /**
-     * Processes a single message received from the SQS queue.
+     * Processes a single message received from the first configured SQS queue.
      * This method is used for testing purposes and processes one message at a time.
      *
      * @param message the message to process
      */
     public void processMessage(Message message) {
         try {
-            log.debug("Processing message: {}", message.body());
-            Product product = objectMapper.readValue(message.body(), Product.class);
-            restApiService.createProduct(product);
+            handleMessage(new WeightedFairScheduler.Dispatch(lanes.get(0), message,
+                    WeightedFairScheduler.Dispatch.NO_DEADLINE));
+        } catch (Exception e) {
+            log.error("Error processing message {}: {}; body: {}", message.messageId(), e.getMessage(),
+                    payloadSampler.abbreviate(message.body()));
+            throw new RuntimeException("Failed to process message", e);
+        }
+    }
+
+    /**
+     * Computes the deadline of messages received from a queue: the end of
+     * their visibility timeout less the margin kept back for deleting them.
+     *
+     * @param lane the queue the messages were received from
+     * @param received the {@link System#nanoTime()} the receive returned
+     * @return the deadline
+     */
+    private long deadline(QueueLane lane, long received) {
+        return received + Math.max(0,
+                TimeUnit.SECONDS.toNanos(lane.getVisibilityTimeoutSeconds()) - deadlineMarginNanos);
+    }
+
+    /**
+     * Gives up on a message whose deadline has passed. Its visibility timeout
+     * is about to run out, so another consumer may already have it; finishing
+     * it here would only duplicate that work, and the failure handler is not
+     * involved because its receipt handle is no longer ours to act on.
+     *
+     * @param dispatch the message
+     * @param stage the stage that was reached
+     * @param start the {@link System#nanoTime()} processing started
+     */
+    private void abandon(WeightedFairScheduler.Dispatch dispatch, String stage, long start) {
+        dispatch.lane().metrics().expired(System.nanoTime() - start);
+        log.warn("Abandoning message {} from {} at stage {}: its visibility timeout is running out",
+                dispatch.message().messageId(), dispatch.lane().getName(), stage);
+    }
+
+    /**
+     * Decompresses, deserializes and validates a message, creates the product
+     * through the REST API and deletes the message, timing each stage in the
+     * listener metrics and in Flight Recorder events. A message whose product is
+     * invalid is quarantined before the REST API is called. A message whose
+     * deadline has passed is skipped, or abandoned if processing has started;
+     * the product API call times out no later than the deadline. The product
+     * is spilled to the journal instead while the API is considered down,
+     * including when its own call is the failure that starts the outage.
+     *
+     * @param dispatch the message to process, with its queue and deadline
+     * @throws Exception if any stage fails; the message is then quarantined or
+     *         left on the queue for a retry, depending on the failure
+     */
+    private void handleMessage(WeightedFairScheduler.Dispatch dispatch) throws Exception {
+        Message message = dispatch.message();
+        QueueLane lane = dispatch.lane();
+        ListenerMetrics metrics = lane.metrics();
+        String queueUrl = lane.getUrl();
+        long start = System.nanoTime();
+        if (dispatch.isExpired(start)) {
+            metrics.expiredInBuffer();
+            log.warn("Skipping message {} from {}: its visibility timeout ran out while it waited for a worker",
+                    message.messageId(), lane.getName());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        metrics.started(message, now);
+        new MessageReceivedEvent().complete(message, now);
+        MessageFailedEvent failedEvent = new MessageFailedEvent();
+        failedEvent.begin();
+        String stage = "parse";
+        Product product = null;
+        try {
+            Message decompressed = MessageCompression.decompressed(message);
+            if (decompressed != message) {
+                message = decompressed;
+                dispatch = new WeightedFairScheduler.Dispatch(lane, message, dispatch.deadline());
+            }
+            if (log.isDebugEnabled() && payloadSampler.sample()) {
+                log.debug("Processing message {}: {}", message.messageId(), payloadSampler.abbreviate(message.body()));
+            }
+            InputStream payload = ClaimCheck.isReference(message) ? openPayload(message.body()) : null;
+            try (payload) {
+                if (payload != null ? startsEnvelope(payload) : ProductEnvelope.isEnvelope(message.body())) {
+                    stage = "envelope";
+                    handleEnvelope(dispatch, payload, start);
+                    return;
+                }
+                MessageDeserializedEvent parseEvent = new MessageDeserializedEvent();
+                parseEvent.begin();
+                product = payload != null ? productReader.readValue(payload) : productReader.readValue(message.body());
+                parseEvent.complete(message);
+            }
+            long parsed = System.nanoTime();
+            metrics.parsed(parsed - start);
+
+            stage = "validate";
+            List<String> violations = messageValidator.validate(product);
+            long validated = System.nanoTime();
+            metrics.validated(validated - parsed);
+            if (!violations.isEmpty()) {
+                InvalidMessageException invalid = new InvalidMessageException(violations);
+                failureHandler.handle(message, queueUrl, stage, invalid);
+                metrics.rejected(System.nanoTime() - start);
+                failedEvent.complete(message, stage, invalid);
+                return;
+            }
+
+            stage = "create";
+            if (dispatch.isExpired(System.nanoTime())) {
+                abandon(dispatch, stage, start);
+                return;
+            }
+            if (journal.isSpilling()) {
+                stage = "spill";
+                spill(dispatch, product, start);
+                return;
+            }
+            new HttpRequestSentEvent().complete(message);
+            HttpRequestCompletedEvent httpEvent = new HttpRequestCompletedEvent();
+            httpEvent.begin();
+            try (RequestDeadline.Scope ignored = dispatch.openDeadline()) {
+                restApiService.createProduct(product);
+            }
+            httpEvent.complete(message);
+            journal.onSuccess();
+            long created = System.nanoTime();
+            metrics.created(created - validated);
             log.debug("Successfully processed message and created product");
-            
-            // Delete the message after successful processing
+
+            // Delete the message after successful processing, even if its deadline has
+            // just passed: the product exists, and leaving the message only invites a duplicate
+            stage = "delete";
+            MessageAckedEvent ackEvent = new MessageAckedEvent();
+            ackEvent.begin();
             DeleteMessageRequest deleteRequest = DeleteMessageRequest.builder()
                     .queueUrl(queueUrl)
                     .receiptHandle(message.receiptHandle())
                     .build();
             sqsClient.deleteMessage(deleteRequest);
+            long deleted = System.nanoTime();
+            ackEvent.complete(message, deleted - start);
+            metrics.deleted(deleted - created);
+            metrics.succeeded(deleted - start);
             log.debug("Successfully deleted message from queue");
+            if (ClaimCheck.isReference(message)) {
+                claimCheck.release(message.body());
+            }
         } catch (Exception e) {
-            log.error("Error processing message: {}", e.getMessage());
-            throw new RuntimeException("Failed to process message", e);
+            if (dispatch.isExpired(System.nanoTime())) {
+                abandon(dispatch, stage, start);
+                return;
+            }
+            if ("create".equals(stage) && journal.onFailure(e)) {
+                try {
+                    spill(dispatch, product, start);
+                    log.warn("Spilled message {} from {} to the journal: {}", message.messageId(), lane.getName(),
+                            e.getMessage());
+                    return;
+                } catch (Exception spillError) {
+                    e.addSuppressed(spillError);
+                }
+            }
+            failureHandler.handle(message, queueUrl, stage, e);
+            metrics.failed(System.nanoTime() - start);
+            failedEvent.complete(message, stage, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Leaves a validated product in the spill journal for replay and deletes
+     * its message, releasing a claim-checked payload as a processed message would.
+     *
+     * @param dispatch the message, with its queue
+     * @param product the validated product
+     * @param start when processing of the message started, in {@link System#nanoTime()} terms
+     * @throws IOException if the journal cannot be written; the message is then left on the queue
+     */
+    private void spill(WeightedFairScheduler.Dispatch dispatch, Product product, long start) throws IOException {
+        Message message = dispatch.message();
+        QueueLane lane = dispatch.lane();
+        journal.spill(message, lane.getUrl(), product);
+        long spilled = System.nanoTime();
+        MessageAckedEvent ackEvent = new MessageAckedEvent();
+        ackEvent.begin();
+        sqsClient.deleteMessage(DeleteMessageRequest.builder()
+                .queueUrl(lane.getUrl())
+                .receiptHandle(message.receiptHandle())
+                .build());
+        long deleted = System.nanoTime();
+        ackEvent.complete(message, deleted - start);
+        lane.metrics().deleted(deleted - spilled);
+        lane.metrics().spilled(deleted - start);
+        if (ClaimCheck.isReference(message)) {
+            claimCheck.release(message.body());
+        }
+    }
+
+    /**
+     * Processes the products of an envelope message, hands the ones that were
+     * not created to the failure handler and deletes the envelope.
+     *
+     * @param dispatch the envelope message, with its queue and deadline
+     * @param payload the claim-checked envelope, or null if the message body is the envelope
+     * @param start when processing of the message started, in {@link System#nanoTime()} terms
+     * @throws Exception if the envelope cannot be read, or if none of its products was created and
+     *         the failed items can neither be sent back nor quarantined; the envelope is then retried whole
+     */
+    private void handleEnvelope(WeightedFairScheduler.Dispatch dispatch, InputStream payload, long start)
+            throws Exception {
+        Message message = dispatch.message();
+        QueueLane lane = dispatch.lane();
+        ListenerMetrics metrics = lane.metrics();
+        List<ProductEnvelopeProcessor.ItemResult> results = payload == null
+                ? envelopeProcessor.process(dispatch)
+                : envelopeProcessor.process(dispatch, payload);
+        int[] outcomes = new int[ProductEnvelopeProcessor.Outcome.values().length];
+        List<FailedItem> failed = new ArrayList<>();
+        for (ProductEnvelopeProcessor.ItemResult result : results) {
+            outcomes[result.outcome().ordinal()]++;
+            if (result.outcome() != ProductEnvelopeProcessor.Outcome.CREATED) {
+                failed.add(result.toFailedItem());
+            }
+        }
+        metrics.envelopeItems(outcomes[ProductEnvelopeProcessor.Outcome.CREATED.ordinal()],
+                outcomes[ProductEnvelopeProcessor.Outcome.REJECTED.ordinal()],
+                outcomes[ProductEnvelopeProcessor.Outcome.FAILED.ordinal()],
+                outcomes[ProductEnvelopeProcessor.Outcome.EXPIRED.ordinal()]);
+        if (!failed.isEmpty()) {
+            String retryId;
+            try {
+                retryId = failureHandler.handleItems(message, lane.getUrl(), failed);
+            } catch (RuntimeException e) {
+                if (failed.size() == results.size()) {
+                    throw e;
+                }
+                log.error("Envelope {} from {}: could neither retry nor quarantine items {}, deleting it anyway "
+                        + "since its other products were created: {}", message.messageId(), lane.getName(),
+                        failed.stream().map(FailedItem::index).toList(), e.getMessage());
+                retryId = null;
+            }
+            log.info("Envelope {} from {}: {} of {} products not created{}", message.messageId(), lane.getName(),
+                    failed.size(), results.size(), retryId == null ? "" : ", retrying them as " + retryId);
+        }
+
+        long processed = System.nanoTime();
+        MessageAckedEvent ackEvent = new MessageAckedEvent();
+        ackEvent.begin();
+        sqsClient.deleteMessage(DeleteMessageRequest.builder()
+                .queueUrl(lane.getUrl())
+                .receiptHandle(message.receiptHandle())
+                .build());
+        long deleted = System.nanoTime();
+        ackEvent.complete(message, deleted - start);
+        metrics.deleted(deleted - processed);
+        metrics.succeeded(deleted - start);
+        if (payload != null) {
+            claimCheck.release(message.body());
+        }
+    }
+
+    /**
+     * Opens the payload of a claim-checked message.
+     *
+     * @param reference the message body
+     * @return the payload, able to be reset to its start
+     * @throws IOException if the payload cannot be opened
+     */
+    private InputStream openPayload(String reference) throws IOException {
+        InputStream payload = claimCheck.open(reference);
+        return payload.markSupported() ? payload : new BufferedInputStream(payload);
+    }
+
+    /**
+     * Checks whether a payload is an envelope by looking at its first
+     * non-blank byte, leaving the stream where it was.
+     *
+     * @param payload the payload, which must support mark and reset
+     * @return true if the payload starts with {@code [}
+     * @throws IOException if the payload cannot be read
+     */
+    private static boolean startsEnvelope(InputStream payload) throws IOException {
+        payload.mark(PEEK_LIMIT);
+        try {
+            for (int i = 0; i < PEEK_LIMIT; i++) {
+                int b = payload.read();
+                if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                    return b == '[';
+                }
+            }
+            return false;
+        } finally {
+            payload.reset();
         }
     }
-} 
\ No newline at end of file
+}
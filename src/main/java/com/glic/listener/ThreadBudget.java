@@ -0,0 +1,103 @@
+package com.glic.listener;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Number of threads running one kind of listener loop, resizable while the
+ * loops run. Growing the budget submits more loops; shrinking it lets the
+ * surplus loops retire the next time they check {@link #proceed()}, so a loop
+ * is never interrupted halfway through a receive or a message.
+ */
+final class ThreadBudget {
+
+    /**
+     * Number of loops that should run.
+     */
+    private final AtomicInteger target;
+
+    /**
+     * Number of loops submitted and not yet retired.
+     */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * Constructs a new ThreadBudget.
+     *
+     * @param target the number of loops that should run
+     */
+    ThreadBudget(int target) {
+        this.target = new AtomicInteger(target);
+    }
+
+    /**
+     * Gets the number of loops that should run.
+     *
+     * @return the target
+     */
+    int getTarget() {
+        return target.get();
+    }
+
+    /**
+     * Gets the number of loops submitted and not yet retired.
+     *
+     * @return the running loop count
+     */
+    int getRunning() {
+        return running.get();
+    }
+
+    /**
+     * Changes the number of loops that should run; call {@link #fill} to start any new ones.
+     *
+     * @param target the new target, at least 1
+     */
+    void resize(int target) {
+        this.target.set(Math.max(1, target));
+    }
+
+    /**
+     * Forgets the loops of a previous run, which exit on their own once they
+     * see that run has ended.
+     */
+    void reset() {
+        running.set(0);
+    }
+
+    /**
+     * Submits loops until the target number are running.
+     *
+     * @param executor the executor the loops run on
+     * @param loop the loop, which must check {@link #proceed()} on every iteration
+     */
+    void fill(ExecutorService executor, Runnable loop) {
+        while (true) {
+            int current = running.get();
+            if (current >= target.get()) {
+                return;
+            }
+            if (running.compareAndSet(current, current + 1)) {
+                executor.submit(loop);
+            }
+        }
+    }
+
+    /**
+     * Decides whether the calling loop keeps running. A loop told to stop is
+     * counted as retired and must return.
+     *
+     * @return false if more loops run than the target and the caller should retire
+     */
+    boolean proceed() {
+        while (true) {
+            int current = running.get();
+            if (current <= target.get()) {
+                return true;
+            }
+            if (running.compareAndSet(current, current - 1)) {
+                return false;
+            }
+        }
+    }
+}
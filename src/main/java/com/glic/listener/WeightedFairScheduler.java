@@ -0,0 +1,324 @@
+package com.glic.listener;
+
+import com.glic.service.RequestDeadline;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Shares the listener's workers between queues in proportion to their weights.
+ * Pollers {@link #offer} received messages to their queue's buffer and workers
+ * {@link #take} the next message using stride scheduling: every queue has a
+ * pass that advances by {@code 1 / weight} per dispatched message, and the
+ * queue with the lowest pass among those with buffered messages and spare
+ * concurrency goes next. While all queues have a backlog each gets workers in
+ * proportion to its weight; a queue without a backlog is simply skipped, so
+ * its share goes to the queues that have one. A queue that was idle re-enters
+ * at the current virtual time rather than with the credit of its idle period,
+ * so it cannot monopolise the workers when its backlog returns.
+ */
+public class WeightedFairScheduler {
+
+    /**
+     * A message handed to a worker, with the queue it came from and the time
+     * by which it must be processed.
+     *
+     * @param lane the queue the message was received from
+     * @param message the message
+     * @param deadline the {@link System#nanoTime()} after which another consumer
+     *        may own the message, or {@link #NO_DEADLINE}
+     */
+    public record Dispatch(QueueLane lane, Message message, long deadline) {
+
+        /**
+         * Deadline of messages that may be processed however late.
+         */
+        public static final long NO_DEADLINE = Long.MAX_VALUE;
+
+        /**
+         * Checks whether the message's deadline has passed.
+         *
+         * @param now the current {@link System#nanoTime()}
+         * @return true if the message has a deadline and it has passed
+         */
+        public boolean isExpired(long now) {
+            return deadline != NO_DEADLINE && now - deadline >= 0;
+        }
+
+        /**
+         * Bounds the HTTP calls the current thread makes for the message by its deadline.
+         *
+         * @return the scope to close once the calls are done
+         */
+        public RequestDeadline.Scope openDeadline() {
+            return deadline == NO_DEADLINE ? () -> { } : RequestDeadline.open(deadline);
+        }
+    }
+
+    /**
+     * The queues sharing the workers.
+     */
+    private final List<QueueLane> lanes;
+
+    /**
+     * Guards the scheduling state of every lane.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Signalled when a message may have become dispatchable.
+     */
+    private final Condition work = lock.newCondition();
+
+    /**
+     * Signalled when a queue's buffer has room for another receive.
+     */
+    private final Condition demand = lock.newCondition();
+
+    /**
+     * Signalled when a queue runs out of in-flight messages or of buffered and in-flight messages.
+     */
+    private final Condition idle = lock.newCondition();
+
+    /**
+     * Pass of the most recently dispatched queue.
+     */
+    private double virtualTime;
+
+    /**
+     * Constructs a new WeightedFairScheduler.
+     *
+     * @param lanes the queues sharing the workers
+     */
+    public WeightedFairScheduler(List<QueueLane> lanes) {
+        this.lanes = List.copyOf(lanes);
+    }
+
+    /**
+     * Adds received messages that have no deadline to a queue's buffer.
+     *
+     * @param lane the queue the messages were received from
+     * @param messages the messages
+     */
+    public void offer(QueueLane lane, List<Message> messages) {
+        offer(lane, messages, Dispatch.NO_DEADLINE);
+    }
+
+    /**
+     * Adds received messages to a queue's buffer.
+     *
+     * @param lane the queue the messages were received from
+     * @param messages the messages
+     * @param deadline the {@link System#nanoTime()} by which the messages must
+     *        be processed, or {@link Dispatch#NO_DEADLINE}
+     */
+    public void offer(QueueLane lane, List<Message> messages, long deadline) {
+        lock.lock();
+        try {
+            if (lane.isIdle()) {
+                lane.pass = Math.max(lane.pass, currentPass());
+            }
+            for (Message message : messages) {
+                lane.buffer.add(new Dispatch(lane, message, deadline));
+            }
+            lane.bufferChanged();
+            work.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the virtual time an idle queue re-enters at: the lowest pass of the
+     * queues still active, or the pass of the last dispatch if all are idle.
+     * Called under the lock.
+     *
+     * @return the current virtual time
+     */
+    private double currentPass() {
+        double current = Double.MAX_VALUE;
+        for (QueueLane lane : lanes) {
+            if (!lane.isIdle()) {
+                current = Math.min(current, lane.pass);
+            }
+        }
+        return current == Double.MAX_VALUE ? virtualTime : current;
+    }
+
+    /**
+     * Waits until a queue needs more messages, that is until fewer are
+     * buffered than it may process at once.
+     *
+     * @param lane the queue
+     * @param timeoutNanos the maximum time to wait
+     * @return true if the queue needs more messages, false if the wait timed out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitDemand(QueueLane lane, long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (lane.buffer.size() >= lane.getConcurrency()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = demand.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the next message to process, waiting for one if none is dispatchable.
+     * The caller must call {@link #done} once the message is processed.
+     *
+     * @param timeoutNanos the maximum time to wait
+     * @return the next message, or null if the wait timed out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public Dispatch take(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (true) {
+                QueueLane next = null;
+                for (QueueLane lane : lanes) {
+                    if (!lane.buffer.isEmpty() && lane.getInFlight() < lane.getConcurrency()
+                            && (next == null || lane.pass < next.pass)) {
+                        next = lane;
+                    }
+                }
+                if (next != null) {
+                    Dispatch dispatch = next.buffer.poll();
+                    next.bufferChanged();
+                    next.inFlightChanged(1);
+                    virtualTime = next.pass;
+                    next.pass += 1.0 / next.getWeight();
+                    if (next.buffer.size() < next.getConcurrency()) {
+                        demand.signalAll();
+                    }
+                    return dispatch;
+                }
+                if (remaining <= 0) {
+                    return null;
+                }
+                remaining = work.awaitNanos(remaining);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Changes a queue's concurrency limit and wakes the workers and pollers
+     * that may now proceed.
+     *
+     * @param lane the queue
+     * @param concurrency the new limit, clamped to the queue's bounds
+     */
+    public void resize(QueueLane lane, int concurrency) {
+        lock.lock();
+        try {
+            lane.concurrencyChanged(concurrency);
+            work.signalAll();
+            demand.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until no queue has buffered or in-flight messages.
+     * Messages offered while waiting are waited for as well.
+     *
+     * @param timeoutNanos the maximum time to wait
+     * @return true if every queue is idle, false if the wait timed out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitIdle(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (!lanes.stream().allMatch(QueueLane::isIdle)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = idle.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until no queue has in-flight messages, ignoring buffered ones.
+     *
+     * @param timeoutNanos the maximum time to wait
+     * @return true if no message is being processed, false if the wait timed out
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public boolean awaitInFlight(long timeoutNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeoutNanos;
+            while (lanes.stream().anyMatch(lane -> lane.getInFlight() > 0)) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = idle.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Empties every queue's buffer, handing back the messages no worker has taken.
+     *
+     * @return the removed messages of each queue that had any, in configuration order
+     */
+    public Map<QueueLane, List<Message>> drainBuffered() {
+        lock.lock();
+        try {
+            Map<QueueLane, List<Message>> drained = new LinkedHashMap<>();
+            for (QueueLane lane : lanes) {
+                if (!lane.buffer.isEmpty()) {
+                    drained.put(lane, lane.buffer.stream().map(Dispatch::message).toList());
+                    lane.buffer.clear();
+                    lane.bufferChanged();
+                }
+            }
+            demand.signalAll();
+            idle.signalAll();
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks a message taken from a queue as processed, freeing its concurrency slot.
+     *
+     * @param lane the queue the message came from
+     */
+    public void done(QueueLane lane) {
+        lock.lock();
+        try {
+            lane.inFlightChanged(-1);
+            work.signalAll();
+            if (lane.getInFlight() == 0) {
+                idle.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.glic.logging;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which message and request payloads are logged on the hot path and
+ * caps how much of each is written.
+ * Only one payload in every {@code logging.payload.sample-rate} is logged, so
+ * debug logging stays affordable under load, and every logged payload is cut
+ * to {@code logging.payload.max-length} characters. Error logs use
+ * {@link #abbreviate(String)} without sampling so failures keep their context.
+ */
+@Component
+public class PayloadSampler {
+
+    /**
+     * Sample rate used when none is configured: every payload.
+     */
+    public static final int DEFAULT_SAMPLE_RATE = 1;
+
+    /**
+     * Maximum payload length used when none is configured.
+     */
+    public static final int DEFAULT_MAX_LENGTH = 512;
+
+    /**
+     * Log one payload in this many; 0 or less disables payload logging.
+     */
+    private final int sampleRate;
+
+    /**
+     * Maximum number of payload characters written to the log.
+     */
+    private final int maxLength;
+
+    /**
+     * Number of payloads offered for logging so far.
+     */
+    private final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Constructs a new PayloadSampler.
+     *
+     * @param sampleRate log one payload in this many; 0 or less disables payload logging
+     * @param maxLength maximum number of payload characters written to the log
+     */
+    public PayloadSampler(
+            @Value("${logging.payload.sample-rate:1}") int sampleRate,
+            @Value("${logging.payload.max-length:512}") int maxLength) {
+        this.sampleRate = sampleRate;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Decides whether the next payload is logged.
+     * Callers check the log level first, so the counter is only touched when
+     * payloads could be logged at all.
+     *
+     * @return true for one call in every {@code sampleRate}
+     */
+    public boolean sample() {
+        if (sampleRate <= 0) {
+            return false;
+        }
+        return sampleRate == 1 || counter.getAndIncrement() % sampleRate == 0;
+    }
+
+    /**
+     * Cuts a payload to the configured maximum length.
+     *
+     * @param payload the payload, may be null
+     * @return the payload, or its first {@code maxLength} characters followed by the full length
+     */
+    public String abbreviate(String payload) {
+        if (payload == null || payload.length() <= maxLength) {
+            return payload;
+        }
+        return payload.substring(0, maxLength) + "...(" + payload.length() + " chars)";
+    }
+}
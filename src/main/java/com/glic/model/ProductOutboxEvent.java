@@ -0,0 +1,126 @@
+package com.glic.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * A product change waiting in the transactional outbox.
+ * Rows are inserted in the same transaction as the product write they describe
+ * and deleted by the relay once the change has been published to SQS.
+ */
+@Entity
+@Table(name = "product_outbox")
+public class ProductOutboxEvent {
+
+    /**
+     * The unique, monotonically increasing identifier of the outbox row.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The ID of the product that changed.
+     */
+    @Column(nullable = false)
+    private Long productId;
+
+    /**
+     * The kind of change, e.g. CREATED, UPDATED or DELETED.
+     */
+    @Column(nullable = false, length = 16)
+    private String eventType;
+
+    /**
+     * The serialized event published as the SQS message body.
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    /**
+     * When the change was recorded.
+     */
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Default constructor for ProductOutboxEvent class.
+     * Required by JPA for entity instantiation.
+     */
+    public ProductOutboxEvent() {
+    }
+
+    /**
+     * Constructs a new outbox row.
+     *
+     * @param productId the ID of the product that changed
+     * @param eventType the kind of change
+     * @param payload the serialized event
+     * @param createdAt when the change was recorded
+     */
+    public ProductOutboxEvent(Long productId, String eventType, String payload, Instant createdAt) {
+        this.productId = productId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Gets the identifier of the outbox row.
+     *
+     * @return the outbox row ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the identifier of the outbox row.
+     *
+     * @param id the outbox row ID to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the ID of the product that changed.
+     *
+     * @return the product ID
+     */
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * Gets the kind of change.
+     *
+     * @return the event type
+     */
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * Gets the serialized event.
+     *
+     * @return the payload
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Gets when the change was recorded.
+     *
+     * @return the creation time
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,219 @@
+package com.glic.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.Instant;
+
+/**
+ * An SQS message taken off its queue because it can never be processed, or
+ * because it kept failing after every retry. It is kept here, together with the
+ * reason, until an operator re-drives it to its source queue or discards it.
+ */
+@Entity
+@Table(name = "quarantined_messages")
+public class QuarantinedMessage {
+
+    /**
+     * The unique identifier of the quarantine entry.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The SQS message ID of the original message.
+     */
+    @Column(nullable = false, length = 128)
+    private String messageId;
+
+    /**
+     * The URL of the queue the message was received from.
+     */
+    @Column(nullable = false, length = 1024)
+    private String sourceQueueUrl;
+
+    /**
+     * The original message body.
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    /**
+     * Whether the body is a claim-check reference sent by a claim-checking producer.
+     */
+    @Column(nullable = false)
+    private boolean claimChecked;
+
+    /**
+     * The processing stage that failed, e.g. parse, validate or create.
+     */
+    @Column(nullable = false, length = 16)
+    private String stage;
+
+    /**
+     * The failure category, e.g. malformed, invalid, http-400 or retries-exhausted.
+     */
+    @Column(nullable = false, length = 32)
+    private String reason;
+
+    /**
+     * The error message of the failure.
+     */
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    /**
+     * How many times SQS had delivered the message.
+     */
+    @Column(nullable = false)
+    private int receiveCount;
+
+    /**
+     * When the message was quarantined.
+     */
+    @Column(nullable = false)
+    private Instant quarantinedAt;
+
+    /**
+     * Default constructor for QuarantinedMessage class.
+     * Required by JPA for entity instantiation.
+     */
+    public QuarantinedMessage() {
+    }
+
+    /**
+     * Constructs a new quarantine entry.
+     *
+     * @param messageId the SQS message ID of the original message
+     * @param sourceQueueUrl the URL of the queue the message was received from
+     * @param body the original message body
+     * @param stage the processing stage that failed
+     * @param reason the failure category
+     * @param error the error message of the failure
+     * @param receiveCount how many times SQS had delivered the message
+     * @param quarantinedAt when the message was quarantined
+     */
+    public QuarantinedMessage(String messageId, String sourceQueueUrl, String body, String stage, String reason,
+                              String error, int receiveCount, Instant quarantinedAt) {
+        this.messageId = messageId;
+        this.sourceQueueUrl = sourceQueueUrl;
+        this.body = body;
+        this.stage = stage;
+        this.reason = reason;
+        this.error = error;
+        this.receiveCount = receiveCount;
+        this.quarantinedAt = quarantinedAt;
+    }
+
+    /**
+     * Gets the identifier of the quarantine entry.
+     *
+     * @return the entry ID
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the identifier of the quarantine entry.
+     *
+     * @param id the entry ID to set
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the SQS message ID of the original message.
+     *
+     * @return the message ID
+     */
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * Gets the URL of the queue the message was received from.
+     *
+     * @return the source queue URL
+     */
+    public String getSourceQueueUrl() {
+        return sourceQueueUrl;
+    }
+
+    /**
+     * Gets the original message body.
+     *
+     * @return the body
+     */
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * Indicates whether the body is a claim-check reference sent by a claim-checking producer.
+     *
+     * @return true if the body refers to a stored payload
+     */
+    public boolean isClaimChecked() {
+        return claimChecked;
+    }
+
+    /**
+     * Sets whether the body is a claim-check reference sent by a claim-checking producer.
+     *
+     * @param claimChecked true if the body refers to a stored payload
+     */
+    public void setClaimChecked(boolean claimChecked) {
+        this.claimChecked = claimChecked;
+    }
+
+    /**
+     * Gets the processing stage that failed.
+     *
+     * @return the stage
+     */
+    public String getStage() {
+        return stage;
+    }
+
+    /**
+     * Gets the failure category.
+     *
+     * @return the reason
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Gets the error message of the failure.
+     *
+     * @return the error message
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Gets how many times SQS had delivered the message.
+     *
+     * @return the receive count
+     */
+    public int getReceiveCount() {
+        return receiveCount;
+    }
+
+    /**
+     * Gets when the message was quarantined.
+     *
+     * @return the quarantine time
+     */
+    public Instant getQuarantinedAt() {
+        return quarantinedAt;
+    }
+}
@@ -0,0 +1,80 @@
+package com.glic.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.glic.model.ProductOutboxEvent;
+import com.glic.repository.ProductOutboxRepository;
+import com.glic.service.ProductChangedEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+
+/**
+ * Writes product changes to the transactional outbox.
+ * Listens to {@link ProductChangedEvent}s in the before-commit phase, so the
+ * outbox row is inserted inside the same transaction as the product write: both
+ * commit together or neither does. Publishing happens later in
+ * {@link ProductOutboxRelay}, which keeps SQS off the write path entirely.
+ * <p>
+ * Row IDs are assigned at insert, and rows of different products may commit
+ * in another order, but the relay only has to keep each product's changes in
+ * order. The pending product write is flushed before the row is inserted, so
+ * the writer already holds the product's row lock, which it keeps until it
+ * commits: a later change of the same product can only be written, and given
+ * a higher ID, once this one has committed. Writers of different products
+ * share no lock.
+ */
+@Component
+@ConditionalOnProperty(name = "products.outbox.enabled", havingValue = "true")
+public class ProductOutbox {
+
+    /**
+     * The repository holding pending outbox rows.
+     */
+    private final ProductOutboxRepository outboxRepository;
+
+    /**
+     * The ObjectMapper used to serialize change events.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructs a new ProductOutbox.
+     *
+     * @param outboxRepository the repository holding pending outbox rows
+     * @param objectMapper the ObjectMapper used to serialize change events
+     */
+    public ProductOutbox(ProductOutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Records a product change in the outbox as part of the current transaction.
+     * A failure here rolls back the product write as well.
+     *
+     * @param event the change published by the product service
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void record(ProductChangedEvent event) {
+        Instant now = Instant.now();
+        ObjectNode payload = objectMapper.createObjectNode();
+        payload.put("type", event.getType().name());
+        payload.put("productId", event.getProductId());
+        payload.put("occurredAt", now.toString());
+        if (event.getProduct() != null) {
+            payload.set("product", objectMapper.valueToTree(event.getProduct()));
+        }
+        try {
+            String body = objectMapper.writeValueAsString(payload);
+            outboxRepository.flush();
+            outboxRepository.save(new ProductOutboxEvent(event.getProductId(), event.getType().name(), body, now));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize outbox event for product " + event.getProductId(), e);
+        }
+    }
+}
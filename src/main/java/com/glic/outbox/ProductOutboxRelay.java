@@ -0,0 +1,199 @@
+package com.glic.outbox;
+
+import com.glic.model.ProductOutboxEvent;
+import com.glic.repository.ProductOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Relays product changes from the transactional outbox to SQS.
+ * Polls the outbox on a fixed delay, reads pending rows in ID order, which
+ * is the order of each product's changes (see {@link ProductOutbox}), and
+ * publishes them with {@code SendMessageBatch} in batches of up to ten. A
+ * batch holds at most one change per product: a
+ * product's next change waits for a later batch, so when an entry fails none
+ * of the same product's later changes has been sent ahead of it. A
+ * partial batch is held back until its oldest row has lingered long enough, so
+ * bursts of writes go out in full batches. Rows are deleted only after SQS has
+ * accepted them; if any entry of a batch fails the drain stops and the failed
+ * rows are retried on the next poll, so delivery is at least once. Errors such
+ * as an unreachable queue pause the relay for a few seconds.
+ * Only one relay should run against a given database.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "products.outbox.enabled", havingValue = "true")
+public class ProductOutboxRelay {
+
+    /**
+     * Maximum number of entries SQS accepts in a single SendMessageBatch call.
+     */
+    static final int MAX_BATCH_SIZE = 10;
+
+    /**
+     * Number of pending rows read per poll to fill a batch with distinct products.
+     */
+    static final int SCAN_SIZE = 100;
+
+    /**
+     * Delay in milliseconds before the relay retries after a failed poll.
+     */
+    private static final long RETRY_DELAY_MS = 5000;
+
+    /**
+     * The repository holding pending outbox rows.
+     */
+    private final ProductOutboxRepository outboxRepository;
+
+    /**
+     * The AWS SQS client used to publish events.
+     */
+    private final SqsClient sqsClient;
+
+    /**
+     * The URL of the queue that receives product change events.
+     */
+    private final String queueUrl;
+
+    /**
+     * How long a partial batch may wait for more rows before it is sent anyway.
+     */
+    private final Duration linger;
+
+    /**
+     * Whether the target is a FIFO queue, which requires group and deduplication IDs.
+     */
+    private final boolean fifo;
+
+    /**
+     * Earliest time the relay polls again after a failure.
+     */
+    private volatile Instant retryAfter = Instant.MIN;
+
+    /**
+     * Constructs a new ProductOutboxRelay.
+     *
+     * @param outboxRepository the repository holding pending outbox rows
+     * @param sqsClient the AWS SQS client used to publish events
+     * @param queueUrl the URL of the queue that receives product change events
+     * @param lingerMs how long a partial batch may wait for more rows, in milliseconds
+     */
+    public ProductOutboxRelay(
+            ProductOutboxRepository outboxRepository,
+            SqsClient sqsClient,
+            @Value("${products.outbox.queue-url}") String queueUrl,
+            @Value("${products.outbox.linger-ms:50}") long lingerMs) {
+        this.outboxRepository = outboxRepository;
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.linger = Duration.ofMillis(lingerMs);
+        this.fifo = queueUrl.endsWith(".fifo");
+    }
+
+    /**
+     * Publishes pending outbox rows until the outbox is empty, only a lingering
+     * partial batch remains, or a send fails.
+     */
+    @Scheduled(fixedDelayString = "${products.outbox.poll-interval-ms:200}")
+    public void drain() {
+        if (Instant.now().isBefore(retryAfter)) {
+            return;
+        }
+        try {
+            while (true) {
+                List<ProductOutboxEvent> pending = nextBatch(
+                        outboxRepository.findByOrderByIdAsc(PageRequest.of(0, SCAN_SIZE)));
+                if (pending.isEmpty()) {
+                    return;
+                }
+                if (pending.size() < MAX_BATCH_SIZE
+                        && pending.get(0).getCreatedAt().plus(linger).isAfter(Instant.now())) {
+                    log.debug("Holding {} outbox events for up to {} ms", pending.size(), linger.toMillis());
+                    return;
+                }
+                if (publish(pending) < pending.size()) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error relaying product outbox, retrying in {} ms: {}", RETRY_DELAY_MS, e.getMessage());
+            retryAfter = Instant.now().plusMillis(RETRY_DELAY_MS);
+        }
+    }
+
+    /**
+     * Picks the next batch from pending rows: the earliest change of each
+     * product, in ID order, up to {@link #MAX_BATCH_SIZE} rows.
+     *
+     * @param pending pending rows in ID order
+     * @return the rows to publish
+     */
+    static List<ProductOutboxEvent> nextBatch(List<ProductOutboxEvent> pending) {
+        List<ProductOutboxEvent> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        Set<Long> products = new HashSet<>();
+        for (ProductOutboxEvent event : pending) {
+            if (batch.size() == MAX_BATCH_SIZE) {
+                break;
+            }
+            if (products.add(event.getProductId())) {
+                batch.add(event);
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Sends a batch of outbox rows to SQS and deletes the rows that were accepted.
+     *
+     * @param batch the rows to publish, at most {@link #MAX_BATCH_SIZE}
+     * @return the number of rows that were published
+     */
+    private int publish(List<ProductOutboxEvent> batch) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (ProductOutboxEvent event : batch) {
+            SendMessageBatchRequestEntry.Builder entry = SendMessageBatchRequestEntry.builder()
+                    .id(event.getId().toString())
+                    .messageBody(event.getPayload());
+            if (fifo) {
+                entry.messageGroupId("product-" + event.getProductId())
+                        .messageDeduplicationId(event.getId().toString());
+            }
+            entries.add(entry.build());
+        }
+
+        SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                .queueUrl(queueUrl)
+                .entries(entries)
+                .build());
+
+        List<Long> published = new ArrayList<>(response.successful().size());
+        for (SendMessageBatchResultEntry result : response.successful()) {
+            published.add(Long.valueOf(result.id()));
+        }
+        if (!published.isEmpty()) {
+            outboxRepository.deleteAllByIdInBatch(published);
+        }
+        for (BatchResultErrorEntry failure : response.failed()) {
+            log.warn("Failed to publish outbox event {}: {} {}", failure.id(), failure.code(), failure.message());
+        }
+        log.debug("Published {} of {} outbox events", published.size(), batch.size());
+        return published.size();
+    }
+}
@@ -0,0 +1,11 @@
+package com.glic.producer;
+
+/**
+ * Outcome of one message of a batch send request.
+ *
+ * @param index the position of the message in the request
+ * @param messageId the SQS message ID, or null if the message was not sent
+ * @param error the reason the message was not sent, or null on success
+ */
+public record BatchSendResult(int index, String messageId, String error) {
+}
@@ -0,0 +1,339 @@
+package com.glic.producer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side batching producer for the SQS queue.
+ * Callers hand over individual messages and immediately get a future of the
+ * message ID. Messages are buffered and sent with {@code SendMessageBatch} as
+ * soon as the buffer holds ten entries, would exceed the 256 KB batch payload
+ * limit, or the oldest buffered message has waited for the linger time. Batches
+ * are sent on a dedicated thread pool, never on the caller's thread, and each
+ * entry's result or failure is routed back to the future of the caller that
+ * submitted it. Message attributes count towards the size limits as SQS
+ * counts them.
+ */
+@Slf4j
+@Component
+public class BatchingSqsProducer {
+
+    /**
+     * Maximum number of entries SQS accepts in a single SendMessageBatch call.
+     */
+    static final int MAX_BATCH_ENTRIES = 10;
+
+    /**
+     * Maximum total payload SQS accepts in a single SendMessageBatch call.
+     */
+    static final int MAX_BATCH_BYTES = 256 * 1024;
+
+    /**
+     * A message waiting in the buffer together with the future of its caller.
+     *
+     * @param body the message body
+     * @param attributes the message attributes
+     * @param size the size of the body and attributes in UTF-8 bytes
+     * @param result completed with the SQS message ID once the entry is sent
+     */
+    private record PendingEntry(String body, Map<String, MessageAttributeValue> attributes, int size,
+                                CompletableFuture<String> result) {
+    }
+
+    /**
+     * The AWS SQS client used to send batches.
+     */
+    private final SqsClient sqsClient;
+
+    /**
+     * The URL of the SQS queue messages are sent to.
+     */
+    private final String queueUrl;
+
+    /**
+     * Maximum time in milliseconds a message waits for its batch to fill up.
+     */
+    private final long lingerMs;
+
+    /**
+     * Fires linger timeouts for partially filled batches.
+     */
+    private final ScheduledExecutorService lingerScheduler;
+
+    /**
+     * Sends batches so that callers and the linger timer never block on SQS.
+     */
+    private final ExecutorService senderPool;
+
+    /**
+     * Guards the buffer and its bookkeeping.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Messages waiting for the current batch to be sent.
+     */
+    private List<PendingEntry> buffer = new ArrayList<>(MAX_BATCH_ENTRIES);
+
+    /**
+     * Total UTF-8 size of the buffered message bodies.
+     */
+    private int bufferBytes;
+
+    /**
+     * Incremented every time the buffer is handed off, so a linger timer armed
+     * for an earlier batch never flushes a later one.
+     */
+    private long bufferGeneration;
+
+    /**
+     * Whether the producer has been closed and rejects new messages.
+     */
+    private boolean closed;
+
+    /**
+     * Constructs a new BatchingSqsProducer.
+     *
+     * @param sqsClient the AWS SQS client used to send batches
+     * @param queueUrl the URL of the SQS queue messages are sent to
+     * @param lingerMs maximum time in milliseconds a message waits for its batch to fill up
+     * @param senderThreads number of threads sending batches concurrently
+     */
+    public BatchingSqsProducer(
+            SqsClient sqsClient,
+            @Value("${aws.sqs.url}") String queueUrl,
+            @Value("${aws.sqs.producer.linger-ms:20}") long lingerMs,
+            @Value("${aws.sqs.producer.sender-threads:4}") int senderThreads) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.lingerMs = lingerMs;
+        this.lingerScheduler = Executors.newSingleThreadScheduledExecutor(
+                new CustomizableThreadFactory("sqs-producer-linger-"));
+        this.senderPool = Executors.newFixedThreadPool(senderThreads,
+                new CustomizableThreadFactory("sqs-producer-sender-"));
+    }
+
+    /**
+     * Queues a message for sending.
+     *
+     * @param body the message body
+     * @return a future completed with the SQS message ID, or completed exceptionally
+     *         with {@link SqsBatchEntryException} if SQS rejected the entry
+     */
+    public CompletableFuture<String> send(String body) {
+        return send(body, Map.of());
+    }
+
+    /**
+     * Queues a message with attributes for sending.
+     *
+     * @param body the message body
+     * @param attributes the message attributes
+     * @return a future completed with the SQS message ID, or completed exceptionally
+     *         with {@link SqsBatchEntryException} if SQS rejected the entry
+     */
+    public CompletableFuture<String> send(String body, Map<String, MessageAttributeValue> attributes) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        int size = utf8Length(body) + attributesLength(attributes);
+        if (size > MAX_BATCH_BYTES) {
+            result.completeExceptionally(new IllegalArgumentException(
+                    "Message of " + size + " bytes exceeds the SQS limit of " + MAX_BATCH_BYTES + " bytes"));
+            return result;
+        }
+        synchronized (lock) {
+            if (closed) {
+                result.completeExceptionally(new IllegalStateException("Producer is closed"));
+                return result;
+            }
+            if (bufferBytes + size > MAX_BATCH_BYTES) {
+                dispatch(takeBuffer());
+            }
+            buffer.add(new PendingEntry(body, attributes, size, result));
+            bufferBytes += size;
+            if (buffer.size() >= MAX_BATCH_ENTRIES) {
+                dispatch(takeBuffer());
+            } else if (buffer.size() == 1) {
+                long generation = bufferGeneration;
+                lingerScheduler.schedule(() -> flush(generation), lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sends any buffered messages immediately.
+     */
+    public void flush() {
+        synchronized (lock) {
+            if (!buffer.isEmpty()) {
+                dispatch(takeBuffer());
+            }
+        }
+    }
+
+    /**
+     * Flushes the buffer, stops accepting messages and waits briefly for
+     * in-flight batches to complete.
+     */
+    @PreDestroy
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            if (!buffer.isEmpty()) {
+                dispatch(takeBuffer());
+            }
+        }
+        lingerScheduler.shutdownNow();
+        senderPool.shutdown();
+        try {
+            if (!senderPool.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Timed out waiting for SQS producer batches to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Linger timeout callback; flushes the buffer if it still holds the batch
+     * the timer was armed for.
+     *
+     * @param generation the buffer generation the timer was armed for
+     */
+    private void flush(long generation) {
+        synchronized (lock) {
+            if (generation == bufferGeneration && !buffer.isEmpty()) {
+                dispatch(takeBuffer());
+            }
+        }
+    }
+
+    /**
+     * Hands off the current buffer and starts a new one. Must hold {@link #lock}.
+     *
+     * @return the entries that were buffered
+     */
+    private List<PendingEntry> takeBuffer() {
+        List<PendingEntry> batch = buffer;
+        buffer = new ArrayList<>(MAX_BATCH_ENTRIES);
+        bufferBytes = 0;
+        bufferGeneration++;
+        return batch;
+    }
+
+    /**
+     * Schedules a batch for sending on the sender pool.
+     *
+     * @param batch the entries to send
+     */
+    private void dispatch(List<PendingEntry> batch) {
+        senderPool.execute(() -> sendBatch(batch));
+    }
+
+    /**
+     * Sends a batch and completes each caller's future with its own outcome.
+     *
+     * @param batch the entries to send
+     */
+    private void sendBatch(List<PendingEntry> batch) {
+        List<SendMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            entries.add(SendMessageBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .messageBody(batch.get(i).body())
+                    .messageAttributes(batch.get(i).attributes())
+                    .build());
+        }
+        try {
+            SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                    .queueUrl(queueUrl)
+                    .entries(entries)
+                    .build());
+            for (SendMessageBatchResultEntry success : response.successful()) {
+                batch.get(Integer.parseInt(success.id())).result().complete(success.messageId());
+            }
+            for (BatchResultErrorEntry failure : response.failed()) {
+                batch.get(Integer.parseInt(failure.id())).result().completeExceptionally(
+                        new SqsBatchEntryException(failure.code(), failure.message(), failure.senderFault()));
+            }
+            log.debug("Sent batch of {} messages: {} succeeded, {} failed",
+                    batch.size(), response.successful().size(), response.failed().size());
+        } catch (Exception e) {
+            log.error("Error sending batch of {} messages: {}", batch.size(), e.getMessage());
+            for (PendingEntry entry : batch) {
+                entry.result().completeExceptionally(e);
+            }
+            return;
+        }
+        // Only affects entries SQS reported neither as successful nor as failed
+        for (PendingEntry entry : batch) {
+            entry.result().completeExceptionally(new IllegalStateException("SQS returned no result for the entry"));
+        }
+    }
+
+    /**
+     * Computes the size SQS counts for message attributes: the name, data
+     * type and value of each.
+     *
+     * @param attributes the message attributes
+     * @return the number of UTF-8 bytes
+     */
+    static int attributesLength(Map<String, MessageAttributeValue> attributes) {
+        int length = 0;
+        for (Map.Entry<String, MessageAttributeValue> attribute : attributes.entrySet()) {
+            MessageAttributeValue value = attribute.getValue();
+            length += utf8Length(attribute.getKey()) + utf8Length(value.dataType());
+            if (value.stringValue() != null) {
+                length += utf8Length(value.stringValue());
+            }
+            if (value.binaryValue() != null) {
+                length += value.binaryValue().asByteArray().length;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Computes the UTF-8 encoded length of a string without encoding it.
+     *
+     * @param value the string
+     * @return the number of UTF-8 bytes
+     */
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
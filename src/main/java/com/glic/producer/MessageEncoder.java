@@ -0,0 +1,65 @@
+package com.glic.producer;
+
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.compression.MessageCompression;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Turns a message body into what is sent to SQS, the same way for every
+ * sender. The body is compressed by {@link MessageCompression} if it is large
+ * enough, and if it is still too large for the queue it is stored by
+ * {@link ClaimCheck} and only a reference is sent, flagged as one.
+ */
+@Component
+public class MessageEncoder {
+
+    /**
+     * Compresses large message bodies.
+     */
+    private final MessageCompression compression;
+
+    /**
+     * Stores bodies too large for SQS.
+     */
+    private final ClaimCheck claimCheck;
+
+    /**
+     * Constructs a new MessageEncoder.
+     *
+     * @param compression compresses large message bodies
+     * @param claimCheck stores bodies too large for SQS
+     */
+    @Autowired
+    public MessageEncoder(MessageCompression compression, ClaimCheck claimCheck) {
+        this.compression = compression;
+        this.claimCheck = claimCheck;
+    }
+
+    /**
+     * Creates an encoder with the default compression that never stores a
+     * body, for senders constructed without a blob store.
+     *
+     * @return the encoder
+     */
+    public static MessageEncoder inMemory() {
+        return new MessageEncoder(new MessageCompression(true, "gzip", 1024), ClaimCheck.inMemory());
+    }
+
+    /**
+     * Encodes a message body for sending.
+     *
+     * @param body the message body
+     * @return the body to send and its attributes
+     * @throws IOException if the body has to be stored and cannot be
+     */
+    public MessageCompression.Encoded encode(String body) throws IOException {
+        MessageCompression.Encoded encoded = compression.encode(body);
+        if (!claimCheck.applies(encoded.body())) {
+            return encoded;
+        }
+        return new MessageCompression.Encoded(claimCheck.store(body), ClaimCheck.attributes());
+    }
+}
@@ -0,0 +1,50 @@
+package com.glic.producer;
+
+/**
+ * Signals that SQS rejected a single entry of a {@code SendMessageBatch} call
+ * while other entries of the same batch may have succeeded.
+ */
+public class SqsBatchEntryException extends RuntimeException {
+
+    /**
+     * The error code returned by SQS for the entry.
+     */
+    private final String code;
+
+    /**
+     * Whether SQS attributed the failure to the sender.
+     */
+    private final boolean senderFault;
+
+    /**
+     * Constructs a new SqsBatchEntryException.
+     *
+     * @param code the error code returned by SQS
+     * @param message the error message returned by SQS
+     * @param senderFault whether SQS attributed the failure to the sender
+     */
+    public SqsBatchEntryException(String code, String message, boolean senderFault) {
+        super(code + ": " + message);
+        this.code = code;
+        this.senderFault = senderFault;
+    }
+
+    /**
+     * Gets the error code returned by SQS.
+     *
+     * @return the error code
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Indicates whether SQS attributed the failure to the sender, in which case
+     * retrying the same entry will not help.
+     *
+     * @return true if the sender is at fault
+     */
+    public boolean isSenderFault() {
+        return senderFault;
+    }
+}
@@ -0,0 +1,12 @@
+package com.glic.quarantine;
+
+/**
+ * An item of a product envelope that was not processed.
+ *
+ * @param index the position of the item in the envelope
+ * @param body the JSON text of the item
+ * @param stage the processing stage that failed
+ * @param error the failure
+ */
+public record FailedItem(int index, String body, String stage, Throwable error) {
+}
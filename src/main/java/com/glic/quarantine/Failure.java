@@ -0,0 +1,10 @@
+package com.glic.quarantine;
+
+/**
+ * How a message processing failure is handled.
+ *
+ * @param permanent whether retrying can never succeed, so the message is quarantined at once
+ * @param reason the failure category, e.g. malformed, invalid, http-404, http-503 or timeout
+ */
+public record Failure(boolean permanent, String reason) {
+}
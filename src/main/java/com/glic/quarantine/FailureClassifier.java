@@ -0,0 +1,68 @@
+package com.glic.quarantine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.glic.compression.MalformedPayloadException;
+import com.glic.listener.InvalidMessageException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import software.amazon.awssdk.core.exception.SdkException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.NoSuchFileException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Separates message processing failures that no retry can fix from those
+ * that may succeed later. The cause chain is searched, since the listener and
+ * RestApiService wrap the original exception.
+ * <ul>
+ *   <li>Permanent: malformed JSON or compressed bodies, claim-checked
+ *       payloads that no longer exist, products failing validation, and 4xx
+ *       responses other than 408, 425 and 429.</li>
+ *   <li>Transient: 5xx responses, 408, 425 and 429, timeouts, I/O and SQS
+ *       errors, and anything not recognised.</li>
+ * </ul>
+ */
+@Component
+public class FailureClassifier {
+
+    /**
+     * Classifies a failure.
+     *
+     * @param error the exception processing failed with
+     * @return the classification
+     */
+    public Failure classify(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof InvalidMessageException) {
+                return new Failure(true, "invalid");
+            }
+            if (cause instanceof JsonProcessingException || cause instanceof MalformedPayloadException) {
+                return new Failure(true, "malformed");
+            }
+            if (cause instanceof HttpClientErrorException clientError) {
+                int status = clientError.getStatusCode().value();
+                return new Failure(status != 408 && status != 425 && status != 429, "http-" + status);
+            }
+            if (cause instanceof HttpServerErrorException serverError) {
+                return new Failure(false, "http-" + serverError.getStatusCode().value());
+            }
+            if (cause instanceof SocketTimeoutException || cause instanceof TimeoutException) {
+                return new Failure(false, "timeout");
+            }
+            if (cause instanceof NoSuchFileException) {
+                return new Failure(true, "payload-missing");
+            }
+            if (cause instanceof ResourceAccessException || cause instanceof IOException) {
+                return new Failure(false, "io");
+            }
+            if (cause instanceof SdkException) {
+                return new Failure(false, "sqs");
+            }
+        }
+        return new Failure(false, "unknown");
+    }
+}
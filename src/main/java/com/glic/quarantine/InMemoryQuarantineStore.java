@@ -0,0 +1,73 @@
+package com.glic.quarantine;
+
+import com.glic.model.QuarantinedMessage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps quarantined messages in memory, for listeners constructed without
+ * a database. Entries are lost on restart.
+ */
+public class InMemoryQuarantineStore implements QuarantineStore {
+
+    /**
+     * The entries by ID.
+     */
+    private final ConcurrentNavigableMap<Long, QuarantinedMessage> messages = new ConcurrentSkipListMap<>();
+
+    /**
+     * The last ID assigned.
+     */
+    private final AtomicLong lastId = new AtomicLong();
+
+    /**
+     * Stores a quarantined message and assigns its ID.
+     *
+     * @param message the message
+     * @return the stored message
+     */
+    @Override
+    public QuarantinedMessage save(QuarantinedMessage message) {
+        if (message.getId() == null) {
+            message.setId(lastId.incrementAndGet());
+        }
+        messages.put(message.getId(), message);
+        return message;
+    }
+
+    /**
+     * Lists quarantined messages, most recent first.
+     *
+     * @param limit the maximum number of messages to return
+     * @return the messages
+     */
+    @Override
+    public List<QuarantinedMessage> findRecent(int limit) {
+        return messages.descendingMap().values().stream().limit(limit).toList();
+    }
+
+    /**
+     * Finds a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     * @return the message, if present
+     */
+    @Override
+    public Optional<QuarantinedMessage> findById(long id) {
+        return Optional.ofNullable(messages.get(id));
+    }
+
+    /**
+     * Removes a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     */
+    @Override
+    public void delete(long id) {
+        messages.remove(id);
+    }
+}
@@ -0,0 +1,74 @@
+package com.glic.quarantine;
+
+import com.glic.model.QuarantinedMessage;
+import com.glic.repository.QuarantinedMessageRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps quarantined messages in the application database, so they survive
+ * restarts and can be inspected by operators.
+ */
+@Component
+public class JpaQuarantineStore implements QuarantineStore {
+
+    /**
+     * The repository of quarantined messages.
+     */
+    private final QuarantinedMessageRepository repository;
+
+    /**
+     * Constructs a new JpaQuarantineStore.
+     *
+     * @param repository the repository of quarantined messages
+     */
+    public JpaQuarantineStore(QuarantinedMessageRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * Stores a quarantined message and assigns its ID.
+     *
+     * @param message the message
+     * @return the stored message
+     */
+    @Override
+    public QuarantinedMessage save(QuarantinedMessage message) {
+        return repository.save(message);
+    }
+
+    /**
+     * Lists quarantined messages, most recent first.
+     *
+     * @param limit the maximum number of messages to return
+     * @return the messages
+     */
+    @Override
+    public List<QuarantinedMessage> findRecent(int limit) {
+        return repository.findByOrderByIdDesc(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Finds a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     * @return the message, if present
+     */
+    @Override
+    public Optional<QuarantinedMessage> findById(long id) {
+        return repository.findById(id);
+    }
+
+    /**
+     * Removes a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     */
+    @Override
+    public void delete(long id) {
+        repository.deleteById(id);
+    }
+}
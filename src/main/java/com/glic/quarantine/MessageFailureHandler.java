@@ -0,0 +1,282 @@
+package com.glic.quarantine;
+
+import com.glic.compression.MessageCompression;
+import com.glic.producer.MessageEncoder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Decides what happens to a message whose processing failed.
+ * Permanent failures are quarantined at once, so a poison message stops
+ * coming back on every visibility timeout. Transient failures are retried
+ * through SQS redelivery with exponential backoff: the message's visibility
+ * timeout is set to {@code base-delay * 2^(receives - 1)} seconds, capped at
+ * {@code max-delay} and jittered down by up to half. A message still failing
+ * after {@code max-attempts} deliveries is quarantined as retries-exhausted.
+ * <p>
+ * A product envelope is handled item by item instead: the items that failed
+ * permanently or ran out of attempts are quarantined one by one, and the
+ * rest are sent back to the queue together as a new, delayed envelope that
+ * carries the attempts used so far in its {@value #ATTEMPTS_ATTRIBUTE}
+ * attribute. The new envelope is encoded by {@link MessageEncoder} like any
+ * other sent message, so a large one is compressed or claim-checked; if it
+ * still cannot be sent its items are quarantined as {@code resend-failed}.
+ * The caller then deletes the original envelope, so the items that succeeded
+ * are not processed again.
+ */
+@Slf4j
+@Component
+public class MessageFailureHandler {
+
+    /**
+     * Default number of deliveries before a transiently failing message is quarantined.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+    /**
+     * Default backoff after the first failed delivery, in seconds.
+     */
+    public static final int DEFAULT_BASE_DELAY_SECONDS = 2;
+
+    /**
+     * Default maximum backoff, in seconds.
+     */
+    public static final int DEFAULT_MAX_DELAY_SECONDS = 900;
+
+    /**
+     * Message attribute of a re-sent envelope holding the attempts its items have used.
+     */
+    public static final String ATTEMPTS_ATTRIBUTE = "envelope-attempts";
+
+    /**
+     * Largest delay SQS accepts on a sent message, in seconds.
+     */
+    private static final int MAX_DELAY_SECONDS = 900;
+
+    /**
+     * Largest visibility timeout SQS accepts, in seconds.
+     */
+    private static final int MAX_VISIBILITY_TIMEOUT_SECONDS = 43_200;
+
+    /**
+     * Separates permanent from transient failures.
+     */
+    private final FailureClassifier classifier;
+
+    /**
+     * Takes poison messages off their queue.
+     */
+    private final QuarantineService quarantineService;
+
+    /**
+     * The AWS SQS client for queue operations.
+     */
+    private final SqsClient sqsClient;
+
+    /**
+     * Compresses and claim-checks re-sent envelopes.
+     */
+    private final MessageEncoder encoder;
+
+    /**
+     * Number of deliveries before a transiently failing message is quarantined.
+     */
+    private final int maxAttempts;
+
+    /**
+     * Backoff after the first failed delivery, in seconds.
+     */
+    private final int baseDelaySeconds;
+
+    /**
+     * Maximum backoff, in seconds.
+     */
+    private final int maxDelaySeconds;
+
+    /**
+     * Constructs a new MessageFailureHandler.
+     *
+     * @param classifier separates permanent from transient failures
+     * @param quarantineService takes poison messages off their queue
+     * @param sqsClient the AWS SQS client for queue operations
+     * @param encoder compresses and claim-checks re-sent envelopes
+     * @param maxAttempts number of deliveries before a transiently failing message is quarantined
+     * @param baseDelaySeconds backoff after the first failed delivery, in seconds
+     * @param maxDelaySeconds maximum backoff, in seconds
+     */
+    @Autowired
+    public MessageFailureHandler(
+            FailureClassifier classifier,
+            QuarantineService quarantineService,
+            SqsClient sqsClient,
+            MessageEncoder encoder,
+            @Value("${aws.sqs.retry.max-attempts:10}") int maxAttempts,
+            @Value("${aws.sqs.retry.base-delay-seconds:2}") int baseDelaySeconds,
+            @Value("${aws.sqs.retry.max-delay-seconds:900}") int maxDelaySeconds) {
+        this.classifier = classifier;
+        this.quarantineService = quarantineService;
+        this.sqsClient = sqsClient;
+        this.encoder = encoder;
+        this.maxAttempts = maxAttempts;
+        this.baseDelaySeconds = baseDelaySeconds;
+        this.maxDelaySeconds = Math.min(maxDelaySeconds, MAX_VISIBILITY_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Creates a handler with the default retry settings that keeps quarantined
+     * messages in memory, for listeners constructed without a database.
+     *
+     * @param sqsClient the AWS SQS client for queue operations
+     * @return the handler
+     */
+    public static MessageFailureHandler inMemory(SqsClient sqsClient) {
+        return new MessageFailureHandler(new FailureClassifier(),
+                new QuarantineService(new InMemoryQuarantineStore(), sqsClient), sqsClient, MessageEncoder.inMemory(),
+                DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY_SECONDS, DEFAULT_MAX_DELAY_SECONDS);
+    }
+
+    /**
+     * Quarantines or schedules a retry of a failed message. Never throws: if
+     * the SQS call fails the message simply becomes visible again when its
+     * current visibility timeout expires.
+     *
+     * @param message the message
+     * @param queueUrl the URL of the queue the message was received from
+     * @param stage the processing stage that failed
+     * @param error the failure
+     * @return the classification of the failure
+     */
+    public Failure handle(Message message, String queueUrl, String stage, Throwable error) {
+        Failure failure = classifier.classify(error);
+        int receiveCount = receiveCount(message);
+        try {
+            if (failure.permanent()) {
+                quarantineService.quarantine(message, queueUrl, stage, failure.reason(), error, receiveCount);
+            } else if (receiveCount >= maxAttempts) {
+                quarantineService.quarantine(message, queueUrl, stage, "retries-exhausted", error, receiveCount);
+            } else {
+                int delay = backoffSeconds(receiveCount);
+                sqsClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                        .queueUrl(queueUrl)
+                        .receiptHandle(message.receiptHandle())
+                        .visibilityTimeout(delay)
+                        .build());
+                log.debug("Retrying message {} ({}) in {}s, delivery {} of {}", message.messageId(),
+                        failure.reason(), delay, receiveCount, maxAttempts);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not handle failure of message {}: {}", message.messageId(), e.getMessage());
+        }
+        return failure;
+    }
+
+    /**
+     * Quarantines the items of a product envelope that cannot succeed and
+     * sends the others back to the queue as a new envelope. Items that cannot
+     * be sent back are quarantined too, so the caller can always delete the
+     * original envelope; only a failure of the quarantine store propagates.
+     *
+     * @param envelope the envelope
+     * @param queueUrl the URL of the queue the envelope was received from
+     * @param items the items that were not processed, in envelope order
+     * @return the SQS message ID of the re-sent envelope, or null if no item is retried
+     */
+    public String handleItems(Message envelope, String queueUrl, List<FailedItem> items) {
+        int attempt = attemptsBefore(envelope) + receiveCount(envelope);
+        List<FailedItem> retries = new ArrayList<>(items.size());
+        for (FailedItem item : items) {
+            Failure failure = classifier.classify(item.error());
+            if (failure.permanent()) {
+                quarantineService.quarantineItem(envelope, item.index(), item.body(), queueUrl, item.stage(),
+                        failure.reason(), item.error(), attempt);
+            } else if (attempt >= maxAttempts) {
+                quarantineService.quarantineItem(envelope, item.index(), item.body(), queueUrl, item.stage(),
+                        "retries-exhausted", item.error(), attempt);
+            } else {
+                retries.add(item);
+            }
+        }
+        if (retries.isEmpty()) {
+            return null;
+        }
+        int delay = Math.min(backoffSeconds(attempt), MAX_DELAY_SECONDS);
+        String messageId;
+        try {
+            MessageCompression.Encoded encoded = encoder.encode(
+                    retries.stream().map(FailedItem::body).collect(Collectors.joining(",", "[", "]")));
+            Map<String, MessageAttributeValue> attributes = new HashMap<>(encoded.attributes());
+            attributes.put(ATTEMPTS_ATTRIBUTE, MessageAttributeValue.builder()
+                    .dataType("Number")
+                    .stringValue(Integer.toString(attempt))
+                    .build());
+            messageId = sqsClient.sendMessage(SendMessageRequest.builder()
+                    .queueUrl(queueUrl)
+                    .messageBody(encoded.body())
+                    .delaySeconds(delay)
+                    .messageAttributes(attributes)
+                    .build()).messageId();
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not re-send {} of the items of envelope {}: {}", retries.size(), envelope.messageId(),
+                    e.getMessage());
+            for (FailedItem item : retries) {
+                quarantineService.quarantineItem(envelope, item.index(), item.body(), queueUrl, item.stage(),
+                        "resend-failed", e, attempt);
+            }
+            return null;
+        }
+        log.debug("Retrying {} of the items of envelope {} as message {} in {}s, attempt {} of {}",
+                retries.size(), envelope.messageId(), messageId, delay, attempt, maxAttempts);
+        return messageId;
+    }
+
+    /**
+     * Computes the backoff before the next delivery.
+     *
+     * @param receiveCount how many times the message has been delivered
+     * @return the visibility timeout to set, in seconds
+     */
+    int backoffSeconds(int receiveCount) {
+        int exponent = Math.max(0, Math.min(receiveCount - 1, 30));
+        long delay = Math.min((long) maxDelaySeconds, (long) baseDelaySeconds << exponent);
+        long half = delay / 2;
+        return (int) (delay - ThreadLocalRandom.current().nextLong(half + 1));
+    }
+
+    /**
+     * Reads how many attempts the items of a re-sent envelope used before it was sent.
+     *
+     * @param envelope the envelope
+     * @return the {@value #ATTEMPTS_ATTRIBUTE} attribute, or 0 for an envelope sent by a producer
+     */
+    private static int attemptsBefore(Message envelope) {
+        MessageAttributeValue attempts = envelope.messageAttributes().get(ATTEMPTS_ATTRIBUTE);
+        return attempts != null && attempts.stringValue() != null ? Integer.parseInt(attempts.stringValue()) : 0;
+    }
+
+    /**
+     * Reads how many times SQS has delivered a message.
+     *
+     * @param message the message
+     * @return the ApproximateReceiveCount attribute, or 1 if it was not requested
+     */
+    private static int receiveCount(Message message) {
+        String count = message.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT);
+        return count != null ? Integer.parseInt(count) : 1;
+    }
+}
@@ -0,0 +1,192 @@
+package com.glic.quarantine;
+
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.model.QuarantinedMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Moves poison messages off their queue into a {@link QuarantineStore}, and
+ * lets operators list, inspect, re-drive and discard them.
+ */
+@Slf4j
+@Service
+public class QuarantineService {
+
+    /**
+     * Where quarantined messages are kept.
+     */
+    private final QuarantineStore store;
+
+    /**
+     * The AWS SQS client for queue operations.
+     */
+    private final SqsClient sqsClient;
+
+    /**
+     * Constructs a new QuarantineService.
+     *
+     * @param store where quarantined messages are kept
+     * @param sqsClient the AWS SQS client for queue operations
+     */
+    public QuarantineService(QuarantineStore store, SqsClient sqsClient) {
+        this.store = store;
+        this.sqsClient = sqsClient;
+    }
+
+    /**
+     * Stores a message in quarantine and then deletes it from its queue.
+     * If the delete fails the message is redelivered and may be quarantined
+     * twice, but it is never lost.
+     *
+     * @param message the message
+     * @param queueUrl the URL of the queue the message was received from
+     * @param stage the processing stage that failed
+     * @param reason the failure category
+     * @param error the failure
+     * @param receiveCount how many times SQS had delivered the message
+     * @return the quarantine entry
+     */
+    public QuarantinedMessage quarantine(Message message, String queueUrl, String stage, String reason,
+                                         Throwable error, int receiveCount) {
+        QuarantinedMessage entry = new QuarantinedMessage(message.messageId(), queueUrl, message.body(), stage,
+                reason, describe(error), receiveCount, Instant.now());
+        entry.setClaimChecked(ClaimCheck.isReference(message));
+        entry = store.save(entry);
+        sqsClient.deleteMessage(DeleteMessageRequest.builder()
+                .queueUrl(queueUrl)
+                .receiptHandle(message.receiptHandle())
+                .build());
+        log.warn("Quarantined message {} as entry {} ({} at stage {}): {}", message.messageId(), entry.getId(),
+                reason, stage, entry.getError());
+        return entry;
+    }
+
+    /**
+     * Stores one item of a product envelope in quarantine, under the
+     * envelope's message ID suffixed with {@code #index}. The envelope itself
+     * is left on its queue for the caller to delete once all its items are
+     * dealt with. Re-driving the entry sends the item as a single-product message.
+     *
+     * @param envelope the envelope the item came from
+     * @param index the position of the item in the envelope
+     * @param body the JSON text of the item
+     * @param queueUrl the URL of the queue the envelope was received from
+     * @param stage the processing stage that failed
+     * @param reason the failure category
+     * @param error the failure
+     * @param attempt how many times the item had been tried
+     * @return the quarantine entry
+     */
+    public QuarantinedMessage quarantineItem(Message envelope, int index, String body, String queueUrl,
+                                             String stage, String reason, Throwable error, int attempt) {
+        QuarantinedMessage entry = store.save(new QuarantinedMessage(envelope.messageId() + "#" + index, queueUrl,
+                body, stage, reason, describe(error), attempt, Instant.now()));
+        log.warn("Quarantined item {} of envelope {} as entry {} ({} at stage {}): {}", index,
+                envelope.messageId(), entry.getId(), reason, stage, entry.getError());
+        return entry;
+    }
+
+    /**
+     * Stores a product spilled to the local journal in quarantine, under the
+     * ID of the message it came from. That message was deleted when the
+     * product was spilled, so nothing is deleted here. Re-driving the entry
+     * sends the product as a single-product message.
+     *
+     * @param messageId the SQS message ID of the original message
+     * @param queueUrl the URL of the queue the message was received from
+     * @param body the JSON text of the product
+     * @param stage the processing stage that failed
+     * @param reason the failure category
+     * @param error the failure
+     * @return the quarantine entry
+     */
+    public QuarantinedMessage quarantineSpilled(String messageId, String queueUrl, String body, String stage,
+                                                String reason, Throwable error) {
+        QuarantinedMessage entry = store.save(new QuarantinedMessage(messageId, queueUrl, body, stage, reason,
+                describe(error), 1, Instant.now()));
+        log.warn("Quarantined journaled message {} as entry {} ({} at stage {}): {}", messageId, entry.getId(),
+                reason, stage, entry.getError());
+        return entry;
+    }
+
+    /**
+     * Lists quarantined messages, most recent first.
+     *
+     * @param limit the maximum number of messages to return
+     * @return the messages
+     */
+    public List<QuarantinedMessage> list(int limit) {
+        return store.findRecent(limit);
+    }
+
+    /**
+     * Finds a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     * @return the message, if present
+     */
+    public Optional<QuarantinedMessage> find(long id) {
+        return store.findById(id);
+    }
+
+    /**
+     * Sends a quarantined message back to its source queue as a new message
+     * and removes it from quarantine. A claim-checked message is sent as a
+     * reference again, with the attribute the listener requires.
+     *
+     * @param id the quarantine entry ID
+     * @return the SQS message ID of the re-driven message, or empty if there is no such entry
+     */
+    public Optional<String> redrive(long id) {
+        return store.findById(id).map(entry -> {
+            String messageId = sqsClient.sendMessage(SendMessageRequest.builder()
+                    .queueUrl(entry.getSourceQueueUrl())
+                    .messageBody(entry.getBody())
+                    .messageAttributes(entry.isClaimChecked() ? ClaimCheck.attributes() : Map.of())
+                    .build()).messageId();
+            store.delete(id);
+            log.info("Re-drove quarantine entry {} (message {}) to {} as message {}", id, entry.getMessageId(),
+                    entry.getSourceQueueUrl(), messageId);
+            return messageId;
+        });
+    }
+
+    /**
+     * Removes a quarantined message for good.
+     *
+     * @param id the quarantine entry ID
+     * @return true if the entry existed
+     */
+    public boolean discard(long id) {
+        if (store.findById(id).isEmpty()) {
+            return false;
+        }
+        store.delete(id);
+        log.info("Discarded quarantine entry {}", id);
+        return true;
+    }
+
+    /**
+     * Describes a failure by the message of its root cause.
+     *
+     * @param error the failure
+     * @return the exception type and message of the deepest cause
+     */
+    private static String describe(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getClass().getSimpleName() + ": " + root.getMessage();
+    }
+}
@@ -0,0 +1,43 @@
+package com.glic.quarantine;
+
+import com.glic.model.QuarantinedMessage;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where quarantined messages are kept.
+ */
+public interface QuarantineStore {
+
+    /**
+     * Stores a quarantined message and assigns its ID.
+     *
+     * @param message the message
+     * @return the stored message
+     */
+    QuarantinedMessage save(QuarantinedMessage message);
+
+    /**
+     * Lists quarantined messages, most recent first.
+     *
+     * @param limit the maximum number of messages to return
+     * @return the messages
+     */
+    List<QuarantinedMessage> findRecent(int limit);
+
+    /**
+     * Finds a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     * @return the message, if present
+     */
+    Optional<QuarantinedMessage> findById(long id);
+
+    /**
+     * Removes a quarantined message.
+     *
+     * @param id the quarantine entry ID
+     */
+    void delete(long id);
+}
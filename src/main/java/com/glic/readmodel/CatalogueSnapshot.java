@@ -0,0 +1,187 @@
+package com.glic.readmodel;
+
+import java.util.Arrays;
+
+/**
+ * Immutable, point-in-time view of the product catalogue holding the
+ * pre-serialized JSON of every product keyed by its primitive {@code long} ID.
+ * Keys are kept sorted so lookups are a binary search over a {@code long[]}
+ * and the list view comes out in ID order without boxing or hashing.
+ * Every mutation returns a new snapshot; existing instances are never modified
+ * and can therefore be shared freely between request threads.
+ */
+public final class CatalogueSnapshot {
+
+    /**
+     * The empty catalogue.
+     */
+    public static final CatalogueSnapshot EMPTY = new CatalogueSnapshot(new long[0], new byte[0][]);
+
+    /**
+     * Product IDs in ascending order.
+     */
+    private final long[] ids;
+
+    /**
+     * Serialized product JSON, aligned index-for-index with {@link #ids}.
+     */
+    private final byte[][] bodies;
+
+    /**
+     * Lazily built JSON array of all products. Racing threads may build it
+     * more than once, which is harmless because the result is identical.
+     */
+    private volatile byte[] listJson;
+
+    /**
+     * Constructs a snapshot from already sorted, aligned arrays. The arrays are
+     * owned by the snapshot afterwards and must not be modified by the caller.
+     *
+     * @param ids product IDs in ascending order
+     * @param bodies serialized product JSON aligned with the IDs
+     */
+    private CatalogueSnapshot(long[] ids, byte[][] bodies) {
+        this.ids = ids;
+        this.bodies = bodies;
+    }
+
+    /**
+     * Builds a snapshot from unordered, possibly duplicated entries. When an ID
+     * appears more than once the last body wins.
+     *
+     * @param ids product IDs
+     * @param bodies serialized product JSON aligned with the IDs
+     * @return a new snapshot
+     */
+    public static CatalogueSnapshot of(long[] ids, byte[][] bodies) {
+        if (ids.length != bodies.length) {
+            throw new IllegalArgumentException("IDs and bodies must have the same length");
+        }
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        Integer[] order = new Integer[ids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(ids[a], ids[b]));
+        long[] sortedIds = new long[ids.length];
+        byte[][] sortedBodies = new byte[ids.length][];
+        int size = 0;
+        for (Integer index : order) {
+            if (size > 0 && sortedIds[size - 1] == ids[index]) {
+                sortedBodies[size - 1] = bodies[index];
+            } else {
+                sortedIds[size] = ids[index];
+                sortedBodies[size] = bodies[index];
+                size++;
+            }
+        }
+        return new CatalogueSnapshot(Arrays.copyOf(sortedIds, size), Arrays.copyOf(sortedBodies, size));
+    }
+
+    /**
+     * Returns the serialized JSON of a product.
+     *
+     * @param id the product ID
+     * @return the JSON bytes, or null if the product is not in the snapshot
+     */
+    public byte[] get(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? bodies[index] : null;
+    }
+
+    /**
+     * Returns the number of products in the snapshot.
+     *
+     * @return the product count
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Returns a snapshot in which the given product is inserted or replaced.
+     *
+     * @param id the product ID
+     * @param body the serialized product JSON
+     * @return a new snapshot containing the product
+     */
+    public CatalogueSnapshot with(long id, byte[] body) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index >= 0) {
+            byte[][] newBodies = bodies.clone();
+            newBodies[index] = body;
+            return new CatalogueSnapshot(ids, newBodies);
+        }
+        int insertAt = -index - 1;
+        long[] newIds = new long[ids.length + 1];
+        byte[][] newBodies = new byte[ids.length + 1][];
+        System.arraycopy(ids, 0, newIds, 0, insertAt);
+        System.arraycopy(bodies, 0, newBodies, 0, insertAt);
+        newIds[insertAt] = id;
+        newBodies[insertAt] = body;
+        System.arraycopy(ids, insertAt, newIds, insertAt + 1, ids.length - insertAt);
+        System.arraycopy(bodies, insertAt, newBodies, insertAt + 1, ids.length - insertAt);
+        return new CatalogueSnapshot(newIds, newBodies);
+    }
+
+    /**
+     * Returns a snapshot without the given product.
+     *
+     * @param id the product ID
+     * @return a new snapshot, or this snapshot if the product was not present
+     */
+    public CatalogueSnapshot without(long id) {
+        int index = Arrays.binarySearch(ids, id);
+        if (index < 0) {
+            return this;
+        }
+        long[] newIds = new long[ids.length - 1];
+        byte[][] newBodies = new byte[ids.length - 1][];
+        System.arraycopy(ids, 0, newIds, 0, index);
+        System.arraycopy(bodies, 0, newBodies, 0, index);
+        System.arraycopy(ids, index + 1, newIds, index, ids.length - index - 1);
+        System.arraycopy(bodies, index + 1, newBodies, index, ids.length - index - 1);
+        return new CatalogueSnapshot(newIds, newBodies);
+    }
+
+    /**
+     * Returns the JSON array of all products in ID order. The array is built
+     * on first use and then reused for every subsequent request.
+     *
+     * @return the JSON array bytes
+     */
+    public byte[] listJson() {
+        byte[] json = listJson;
+        if (json == null) {
+            json = buildListJson();
+            listJson = json;
+        }
+        return json;
+    }
+
+    /**
+     * Concatenates every product body into a single JSON array.
+     *
+     * @return the JSON array bytes
+     */
+    private byte[] buildListJson() {
+        int length = 2 + Math.max(0, bodies.length - 1);
+        for (byte[] body : bodies) {
+            length += body.length;
+        }
+        byte[] json = new byte[length];
+        int position = 0;
+        json[position++] = '[';
+        for (int i = 0; i < bodies.length; i++) {
+            if (i > 0) {
+                json[position++] = ',';
+            }
+            System.arraycopy(bodies[i], 0, json, position, bodies[i].length);
+            position += bodies[i].length;
+        }
+        json[position] = ']';
+        return json;
+    }
+}
@@ -0,0 +1,162 @@
+package com.glic.readmodel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.model.Product;
+import com.glic.service.ProductChangedEvent;
+import com.glic.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory read side of the product catalogue.
+ * Holds a {@link CatalogueSnapshot} of pre-serialized product JSON that the
+ * product GET endpoints can return without touching the database. The snapshot
+ * is loaded once when the application is ready and then kept current by
+ * applying the {@link ProductChangedEvent}s that {@link ProductService}
+ * publishes after each committed write. Readers only ever perform a volatile
+ * read of the current snapshot; writers are serialized and publish a new
+ * snapshot per change.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "products.read-store.enabled", havingValue = "true")
+public class ProductReadStore {
+
+    /**
+     * The service used to load the initial catalogue.
+     */
+    private final ProductService productService;
+
+    /**
+     * The ObjectMapper used to pre-serialize products.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * The snapshot currently served to readers.
+     */
+    private volatile CatalogueSnapshot snapshot = CatalogueSnapshot.EMPTY;
+
+    /**
+     * Whether the initial load has completed and the store may serve reads.
+     */
+    private volatile boolean ready;
+
+    /**
+     * Changes committed while the initial load was running. They are replayed
+     * on top of the loaded snapshot so that no write is lost or reordered.
+     * Guarded by {@code this}; null once the store is ready.
+     */
+    private List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+
+    /**
+     * Constructs a new ProductReadStore.
+     *
+     * @param productService the service used to load the initial catalogue
+     * @param objectMapper the ObjectMapper used to pre-serialize products
+     */
+    public ProductReadStore(ProductService productService, ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Loads the full catalogue from the database once the application is ready
+     * and starts serving reads from memory.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        log.info("Loading product read store");
+        List<Product> products = productService.getAllProducts();
+        long[] ids = new long[products.size()];
+        byte[][] bodies = new byte[products.size()][];
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            ids[i] = product.getId();
+            bodies[i] = serialize(product);
+        }
+        CatalogueSnapshot loaded = CatalogueSnapshot.of(ids, bodies);
+        synchronized (this) {
+            for (ProductChangedEvent change : pendingChanges) {
+                loaded = apply(loaded, change);
+            }
+            pendingChanges = null;
+            snapshot = loaded;
+            ready = true;
+        }
+        log.info("Product read store loaded with {} products", loaded.size());
+    }
+
+    /**
+     * Applies a committed product change to the snapshot. Runs ahead of
+     * {@link com.glic.service.CatalogueVersion} so a new ETag is never paired
+     * with the previous snapshot.
+     *
+     * @param event the change published by {@link ProductService}
+     */
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (pendingChanges != null) {
+            pendingChanges.add(event);
+            return;
+        }
+        snapshot = apply(snapshot, event);
+    }
+
+    /**
+     * Indicates whether the store has finished loading and may serve reads.
+     *
+     * @return true if reads can be answered from memory
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the snapshot currently served to readers.
+     *
+     * @return the current snapshot
+     */
+    public CatalogueSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Applies a single change to a snapshot.
+     *
+     * @param base the snapshot to change
+     * @param event the change to apply
+     * @return the resulting snapshot
+     */
+    private CatalogueSnapshot apply(CatalogueSnapshot base, ProductChangedEvent event) {
+        if (event.getType() == ProductChangedEvent.ChangeType.DELETED) {
+            return base.without(event.getProductId());
+        }
+        return base.with(event.getProductId(), serialize(event.getProduct()));
+    }
+
+    /**
+     * Serializes a product to JSON bytes.
+     *
+     * @param product the product to serialize
+     * @return the JSON bytes
+     */
+    private byte[] serialize(Product product) {
+        try {
+            return objectMapper.writeValueAsBytes(product);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize product " + product.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.glic.repository;
+
+import com.glic.model.ProductOutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for the product change outbox.
+ */
+@Repository
+public interface ProductOutboxRepository extends JpaRepository<ProductOutboxEvent, Long> {
+
+    /**
+     * Finds the oldest pending outbox rows in insertion order.
+     *
+     * @param pageable limits how many rows are returned
+     * @return the oldest rows, ordered by ID
+     */
+    List<ProductOutboxEvent> findByOrderByIdAsc(Pageable pageable);
+}
@@ -4,6 +4,8 @@ import com.glic.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Repository interface for managing Product entities.
  * Provides basic CRUD operations and custom query methods.
@@ -18,4 +20,20 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return the product with the given name, or null if not found
      */
     Product findByName(String name);
+
+    /**
+     * Finds the products whose IDs lie in a range, in ID order.
+     *
+     * @param fromId the lowest ID, inclusive
+     * @param toId the highest ID, inclusive
+     * @return the products in the range
+     */
+    List<Product> findByIdBetweenOrderByIdAsc(Long fromId, Long toId);
+
+    /**
+     * Finds the highest product ID.
+     *
+     * @return the highest ID, or null if there are no products
+     */
+    Long findMaxId();
 } 
\ No newline at end of file
@@ -115,4 +115,33 @@ public class ProductRepositoryImpl extends SimpleJpaRepository<Product, Long> im
         logger.debug("Found {} products with quantity less than {}", results.size(), quantity);
         return results;
     }
+
+    /**
+     * Finds the products whose IDs lie in a range, in ID order.
+     *
+     * @param fromId the lowest ID, inclusive
+     * @param toId the highest ID, inclusive
+     * @return the products in the range
+     */
+    @Override
+    public List<Product> findByIdBetweenOrderByIdAsc(Long fromId, Long toId) {
+        logger.debug("Finding products with id between {} and {}", fromId, toId);
+        TypedQuery<Product> query = entityManager.createQuery(
+            "SELECT p FROM Product p WHERE p.id BETWEEN :fromId AND :toId ORDER BY p.id", Product.class);
+        query.setParameter("fromId", fromId);
+        query.setParameter("toId", toId);
+        List<Product> results = query.getResultList();
+        logger.debug("Found {} products with id between {} and {}", results.size(), fromId, toId);
+        return results;
+    }
+
+    /**
+     * Finds the highest product ID.
+     *
+     * @return the highest ID, or null if there are no products
+     */
+    @Override
+    public Long findMaxId() {
+        return entityManager.createQuery("SELECT MAX(p.id) FROM Product p", Long.class).getSingleResult();
+    }
 } 
\ No newline at end of file
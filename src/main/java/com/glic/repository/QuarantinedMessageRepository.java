@@ -0,0 +1,23 @@
+package com.glic.repository;
+
+import com.glic.model.QuarantinedMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for messages held in quarantine.
+ */
+@Repository
+public interface QuarantinedMessageRepository extends JpaRepository<QuarantinedMessage, Long> {
+
+    /**
+     * Finds quarantined messages, most recent first.
+     *
+     * @param pageable the page to return
+     * @return the entries of the page
+     */
+    List<QuarantinedMessage> findByOrderByIdDesc(Pageable pageable);
+}
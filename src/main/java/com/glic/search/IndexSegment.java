@@ -0,0 +1,385 @@
+package com.glic.search;
+
+import com.glic.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable inverted index over a set of products.
+ * Each product is given an ordinal, its position in the ascending
+ * {@code long[]} of product IDs. The sorted term dictionary points into one
+ * flat {@code int[]} of posting ordinals, ascending per term, with a parallel
+ * {@code int[]} of weights: how often the term occurs in the product, counting
+ * a name occurrence {@link #NAME_WEIGHT} times. Sorted terms make a prefix a
+ * contiguous range found by binary search, and the flat arrays keep a million
+ * products in a few compact allocations instead of millions of small objects.
+ */
+final class IndexSegment {
+
+    /**
+     * How many description occurrences one occurrence in the name is worth.
+     */
+    static final int NAME_WEIGHT = 3;
+
+    /**
+     * The segment without products.
+     */
+    static final IndexSegment EMPTY = new IndexSegment(new long[0], new String[0], new int[1], new int[0], new int[0]);
+
+    /**
+     * The searchable text of one product.
+     *
+     * @param id the product ID
+     * @param name the product name
+     * @param description the product description, may be null
+     */
+    record Document(long id, String name, String description) {
+
+        /**
+         * Takes the searchable text of a product.
+         *
+         * @param product the product
+         * @return its document
+         */
+        static Document of(Product product) {
+            return new Document(product.getId(), product.getName(), product.getDescription());
+        }
+    }
+
+    /**
+     * Product IDs in ascending order; a product's ordinal is its index here.
+     */
+    private final long[] ids;
+
+    /**
+     * Terms in ascending order.
+     */
+    private final String[] terms;
+
+    /**
+     * Where the postings of each term start in {@link #postings}; the entry
+     * after the last term is the total number of postings.
+     */
+    private final int[] starts;
+
+    /**
+     * Ordinals of the products holding each term, ascending per term.
+     */
+    private final int[] postings;
+
+    /**
+     * Weight of each posting, aligned with {@link #postings}.
+     */
+    private final int[] weights;
+
+    /**
+     * Constructs a segment from its arrays, which it owns afterwards.
+     *
+     * @param ids product IDs in ascending order
+     * @param terms terms in ascending order
+     * @param starts where the postings of each term start, plus the total
+     * @param postings posting ordinals
+     * @param weights posting weights
+     */
+    private IndexSegment(long[] ids, String[] terms, int[] starts, int[] postings, int[] weights) {
+        this.ids = ids;
+        this.terms = terms;
+        this.starts = starts;
+        this.postings = postings;
+        this.weights = weights;
+    }
+
+    /**
+     * Indexes documents.
+     *
+     * @param documents the documents, in strictly ascending ID order
+     * @return the segment
+     * @throws IllegalArgumentException if the IDs are not strictly ascending
+     */
+    static IndexSegment build(List<Document> documents) {
+        if (documents.isEmpty()) {
+            return EMPTY;
+        }
+        long[] ids = new long[documents.size()];
+        Map<String, PostingBuilder> byTerm = new HashMap<>();
+        Map<String, Integer> counts = new HashMap<>();
+        for (int ordinal = 0; ordinal < ids.length; ordinal++) {
+            Document document = documents.get(ordinal);
+            if (ordinal > 0 && document.id() <= ids[ordinal - 1]) {
+                throw new IllegalArgumentException("Document IDs must be strictly ascending at " + document.id());
+            }
+            ids[ordinal] = document.id();
+            counts.clear();
+            for (String token : ProductTokenizer.tokens(document.name())) {
+                counts.merge(token, NAME_WEIGHT, Integer::sum);
+            }
+            for (String token : ProductTokenizer.tokens(document.description())) {
+                counts.merge(token, 1, Integer::sum);
+            }
+            for (Map.Entry<String, Integer> count : counts.entrySet()) {
+                byTerm.computeIfAbsent(count.getKey(), term -> new PostingBuilder()).add(ordinal, count.getValue());
+            }
+        }
+        String[] terms = byTerm.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] starts = new int[terms.length + 1];
+        for (int t = 0; t < terms.length; t++) {
+            starts[t + 1] = starts[t] + byTerm.get(terms[t]).size;
+        }
+        int[] postings = new int[starts[terms.length]];
+        int[] weights = new int[postings.length];
+        for (int t = 0; t < terms.length; t++) {
+            PostingBuilder builder = byTerm.get(terms[t]);
+            System.arraycopy(builder.ordinals, 0, postings, starts[t], builder.size);
+            System.arraycopy(builder.weights, 0, weights, starts[t], builder.size);
+        }
+        return new IndexSegment(ids, terms, starts, postings, weights);
+    }
+
+    /**
+     * Combines two segments into one, leaving out the products of the older
+     * segment whose IDs are hidden. Both segments are read in one pass over
+     * their sorted terms and postings.
+     *
+     * @param older the first segment
+     * @param hidden IDs in ascending order to leave out of the older segment
+     * @param newer the second segment
+     * @return the combined segment
+     * @throws IllegalArgumentException if a product not hidden is in both segments
+     */
+    static IndexSegment merge(IndexSegment older, long[] hidden, IndexSegment newer) {
+        if (hidden.length == 0 && newer.size() == 0) {
+            return older;
+        }
+        if (older.size() == 0) {
+            return newer;
+        }
+        int[] olderOrdinals = new int[older.size()];
+        int[] newerOrdinals = new int[newer.size()];
+        long[] ids = new long[older.size() + newer.size()];
+        int size = 0;
+        int o = 0;
+        int n = 0;
+        while (o < older.size() || n < newer.size()) {
+            if (o < older.size() && Arrays.binarySearch(hidden, older.ids[o]) >= 0) {
+                olderOrdinals[o++] = -1;
+            } else if (n == newer.size() || (o < older.size() && older.ids[o] < newer.ids[n])) {
+                ids[size] = older.ids[o];
+                olderOrdinals[o++] = size++;
+            } else if (o == older.size() || newer.ids[n] < older.ids[o]) {
+                ids[size] = newer.ids[n];
+                newerOrdinals[n++] = size++;
+            } else {
+                throw new IllegalArgumentException("Product " + newer.ids[n] + " is in both segments");
+            }
+        }
+        List<String> terms = new ArrayList<>(older.terms.length + newer.terms.length);
+        int[] starts = new int[older.terms.length + newer.terms.length + 1];
+        int[] postings = new int[older.postings.length + newer.postings.length];
+        int[] weights = new int[postings.length];
+        int count = 0;
+        int a = 0;
+        int b = 0;
+        while (a < older.terms.length || b < newer.terms.length) {
+            int order = a == older.terms.length ? 1
+                    : b == newer.terms.length ? -1 : older.terms[a].compareTo(newer.terms[b]);
+            int i = order <= 0 ? older.starts[a] : 0;
+            int iEnd = order <= 0 ? older.starts[a + 1] : 0;
+            int j = order >= 0 ? newer.starts[b] : 0;
+            int jEnd = order >= 0 ? newer.starts[b + 1] : 0;
+            int first = count;
+            while (i < iEnd || j < jEnd) {
+                if (i < iEnd && olderOrdinals[older.postings[i]] < 0) {
+                    i++;
+                } else if (j == jEnd || (i < iEnd
+                        && olderOrdinals[older.postings[i]] < newerOrdinals[newer.postings[j]])) {
+                    postings[count] = olderOrdinals[older.postings[i]];
+                    weights[count++] = older.weights[i++];
+                } else {
+                    postings[count] = newerOrdinals[newer.postings[j]];
+                    weights[count++] = newer.weights[j++];
+                }
+            }
+            if (count > first) {
+                terms.add(order <= 0 ? older.terms[a] : newer.terms[b]);
+                starts[terms.size()] = count;
+            }
+            if (order <= 0) {
+                a++;
+            }
+            if (order >= 0) {
+                b++;
+            }
+        }
+        return new IndexSegment(Arrays.copyOf(ids, size), terms.toArray(new String[0]),
+                Arrays.copyOf(starts, terms.size() + 1), Arrays.copyOf(postings, count),
+                Arrays.copyOf(weights, count));
+    }
+
+    /**
+     * Gets the number of products in the segment.
+     *
+     * @return the number of products
+     */
+    int size() {
+        return ids.length;
+    }
+
+    /**
+     * Gets the ID of a product.
+     *
+     * @param ordinal the product's ordinal
+     * @return its ID
+     */
+    long id(int ordinal) {
+        return ids[ordinal];
+    }
+
+    /**
+     * Finds the ordinal of a product.
+     *
+     * @param id the product ID
+     * @return its ordinal, or a negative number if the product is not in the segment
+     */
+    int ordinal(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    /**
+     * Counts the postings of a term that point to any of the given products.
+     *
+     * @param term the term's index
+     * @param ordinals ordinals in ascending order
+     * @return the number of those products holding the term
+     */
+    int countPostings(int term, int[] ordinals) {
+        int start = starts[term];
+        int end = starts[term + 1];
+        int count = 0;
+        if (end - start <= ordinals.length) {
+            for (int i = start; i < end; i++) {
+                if (Arrays.binarySearch(ordinals, postings[i]) >= 0) {
+                    count++;
+                }
+            }
+        } else {
+            for (int ordinal : ordinals) {
+                if (Arrays.binarySearch(postings, start, end, ordinal) >= 0) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of distinct terms.
+     *
+     * @return the number of terms
+     */
+    int termCount() {
+        return terms.length;
+    }
+
+    /**
+     * Gets a term.
+     *
+     * @param term the term's index
+     * @return the term
+     */
+    String term(int term) {
+        return terms[term];
+    }
+
+    /**
+     * Finds the first term that is not less than the given text, which is
+     * the first term starting with it if there is one.
+     *
+     * @param text the text
+     * @return the term's index, or {@link #termCount()} if every term is less
+     */
+    int ceilingTerm(String text) {
+        int index = Arrays.binarySearch(terms, text);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Gets where a term's postings start.
+     *
+     * @param term the term's index
+     * @return the index of its first posting
+     */
+    int postingsStart(int term) {
+        return starts[term];
+    }
+
+    /**
+     * Gets where a term's postings end.
+     *
+     * @param term the term's index
+     * @return the index after its last posting
+     */
+    int postingsEnd(int term) {
+        return starts[term + 1];
+    }
+
+    /**
+     * Gets the ordinal of a posting.
+     *
+     * @param posting the posting's index
+     * @return the ordinal of the product it points to
+     */
+    int posting(int posting) {
+        return postings[posting];
+    }
+
+    /**
+     * Gets the weight of a posting.
+     *
+     * @param posting the posting's index
+     * @return how often the term occurs in the product, names counting extra
+     */
+    int weight(int posting) {
+        return weights[posting];
+    }
+
+    /**
+     * Collects the postings of one term while a segment is built.
+     */
+    private static final class PostingBuilder {
+
+        /**
+         * Ordinals added so far.
+         */
+        private int[] ordinals = new int[4];
+
+        /**
+         * Weights added so far, aligned with {@link #ordinals}.
+         */
+        private int[] weights = new int[4];
+
+        /**
+         * Number of postings added.
+         */
+        private int size;
+
+        /**
+         * Adds a posting.
+         *
+         * @param ordinal the product's ordinal, greater than any added before
+         * @param weight the posting weight
+         */
+        void add(int ordinal, int weight) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            ordinals[size] = ordinal;
+            weights[size++] = weight;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.glic.search;
+
+import com.glic.search.IndexSegment.Document;
+import com.glic.service.ProductChangedEvent;
+import com.glic.service.ProductService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.LongStream;
+
+/**
+ * In-memory keyword search over product names and descriptions.
+ * Answers {@code GET /api/products/search} from a {@link SearchSnapshot}
+ * instead of a {@code LIKE '%term%'} scan of the product table. The index is
+ * built once the application is ready, reading the table in slices of
+ * {@code products.search.load-slice-size} IDs in parallel and indexing each
+ * slice on the thread that read it, and is then kept current from the
+ * {@link ProductChangedEvent}s that {@link ProductService} publishes after each
+ * committed write.
+ * <p>
+ * Readers only perform a volatile read of the current snapshot. A committed
+ * change is only noted on the committing thread; a background refresher then
+ * rebuilds the small delta segment of products changed since the last fold
+ * and publishes a new snapshot, taking every change noted meanwhile in the
+ * same run, so searches see a change shortly after its commit. Once more than
+ * {@code products.search.merge-threshold} products have changed, the refresher
+ * folds the delta into a new base segment, while changes keep being noted
+ * for its next run.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "products.search.enabled", havingValue = "true")
+public class ProductSearchIndex {
+
+    /**
+     * The service used to load the initial catalogue.
+     */
+    private final ProductService productService;
+
+    /**
+     * Number of IDs read per slice when loading.
+     */
+    private final int loadSliceSize;
+
+    /**
+     * Most changed products kept in the delta segment before it is folded into the base.
+     */
+    private final int mergeThreshold;
+
+    /**
+     * Most hits returned by one search.
+     */
+    private final int maxResults;
+
+    /**
+     * Time to answer a search.
+     */
+    private final Timer queryTimer;
+
+    /**
+     * Runs the refreshes that publish noted changes.
+     */
+    private final Executor refresher;
+
+    /**
+     * Whether a refresh is queued and will see every change noted so far.
+     */
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    /**
+     * Serializes refreshes, so snapshots are published in the order of the changes they hold.
+     */
+    private final Object refreshLock = new Object();
+
+    /**
+     * The snapshot currently served to readers.
+     */
+    private volatile SearchSnapshot snapshot = SearchSnapshot.EMPTY;
+
+    /**
+     * Whether the initial load has completed and the index may serve searches.
+     */
+    private volatile boolean ready;
+
+    /**
+     * The base segment of the current snapshot. Guarded by {@code this}.
+     */
+    private IndexSegment base = IndexSegment.EMPTY;
+
+    /**
+     * Products changed since the base was built, by ID, mapped to their
+     * current text or to null if deleted. Guarded by {@code this}.
+     */
+    private final Map<Long, Document> changed = new TreeMap<>();
+
+    /**
+     * Changes committed while the initial load was running. They are applied
+     * on top of the loaded index so that no write is lost or reordered.
+     * Guarded by {@code this}; null once the index is ready.
+     */
+    private List<ProductChangedEvent> pendingChanges = new ArrayList<>();
+
+    /**
+     * Constructs a new ProductSearchIndex.
+     *
+     * @param productService the service used to load the initial catalogue
+     * @param registry the registry the meters are published to
+     * @param loadSliceSize number of IDs read per slice when loading
+     * @param mergeThreshold most changed products kept apart before they are folded into the base
+     * @param maxResults most hits returned by one search
+     */
+    @Autowired
+    public ProductSearchIndex(
+            ProductService productService,
+            MeterRegistry registry,
+            @Value("${products.search.load-slice-size:10000}") int loadSliceSize,
+            @Value("${products.search.merge-threshold:4096}") int mergeThreshold,
+            @Value("${products.search.max-results:100}") int maxResults) {
+        this(productService, registry, loadSliceSize, mergeThreshold, maxResults,
+                Executors.newSingleThreadExecutor(new CustomizableThreadFactory("product-search-refresh-")));
+    }
+
+    /**
+     * Constructs a new ProductSearchIndex whose refreshes run on the given executor.
+     *
+     * @param productService the service used to load the initial catalogue
+     * @param registry the registry the meters are published to
+     * @param loadSliceSize number of IDs read per slice when loading
+     * @param mergeThreshold most changed products kept apart before they are folded into the base
+     * @param maxResults most hits returned by one search
+     * @param refresher runs the refreshes that publish noted changes
+     */
+    ProductSearchIndex(ProductService productService, MeterRegistry registry, int loadSliceSize, int mergeThreshold,
+                       int maxResults, Executor refresher) {
+        this.productService = productService;
+        this.loadSliceSize = Math.max(1, loadSliceSize);
+        this.mergeThreshold = Math.max(0, mergeThreshold);
+        this.maxResults = Math.max(1, maxResults);
+        this.refresher = refresher;
+        this.queryTimer = Timer.builder("products.search.query")
+                .description("Time to answer a product search")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("products.search.documents", this, index -> index.snapshot.size())
+                .description("Products in the search index")
+                .register(registry);
+    }
+
+    /**
+     * Builds the index from the database once the application is ready and
+     * starts serving searches.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        long maxId = productService.getMaxProductId();
+        long slices = (maxId + loadSliceSize - 1) / loadSliceSize;
+        log.info("Loading product search index from {} slices", slices);
+        IndexSegment loaded = LongStream.range(0, slices)
+                .parallel()
+                .mapToObj(slice -> IndexSegment.build(productService
+                        .getProductsBetween(slice * loadSliceSize + 1, (slice + 1) * loadSliceSize)
+                        .stream()
+                        .map(Document::of)
+                        .toList()))
+                .reduce(IndexSegment.EMPTY,
+                        (older, newer) -> IndexSegment.merge(older, SearchSnapshot.NO_IDS, newer));
+        synchronized (this) {
+            base = loaded;
+            for (ProductChangedEvent change : pendingChanges) {
+                record(change);
+            }
+            pendingChanges = null;
+        }
+        refresh();
+        ready = true;
+        log.info("Product search index loaded with {} products and {} terms in {} ms", snapshot.size(),
+                loaded.termCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Notes a committed product change and queues a refresh to publish it,
+     * unless one is already queued.
+     *
+     * @param event the change published by {@link ProductService}
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (this) {
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+                return;
+            }
+            record(event);
+        }
+        if (refreshQueued.compareAndSet(false, true)) {
+            refresher.execute(this::refresh);
+        }
+    }
+
+    /**
+     * Stops the refresher.
+     */
+    @PreDestroy
+    public void close() {
+        if (refresher instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    /**
+     * Indicates whether the index has finished loading and may serve searches.
+     *
+     * @return true if searches can be answered
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Finds the products best matching a query.
+     *
+     * @param query the query text
+     * @param limit the most hits returned, capped at {@code products.search.max-results}
+     * @return the hits, best first
+     */
+    public List<SearchHit> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<SearchHit> hits = snapshot.search(query, Math.min(limit, maxResults));
+        queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return hits;
+    }
+
+    /**
+     * Notes a change to be published with the next snapshot.
+     *
+     * @param event the change
+     */
+    private void record(ProductChangedEvent event) {
+        changed.put(event.getProductId(), event.getType() == ProductChangedEvent.ChangeType.DELETED
+                ? null : Document.of(event.getProduct()));
+    }
+
+    /**
+     * Publishes a snapshot of the base and the changed products, folding the
+     * changes into a new base once there are more than the merge threshold.
+     * The segments are built outside the lock the committing threads note
+     * changes under; changes noted during a fold stay for the next refresh.
+     */
+    private void refresh() {
+        synchronized (refreshLock) {
+            refreshQueued.set(false);
+            IndexSegment current;
+            Map<Long, Document> changes;
+            synchronized (this) {
+                current = base;
+                changes = new TreeMap<>(changed);
+            }
+            long[] hidden = changes.keySet().stream().mapToLong(Long::longValue).toArray();
+            IndexSegment delta = IndexSegment.build(changes.values().stream().filter(Objects::nonNull).toList());
+            if (changes.size() <= mergeThreshold) {
+                snapshot = new SearchSnapshot(current, hidden, delta);
+                return;
+            }
+            IndexSegment folded = IndexSegment.merge(current, hidden, delta);
+            synchronized (this) {
+                base = folded;
+                changes.forEach((id, document) -> changed.remove(id, document));
+            }
+            snapshot = new SearchSnapshot(folded, SearchSnapshot.NO_IDS, IndexSegment.EMPTY);
+            log.debug("Folded {} changed products into the search index", hidden.length);
+        }
+    }
+}
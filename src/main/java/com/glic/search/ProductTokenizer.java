@@ -0,0 +1,67 @@
+package com.glic.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits product text into search terms.
+ * Text is folded to lower case and stripped of accents, so {@code "Café"} and
+ * {@code "cafe"} are the same term, and split on every character that is not a
+ * letter or digit. The same rules apply to indexed text and to queries.
+ */
+public final class ProductTokenizer {
+
+    /**
+     * Longest term kept; longer runs of letters are cut to this length.
+     */
+    static final int MAX_TERM_LENGTH = 40;
+
+    /**
+     * Prevents instantiation of this utility class.
+     */
+    private ProductTokenizer() {
+    }
+
+    /**
+     * Splits text into terms, in the order they appear and with repeats.
+     *
+     * @param text the text, may be null
+     * @return the terms
+     */
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean word = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(folded.substring(start, Math.min(i, start + MAX_TERM_LENGTH)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Lower-cases text and removes accents from it.
+     *
+     * @param text the text
+     * @return the folded text
+     */
+    private static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) > 0x7f) {
+                return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+            }
+        }
+        return lower;
+    }
+}
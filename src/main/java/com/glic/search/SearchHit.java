@@ -0,0 +1,10 @@
+package com.glic.search;
+
+/**
+ * A product matching a search, with its relevance score.
+ *
+ * @param productId the product ID
+ * @param score how well the product matches; higher is better
+ */
+public record SearchHit(long productId, float score) {
+}
@@ -0,0 +1,361 @@
+package com.glic.search;
+
+import com.glic.model.Product;
+import com.glic.search.IndexSegment.Document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable, point-in-time search index of the product catalogue.
+ * Made of a large base {@link IndexSegment} and a small delta segment holding
+ * the products changed since the base was built; the base versions of those
+ * products are hidden. Recent changes therefore cost a rebuild of the delta
+ * only, until the owner folds it into a new base.
+ * <p>
+ * A query matches products holding every one of its terms in their name or
+ * description. A query term also matches the indexed terms it is a prefix
+ * of, scoring less than an exact match, unless it is shorter than
+ * {@link #MIN_PREFIX_LENGTH}. Each matched term scores its inverse document
+ * frequency times a saturating function of its weight, and the best
+ * {@code limit} products are kept in a bounded heap. Document frequencies
+ * count the visible products of both segments, so a product scores the same
+ * whether it sits in the base or in the delta.
+ */
+public final class SearchSnapshot {
+
+    /**
+     * No IDs.
+     */
+    static final long[] NO_IDS = new long[0];
+
+    /**
+     * The index without products.
+     */
+    public static final SearchSnapshot EMPTY = new SearchSnapshot(IndexSegment.EMPTY, NO_IDS, IndexSegment.EMPTY);
+
+    /**
+     * Shortest query term that also matches longer terms starting with it.
+     */
+    static final int MIN_PREFIX_LENGTH = 2;
+
+    /**
+     * Most distinct query terms used; the rest of a query is ignored.
+     */
+    static final int MAX_QUERY_TERMS = 8;
+
+    /**
+     * Products per segment when building in parallel.
+     */
+    static final int BUILD_CHUNK = 16384;
+
+    /**
+     * Factor applied to the score of a term matched by prefix only.
+     */
+    private static final float PREFIX_BOOST = 0.5f;
+
+    /**
+     * Weight at which a term's score reaches half its maximum.
+     */
+    private static final float SATURATION = 1.2f;
+
+    /**
+     * Orders hits from worst to best: lowest score first, and on equal scores the highest ID first.
+     */
+    private static final Comparator<SearchHit> WORST_FIRST = Comparator.comparingDouble(SearchHit::score)
+            .thenComparing(Comparator.comparingLong(SearchHit::productId).reversed());
+
+    /**
+     * The products matching one query term in one segment.
+     *
+     * @param ordinals matching ordinals in ascending order
+     * @param scores the score of each ordinal, aligned with the ordinals
+     * @param length the number of matches
+     */
+    private record Matches(int[] ordinals, float[] scores, int length) {
+
+        /**
+         * No matches.
+         */
+        static final Matches NONE = new Matches(new int[0], new float[0], 0);
+    }
+
+    /**
+     * The base segment.
+     */
+    private final IndexSegment base;
+
+    /**
+     * IDs in ascending order of the base products replaced or removed since the base was built.
+     */
+    private final long[] hidden;
+
+    /**
+     * Ordinals in ascending order of the hidden products present in the base.
+     */
+    private final int[] hiddenOrdinals;
+
+    /**
+     * The current versions of the products changed since the base was built.
+     */
+    private final IndexSegment delta;
+
+    /**
+     * The number of products searched.
+     */
+    private final int size;
+
+    /**
+     * Constructs a snapshot from its segments, which must not share a visible product.
+     *
+     * @param base the base segment
+     * @param hidden IDs in ascending order of the base products to leave out
+     * @param delta the products changed since the base was built
+     */
+    SearchSnapshot(IndexSegment base, long[] hidden, IndexSegment delta) {
+        this.base = base;
+        this.hidden = hidden;
+        this.delta = delta;
+        this.hiddenOrdinals = Arrays.stream(hidden).mapToInt(base::ordinal).filter(ordinal -> ordinal >= 0).toArray();
+        this.size = base.size() - hiddenOrdinals.length + delta.size();
+    }
+
+    /**
+     * Indexes products, in parallel.
+     *
+     * @param products the products, each with a distinct ID
+     * @return the snapshot
+     */
+    public static SearchSnapshot of(Collection<Product> products) {
+        List<Document> documents = products.stream()
+                .map(Document::of)
+                .sorted(Comparator.comparingLong(Document::id))
+                .toList();
+        return new SearchSnapshot(build(documents), NO_IDS, IndexSegment.EMPTY);
+    }
+
+    /**
+     * Indexes documents by building segments of {@link #BUILD_CHUNK} of them
+     * in parallel and merging the results.
+     *
+     * @param documents the documents, in strictly ascending ID order
+     * @return the segment
+     */
+    static IndexSegment build(List<Document> documents) {
+        int chunks = (documents.size() + BUILD_CHUNK - 1) / BUILD_CHUNK;
+        return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> IndexSegment.build(documents.subList(chunk * BUILD_CHUNK,
+                        Math.min(documents.size(), (chunk + 1) * BUILD_CHUNK))))
+                .reduce(IndexSegment.EMPTY, (older, newer) -> IndexSegment.merge(older, NO_IDS, newer));
+    }
+
+    /**
+     * Gets the number of products searched.
+     *
+     * @return the number of products
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the products best matching a query.
+     *
+     * @param query the query text
+     * @param limit the most hits returned
+     * @return the hits, best first
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> tokens = ProductTokenizer.tokens(query).stream().distinct().limit(MAX_QUERY_TERMS).toList();
+        if (tokens.isEmpty() || limit < 1 || size == 0) {
+            return List.of();
+        }
+        PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        collect(base, hidden, tokens, limit, best);
+        collect(delta, NO_IDS, tokens, limit, best);
+        List<SearchHit> hits = new ArrayList<>(best);
+        hits.sort(WORST_FIRST.reversed());
+        return hits;
+    }
+
+    /**
+     * Adds the products of a segment matching every query term to the best hits.
+     *
+     * @param segment the segment
+     * @param excluded IDs in ascending order to leave out
+     * @param tokens the query terms
+     * @param limit the most hits kept
+     * @param best the best hits so far, worst first
+     */
+    private void collect(IndexSegment segment, long[] excluded, List<String> tokens, int limit,
+                         PriorityQueue<SearchHit> best) {
+        if (segment.size() == 0) {
+            return;
+        }
+        List<Matches> perToken = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            Matches matches = match(segment, token);
+            if (matches.length() == 0) {
+                return;
+            }
+            perToken.add(matches);
+        }
+        perToken.sort(Comparator.comparingInt(Matches::length));
+        Matches matches = perToken.get(0);
+        for (int i = 1; i < perToken.size() && matches.length() > 0; i++) {
+            matches = intersect(matches, perToken.get(i));
+        }
+        for (int i = 0; i < matches.length(); i++) {
+            float score = matches.scores()[i];
+            long id = segment.id(matches.ordinals()[i]);
+            if (best.size() == limit && (score < best.peek().score()
+                    || (score == best.peek().score() && id > best.peek().productId()))) {
+                continue;
+            }
+            if (excluded.length > 0 && Arrays.binarySearch(excluded, id) >= 0) {
+                continue;
+            }
+            best.add(new SearchHit(id, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+    }
+
+    /**
+     * Finds the products of a segment matching one query term, exactly or by prefix.
+     *
+     * @param segment the segment
+     * @param token the query term
+     * @return the matches, with the scores of all matched terms summed per product
+     */
+    private Matches match(IndexSegment segment, String token) {
+        int first = segment.ceilingTerm(token);
+        int last = first;
+        if (token.length() < MIN_PREFIX_LENGTH) {
+            if (first < segment.termCount() && segment.term(first).equals(token)) {
+                last++;
+            }
+        } else {
+            while (last < segment.termCount() && segment.term(last).startsWith(token)) {
+                last++;
+            }
+        }
+        int count = segment.postingsStart(last) - segment.postingsStart(first);
+        if (count == 0) {
+            return Matches.NONE;
+        }
+        if (last - first == 1) {
+            return single(segment, first, token);
+        }
+        long[] packed = new long[count];
+        int p = 0;
+        for (int term = first; term < last; term++) {
+            int start = segment.postingsStart(term);
+            int end = segment.postingsEnd(term);
+            float boost = segment.term(term).length() == token.length() ? 1f : PREFIX_BOOST;
+            float idf = idf(segment.term(term));
+            for (int i = start; i < end; i++) {
+                int weight = segment.weight(i);
+                float score = boost * idf * weight / (weight + SATURATION);
+                packed[p++] = ((long) segment.posting(i) << 32) | (Float.floatToRawIntBits(score) & 0xffffffffL);
+            }
+        }
+        Arrays.sort(packed);
+        int[] ordinals = new int[count];
+        float[] scores = new float[count];
+        int length = 0;
+        for (long entry : packed) {
+            int ordinal = (int) (entry >>> 32);
+            float score = Float.intBitsToFloat((int) entry);
+            if (length > 0 && ordinals[length - 1] == ordinal) {
+                scores[length - 1] += score;
+            } else {
+                ordinals[length] = ordinal;
+                scores[length++] = score;
+            }
+        }
+        return new Matches(ordinals, scores, length);
+    }
+
+    /**
+     * Scores the postings of the only term a query term matches. They are
+     * already in ordinal order, so they are copied without packing or sorting.
+     *
+     * @param segment the segment
+     * @param term the matched term's index
+     * @param token the query term
+     * @return the matches
+     */
+    private Matches single(IndexSegment segment, int term, String token) {
+        int start = segment.postingsStart(term);
+        int end = segment.postingsEnd(term);
+        float boost = segment.term(term).length() == token.length() ? 1f : PREFIX_BOOST;
+        float idf = idf(segment.term(term));
+        int[] ordinals = new int[end - start];
+        float[] scores = new float[ordinals.length];
+        for (int i = start; i < end; i++) {
+            int weight = segment.weight(i);
+            ordinals[i - start] = segment.posting(i);
+            scores[i - start] = boost * idf * weight / (weight + SATURATION);
+        }
+        return new Matches(ordinals, scores, ordinals.length);
+    }
+
+    /**
+     * Computes the inverse document frequency of an indexed term over the
+     * visible products of both segments.
+     *
+     * @param term the term
+     * @return its inverse document frequency
+     */
+    private float idf(String term) {
+        int frequency = 0;
+        int inBase = base.ceilingTerm(term);
+        if (inBase < base.termCount() && base.term(inBase).equals(term)) {
+            frequency += base.postingsEnd(inBase) - base.postingsStart(inBase);
+            if (hiddenOrdinals.length > 0) {
+                frequency -= base.countPostings(inBase, hiddenOrdinals);
+            }
+        }
+        int inDelta = delta.ceilingTerm(term);
+        if (inDelta < delta.termCount() && delta.term(inDelta).equals(term)) {
+            frequency += delta.postingsEnd(inDelta) - delta.postingsStart(inDelta);
+        }
+        return (float) Math.log(1 + (double) size / Math.max(1, frequency));
+    }
+
+    /**
+     * Keeps the products present in both match lists, summing their scores.
+     *
+     * @param a the first matches
+     * @param b the second matches
+     * @return the common matches
+     */
+    private static Matches intersect(Matches a, Matches b) {
+        int[] ordinals = new int[Math.min(a.length(), b.length())];
+        float[] scores = new float[ordinals.length];
+        int length = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int left = a.ordinals()[i];
+            int right = b.ordinals()[j];
+            if (left < right) {
+                i++;
+            } else if (right < left) {
+                j++;
+            } else {
+                ordinals[length] = left;
+                scores[length++] = a.scores()[i++] + b.scores()[j++];
+            }
+        }
+        return new Matches(ordinals, scores, length);
+    }
+}
@@ -0,0 +1,71 @@
+package com.glic.service;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catalogue-wide change counter used to derive ETags for the product endpoints.
+ * The counter is bumped after every committed product write, so a tag read
+ * before loading data is never newer than the data it describes. Tags include
+ * a per-process epoch so that a counter reset on restart cannot collide with
+ * tags handed out by a previous run.
+ * The counter is advanced last among the after-commit listeners so that any
+ * in-memory views are already current when a new tag becomes visible.
+ * Tags are weak because every representation of the catalogue (JSON, Smile,
+ * CBOR, gzip-encoded or not) shares the same version, and because the servlet
+ * container does not compress responses that carry a strong ETag.
+ */
+@Component
+public class CatalogueVersion {
+
+    /**
+     * Identifies this process so tags from earlier runs never match.
+     */
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Number of committed product changes since startup.
+     */
+    private final AtomicLong counter = new AtomicLong();
+
+    /**
+     * Default constructor for CatalogueVersion.
+     * Required by Spring for component instantiation.
+     */
+    public CatalogueVersion() {
+    }
+
+    /**
+     * Advances the version after a product change has been committed.
+     *
+     * @param event the committed change
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onProductChanged(ProductChangedEvent event) {
+        counter.incrementAndGet();
+    }
+
+    /**
+     * Returns the current catalogue version.
+     *
+     * @return the number of committed changes since startup
+     */
+    public long current() {
+        return counter.get();
+    }
+
+    /**
+     * Returns the weak ETag describing the current catalogue state.
+     *
+     * @return the weak entity tag
+     */
+    public String etag() {
+        return "W/\"" + epoch + "-" + counter.get() + "\"";
+    }
+}
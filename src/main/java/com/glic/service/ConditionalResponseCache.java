@@ -0,0 +1,82 @@
+package com.glic.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded least-recently-used cache of response bodies keyed by request URL,
+ * each stored alongside the ETag the server returned for it. Used by
+ * {@link RestApiService} to send conditional GETs and to reuse the cached body
+ * when the server answers 304 Not Modified.
+ */
+class ConditionalResponseCache {
+
+    /**
+     * A cached response body and the entity tag it was served with.
+     *
+     * @param etag the entity tag returned by the server
+     * @param body the response body
+     */
+    record Entry(String etag, String body) {
+    }
+
+    /**
+     * Maximum number of URLs kept in the cache.
+     */
+    private final int maxEntries;
+
+    /**
+     * Access-ordered map of cached entries. Guarded by {@code this}.
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    /**
+     * Constructs a new cache.
+     *
+     * @param maxEntries maximum number of URLs kept in the cache
+     */
+    ConditionalResponseCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ConditionalResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached entry for a URL.
+     *
+     * @param url the request URL
+     * @return the cached entry, or null if none
+     */
+    synchronized Entry get(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Stores a response body for a URL. Responses without an ETag are not
+     * cacheable and evict any previous entry.
+     *
+     * @param url the request URL
+     * @param etag the entity tag returned by the server, may be null
+     * @param body the response body
+     */
+    synchronized void put(String url, String etag, String body) {
+        if (etag == null || body == null) {
+            entries.remove(url);
+            return;
+        }
+        entries.put(url, new Entry(etag, body));
+    }
+
+    /**
+     * Removes the cached entry for a URL.
+     *
+     * @param url the request URL
+     */
+    synchronized void evict(String url) {
+        entries.remove(url);
+    }
+}
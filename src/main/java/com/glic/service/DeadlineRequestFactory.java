@@ -0,0 +1,65 @@
+package com.glic.service;
+
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Apache HttpClient request factory whose timeouts shrink to the calling
+ * thread's {@link RequestDeadline}. Every request gets the configured connect
+ * and response timeouts; when the caller has a deadline that is closer, the
+ * response timeout and the wait for a pooled connection are cut to the time
+ * left, so a call made on behalf of a message cannot outlive the message's
+ * lease. The response timeout bounds each wait for data rather than the whole
+ * exchange, so callers still check their deadline once the call returns.
+ */
+public class DeadlineRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    /**
+     * Response timeout of requests made without a deadline, and the most any request gets.
+     */
+    private final Duration responseTimeout;
+
+    /**
+     * Constructs a new DeadlineRequestFactory on a default HttpClient.
+     *
+     * @param connectTimeout the connect timeout of every request
+     * @param responseTimeout the response timeout of requests made without a closer deadline
+     */
+    public DeadlineRequestFactory(Duration connectTimeout, Duration responseTimeout) {
+        this.responseTimeout = responseTimeout;
+        setConnectTimeout(connectTimeout);
+    }
+
+    /**
+     * Builds the configuration of one request, on the thread making it.
+     *
+     * @param client the HttpClient the request is executed with
+     * @return the configuration with timeouts bounded by the caller's deadline
+     */
+    @Override
+    protected RequestConfig createRequestConfig(Object client) {
+        long timeoutMillis = timeoutMillis(RequestDeadline.remainingNanos());
+        return RequestConfig.copy(super.createRequestConfig(client))
+                .setResponseTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .setConnectionRequestTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Computes the timeout of a request.
+     *
+     * @param remainingNanos the time left until the caller's deadline, if it has one
+     * @return the response timeout, cut to the time left and at least 1 ms
+     */
+    long timeoutMillis(OptionalLong remainingNanos) {
+        long timeout = responseTimeout.toMillis();
+        if (remainingNanos.isPresent()) {
+            timeout = Math.min(timeout, TimeUnit.NANOSECONDS.toMillis(remainingNanos.getAsLong()));
+        }
+        return Math.max(1, timeout);
+    }
+}
@@ -0,0 +1,109 @@
+package com.glic.service;
+
+import com.glic.model.Product;
+
+/**
+ * Application event published by {@link ProductService} whenever a product is
+ * created, updated or deleted. Listeners that need committed state should
+ * subscribe with {@code @TransactionalEventListener} so they only observe
+ * changes once the surrounding transaction has committed.
+ */
+public class ProductChangedEvent {
+
+    /**
+     * The kind of change that was applied to a product.
+     */
+    public enum ChangeType {
+        /** A new product was inserted. */
+        CREATED,
+        /** An existing product was replaced. */
+        UPDATED,
+        /** A product was removed. */
+        DELETED
+    }
+
+    /**
+     * The kind of change.
+     */
+    private final ChangeType type;
+
+    /**
+     * The ID of the affected product.
+     */
+    private final Long productId;
+
+    /**
+     * The product state after the change, or null for deletions.
+     */
+    private final Product product;
+
+    /**
+     * Constructs a new ProductChangedEvent.
+     *
+     * @param type the kind of change
+     * @param productId the ID of the affected product
+     * @param product the product state after the change, or null for deletions
+     */
+    public ProductChangedEvent(ChangeType type, Long productId, Product product) {
+        this.type = type;
+        this.productId = productId;
+        this.product = product;
+    }
+
+    /**
+     * Creates an event for a newly inserted product.
+     *
+     * @param product the saved product
+     * @return the event
+     */
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(ChangeType.CREATED, product.getId(), product);
+    }
+
+    /**
+     * Creates an event for an updated product.
+     *
+     * @param product the saved product
+     * @return the event
+     */
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(ChangeType.UPDATED, product.getId(), product);
+    }
+
+    /**
+     * Creates an event for a deleted product.
+     *
+     * @param productId the ID of the deleted product
+     * @return the event
+     */
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(ChangeType.DELETED, productId, null);
+    }
+
+    /**
+     * Gets the kind of change.
+     *
+     * @return the change type
+     */
+    public ChangeType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the ID of the affected product.
+     *
+     * @return the product ID
+     */
+    public Long getProductId() {
+        return productId;
+    }
+
+    /**
+     * Gets the product state after the change.
+     *
+     * @return the product, or null for deletions
+     */
+    public Product getProduct() {
+        return product;
+    }
+}
@@ -1,9 +1,11 @@
 package com.glic.service;
 
+import com.glic.jfr.ProductWriteEvent;
 import com.glic.model.Product;
 import com.glic.repository.ProductRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
@@ -26,13 +28,20 @@ public class ProductService {
      */
     private final ProductRepository productRepository;
 
+    /**
+     * Publisher for {@link ProductChangedEvent}s emitted by write operations.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Constructor for ProductService.
      *
      * @param productRepository the repository for product operations
+     * @param eventPublisher the publisher used to announce product changes
      */
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -71,7 +80,11 @@ public class ProductService {
     @Transactional
     public Product createProduct(Product product) {
         logger.debug("Service: Creating product: {}", product);
+        ProductWriteEvent writeEvent = new ProductWriteEvent();
+        writeEvent.begin();
         Product savedProduct = productRepository.save(product);
+        writeEvent.complete("create", savedProduct.getId());
+        eventPublisher.publishEvent(ProductChangedEvent.created(savedProduct));
         logger.debug("Service: Created product with id: {}", savedProduct.getId());
         return savedProduct;
     }
@@ -91,7 +104,11 @@ public class ProductService {
             throw new IllegalArgumentException("Product not found with id: " + id);
         }
         product.setId(id);
+        ProductWriteEvent writeEvent = new ProductWriteEvent();
+        writeEvent.begin();
         Product updatedProduct = productRepository.save(product);
+        writeEvent.complete("update", id);
+        eventPublisher.publishEvent(ProductChangedEvent.updated(updatedProduct));
         logger.debug("Service: Updated product with id: {}", updatedProduct.getId());
         return updatedProduct;
     }
@@ -108,7 +125,11 @@ public class ProductService {
             logger.error("Service: Product with id {} not found", id);
             throw new IllegalArgumentException("Product not found with id: " + id);
         }
+        ProductWriteEvent writeEvent = new ProductWriteEvent();
+        writeEvent.begin();
         productRepository.deleteById(id);
+        writeEvent.complete("delete", id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
         logger.debug("Service: Deleted product with id: {}", id);
     }
 
@@ -125,4 +146,41 @@ public class ProductService {
         logger.debug("Service: Found product: {}", product);
         return product;
     }
+
+    /**
+     * Retrieves the products whose IDs lie in a range, in ID order.
+     *
+     * @param fromId the lowest ID, inclusive
+     * @param toId the highest ID, inclusive
+     * @return the products in the range
+     */
+    @Transactional(readOnly = true)
+    public List<Product> getProductsBetween(Long fromId, Long toId) {
+        logger.debug("Service: Getting products with id between {} and {}", fromId, toId);
+        return productRepository.findByIdBetweenOrderByIdAsc(fromId, toId);
+    }
+
+    /**
+     * Retrieves the products with the given IDs, in no particular order.
+     * IDs without a product are skipped.
+     *
+     * @param ids the IDs of the products to find
+     * @return the products found
+     */
+    @Transactional(readOnly = true)
+    public List<Product> getProductsByIds(List<Long> ids) {
+        logger.debug("Service: Getting {} products by id", ids.size());
+        return productRepository.findAllById(ids);
+    }
+
+    /**
+     * Gets the highest product ID.
+     *
+     * @return the highest ID, or 0 if there are no products
+     */
+    @Transactional(readOnly = true)
+    public long getMaxProductId() {
+        Long maxId = productRepository.findMaxId();
+        return maxId == null ? 0 : maxId;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,452 @@
+package com.glic.service;
+
+import com.glic.jfr.ProductWriteEvent;
+import com.glic.model.Product;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind buffer for product creation.
+ * Creating each product in its own transaction costs a commit, and a round
+ * trip per row, for every SQS message. With {@code products.write-behind.enabled}
+ * new products are instead queued in a bounded buffer, and a single flusher
+ * thread inserts them in JDBC batches of up to
+ * {@code products.write-behind.batch-size} rows in one transaction.
+ * <p>
+ * A batch takes whatever was submitted while the previous one was being
+ * written. A product found alone in the buffer is written at once, since a
+ * caller that waits for each create, such as a listener with a single
+ * worker, would otherwise pay the linger on every product and never fill a
+ * batch; only when other products are already waiting does the batch wait
+ * up to {@code products.write-behind.linger-ms} to fill. Batches therefore
+ * grow with the number of concurrent callers, which the
+ * {@code products.write-behind.batch.size} summary shows.
+ * <p>
+ * {@link #submit(Product)} returns a future that completes only after the
+ * batch holding the product has committed, and the create endpoint answers
+ * when it completes, so the listener deletes a message only once its product
+ * is durable. When the buffer is full, submitting waits up to
+ * {@code products.write-behind.offer-timeout-ms} and is then refused; the
+ * endpoint answers 503, which the listener treats as a transient failure, so
+ * a slow database holds back the listener instead of growing the buffer.
+ * <p>
+ * The batch publishes a {@link ProductChangedEvent} per product inside its
+ * transaction, so the outbox and read-side listeners see the same events as
+ * for {@link ProductService#createProduct}, and records a
+ * {@link ProductWriteEvent} per product once it commits. If the batch fails, for example
+ * because one row violates a constraint, it is rolled back and its products
+ * are created one by one through {@link ProductService}, so only the bad ones
+ * fail.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "products.write-behind.enabled", havingValue = "true")
+public class ProductWriteBehind {
+
+    /**
+     * Time in milliseconds the flusher waits for a product before re-checking whether it should stop.
+     */
+    private static final long IDLE_CHECK_MS = 1000;
+
+    /**
+     * Longest time stopping waits for the flusher to write what is buffered, in milliseconds.
+     */
+    private static final long SHUTDOWN_TIMEOUT_MS = 30000;
+
+    /**
+     * A product waiting to be written.
+     *
+     * @param product the product
+     * @param result completed with the product, holding its ID, once its batch commits
+     */
+    private record Pending(Product product, CompletableFuture<Product> result) {
+    }
+
+    /**
+     * Runs the batched inserts.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Wraps each batch in a transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Creates the products of a failed batch one by one.
+     */
+    private final ProductService productService;
+
+    /**
+     * Publishes a {@link ProductChangedEvent} for each product written.
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The INSERT statement for one product.
+     */
+    private final String insertSql;
+
+    /**
+     * Products waiting for the flusher.
+     */
+    private final BlockingQueue<Pending> buffer;
+
+    /**
+     * Most products inserted per batch.
+     */
+    private final int batchSize;
+
+    /**
+     * Longest time a batch of more than one product waits to fill, in nanoseconds.
+     */
+    private final long lingerNanos;
+
+    /**
+     * Longest time a submit waits for room in a full buffer, in milliseconds.
+     */
+    private final long offerTimeoutMs;
+
+    /**
+     * Number of products per committed batch.
+     */
+    private final DistributionSummary batchSizes;
+
+    /**
+     * Time to write and commit a batch.
+     */
+    private final Timer flushTimer;
+
+    /**
+     * Batches that failed and were written one product at a time.
+     */
+    private final Counter fallbacks;
+
+    /**
+     * Products refused because the buffer stayed full.
+     */
+    private final Counter rejected;
+
+    /**
+     * The thread writing the batches.
+     */
+    private final Thread flusher;
+
+    /**
+     * Whether products are accepted.
+     */
+    private volatile boolean running;
+
+    /**
+     * Constructs a new ProductWriteBehind, taking the table and column names
+     * from the JPA mapping of {@link Product}.
+     *
+     * @param jdbcTemplate runs the batched inserts
+     * @param transactionManager manages the transaction of each batch
+     * @param entityManagerFactory holds the mapping of the product table
+     * @param productService creates the products of a failed batch one by one
+     * @param eventPublisher publishes a change event for each product written
+     * @param registry the registry the meters are published to
+     * @param capacity most products buffered
+     * @param batchSize most products inserted per batch
+     * @param lingerMs longest time a batch other products are waiting for waits to fill, in milliseconds
+     * @param offerTimeoutMs longest time a submit waits for room in a full buffer, in milliseconds
+     */
+    @Autowired
+    public ProductWriteBehind(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            EntityManagerFactory entityManagerFactory,
+            ProductService productService,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry registry,
+            @Value("${products.write-behind.capacity:10000}") int capacity,
+            @Value("${products.write-behind.batch-size:500}") int batchSize,
+            @Value("${products.write-behind.linger-ms:20}") long lingerMs,
+            @Value("${products.write-behind.offer-timeout-ms:1000}") long offerTimeoutMs) {
+        this(jdbcTemplate, transactionManager, insertSql(entityManagerFactory), productService, eventPublisher,
+                registry, capacity, batchSize, lingerMs, offerTimeoutMs);
+    }
+
+    /**
+     * Constructs a new ProductWriteBehind with the given INSERT statement.
+     *
+     * @param jdbcTemplate runs the batched inserts
+     * @param transactionManager manages the transaction of each batch
+     * @param insertSql the INSERT statement for one product, taking its name,
+     *        description, price and quantity and generating its ID
+     * @param productService creates the products of a failed batch one by one
+     * @param eventPublisher publishes a change event for each product written
+     * @param registry the registry the meters are published to
+     * @param capacity most products buffered
+     * @param batchSize most products inserted per batch
+     * @param lingerMs longest time a batch other products are waiting for waits to fill, in milliseconds
+     * @param offerTimeoutMs longest time a submit waits for room in a full buffer, in milliseconds
+     */
+    ProductWriteBehind(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, String insertSql,
+                       ProductService productService, ApplicationEventPublisher eventPublisher,
+                       MeterRegistry registry, int capacity, int batchSize, long lingerMs, long offerTimeoutMs) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Write-behind capacity and batch size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.insertSql = insertSql;
+        this.productService = productService;
+        this.eventPublisher = eventPublisher;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMs));
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+        this.batchSizes = DistributionSummary.builder("products.write-behind.batch.size")
+                .description("Products inserted per write-behind batch")
+                .register(registry);
+        this.flushTimer = Timer.builder("products.write-behind.flush")
+                .description("Time to insert and commit a write-behind batch")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.fallbacks = Counter.builder("products.write-behind.fallbacks")
+                .description("Write-behind batches that failed and were written one product at a time")
+                .register(registry);
+        this.rejected = Counter.builder("products.write-behind.rejected")
+                .description("Products refused because the write-behind buffer stayed full")
+                .register(registry);
+        Gauge.builder("products.write-behind.buffered", buffer, BlockingQueue::size)
+                .description("Products waiting to be written")
+                .register(registry);
+        this.flusher = new Thread(this::run, "product-write-behind");
+        this.flusher.setDaemon(true);
+    }
+
+    /**
+     * Starts the flusher thread.
+     */
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher.start();
+        log.info("Product write-behind started: batches of up to {} products, {} buffered at most", batchSize,
+                buffer.remainingCapacity());
+    }
+
+    /**
+     * Stops accepting products and waits for the flusher to write the ones
+     * already buffered.
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        try {
+            flusher.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (flusher.isAlive()) {
+            log.warn("Product write-behind stopped with {} products unwritten", buffer.size());
+        }
+    }
+
+    /**
+     * Queues a product to be written in the next batch, waiting for room if
+     * the buffer is full.
+     *
+     * @param product the product to create
+     * @return completed with the product, holding its ID, once its batch has
+     *         committed, or exceptionally if it could not be created
+     * @throws RejectedExecutionException if the buffer stayed full or the write-behind is stopped
+     */
+    public CompletableFuture<Product> submit(Product product) {
+        if (!running) {
+            throw new RejectedExecutionException("Product write-behind is stopped");
+        }
+        Pending pending = new Pending(product, new CompletableFuture<>());
+        try {
+            if (!buffer.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Product write-behind buffer is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for the product write-behind buffer", e);
+        }
+        return pending.result();
+    }
+
+    /**
+     * Collects and writes batches until the write-behind is stopped and the buffer is empty.
+     */
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                Pending first = buffer.poll(IDLE_CHECK_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() > 1 && batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Pending next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                buffer.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction and completes its futures, falling
+     * back to one transaction per product if the batch fails.
+     *
+     * @param batch the products to write
+     */
+    private void flush(List<Pending> batch) {
+        long start = System.nanoTime();
+        List<ProductWriteEvent> writeEvents = writeEvents(batch.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+        } catch (RuntimeException e) {
+            fallbacks.increment();
+            log.warn("Write-behind batch of {} products failed, creating them one by one: {}", batch.size(),
+                    e.getMessage());
+            for (Pending pending : batch) {
+                pending.product().setId(null);
+                try {
+                    pending.result().complete(productService.createProduct(pending.product()));
+                } catch (RuntimeException each) {
+                    pending.result().completeExceptionally(each);
+                }
+            }
+            return;
+        }
+        flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        for (int i = 0; i < writeEvents.size(); i++) {
+            writeEvents.get(i).complete("create", batch.get(i).product().getId());
+        }
+        for (Pending pending : batch) {
+            pending.result().complete(pending.product());
+        }
+        log.debug("Wrote a batch of {} products in {} ms", batch.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Begins a Flight Recorder write event per product of a batch, so each
+     * product's event spans the batch insert and its commit.
+     *
+     * @param count the number of products in the batch
+     * @return the begun events, or none if the event is disabled
+     */
+    private static List<ProductWriteEvent> writeEvents(int count) {
+        ProductWriteEvent first = new ProductWriteEvent();
+        if (!first.isEnabled()) {
+            return List.of();
+        }
+        List<ProductWriteEvent> events = new ArrayList<>(count);
+        events.add(first);
+        while (events.size() < count) {
+            events.add(new ProductWriteEvent());
+        }
+        events.forEach(ProductWriteEvent::begin);
+        return events;
+    }
+
+    /**
+     * Inserts a batch with one JDBC batch statement, assigns the generated
+     * IDs and publishes a change event per product, inside the caller's transaction.
+     *
+     * @param batch the products to insert
+     */
+    private void insert(List<Pending> batch) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(insertSql,
+                    Statement.RETURN_GENERATED_KEYS)) {
+                for (Pending pending : batch) {
+                    Product product = pending.product();
+                    statement.setObject(1, product.getName());
+                    statement.setObject(2, product.getDescription());
+                    statement.setObject(3, product.getPrice());
+                    statement.setObject(4, product.getQuantity());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    for (Pending pending : batch) {
+                        if (!keys.next()) {
+                            throw new SQLException("The batch insert returned fewer IDs than rows");
+                        }
+                        pending.product().setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+        for (Pending pending : batch) {
+            eventPublisher.publishEvent(ProductChangedEvent.created(pending.product()));
+        }
+    }
+
+    /**
+     * Builds the INSERT statement for a product from its JPA mapping.
+     *
+     * @param entityManagerFactory holds the mapping
+     * @return the statement, with parameters for name, description, price and quantity
+     */
+    private static String insertSql(EntityManagerFactory entityManagerFactory) {
+        AbstractEntityPersister persister = (AbstractEntityPersister) entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getMappingMetamodel()
+                .getEntityDescriptor(Product.class);
+        return "INSERT INTO " + persister.getTableName() + " ("
+                + persister.getPropertyColumnNames("name")[0] + ", "
+                + persister.getPropertyColumnNames("description")[0] + ", "
+                + persister.getPropertyColumnNames("price")[0] + ", "
+                + persister.getPropertyColumnNames("quantity")[0] + ") VALUES (?, ?, ?, ?)";
+    }
+}
@@ -0,0 +1,72 @@
+package com.glic.service;
+
+import java.util.OptionalLong;
+
+/**
+ * Deadline of the work the current thread is doing, read by
+ * {@link DeadlineRequestFactory} to bound the timeouts of the HTTP calls made
+ * on its behalf. A caller opens a scope around the calls, so the deadline
+ * reaches the HTTP client without being threaded through every method in
+ * between:
+ * <pre>{@code
+ * try (RequestDeadline.Scope ignored = RequestDeadline.open(deadlineNanos)) {
+ *     restApiService.createProduct(product);
+ * }
+ * }</pre>
+ * Deadlines are {@link System#nanoTime()} values.
+ */
+public final class RequestDeadline {
+
+    /**
+     * Deadline of the current thread, or null if it has none.
+     */
+    private static final ThreadLocal<Long> DEADLINE = new ThreadLocal<>();
+
+    /**
+     * Not instantiable.
+     */
+    private RequestDeadline() {
+    }
+
+    /**
+     * A deadline set on the current thread; closing it restores the previous one.
+     */
+    public interface Scope extends AutoCloseable {
+
+        /**
+         * Restores the deadline in force before the scope was opened.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * Sets the deadline of the current thread until the returned scope is closed.
+     * A deadline later than one already set is ignored, so nested work never
+     * outlives the work containing it.
+     *
+     * @param deadlineNanos the deadline, in {@link System#nanoTime()} terms
+     * @return the scope to close once the work is done
+     */
+    public static Scope open(long deadlineNanos) {
+        Long previous = DEADLINE.get();
+        DEADLINE.set(previous == null || deadlineNanos - previous < 0 ? deadlineNanos : previous);
+        return () -> {
+            if (previous == null) {
+                DEADLINE.remove();
+            } else {
+                DEADLINE.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Gets the time left until the current thread's deadline.
+     *
+     * @return the nanoseconds left, negative once the deadline has passed, or empty without a deadline
+     */
+    public static OptionalLong remainingNanos() {
+        Long deadline = DEADLINE.get();
+        return deadline == null ? OptionalLong.empty() : OptionalLong.of(deadline - System.nanoTime());
+    }
+}
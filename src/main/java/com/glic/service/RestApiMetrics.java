@@ -0,0 +1,125 @@
+package com.glic.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for {@link RestApiService#createProduct}, the REST call on the
+ * message-processing path.
+ * {@code rest.client.stage} timers, tagged {@code operation} and {@code stage},
+ * split each call into request serialization, the HTTP exchange and response
+ * parsing; {@code rest.client.requests} timers, tagged {@code outcome}, time and
+ * count whole calls. All meters are registered up front and recorded with plain
+ * nanosecond durations, so recording allocates nothing.
+ */
+@Component
+public class RestApiMetrics {
+
+    /**
+     * Time spent serializing product create requests.
+     */
+    private final Timer serializeTimer;
+
+    /**
+     * Time spent in the HTTP exchange of product create requests.
+     */
+    private final Timer exchangeTimer;
+
+    /**
+     * Time spent parsing product create responses.
+     */
+    private final Timer parseTimer;
+
+    /**
+     * Total time of successful product create calls.
+     */
+    private final Timer succeededTimer;
+
+    /**
+     * Total time of failed product create calls.
+     */
+    private final Timer failedTimer;
+
+    /**
+     * Registers the REST client meters.
+     *
+     * @param registry the registry the meters are published to
+     */
+    public RestApiMetrics(MeterRegistry registry) {
+        this.serializeTimer = stageTimer(registry, "serialize");
+        this.exchangeTimer = stageTimer(registry, "exchange");
+        this.parseTimer = stageTimer(registry, "parse");
+        this.succeededTimer = requestTimer(registry, "success");
+        this.failedTimer = requestTimer(registry, "failure");
+    }
+
+    /**
+     * Records the serialization of a create request.
+     *
+     * @param nanos the duration
+     */
+    void serialized(long nanos) {
+        serializeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the HTTP exchange of a create request.
+     *
+     * @param nanos the duration
+     */
+    void exchanged(long nanos) {
+        exchangeTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the parsing of a create response.
+     *
+     * @param nanos the duration
+     */
+    void parsed(long nanos) {
+        parseTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a completed create call.
+     *
+     * @param nanos the total duration
+     * @param success whether the call succeeded
+     */
+    void completed(long nanos, boolean success) {
+        (success ? succeededTimer : failedTimer).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers a timer for one stage of a create call.
+     *
+     * @param registry the meter registry
+     * @param stage the stage name
+     * @return the timer
+     */
+    private static Timer stageTimer(MeterRegistry registry, String stage) {
+        return Timer.builder("rest.client.stage")
+                .description("Time spent in each stage of a REST API call")
+                .tags("operation", "create", "stage", stage)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Registers a timer for whole create calls with the given outcome.
+     *
+     * @param registry the meter registry
+     * @param outcome success or failure
+     * @return the timer
+     */
+    private static Timer requestTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("rest.client.requests")
+                .description("Total time of REST API calls")
+                .tags("operation", "create", "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -1,15 +1,22 @@
 package com.glic.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.glic.logging.PayloadSampler;
 import com.glic.model.Product;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Collections;
@@ -39,6 +46,41 @@ public class RestApiService {
      */
     private final String baseUrl;
 
+    /**
+     * The format used for product write requests and their responses.
+     */
+    private final WireFormat wireFormat;
+
+    /**
+     * JSON reader bound to {@link Product}.
+     */
+    private final ObjectReader productReader;
+
+    /**
+     * JSON writer bound to {@link Product}.
+     */
+    private final ObjectWriter productWriter;
+
+    /**
+     * Reader bound to {@link Product} in {@link #wireFormat}.
+     */
+    private final ObjectReader wireProductReader;
+
+    /**
+     * Writer bound to {@link Product} in {@link #wireFormat}.
+     */
+    private final ObjectWriter wireProductWriter;
+
+    /**
+     * Per-stage timers for product creation.
+     */
+    private final RestApiMetrics metrics;
+
+    /**
+     * Decides which request and response bodies are logged and how much of each.
+     */
+    private final PayloadSampler payloadSampler;
+
     /**
      * The endpoint path for product operations.
      */
@@ -55,33 +97,67 @@ public class RestApiService {
     private static final long RETRY_DELAY_MS = 1000;
 
     /**
-     * Constructs a new RestApiService with the required dependencies.
+     * Maximum number of GET responses kept for conditional requests.
+     */
+    private static final int CONDITIONAL_CACHE_SIZE = 1024;
+
+    /**
+     * Type reference for deserializing product list responses.
+     */
+    private static final TypeReference<List<Product>> PRODUCT_LIST = new TypeReference<>() {
+    };
+
+    /**
+     * Cache of GET response bodies and their ETags, used to send conditional
+     * requests and to reuse the body when the server answers 304 Not Modified.
+     */
+    private final ConditionalResponseCache responseCache = new ConditionalResponseCache(CONDITIONAL_CACHE_SIZE);
+
+    /**
+     * Constructs a new RestApiService that sends product writes in the given
+     * format, records its timings in the given meters and logs a sample of
+     * the request and response bodies. Binary formats are negotiated through
+     * the Content-Type and Accept headers.
      *
      * @param restTemplate The RestTemplate instance for making HTTP requests
      * @param objectMapper The ObjectMapper instance for JSON serialization/deserialization
      * @param baseUrl The base URL of the REST API
+     * @param wireFormat The format used for product write requests and their responses
+     * @param metrics The meters product creation is recorded in
+     * @param payloadSampler Decides which request and response bodies are logged
      */
     @Autowired
     public RestApiService(
             RestTemplate restTemplate,
             ObjectMapper objectMapper,
-            @Value("${api.base.url:http://localhost:8080}") String baseUrl) {
+            @Value("${api.base.url:http://localhost:8080}") String baseUrl,
+            @Value("${api.client.format:json}") WireFormat wireFormat,
+            RestApiMetrics metrics,
+            PayloadSampler payloadSampler) {
         this.restTemplate = restTemplate;
         this.objectMapper = objectMapper;
         this.baseUrl = baseUrl;
+        this.wireFormat = wireFormat;
+        ObjectMapper wireMapper = wireFormat.mapper(objectMapper);
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.productWriter = objectMapper.writerFor(Product.class);
+        this.wireProductReader = wireMapper.readerFor(Product.class);
+        this.wireProductWriter = wireMapper.writerFor(Product.class);
+        this.metrics = metrics;
+        this.payloadSampler = payloadSampler;
     }
 
     /**
      * Retrieves all products from the REST API.
+     * Sends a conditional request so an unchanged catalogue is answered with
+     * 304 Not Modified and served from the locally cached body.
      *
      * @return A list of all products, or an empty list if no products are found or an error occurs
      */
     public List<Product> getAllProducts() {
         try {
-            ResponseEntity<List> response = restTemplate.getForEntity(
-                    baseUrl + PRODUCTS_ENDPOINT,
-                    List.class);
-            return response.getBody() != null ? response.getBody() : Collections.emptyList();
+            String body = conditionalGet(baseUrl + PRODUCTS_ENDPOINT);
+            return body != null ? objectMapper.readValue(body, PRODUCT_LIST) : Collections.emptyList();
         } catch (Exception e) {
             log.error("Error fetching all products: {}", e.getMessage());
             return Collections.emptyList();
@@ -90,6 +166,8 @@ public class RestApiService {
 
     /**
      * Retrieves a specific product by its ID from the REST API.
+     * Sends a conditional request so an unchanged product is answered with
+     * 304 Not Modified and served from the locally cached body.
      *
      * @param id The ID of the product to retrieve
      * @return The product if found, null otherwise
@@ -100,16 +178,45 @@ public class RestApiService {
             throw new IllegalArgumentException("Product ID cannot be null");
         }
         try {
-            ResponseEntity<Product> response = restTemplate.getForEntity(
-                    baseUrl + PRODUCTS_ENDPOINT + "/" + id,
-                    Product.class);
-            return response.getBody();
+            String body = conditionalGet(baseUrl + PRODUCTS_ENDPOINT + "/" + id);
+            return body != null ? productReader.<Product>readValue(body) : null;
         } catch (Exception e) {
             log.error("Error fetching product with ID {}: {}", id, e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Performs a GET request, adding If-None-Match when a cached ETag exists for
+     * the URL. A 304 response is answered from the cache; any other successful
+     * response replaces the cached entry.
+     *
+     * @param url the URL to fetch
+     * @return the response body, or null if the server returned none
+     * @throws HttpClientErrorException if the server responds with a client error
+     */
+    private String conditionalGet(String url) {
+        ConditionalResponseCache.Entry cached = responseCache.get(url);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        if (cached != null) {
+            headers.setIfNoneMatch(cached.etag());
+        }
+        ResponseEntity<String> response;
+        try {
+            response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+        } catch (HttpClientErrorException e) {
+            responseCache.evict(url);
+            throw e;
+        }
+        if (cached != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            log.debug("Not modified, reusing cached response for {}", url);
+            return cached.body();
+        }
+        responseCache.put(url, response.getHeaders().getETag(), response.getBody());
+        return response.getBody();
+    }
+
     /**
      * Creates a new product through the REST API.
      *
@@ -125,18 +232,48 @@ public class RestApiService {
 
         String url = baseUrl + PRODUCTS_ENDPOINT;
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentType(wireFormat.mediaType());
 
+        long start = System.nanoTime();
+        boolean logPayload = log.isDebugEnabled() && payloadSampler.sample();
         try {
-            String jsonBody = objectMapper.writeValueAsString(product);
-            HttpEntity<String> request = new HttpEntity<>(jsonBody, headers);
+            Product created;
+            if (wireFormat.isBinary()) {
+                headers.setAccept(List.of(wireFormat.mediaType()));
+                HttpEntity<byte[]> request = new HttpEntity<>(wireProductWriter.writeValueAsBytes(product), headers);
+                long serialized = System.nanoTime();
+                metrics.serialized(serialized - start);
+
+                log.debug("Making POST request to {} with {} body", url, wireFormat);
+                ResponseEntity<byte[]> response = restTemplate.postForEntity(url, request, byte[].class);
+                long exchanged = System.nanoTime();
+                metrics.exchanged(exchanged - serialized);
+
+                created = wireProductReader.readValue(response.getBody());
+                metrics.parsed(System.nanoTime() - exchanged);
+            } else {
+                String jsonBody = productWriter.writeValueAsString(product);
+                HttpEntity<String> request = new HttpEntity<>(jsonBody, headers);
+                long serialized = System.nanoTime();
+                metrics.serialized(serialized - start);
 
-            log.debug("Making POST request to {} with body: {}", url, jsonBody);
-            ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
-            log.debug("Received response: {}", response.getBody());
+                if (logPayload) {
+                    log.debug("Making POST request to {} with body: {}", url, payloadSampler.abbreviate(jsonBody));
+                }
+                ResponseEntity<String> response = restTemplate.postForEntity(url, request, String.class);
+                long exchanged = System.nanoTime();
+                metrics.exchanged(exchanged - serialized);
+                if (logPayload) {
+                    log.debug("Received response: {}", payloadSampler.abbreviate(response.getBody()));
+                }
 
-            return objectMapper.readValue(response.getBody(), Product.class);
+                created = productReader.readValue(response.getBody());
+                metrics.parsed(System.nanoTime() - exchanged);
+            }
+            metrics.completed(System.nanoTime() - start, true);
+            return created;
         } catch (Exception e) {
+            metrics.completed(System.nanoTime() - start, false);
             log.error("Error creating product: {}", e.getMessage());
             throw new RuntimeException("Failed to create product", e);
         }
@@ -160,7 +297,8 @@ public class RestApiService {
         }
         try {
             HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.setContentType(wireFormat.mediaType());
+            headers.setAccept(List.of(wireFormat.mediaType()));
             HttpEntity<Product> request = new HttpEntity<>(product, headers);
             
             ResponseEntity<Product> response = restTemplate.exchange(
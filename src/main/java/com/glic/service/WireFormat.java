@@ -0,0 +1,77 @@
+package com.glic.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Serialization formats supported on the product API.
+ * JSON is the default; Smile and CBOR are binary Jackson formats that trade
+ * human readability for smaller payloads and cheaper parsing on high-rate
+ * internal paths.
+ */
+public enum WireFormat {
+
+    /**
+     * Plain JSON text.
+     */
+    JSON(MediaType.APPLICATION_JSON),
+
+    /**
+     * Jackson Smile binary JSON.
+     */
+    SMILE(new MediaType("application", "x-jackson-smile")),
+
+    /**
+     * Concise Binary Object Representation (RFC 8949).
+     */
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    /**
+     * The media type used in Content-Type and Accept headers.
+     */
+    private final MediaType mediaType;
+
+    /**
+     * Constructs a new WireFormat.
+     *
+     * @param mediaType the media type of the format
+     */
+    WireFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Gets the media type used in Content-Type and Accept headers.
+     *
+     * @return the media type
+     */
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Indicates whether this is a binary format.
+     *
+     * @return true for Smile and CBOR
+     */
+    public boolean isBinary() {
+        return this != JSON;
+    }
+
+    /**
+     * Creates an ObjectMapper for this format that shares the configuration of
+     * the given JSON mapper.
+     *
+     * @param jsonMapper the application's JSON ObjectMapper
+     * @return the JSON mapper itself, or a copy bound to the binary factory
+     */
+    public ObjectMapper mapper(ObjectMapper jsonMapper) {
+        return switch (this) {
+            case JSON -> jsonMapper;
+            case SMILE -> jsonMapper.copyWith(new SmileFactory());
+            case CBOR -> jsonMapper.copyWith(new CBORFactory());
+        };
+    }
+}
@@ -5,4 +5,24 @@ CREATE TABLE products (
     description TEXT,
     price DECIMAL(10,2) NOT NULL,
     quantity INT NOT NULL
-); 
\ No newline at end of file
+);
+
+CREATE TABLE IF NOT EXISTS product_outbox (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    product_id BIGINT NOT NULL,
+    event_type VARCHAR(16) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE TABLE IF NOT EXISTS quarantined_messages (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    message_id VARCHAR(128) NOT NULL,
+    source_queue_url VARCHAR(1024) NOT NULL,
+    body TEXT NOT NULL,
+    claim_checked BOOLEAN DEFAULT FALSE NOT NULL,
+    stage VARCHAR(16) NOT NULL,
+    reason VARCHAR(32) NOT NULL,
+    error TEXT,
+    receive_count INT NOT NULL,
+    quarantined_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
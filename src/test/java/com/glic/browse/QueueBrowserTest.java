@@ -0,0 +1,161 @@
+package com.glic.browse;
+
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.claimcheck.InMemoryBlobStore;
+import com.glic.compression.MessageCompression;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsAsyncClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class QueueBrowserTest {
+
+    @Mock
+    private SqsAsyncClient sqsAsyncClient;
+
+    private InMemoryBlobStore blobStore;
+    private ClaimCheck claimCheck;
+    private QueueBrowser queueBrowser;
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new InMemoryBlobStore();
+        claimCheck = new ClaimCheck(blobStore, true, 1);
+        queueBrowser = new QueueBrowser(sqsAsyncClient, QUEUE_URL, claimCheck, 60_000);
+    }
+
+    private static CompletableFuture<ReceiveMessageResponse> received(Message... messages) {
+        return CompletableFuture.completedFuture(ReceiveMessageResponse.builder().messages(messages).build());
+    }
+
+    private static Message message(String id) {
+        return Message.builder()
+                .messageId(id)
+                .receiptHandle("handle-" + id)
+                .body("{\"id\":1}")
+                .attributes(Map.of(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, "2"))
+                .build();
+    }
+
+    @Test
+    void receive_ReturnsMessagesWithoutChangingVisibility() throws Exception {
+        // Arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(received(message("m1")));
+
+        // Act
+        List<ReceivedMessage> result = queueBrowser.receive(false).get();
+
+        // Assert
+        assertEquals(List.of(new ReceivedMessage("m1", "handle-m1", "{\"id\":1}", 2)), result);
+        ArgumentCaptor<ReceiveMessageRequest> request = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(request.capture());
+        assertEquals(QUEUE_URL, request.getValue().queueUrl());
+        assertEquals(20, request.getValue().waitTimeSeconds());
+        verify(sqsAsyncClient, never()).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+    }
+
+    @Test
+    void receive_DecompressesCompressedBodies() throws Exception {
+        // Arrange
+        String body = "{\"name\":\"Widget\",\"description\":\"" + "long text ".repeat(200) + "\"}";
+        MessageCompression.Encoded encoded = new MessageCompression(true, "gzip", 1024).encode(body);
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(received(
+                message("m1").toBuilder().body(encoded.body()).messageAttributes(encoded.attributes()).build()));
+
+        // Act
+        List<ReceivedMessage> result = queueBrowser.receive(false).get();
+
+        // Assert
+        assertNotEquals(body, encoded.body());
+        assertEquals(body, result.get(0).body());
+        ArgumentCaptor<ReceiveMessageRequest> request = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsAsyncClient).receiveMessage(request.capture());
+        assertTrue(request.getValue().messageAttributeNames().contains(MessageCompression.ATTRIBUTE));
+    }
+
+    @Test
+    void receive_ReturnsThePayloadOfFlaggedClaimCheckReferences() throws Exception {
+        // Arrange
+        String reference = claimCheck.store("{\"name\":\"Widget\"}");
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(received(
+                message("m1").toBuilder().body(reference).messageAttributes(ClaimCheck.attributes()).build(),
+                message("m2").toBuilder().body(reference).build()));
+
+        // Act
+        List<ReceivedMessage> result = queueBrowser.receive(false).get();
+
+        // Assert
+        assertEquals("{\"name\":\"Widget\"}", result.get(0).body());
+        assertEquals(reference, result.get(1).body());
+        assertTrue(blobStore.contains(reference.substring(ClaimCheck.PREFIX.length())));
+    }
+
+    @Test
+    void receive_PeekRestoresVisibility() throws Exception {
+        // Arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(received(message("m1"), message("m2")));
+        when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(ChangeMessageVisibilityBatchResponse.builder().build()));
+
+        // Act
+        List<ReceivedMessage> result = queueBrowser.receive(true).get();
+
+        // Assert
+        assertEquals(2, result.size());
+        ArgumentCaptor<ChangeMessageVisibilityBatchRequest> request =
+                ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+        verify(sqsAsyncClient).changeMessageVisibilityBatch(request.capture());
+        assertEquals(2, request.getValue().entries().size());
+        assertEquals("handle-m2", request.getValue().entries().get(1).receiptHandle());
+        assertEquals(0, request.getValue().entries().get(1).visibilityTimeout());
+    }
+
+    @Test
+    void receive_PeekStillReturnsMessagesWhenRestoreFails() throws Exception {
+        // Arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(received(message("m1")));
+        when(sqsAsyncClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("SQS Error")));
+
+        // Act
+        List<ReceivedMessage> result = queueBrowser.receive(true).get();
+
+        // Assert
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void stream_PollsAgainAfterEachReceive() {
+        // Arrange
+        when(sqsAsyncClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(received(message("m1")))
+                .thenReturn(received())
+                .thenReturn(new CompletableFuture<>());
+
+        // Act
+        queueBrowser.stream(false);
+
+        // Assert
+        verify(sqsAsyncClient, times(3)).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+}
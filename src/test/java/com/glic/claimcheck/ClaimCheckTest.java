@@ -0,0 +1,49 @@
+package com.glic.claimcheck;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClaimCheckTest {
+
+    private final InMemoryBlobStore store = new InMemoryBlobStore();
+
+    private final ClaimCheck claimCheck = new ClaimCheck(store, true, 100);
+
+    @Test
+    void applies_OnlyToBodiesAtTheThreshold() {
+        // Act & Assert
+        assertFalse(claimCheck.applies("x".repeat(99)));
+        assertTrue(claimCheck.applies("x".repeat(100)));
+        assertTrue(claimCheck.applies("é".repeat(50)));
+        assertFalse(new ClaimCheck(store, false, 100).applies("x".repeat(1000)));
+        assertFalse(ClaimCheck.inMemory().applies("x".repeat(1000)));
+    }
+
+    @Test
+    void store_ReplacesBodyByReferenceUntilReleased() throws Exception {
+        // Arrange
+        String body = "{\"name\":\"Widget\",\"description\":\"" + "d".repeat(200) + "\"}";
+
+        // Act
+        String reference = claimCheck.store(body);
+
+        // Assert
+        assertTrue(ClaimCheck.isReference(reference));
+        assertFalse(ClaimCheck.isReference(body));
+        assertTrue(ClaimCheck.isReference(Message.builder().body(reference)
+                .messageAttributes(ClaimCheck.attributes()).build()));
+        assertFalse(ClaimCheck.isReference(Message.builder().body(reference).build()));
+        try (InputStream in = claimCheck.open(reference)) {
+            assertEquals(body, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        claimCheck.release(reference);
+        assertThrows(NoSuchFileException.class, () -> claimCheck.open(reference));
+        assertThrows(IllegalArgumentException.class, () -> claimCheck.open(body));
+    }
+}
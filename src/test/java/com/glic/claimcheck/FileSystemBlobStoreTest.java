@@ -0,0 +1,65 @@
+package com.glic.claimcheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemBlobStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void put_StoresPayloadThatIsReadBackThroughTheMapping() throws Exception {
+        // Arrange
+        FileSystemBlobStore store = new FileSystemBlobStore(directory.resolve("blobs"));
+        byte[] content = "[{\"name\":\"Widget\"}]".getBytes(StandardCharsets.UTF_8);
+
+        // Act
+        store.put("payload-1", content);
+
+        // Assert
+        try (InputStream in = store.open("payload-1")) {
+            assertTrue(in.markSupported());
+            in.mark(0);
+            assertEquals('[', in.read());
+            in.reset();
+            assertArrayEquals(content, in.readAllBytes());
+            assertEquals(-1, in.read());
+        }
+        try (var files = Files.list(directory.resolve("blobs"))) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void delete_RemovesPayloadAndIgnoresMissingOnes() throws Exception {
+        // Arrange
+        FileSystemBlobStore store = new FileSystemBlobStore(directory);
+        store.put("payload-1", new byte[] {1, 2, 3});
+
+        // Act
+        store.delete("payload-1");
+        store.delete("payload-1");
+
+        // Assert
+        assertThrows(NoSuchFileException.class, () -> store.open("payload-1"));
+    }
+
+    @Test
+    void open_RejectsKeysOutsideTheDirectory() throws Exception {
+        // Arrange
+        FileSystemBlobStore store = new FileSystemBlobStore(directory);
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> store.open("../etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> store.put("..", new byte[0]));
+    }
+}
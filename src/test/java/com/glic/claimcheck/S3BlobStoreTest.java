@@ -0,0 +1,91 @@
+package com.glic.claimcheck;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.regions.Region;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class S3BlobStoreTest {
+
+    @Mock
+    private SdkHttpClient httpClient;
+
+    @Mock
+    private ExecutableHttpRequest call;
+
+    private S3BlobStore store() {
+        return new S3BlobStore(httpClient,
+                StaticCredentialsProvider.create(AwsBasicCredentials.create("AKID", "SECRET")),
+                URI.create("http://localhost:9000/"), "products", "claim-check/", Region.US_EAST_1);
+    }
+
+    private void respond(int status, String body) throws Exception {
+        when(httpClient.prepareRequest(any(HttpExecuteRequest.class))).thenReturn(call);
+        when(call.call()).thenReturn(HttpExecuteResponse.builder()
+                .response(SdkHttpResponse.builder().statusCode(status).build())
+                .responseBody(AbortableInputStream.create(
+                        new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))))
+                .build());
+    }
+
+    @Test
+    void put_SendsSignedPathStyleRequest() throws Exception {
+        // Arrange
+        respond(200, "");
+
+        // Act
+        store().put("payload-1", "[{}]".getBytes(StandardCharsets.UTF_8));
+
+        // Assert
+        ArgumentCaptor<HttpExecuteRequest> request = ArgumentCaptor.forClass(HttpExecuteRequest.class);
+        verify(httpClient).prepareRequest(request.capture());
+        SdkHttpRequest sent = request.getValue().httpRequest();
+        assertEquals(SdkHttpMethod.PUT, sent.method());
+        assertEquals("http://localhost:9000/products/claim-check/payload-1", sent.getUri().toString());
+        assertTrue(sent.firstMatchingHeader("Authorization").orElseThrow()
+                .startsWith("AWS4-HMAC-SHA256 Credential=AKID/"));
+        assertTrue(sent.firstMatchingHeader("Authorization").orElseThrow().contains("/us-east-1/s3/aws4_request"));
+        assertTrue(sent.firstMatchingHeader("x-amz-content-sha256").isPresent());
+        assertTrue(request.getValue().contentStreamProvider().isPresent());
+    }
+
+    @Test
+    void open_StreamsObjectBodyAndReportsMissingObjects() throws Exception {
+        // Arrange
+        respond(200, "[{\"name\":\"Widget\"}]");
+        S3BlobStore store = store();
+
+        // Act & Assert
+        try (InputStream in = store.open("payload-1")) {
+            assertEquals("[{\"name\":\"Widget\"}]", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        respond(404, "<Error><Code>NoSuchKey</Code></Error>");
+        assertThrows(NoSuchFileException.class, () -> store.open("payload-1"));
+        respond(403, "<Error><Code>AccessDenied</Code></Error>");
+        assertThrows(IOException.class, () -> store.delete("payload-1"));
+    }
+}
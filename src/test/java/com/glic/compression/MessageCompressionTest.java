@@ -0,0 +1,98 @@
+package com.glic.compression;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageCompressionTest {
+
+    private static final String BODY = "{\"name\":\"Widget\",\"description\":\""
+            + "A sturdy widget for every workshop, ".repeat(100) + "\",\"price\":19.99,\"quantity\":5}";
+
+    private static Message received(MessageCompression.Encoded encoded) {
+        return Message.builder()
+                .messageId("message-id")
+                .body(encoded.body())
+                .messageAttributes(encoded.attributes())
+                .build();
+    }
+
+    @ParameterizedTest
+    @EnumSource(PayloadCodec.class)
+    void encode_CompressesLargeBodiesThatDecodeToTheOriginal(PayloadCodec codec) {
+        // Arrange
+        MessageCompression compression = new MessageCompression(true, codec.encoding(), 1024);
+
+        // Act
+        MessageCompression.Encoded encoded = compression.encode(BODY);
+
+        // Assert
+        assertTrue(encoded.body().length() < BODY.length() / 4, encoded.body());
+        assertEquals(codec.encoding(), encoded.attributes().get(MessageCompression.ATTRIBUTE).stringValue());
+        Message decompressed = MessageCompression.decompressed(received(encoded));
+        assertEquals(BODY, decompressed.body());
+        assertFalse(decompressed.messageAttributes().containsKey(MessageCompression.ATTRIBUTE));
+        assertEquals(BODY, MessageCompression.decode(received(compression.encode(BODY))));
+    }
+
+    @Test
+    void encode_LeavesSmallBodiesAndDisabledCompressionPlain() {
+        // Arrange
+        Message plain = Message.builder().body("{\"name\":\"Widget\"}").build();
+
+        // Act & Assert
+        assertEquals(new MessageCompression.Encoded("{\"name\":\"Widget\"}", Map.of()),
+                new MessageCompression(true, "gzip", 1024).encode("{\"name\":\"Widget\"}"));
+        assertEquals(new MessageCompression.Encoded(BODY, Map.of()),
+                new MessageCompression(false, "gzip", 1024).encode(BODY));
+        assertSame(plain, MessageCompression.decompressed(plain));
+    }
+
+    @Test
+    void gzip_IsReadableByStandardGzip() throws Exception {
+        // Arrange
+        byte[] compressed = PayloadCodec.GZIP.compress(BODY.getBytes(StandardCharsets.UTF_8));
+
+        // Act
+        byte[] restored;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            restored = in.readAllBytes();
+        }
+
+        // Assert
+        assertEquals(BODY, new String(restored, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decode_RejectsCorruptBodies() {
+        // Arrange
+        byte[] compressed = PayloadCodec.GZIP.compress(BODY.getBytes(StandardCharsets.UTF_8));
+        compressed[compressed.length / 2] ^= 0x55;
+        MessageAttributeValue gzip = MessageAttributeValue.builder().dataType("String").stringValue("gzip").build();
+
+        // Act & Assert
+        assertThrows(MalformedPayloadException.class, () -> MessageCompression.decode(Message.builder()
+                .body(Base64.getEncoder().encodeToString(compressed))
+                .messageAttributes(Map.of(MessageCompression.ATTRIBUTE, gzip))
+                .build()));
+        assertThrows(MalformedPayloadException.class, () -> MessageCompression.decode(Message.builder()
+                .body("not base64!")
+                .messageAttributes(Map.of(MessageCompression.ATTRIBUTE, gzip))
+                .build()));
+        assertThrows(MalformedPayloadException.class, () -> MessageCompression.decode(Message.builder()
+                .body("AAAA")
+                .messageAttributes(Map.of(MessageCompression.ATTRIBUTE, MessageAttributeValue.builder()
+                        .dataType("String").stringValue("brotli").build()))
+                .build()));
+    }
+}
@@ -1,7 +1,11 @@
 package com.glic.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.logging.PayloadSampler;
+import com.glic.service.RestApiMetrics;
 import com.glic.service.RestApiService;
+import com.glic.service.WireFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
@@ -26,7 +30,9 @@ public class TestConfig {
     @Bean(name = "testRestApiService")
     @Primary
     public RestApiService testRestApiService(RestTemplate testRestTemplate, ObjectMapper testObjectMapper) {
-        return new RestApiService(testRestTemplate, testObjectMapper, "http://localhost:8080");
+        return new RestApiService(testRestTemplate, testObjectMapper, "http://localhost:8080", WireFormat.JSON,
+                new RestApiMetrics(new SimpleMeterRegistry()),
+                new PayloadSampler(PayloadSampler.DEFAULT_SAMPLE_RATE, PayloadSampler.DEFAULT_MAX_LENGTH));
     }
 
     @Bean(name = "testSqsClient")
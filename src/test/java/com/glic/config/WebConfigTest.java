@@ -0,0 +1,33 @@
+package com.glic.config;
+
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebConfigTest {
+
+    @Test
+    void varyAcceptFilter_MarksProductResponsesAsVaryingByAcceptHeader() throws Exception {
+        // Arrange
+        FilterRegistrationBean<Filter> registration = new WebConfig().varyAcceptFilter();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        registration.getFilter().doFilter(new MockHttpServletRequest("GET", "/api/products/1"), response, chain);
+
+        // Assert
+        assertEquals(List.of(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT), response.getHeaders(HttpHeaders.VARY));
+        assertNotNull(chain.getRequest());
+        assertTrue(registration.getUrlPatterns().contains("/api/products/*"));
+    }
+}
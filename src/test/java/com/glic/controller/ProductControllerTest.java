@@ -0,0 +1,218 @@
+package com.glic.controller;
+
+import com.glic.model.Product;
+import com.glic.readmodel.ProductReadStore;
+import com.glic.search.ProductSearchIndex;
+import com.glic.search.SearchHit;
+import com.glic.service.CatalogueVersion;
+import com.glic.service.ProductChangedEvent;
+import com.glic.service.ProductService;
+import com.glic.service.ProductWriteBehind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductControllerTest {
+
+    @Mock
+    private ProductService productService;
+
+    private CatalogueVersion catalogueVersion;
+
+    @BeforeEach
+    void setUp() {
+        catalogueVersion = new CatalogueVersion();
+    }
+
+    private MockMvc mockMvc(Object... optionalBeans) {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        for (Object bean : optionalBeans) {
+            beans.addBean(bean.getClass().getName(), bean);
+        }
+        ProductController controller = new ProductController(productService,
+                beans.getBeanProvider(ProductReadStore.class), catalogueVersion,
+                beans.getBeanProvider(ProductWriteBehind.class), beans.getBeanProvider(ProductSearchIndex.class));
+        return MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    private static Product product(long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal("9.99"));
+        product.setQuantity(3);
+        return product;
+    }
+
+    @Test
+    void getAllProducts_ReturnsTheCatalogueWithAnETag() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc();
+        when(productService.getAllProducts()).thenReturn(List.of(product(1, "Red mug")));
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogueVersion.etag()))
+                .andExpect(jsonPath("$[0].name").value("Red mug"));
+    }
+
+    @Test
+    void getAllProducts_AnswersNotModifiedWhenTheETagMatches() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, catalogueVersion.etag()))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, catalogueVersion.etag()))
+                .andExpect(content().string(""));
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void getProductById_AnswersNotModifiedWhenTheETagMatches() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc();
+        when(productService.getProductById(1L)).thenReturn(Optional.of(product(1, "Red mug")));
+        String etag = mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(productService).getProductById(1L);
+    }
+
+    @Test
+    void getAllProducts_ReturnsANewETagAfterAWrite() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc();
+        Product created = product(2, "Blue mug");
+        when(productService.createProduct(any(Product.class))).thenReturn(created);
+        when(productService.getAllProducts()).thenReturn(List.of(product(1, "Red mug"), created));
+        String before = catalogueVersion.etag();
+        MvcResult post = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Blue mug\",\"price\":9.99,\"quantity\":3}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(post)).andExpect(status().isOk());
+        catalogueVersion.onProductChanged(ProductChangedEvent.created(created));
+
+        // Act
+        String after = mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, before))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[1].name").value("Blue mug"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Assert
+        assertNotEquals(before, after);
+        assertEquals(catalogueVersion.etag(), after);
+    }
+
+    @Test
+    void searchProducts_AnswersNotFoundWhenSearchIsDisabled() throws Exception {
+        // Arrange
+        MockMvc mockMvc = mockMvc();
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/search").param("q", "mug"))
+                .andExpect(status().isNotFound());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void searchProducts_AnswersServiceUnavailableWhileTheIndexLoads() throws Exception {
+        // Arrange
+        ProductSearchIndex searchIndex = mock(ProductSearchIndex.class);
+        when(searchIndex.isReady()).thenReturn(false);
+        MockMvc mockMvc = mockMvc(searchIndex);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/search").param("q", "mug"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+        verify(searchIndex, never()).search(any(), anyInt());
+    }
+
+    @Test
+    void searchProducts_ReturnsProductsInHitOrder() throws Exception {
+        // Arrange
+        ProductSearchIndex searchIndex = mock(ProductSearchIndex.class);
+        when(searchIndex.isReady()).thenReturn(true);
+        when(searchIndex.search("mug", 5)).thenReturn(List.of(new SearchHit(2, 1.5f), new SearchHit(1, 0.5f)));
+        when(productService.getProductsByIds(List.of(2L, 1L)))
+                .thenReturn(List.of(product(1, "Red mug"), product(2, "Blue mug")));
+        MockMvc mockMvc = mockMvc(searchIndex);
+
+        // Act & Assert
+        mockMvc.perform(get("/api/products/search").param("q", "mug").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Blue mug"))
+                .andExpect(jsonPath("$[1].name").value("Red mug"));
+    }
+
+    @Test
+    void createProduct_AnswersWithTheProductOnceTheWriteBehindBatchCommits() throws Exception {
+        // Arrange
+        ProductWriteBehind writeBehind = mock(ProductWriteBehind.class);
+        when(writeBehind.submit(any(Product.class)))
+                .thenReturn(CompletableFuture.completedFuture(product(2, "Blue mug")));
+        MockMvc mockMvc = mockMvc(writeBehind);
+        MvcResult post = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Blue mug\",\"price\":9.99,\"quantity\":3}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Act & Assert
+        mockMvc.perform(asyncDispatch(post))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(2));
+        verify(productService, never()).createProduct(any());
+    }
+
+    @Test
+    void createProduct_AnswersServiceUnavailableWhenTheWriteBehindBufferIsFull() throws Exception {
+        // Arrange
+        ProductWriteBehind writeBehind = mock(ProductWriteBehind.class);
+        when(writeBehind.submit(any(Product.class))).thenThrow(new RejectedExecutionException("buffer full"));
+        MockMvc mockMvc = mockMvc(writeBehind);
+        MvcResult post = mockMvc.perform(post("/api/products")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Blue mug\",\"price\":9.99,\"quantity\":3}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Act & Assert
+        mockMvc.perform(asyncDispatch(post))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(content().string(""));
+        verify(productService, never()).createProduct(any());
+    }
+}
@@ -0,0 +1,80 @@
+package com.glic.jfr;
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrReportTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Message message(String id) {
+        return Message.builder()
+                .messageId(id)
+                .body("{\"name\":\"Test Product\"}")
+                .attributesWithStrings(Map.of("SentTimestamp", Long.toString(System.currentTimeMillis() - 250)))
+                .build();
+    }
+
+    @Test
+    void analyze_BuildsPerStageBreakdownFromLifecycleEvents() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.glic.*");
+            recording.start();
+            for (String id : new String[]{"m1", "m2"}) {
+                Message message = message(id);
+                new MessageReceivedEvent().complete(message, System.currentTimeMillis());
+                MessageDeserializedEvent parse = new MessageDeserializedEvent();
+                parse.begin();
+                parse.complete(message);
+                HttpRequestCompletedEvent http = new HttpRequestCompletedEvent();
+                http.begin();
+                Thread.sleep(id.equals("m2") ? 20 : 1);
+                http.complete(message);
+                MessageAckedEvent ack = new MessageAckedEvent();
+                ack.begin();
+                ack.complete(message, id.equals("m2") ? 30_000_000L : 2_000_000L);
+            }
+            MessageFailedEvent failed = new MessageFailedEvent();
+            failed.begin();
+            failed.complete(message("m3"), "create", new IllegalStateException("API down"));
+            ProductWriteEvent write = new ProductWriteEvent();
+            write.begin();
+            write.complete("create", 1L);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        // Act
+        JfrReport.Report report = JfrReport.analyze(file);
+
+        // Assert
+        assertEquals(
+                List.of("queue", "deserialize", "http", "delete", "total", "db create"),
+                report.stages().stream().map(JfrReport.StageStats::stage).toList());
+        JfrReport.StageStats queue = report.stages().get(0);
+        assertEquals(2, queue.count());
+        assertTrue(queue.p50().toMillis() >= 250);
+        assertEquals(Map.of("create", 1), report.failures());
+        assertEquals("m2", report.slowest().get(0).messageId());
+        assertEquals(30_000_000L, report.slowest().get(0).total());
+        assertTrue(report.slowest().get(0).http() >= 20_000_000L);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JfrReport.print(report, new PrintStream(out, true, StandardCharsets.UTF_8));
+        assertTrue(out.toString(StandardCharsets.UTF_8).contains("slowest messages"));
+    }
+}
@@ -0,0 +1,212 @@
+package com.glic.journal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.json.ProductModule;
+import com.glic.model.Product;
+import com.glic.model.QuarantinedMessage;
+import com.glic.quarantine.FailureClassifier;
+import com.glic.quarantine.InMemoryQuarantineStore;
+import com.glic.quarantine.QuarantineService;
+import com.glic.service.RestApiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JournalReplayerTest {
+
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+
+    @TempDir
+    private Path directory;
+
+    @Mock
+    private RestApiService restApiService;
+
+    @Mock
+    private SqsClient sqsClient;
+
+    private InMemoryQuarantineStore store;
+    private SpillJournal journal;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new InMemoryQuarantineStore();
+        journal = new SpillJournal(directory, 4096, FsyncPolicy.NEVER);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    private JournalReplayer replayer(double ratePerSecond) {
+        return replayer(ratePerSecond, 3);
+    }
+
+    private JournalReplayer replayer(double ratePerSecond, int outageFailures) {
+        return new JournalReplayer(journal, new ObjectMapper().registerModule(new ProductModule()), restApiService,
+                new FailureClassifier(), new QuarantineService(store, sqsClient), registry, ratePerSecond, 1000,
+                outageFailures, 60000);
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(BigDecimal.ONE);
+        product.setQuantity(1);
+        return product;
+    }
+
+    private static Message message(String id) {
+        return Message.builder().messageId(id).receiptHandle("receipt-" + id).build();
+    }
+
+    @Test
+    void replay_CreatesJournaledProductsInOrderAndEmptiesTheJournal() throws Exception {
+        // Arrange
+        JournalReplayer replayer = replayer(50);
+        replayer.spill(message("m1"), QUEUE_URL, product("First"));
+        replayer.spill(message("m2"), QUEUE_URL, product("Second"));
+
+        // Act
+        replayer.replay();
+
+        // Assert
+        ArgumentCaptor<Product> created = ArgumentCaptor.forClass(Product.class);
+        verify(restApiService, times(2)).createProduct(created.capture());
+        assertEquals(List.of("First", "Second"), created.getAllValues().stream().map(Product::getName).toList());
+        assertEquals(2, registry.get("sqs.journal.spilled").counter().count());
+        assertEquals(2, registry.get("sqs.journal.replayed").tag("outcome", "created").counter().count());
+        assertEquals(0, registry.get("sqs.journal.depth").gauge().value());
+    }
+
+    @Test
+    void replay_CreatesNoMoreProductsPerRunThanTheRateAllows() throws Exception {
+        // Arrange
+        JournalReplayer replayer = replayer(2);
+        for (int i = 0; i < 5; i++) {
+            replayer.spill(message("m" + i), QUEUE_URL, product("Product " + i));
+        }
+
+        // Act
+        replayer.replay();
+
+        // Assert
+        verify(restApiService, times(2)).createProduct(any(Product.class));
+        assertEquals(3, journal.depth());
+    }
+
+    @Test
+    void replay_KeepsTheProductAndBacksOffWhenTheApiIsDown() throws Exception {
+        // Arrange
+        JournalReplayer replayer = replayer(50);
+        replayer.spill(message("m1"), QUEUE_URL, product("First"));
+        replayer.spill(message("m2"), QUEUE_URL, product("Second"));
+        when(restApiService.createProduct(any(Product.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        // Act
+        replayer.replay();
+        replayer.replay();
+
+        // Assert
+        verify(restApiService, times(1)).createProduct(any(Product.class));
+        assertEquals(2, journal.depth());
+        assertEquals(1, registry.get("sqs.journal.replay.failures").counter().count());
+        assertTrue(store.findRecent(10).isEmpty());
+    }
+
+    @Test
+    void replay_QuarantinesAProductThatCanNeverBeCreated() throws Exception {
+        // Arrange
+        JournalReplayer replayer = replayer(50);
+        replayer.spill(message("m1"), QUEUE_URL, product("Rejected"));
+        replayer.spill(message("m2"), QUEUE_URL, product("Accepted"));
+        when(restApiService.createProduct(any(Product.class)))
+                .thenThrow(new HttpClientErrorException(HttpStatus.UNPROCESSABLE_ENTITY))
+                .thenReturn(product("Accepted"));
+
+        // Act
+        replayer.replay();
+
+        // Assert
+        assertEquals(0, journal.depth());
+        List<QuarantinedMessage> quarantined = store.findRecent(10);
+        assertEquals(1, quarantined.size());
+        assertEquals("m1", quarantined.get(0).getMessageId());
+        assertEquals(QUEUE_URL, quarantined.get(0).getSourceQueueUrl());
+        assertEquals(JournalReplayer.STAGE, quarantined.get(0).getStage());
+        assertEquals("http-422", quarantined.get(0).getReason());
+        assertTrue(quarantined.get(0).getBody().contains("\"Rejected\""));
+        verifyNoInteractions(sqsClient);
+    }
+
+    @Test
+    void onFailure_StartsAnOutageOnlyAfterEnoughFailuresInARow() {
+        // Arrange
+        JournalReplayer replayer = replayer(50, 3);
+        ResourceAccessException down = new ResourceAccessException("Connection refused");
+
+        // Act & Assert
+        assertFalse(replayer.onFailure(down));
+        replayer.onSuccess();
+        assertFalse(replayer.onFailure(down));
+        assertFalse(replayer.onFailure(new HttpClientErrorException(HttpStatus.UNPROCESSABLE_ENTITY)));
+        assertFalse(replayer.onFailure(down));
+        assertFalse(replayer.isSpilling());
+        assertTrue(replayer.onFailure(down));
+        assertTrue(replayer.isSpilling());
+        assertEquals(1, registry.get("sqs.journal.outage").gauge().value());
+    }
+
+    @Test
+    void replay_EndsTheOutageOnceAProductIsCreated() throws Exception {
+        // Arrange
+        JournalReplayer replayer = replayer(50, 1);
+        assertTrue(replayer.onFailure(new ResourceAccessException("Connection refused")));
+        replayer.spill(message("m1"), QUEUE_URL, product("First"));
+
+        // Act
+        replayer.replay();
+
+        // Assert
+        verify(restApiService).createProduct(any(Product.class));
+        assertFalse(replayer.isSpilling());
+        assertEquals(0, journal.depth());
+        assertEquals(0, registry.get("sqs.journal.outage").gauge().value());
+    }
+
+    @Test
+    void disabled_NeverSpills() {
+        // Arrange
+        JournalReplayer replayer = JournalReplayer.disabled();
+
+        // Act & Assert
+        assertFalse(replayer.isSpilling());
+        assertFalse(replayer.onFailure(new ResourceAccessException("Connection refused")));
+        assertThrows(IllegalStateException.class, () -> replayer.spill(message("m1"), QUEUE_URL, product("First")));
+        assertDoesNotThrow(replayer::replay);
+    }
+}
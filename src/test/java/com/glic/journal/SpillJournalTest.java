@@ -0,0 +1,171 @@
+package com.glic.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpillJournalTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void append_RecordsAreReadBackInOrderAndConsumed() throws Exception {
+        // Arrange
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.ALWAYS)) {
+
+            // Act
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+
+            // Assert
+            assertEquals(2, journal.depth());
+            assertEquals(11, journal.pendingBytes());
+            assertEquals("first", text(journal.peek()));
+            assertEquals("first", text(journal.peek()));
+            journal.advance();
+            assertEquals("second", text(journal.peek()));
+            journal.advance();
+            assertNull(journal.peek());
+            assertEquals(0, journal.depth());
+            assertThrows(IllegalStateException.class, journal::advance);
+        }
+    }
+
+    @Test
+    void open_RecoversUnconsumedRecordsAfterRestart() throws Exception {
+        // Arrange
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.INTERVAL)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+            journal.append(bytes("third"));
+            journal.peek();
+            journal.advance();
+        }
+
+        // Act
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.INTERVAL)) {
+
+            // Assert
+            assertEquals(2, journal.depth());
+            assertEquals("second", text(journal.peek()));
+            journal.append(bytes("fourth"));
+            journal.advance();
+            assertEquals("third", text(journal.peek()));
+            journal.advance();
+            assertEquals("fourth", text(journal.peek()));
+        }
+    }
+
+    @Test
+    void open_ClearsATornRecordAndAppendsInItsPlace() throws Exception {
+        // Arrange
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.ALWAYS)) {
+            journal.append(bytes("first"));
+        }
+        int torn = SpillJournal.SEGMENT_HEADER + SpillJournal.RECORD_HEADER + 5;
+        try (FileChannel channel = FileChannel.open(segment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(12).putInt(100).putInt(12345).putInt(0x41424344).flip(), torn);
+        }
+
+        // Act
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.ALWAYS)) {
+            journal.append(bytes("second"));
+        }
+
+        // Assert
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.ALWAYS)) {
+            assertEquals(2, journal.depth());
+            journal.advance();
+            assertEquals("second", text(journal.peek()));
+        }
+    }
+
+    @Test
+    void open_StartsFromTheOldestSegmentWhenTheCursorIsDamaged() throws Exception {
+        // Arrange
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.ALWAYS)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+            journal.peek();
+            journal.advance();
+        }
+        Files.write(directory.resolve(SpillJournal.CURSOR_FILE), new byte[16]);
+
+        // Act
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.ALWAYS)) {
+
+            // Assert
+            assertEquals(2, journal.depth());
+            assertEquals("first", text(journal.peek()));
+        }
+    }
+
+    @Test
+    void advance_DeletesSegmentsOnceTheyAreConsumed() throws Exception {
+        // Arrange
+        byte[] record = new byte[1500];
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.NEVER)) {
+            for (int i = 0; i < 5; i++) {
+                Arrays.fill(record, (byte) i);
+                journal.append(record);
+            }
+            assertEquals(3, journal.segments());
+            assertEquals(3, segmentFiles());
+
+            // Act
+            for (int i = 0; i < 4; i++) {
+                assertEquals(i, journal.peek()[0]);
+                journal.advance();
+            }
+
+            // Assert
+            assertEquals(1, journal.segments());
+            assertEquals(1, segmentFiles());
+            assertEquals(4, journal.peek()[0]);
+        }
+    }
+
+    @Test
+    void append_RejectsRecordsThatDoNotFitInASegment() throws Exception {
+        // Arrange
+        try (SpillJournal journal = new SpillJournal(directory, 4096, FsyncPolicy.NEVER)) {
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[journal.maxRecordBytes() + 1]));
+            assertThrows(IllegalArgumentException.class, () -> journal.append(new byte[0]));
+            journal.append(new byte[journal.maxRecordBytes()]);
+            assertEquals(1, journal.depth());
+        }
+    }
+
+    private Path segment() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+        }
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
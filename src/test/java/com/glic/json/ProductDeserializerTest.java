@@ -0,0 +1,88 @@
+package com.glic.json;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.glic.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductDeserializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new BlackbirdModule())
+            .registerModule(new ProductModule());
+
+    private final ObjectReader productReader = objectMapper.readerFor(Product.class);
+
+    private final ObjectReader beanReader = new ObjectMapper().readerFor(Product.class);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"id\":7,\"name\":\"Widget\",\"description\":\"A widget\",\"price\":19.99,\"quantity\":5}",
+            "{\"quantity\":5,\"price\":\"19.990\",\"name\":\"Widget\"}",
+            "{\"name\":\"Widget\",\"price\":20,\"quantity\":\"12\",\"id\":\"3\"}",
+            "{\"name\":null,\"description\":null,\"price\":null,\"quantity\":null}",
+            "{\"name\":\"Widget\",\"price\":\"1e3\",\"quantity\":7.0}",
+            "{\"name\":\"Widget\",\"price\":\"-0.5\"}",
+            "{}"
+    })
+    void readValue_MatchesBeanDeserializer(String json) throws Exception {
+        // Act
+        Product expected = beanReader.readValue(json);
+        Product actual = productReader.readValue(json);
+
+        // Assert
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.getQuantity(), actual.getQuantity());
+    }
+
+    @Test
+    void readValue_KeepsPriceScale() throws Exception {
+        // Act
+        Product product = productReader.readValue("{\"price\":\"100.50\"}");
+
+        // Assert
+        assertEquals(new BigDecimal("100.50"), product.getPrice());
+    }
+
+    @Test
+    void readValue_RejectsUnknownPropertiesLikeTheMapper() throws Exception {
+        // Arrange
+        String json = "{\"name\":\"Widget\",\"colour\":{\"r\":1},\"quantity\":2}";
+
+        // Act & Assert
+        assertThrows(UnrecognizedPropertyException.class, () -> productReader.readValue(json));
+        Product lenient = productReader.without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES).readValue(json);
+        assertEquals("Widget", lenient.getName());
+        assertEquals(2, lenient.getQuantity());
+    }
+
+    @Test
+    void readValue_RejectsInvalidPrice() {
+        // Act & Assert
+        assertThrows(InvalidFormatException.class, () -> productReader.readValue("{\"price\":\"cheap\"}"));
+    }
+
+    @Test
+    void readValue_ReadsProductLists() throws Exception {
+        // Act
+        List<Product> products = objectMapper.readerForListOf(Product.class)
+                .readValue("[{\"id\":1,\"name\":\"A\"},{\"id\":2,\"name\":\"B\"}]");
+
+        // Assert
+        assertEquals(List.of(1L, 2L), products.stream().map(Product::getId).toList());
+    }
+}
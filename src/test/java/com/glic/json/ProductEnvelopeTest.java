@@ -0,0 +1,100 @@
+package com.glic.json;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProductEnvelopeTest {
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @Test
+    void isEnvelope_DetectsJsonArrayBodies() {
+        // Act & Assert
+        assertTrue(ProductEnvelope.isEnvelope(" \n[{\"name\":\"a\"}]"));
+        assertFalse(ProductEnvelope.isEnvelope("{\"name\":\"a\"}"));
+        assertFalse(ProductEnvelope.isEnvelope("   "));
+        assertFalse(ProductEnvelope.isEnvelope(null));
+    }
+
+    @Test
+    void read_ReturnsEachItemAsItsOwnJson() throws IOException {
+        // Arrange
+        String body = "[{\"name\":\"a\",\"tags\":[1,2]}, \"text\" ,42,{\"name\":\"b\"}]";
+
+        // Act
+        List<ProductEnvelope.Item> items = new ArrayList<>();
+        try (ProductEnvelope.Reader reader = ProductEnvelope.read(factory, body)) {
+            for (ProductEnvelope.Item item = reader.next(); item != null; item = reader.next()) {
+                items.add(item);
+            }
+        }
+
+        // Assert
+        assertEquals(List.of(
+                new ProductEnvelope.Item(0, "{\"name\":\"a\",\"tags\":[1,2]}"),
+                new ProductEnvelope.Item(1, "\"text\""),
+                new ProductEnvelope.Item(2, "42"),
+                new ProductEnvelope.Item(3, "{\"name\":\"b\"}")), items);
+    }
+
+    @Test
+    void read_CopiesItemsOutOfAStream() throws IOException {
+        // Arrange
+        String body = " [{\"name\" : \"a\", \"tags\":[1, 2]}, 42 ,{\"name\":\"b\"}]";
+
+        // Act
+        List<ProductEnvelope.Item> items = new ArrayList<>();
+        try (ProductEnvelope.Reader reader = ProductEnvelope.read(factory,
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)))) {
+            for (ProductEnvelope.Item item = reader.next(); item != null; item = reader.next()) {
+                items.add(item);
+            }
+            assertEquals("", reader.remainder());
+        }
+
+        // Assert
+        assertEquals(List.of(
+                new ProductEnvelope.Item(0, "{\"name\":\"a\",\"tags\":[1,2]}"),
+                new ProductEnvelope.Item(1, "42"),
+                new ProductEnvelope.Item(2, "{\"name\":\"b\"}")), items);
+    }
+
+    @Test
+    void read_StopsAtMalformedTailAndKeepsItsText() throws IOException {
+        // Arrange
+        String body = "[{\"name\":\"a\"},{\"name\":}]";
+
+        // Act & Assert
+        try (ProductEnvelope.Reader reader = ProductEnvelope.read(factory, body)) {
+            assertEquals("{\"name\":\"a\"}", reader.next().json());
+            assertThrows(IOException.class, reader::next);
+            assertEquals(1, reader.nextIndex());
+            assertEquals(",{\"name\":}]", reader.remainder());
+        }
+        assertThrows(IOException.class, () -> ProductEnvelope.read(factory, "{\"name\":\"a\"}"));
+    }
+
+    @Test
+    void pack_SplitsItemsAtTheSizeLimit() {
+        // Arrange
+        List<String> items = List.of("{\"n\":1}", "{\"n\":2}", "{\"n\":3}", "{\"n\":\"too large\"}");
+
+        // Act
+        List<ProductEnvelope.Packed> envelopes = ProductEnvelope.pack(items, 17);
+
+        // Assert
+        assertEquals(List.of(
+                new ProductEnvelope.Packed("[{\"n\":1},{\"n\":2}]", 0, 2),
+                new ProductEnvelope.Packed("[{\"n\":3}]", 2, 1),
+                new ProductEnvelope.Packed("[{\"n\":\"too large\"}]", 3, 1)), envelopes);
+        assertTrue(ProductEnvelope.pack(List.of(), 17).isEmpty());
+    }
+}
@@ -0,0 +1,160 @@
+package com.glic.listener;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.logging.PayloadSampler;
+import com.glic.service.RestApiService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ListenerAutoscalerTest {
+
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+
+    @Mock
+    private SqsClient sqsClient;
+
+    @Mock
+    private RestApiService restApiService;
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private SqsMessageListener listener;
+    private QueueLane lane;
+    private ListenerAutoscaler autoscaler;
+
+    @BeforeEach
+    void setUp() {
+        ListenerProperties properties = new ListenerProperties();
+        properties.getAutoscale().setEnabled(true);
+        properties.getAutoscale().setMaxWorkers(16);
+        properties.getAutoscale().setTargetDrainSeconds(60);
+        properties.getAutoscale().setMaxMessageAgeSeconds(300);
+        listener = new SqsMessageListener(new ListenerSettings(sqsClient, new ObjectMapper(), restApiService, QUEUE_URL,
+                new ProductMessageValidator(Validation.buildDefaultValidatorFactory().getValidator()))
+                .payloadSampler(new PayloadSampler(1, 512))
+                .properties(properties));
+        lane = listener.getLanes().get(0);
+        autoscaler = new ListenerAutoscaler(sqsClient, listener, properties, clock::get);
+    }
+
+    @AfterEach
+    void tearDown() {
+        listener.stop();
+    }
+
+    private void backlog(long visible, long notVisible) {
+        when(sqsClient.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+                .thenReturn(GetQueueAttributesResponse.builder()
+                        .attributes(Map.of(
+                                QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, Long.toString(visible),
+                                QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE, Long.toString(notVisible)))
+                        .build());
+    }
+
+    private void elapse(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    void rescale_SizesForRateAndBacklog() {
+        // Arrange
+        backlog(600, 0);
+        for (int i = 0; i < 100; i++) {
+            lane.recordProcessed(TimeUnit.MILLISECONDS.toNanos(500));
+        }
+        elapse(10);
+
+        // Act
+        autoscaler.rescale();
+
+        // Assert
+        // (10 msg/s + 600 / 60 s) * 0.5 s per message
+        assertEquals(10, lane.getConcurrency());
+        assertEquals(1, lane.getPollerCount());
+        assertEquals(10, listener.getWorkerCount());
+    }
+
+    @Test
+    void rescale_DoublesWhileTimePerMessageIsUnknown() {
+        // Arrange
+        backlog(50, 0);
+        elapse(10);
+
+        // Act
+        autoscaler.rescale();
+        elapse(10);
+        autoscaler.rescale();
+
+        // Assert
+        assertEquals(4, lane.getConcurrency());
+        assertEquals(4, listener.getWorkerCount());
+    }
+
+    @Test
+    void rescale_ShrinksGraduallyWhenIdle() {
+        // Arrange
+        backlog(0, 0);
+        listener.resizeLane(lane, 12, 2);
+        listener.resizeWorkers(12);
+        elapse(10);
+
+        // Act
+        autoscaler.rescale();
+
+        // Assert
+        assertEquals(9, lane.getConcurrency());
+        assertEquals(1, lane.getPollerCount());
+        assertEquals(9, listener.getWorkerCount());
+    }
+
+    @Test
+    void rescale_DoublesWhenMessagesAreTooOld() {
+        // Arrange
+        backlog(10, 0);
+        listener.resizeLane(lane, 3, 1);
+        lane.recordProcessed(TimeUnit.MILLISECONDS.toNanos(10));
+        lane.recordReceivedAge(TimeUnit.MINUTES.toMillis(10));
+        elapse(10);
+
+        // Act
+        autoscaler.rescale();
+
+        // Assert
+        assertEquals(6, lane.getConcurrency());
+    }
+
+    @Test
+    void rescale_KeepsSizeWhenBacklogCannotBeRead() {
+        // Arrange
+        when(sqsClient.getQueueAttributes(any(GetQueueAttributesRequest.class)))
+                .thenThrow(SqsException.builder().message("Access denied").build());
+        listener.resizeLane(lane, 5, 1);
+        elapse(10);
+
+        // Act
+        autoscaler.rescale();
+
+        // Assert
+        assertEquals(5, lane.getConcurrency());
+        assertEquals(5, listener.getWorkerCount());
+    }
+}
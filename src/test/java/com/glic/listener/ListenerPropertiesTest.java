@@ -0,0 +1,71 @@
+package com.glic.listener;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListenerPropertiesTest {
+
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+
+    @Test
+    void resolveQueues_FallsBackToSingleQueue() {
+        // Arrange
+        ListenerProperties properties = new ListenerProperties();
+        properties.setWorkers(4);
+
+        // Act
+        List<ListenerProperties.Queue> queues = properties.resolveQueues(QUEUE_URL);
+
+        // Assert
+        assertEquals(1, queues.size());
+        assertEquals(ListenerMetrics.DEFAULT_QUEUE, queues.get(0).getName());
+        assertEquals(QUEUE_URL, queues.get(0).getUrl());
+        assertEquals(1, queues.get(0).getWeight());
+        assertEquals(4, queues.get(0).getConcurrency());
+    }
+
+    @Test
+    void resolveQueues_FillsInNamesAndConcurrency() {
+        // Arrange
+        ListenerProperties properties = new ListenerProperties();
+        properties.setWorkers(6);
+        ListenerProperties.Queue express = new ListenerProperties.Queue();
+        express.setUrl("https://sqs.test.amazonaws.com/123456789012/express-queue");
+        express.setWeight(3);
+        ListenerProperties.Queue bulk = new ListenerProperties.Queue();
+        bulk.setName("bulk");
+        bulk.setUrl("https://sqs.test.amazonaws.com/123456789012/bulk-queue");
+        bulk.setConcurrency(2);
+        properties.setQueues(List.of(express, bulk));
+
+        // Act
+        List<ListenerProperties.Queue> queues = properties.resolveQueues(QUEUE_URL);
+
+        // Assert
+        assertEquals(List.of("express-queue", "bulk"), queues.stream().map(ListenerProperties.Queue::getName).toList());
+        assertEquals(6, queues.get(0).getConcurrency());
+        assertEquals(3, queues.get(0).getWeight());
+        assertEquals(2, queues.get(1).getConcurrency());
+        assertNull(express.getName());
+    }
+
+    @Test
+    void emptyReceiveBackoff_DoublesUpToMaximum() {
+        // Arrange
+        ListenerProperties.EmptyReceiveBackoff backoff = new ListenerProperties.EmptyReceiveBackoff();
+        backoff.setInitialMs(100);
+        backoff.setMaxMs(1000);
+
+        // Act & Assert
+        assertEquals(100, backoff.pauseMs(1));
+        assertEquals(200, backoff.pauseMs(2));
+        assertEquals(800, backoff.pauseMs(4));
+        assertEquals(1000, backoff.pauseMs(5));
+        assertEquals(1000, backoff.pauseMs(500));
+        backoff.setMaxMs(0);
+        assertEquals(0, backoff.pauseMs(3));
+    }
+}
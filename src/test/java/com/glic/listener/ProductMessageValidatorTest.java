@@ -0,0 +1,87 @@
+package com.glic.listener;
+
+import com.glic.model.Product;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ProductMessageValidatorTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private static Product product(String name, String price, Integer quantity) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(price != null ? new BigDecimal(price) : null);
+        product.setQuantity(quantity);
+        return product;
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "Widget, 19.99, 5",
+            "Widget, 0.01, 0",
+            "'  Widget ', 1, 1",
+            "'', 19.99, 5",
+            "'   ', 19.99, 5",
+            "' ', 19.99, 5",
+            "'\u0000', 19.99, 5",
+            "NULL, 19.99, 5",
+            "Widget, 0, 5",
+            "Widget, 0.00, 5",
+            "Widget, -1, 5",
+            "Widget, NULL, 5",
+            "Widget, 19.99, -1",
+            "Widget, 19.99, NULL",
+            "NULL, NULL, NULL"
+    }, nullValues = "NULL")
+    void validate_AgreesWithBeanValidation(String name, String price, Integer quantity) {
+        // Arrange
+        ProductMessageValidator messageValidator = new ProductMessageValidator(validator);
+        Product product = product(name, price, quantity);
+
+        // Act
+        List<String> violations = messageValidator.validate(product);
+
+        // Assert
+        assertEquals(validator.validate(product).size(), violations.size());
+    }
+
+    @Test
+    void validate_ReportsEveryViolation() {
+        // Arrange
+        ProductMessageValidator messageValidator = new ProductMessageValidator(validator);
+
+        // Act
+        List<String> violations = messageValidator.validate(product(" ", "0", -1));
+
+        // Assert
+        assertEquals(List.of(
+                "name: Name is required",
+                "price: Price must be greater than 0",
+                "quantity: Quantity must be non-negative"), violations);
+    }
+
+    @Test
+    void validate_SkipsValidatorForValidProducts() {
+        // Arrange
+        Validator spy = spy(validator);
+        ProductMessageValidator messageValidator = new ProductMessageValidator(spy);
+
+        // Act
+        List<String> violations = messageValidator.validate(product("Widget", "19.99", 5));
+
+        // Assert
+        assertTrue(violations.isEmpty());
+        verify(spy, never()).validate(any());
+    }
+}
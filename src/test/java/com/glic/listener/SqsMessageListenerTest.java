@@ -1,25 +1,56 @@
 package com.glic.listener;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.claimcheck.InMemoryBlobStore;
+import com.glic.compression.MessageCompression;
+import com.glic.journal.FsyncPolicy;
+import com.glic.journal.JournalReplayer;
+import com.glic.journal.SpillJournal;
+import com.glic.json.ProductModule;
+import com.glic.logging.PayloadSampler;
 import com.glic.model.Product;
+import com.glic.model.QuarantinedMessage;
+import com.glic.producer.MessageEncoder;
+import com.glic.quarantine.FailureClassifier;
+import com.glic.quarantine.InMemoryQuarantineStore;
+import com.glic.quarantine.MessageFailureHandler;
+import com.glic.quarantine.QuarantineService;
+import com.glic.service.RequestDeadline;
 import com.glic.service.RestApiService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
 import software.amazon.awssdk.services.sqs.SqsClient;
 import software.amazon.awssdk.services.sqs.model.*;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,17 +64,24 @@ class SqsMessageListenerTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private ObjectReader productReader;
+
     @Mock
     private RestApiService restApiService;
 
     private SqsMessageListener sqsMessageListener;
     private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+    private static final ProductMessageValidator VALIDATOR =
+            new ProductMessageValidator(Validation.buildDefaultValidatorFactory().getValidator());
     private Thread pollingThread;
     private CountDownLatch latch;
 
     @BeforeEach
     void setUp() {
-        sqsMessageListener = new SqsMessageListener(sqsClient, objectMapper, restApiService, QUEUE_URL);
+        when(objectMapper.readerFor(Product.class)).thenReturn(productReader);
+        sqsMessageListener = new SqsMessageListener(new ListenerSettings(sqsClient, objectMapper, restApiService,
+                QUEUE_URL, VALIDATOR));
         latch = new CountDownLatch(1);
     }
 
@@ -55,6 +93,14 @@ class SqsMessageListenerTest {
         }
     }
 
+    private static Product validProduct() {
+        Product product = new Product();
+        product.setName("Test Product");
+        product.setPrice(new BigDecimal("100.0"));
+        product.setQuantity(10);
+        return product;
+    }
+
     @Test
     void processMessage_Success() throws Exception {
         // Arrange
@@ -68,7 +114,7 @@ class SqsMessageListenerTest {
         product.setPrice(new BigDecimal("100.0"));
         product.setQuantity(10);
 
-        when(objectMapper.readValue(message.body(), Product.class)).thenReturn(product);
+        when(productReader.readValue(message.body())).thenReturn(product);
 
         // Act
         sqsMessageListener.processMessage(message);
@@ -78,6 +124,83 @@ class SqsMessageListenerTest {
         verify(sqsClient).deleteMessage(any(DeleteMessageRequest.class));
     }
 
+    @Test
+    void processMessage_DecompressesBodyBeforeParsing() throws Exception {
+        // Arrange
+        String body = "{\"name\":\"Test Product\",\"description\":\"" + "verbose text ".repeat(200) + "\"}";
+        MessageCompression.Encoded encoded = new MessageCompression(true, "gzip", 1024).encode(body);
+        Message message = Message.builder()
+                .body(encoded.body())
+                .messageAttributes(encoded.attributes())
+                .receiptHandle("test-receipt-handle")
+                .build();
+        when(productReader.readValue(body)).thenReturn(validProduct());
+
+        // Act
+        sqsMessageListener.processMessage(message);
+
+        // Assert
+        assertNotEquals(body, encoded.body());
+        verify(restApiService).createProduct(any(Product.class));
+        verify(sqsClient).deleteMessage(any(DeleteMessageRequest.class));
+    }
+
+    @Test
+    void processMessage_RecordsStageMetrics() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient, objectMapper,
+                restApiService, QUEUE_URL, VALIDATOR).metrics(new ListenerMetrics(registry)));
+        Message message = Message.builder()
+                .body("{\"name\":\"Test Product\",\"price\":100.0,\"quantity\":10}")
+                .receiptHandle("test-receipt-handle")
+                .attributesWithStrings(Map.of(
+                        "SentTimestamp", Long.toString(System.currentTimeMillis() - 5000),
+                        "ApproximateReceiveCount", "2"))
+                .build();
+        when(productReader.readValue(message.body())).thenReturn(validProduct());
+
+        // Act
+        listener.processMessage(message);
+
+        // Assert
+        for (String stage : List.of("parse", "validate", "create", "delete")) {
+            assertEquals(1, registry.get("sqs.listener.stage").tag("stage", stage).timer().count());
+        }
+        assertEquals(1, registry.get("sqs.listener.message").tag("outcome", "success").timer().count());
+        assertEquals(0, registry.get("sqs.listener.message").tag("outcome", "failure").timer().count());
+        assertEquals(1.0, registry.get("sqs.listener.duplicates").counter().count());
+        assertTrue(registry.get("sqs.listener.message.age").timer().totalTime(TimeUnit.MILLISECONDS) >= 5000);
+        assertEquals(0.0, registry.get("sqs.listener.in.flight").gauge().value());
+    }
+
+    @Test
+    void processMessage_RejectsInvalidProductBeforeCallingApi() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient, objectMapper,
+                restApiService, QUEUE_URL, VALIDATOR).metrics(new ListenerMetrics(registry)));
+        Message message = Message.builder()
+                .messageId("test-message-id")
+                .body("{\"name\":\" \",\"price\":0,\"quantity\":10}")
+                .receiptHandle("test-receipt-handle")
+                .build();
+        Product product = validProduct();
+        product.setName(" ");
+        product.setPrice(BigDecimal.ZERO);
+        when(productReader.readValue(message.body())).thenReturn(product);
+
+        // Act
+        listener.processMessage(message);
+
+        // Assert
+        verify(restApiService, never()).createProduct(any());
+        verify(sqsClient).deleteMessage(any(DeleteMessageRequest.class));
+        assertEquals(1, registry.get("sqs.listener.message").tag("outcome", "rejected").timer().count());
+        assertEquals(0, registry.get("sqs.listener.message").tag("outcome", "success").timer().count());
+        assertEquals(0.0, registry.get("sqs.listener.in.flight").gauge().value());
+    }
+
     @Test
     void processMessage_WithInvalidJson() throws Exception {
         // Arrange
@@ -89,14 +212,14 @@ class SqsMessageListenerTest {
                 .build();
 
         RuntimeException expectedException = new RuntimeException("Invalid JSON");
-        when(objectMapper.readValue(eq(messageBody), eq(Product.class)))
+        when(productReader.readValue(eq(messageBody)))
                 .thenThrow(expectedException);
 
         // Act & Assert
         RuntimeException thrown = assertThrows(RuntimeException.class, 
             () -> ReflectionTestUtils.invokeMethod(sqsMessageListener, "processMessage", message));
         assertEquals("Failed to process message", thrown.getMessage());
-        verify(objectMapper).readValue(eq(messageBody), eq(Product.class));
+        verify(productReader).readValue(eq(messageBody));
         verify(restApiService, never()).createProduct(any());
         verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
     }
@@ -116,7 +239,7 @@ class SqsMessageListenerTest {
         product.setPrice(new BigDecimal("100.0"));
         product.setQuantity(10);
 
-        when(objectMapper.readValue(eq(messageBody), eq(Product.class))).thenReturn(product);
+        when(productReader.readValue(eq(messageBody))).thenReturn(product);
         when(restApiService.createProduct(product))
                 .thenThrow(new RuntimeException("API Error"));
 
@@ -124,7 +247,7 @@ class SqsMessageListenerTest {
         RuntimeException thrown = assertThrows(RuntimeException.class, 
             () -> ReflectionTestUtils.invokeMethod(sqsMessageListener, "processMessage", message));
         assertEquals("Failed to process message", thrown.getMessage());
-        verify(objectMapper).readValue(eq(messageBody), eq(Product.class));
+        verify(productReader).readValue(eq(messageBody));
         verify(restApiService).createProduct(product);
         verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
     }
@@ -156,8 +279,8 @@ class SqsMessageListenerTest {
                     return response;
                 });
 
-        Product product = new Product();
-        when(objectMapper.readValue(any(String.class), eq(Product.class)))
+        Product product = validProduct();
+        when(productReader.readValue(any(String.class)))
                 .thenReturn(product);
         when(restApiService.createProduct(any(Product.class)))
                 .thenReturn(product);
@@ -166,7 +289,8 @@ class SqsMessageListenerTest {
         sqsMessageListener.start();
         pollingThread = new Thread(() -> {
             try {
-                ReflectionTestUtils.invokeMethod(sqsMessageListener, "pollMessages");
+                ReflectionTestUtils.invokeMethod(sqsMessageListener, "pollMessages",
+                        sqsMessageListener.getLanes().get(0));
             } catch (Exception e) {
                 // Expected to be interrupted
             }
@@ -177,10 +301,11 @@ class SqsMessageListenerTest {
         assertTrue(latch.await(5, TimeUnit.SECONDS), "Timeout waiting for message processing");
 
         // Assert
+        // The latch can be released by the second poller before the first one has processed its batch
         verify(sqsClient, atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
-        verify(objectMapper, atLeastOnce()).readValue(any(String.class), eq(Product.class));
-        verify(restApiService, atLeastOnce()).createProduct(any(Product.class));
-        verify(sqsClient, atLeastOnce()).deleteMessage(any(DeleteMessageRequest.class));
+        verify(productReader, timeout(5000).atLeastOnce()).readValue(any(String.class));
+        verify(restApiService, timeout(5000).atLeastOnce()).createProduct(any(Product.class));
+        verify(sqsClient, timeout(5000).atLeastOnce()).deleteMessage(any(DeleteMessageRequest.class));
     }
 
     @Test
@@ -201,7 +326,8 @@ class SqsMessageListenerTest {
         sqsMessageListener.start();
         pollingThread = new Thread(() -> {
             try {
-                ReflectionTestUtils.invokeMethod(sqsMessageListener, "pollMessages");
+                ReflectionTestUtils.invokeMethod(sqsMessageListener, "pollMessages",
+                        sqsMessageListener.getLanes().get(0));
             } catch (Exception e) {
                 // Expected to be interrupted
             }
@@ -213,7 +339,7 @@ class SqsMessageListenerTest {
 
         // Assert
         verify(sqsClient, atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
-        verify(objectMapper, never()).readValue(any(String.class), eq(Product.class));
+        verify(productReader, never()).readValue(any(String.class));
         verify(restApiService, never()).createProduct(any());
         verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
     }
@@ -235,7 +361,8 @@ class SqsMessageListenerTest {
         sqsMessageListener.start();
         pollingThread = new Thread(() -> {
             try {
-                ReflectionTestUtils.invokeMethod(sqsMessageListener, "pollMessages");
+                ReflectionTestUtils.invokeMethod(sqsMessageListener, "pollMessages",
+                        sqsMessageListener.getLanes().get(0));
             } catch (Exception e) {
                 // Expected to be interrupted
             }
@@ -247,11 +374,489 @@ class SqsMessageListenerTest {
 
         // Assert
         verify(sqsClient, atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
-        verify(objectMapper, never()).readValue(any(String.class), eq(Product.class));
+        verify(productReader, never()).readValue(any(String.class));
         verify(restApiService, never()).createProduct(any());
         verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
     }
 
+    @Test
+    void start_ConsumesEveryConfiguredQueue() throws Exception {
+        // Arrange
+        ListenerProperties properties = new ListenerProperties();
+        properties.setWorkers(2);
+        ListenerProperties.Queue express = new ListenerProperties.Queue();
+        express.setName("express");
+        express.setUrl(QUEUE_URL + "-express");
+        express.setWeight(3);
+        ListenerProperties.Queue bulk = new ListenerProperties.Queue();
+        bulk.setName("bulk");
+        bulk.setUrl(QUEUE_URL + "-bulk");
+        properties.setQueues(List.of(express, bulk));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient, objectMapper,
+                restApiService, QUEUE_URL, VALIDATOR)
+                .metrics(new ListenerMetrics(registry))
+                .payloadSampler(new PayloadSampler(1, 512))
+                .properties(properties));
+        Set<String> delivered = ConcurrentHashMap.newKeySet();
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> {
+            String queueUrl = invocation.<ReceiveMessageRequest>getArgument(0).queueUrl();
+            if (!delivered.add(queueUrl)) {
+                Thread.sleep(10);
+                return ReceiveMessageResponse.builder().messages(List.of()).build();
+            }
+            return ReceiveMessageResponse.builder().messages(Message.builder()
+                    .messageId(queueUrl)
+                    .body("{}")
+                    .receiptHandle("receipt-" + queueUrl)
+                    .build()).build();
+        });
+        when(productReader.readValue(any(String.class))).thenReturn(validProduct());
+
+        // Act
+        listener.start();
+
+        // Assert
+        try {
+            verify(sqsClient, timeout(5000)).deleteMessage(
+                    argThat((DeleteMessageRequest request) -> request.queueUrl().equals(QUEUE_URL + "-express")));
+            verify(sqsClient, timeout(5000)).deleteMessage(
+                    argThat((DeleteMessageRequest request) -> request.queueUrl().equals(QUEUE_URL + "-bulk")));
+            verify(restApiService, times(2)).createProduct(any(Product.class));
+            assertEquals(List.of("express", "bulk"), listener.getLanes().stream().map(QueueLane::getName).toList());
+            assertNotNull(registry.find("sqs.listener.stage").tags("queue", "bulk", "stage", "receive").timer());
+        } finally {
+            listener.stop();
+        }
+    }
+
+    @Test
+    void start_AfterStopPollsAgain() {
+        // Arrange
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(List.of()).build());
+        sqsMessageListener.start();
+        verify(sqsClient, timeout(2000).atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
+        sqsMessageListener.stop();
+        assertEquals(ListenerState.STOPPED, sqsMessageListener.getState());
+        clearInvocations(sqsClient);
+
+        // Act
+        sqsMessageListener.start();
+
+        // Assert
+        verify(sqsClient, timeout(2000).atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
+        assertEquals(ListenerState.RUNNING, sqsMessageListener.getState());
+    }
+
+    @Test
+    void pause_StopsReceivingUntilResumed() throws Exception {
+        // Arrange
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(List.of()).build());
+        sqsMessageListener.start();
+        verify(sqsClient, timeout(2000).atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
+
+        // Act
+        boolean drained = sqsMessageListener.drain(Duration.ofSeconds(1));
+        Thread.sleep(300);
+        clearInvocations(sqsClient);
+        Thread.sleep(300);
+
+        // Assert
+        assertTrue(drained);
+        assertEquals(ListenerState.PAUSED, sqsMessageListener.getStatus().state());
+        verify(sqsClient, never()).receiveMessage(any(ReceiveMessageRequest.class));
+        sqsMessageListener.resume();
+        assertEquals(ListenerState.RUNNING, sqsMessageListener.getState());
+        verify(sqsClient, timeout(2000).atLeastOnce()).receiveMessage(any(ReceiveMessageRequest.class));
+    }
+
+    @Test
+    void setBatchSize_ChangesReceiveRequest() {
+        // Arrange
+        QueueLane lane = sqsMessageListener.getLanes().get(0);
+
+        // Act
+        lane.setBatchSize(4);
+
+        // Assert
+        assertEquals(4, lane.receiveRequest().maxNumberOfMessages());
+        assertEquals(4, sqsMessageListener.getStatus().queues().get(0).batchSize());
+        assertThrows(IllegalArgumentException.class, () -> lane.setBatchSize(0));
+        assertThrows(IllegalArgumentException.class, () -> lane.setBatchSize(11));
+        assertEquals(ListenerState.STOPPED, sqsMessageListener.getState());
+    }
+
+    @Test
+    void stop_ReleasesBufferedMessagesAndWaitsForInFlight() throws Exception {
+        // Arrange
+        CountDownLatch processing = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(
+                        IntStream.range(0, 3).mapToObj(i -> Message.builder()
+                                .messageId("message-" + i)
+                                .body("{}")
+                                .receiptHandle("receipt-" + i)
+                                .build()).toList()).build())
+                .thenReturn(ReceiveMessageResponse.builder().messages(List.of()).build());
+        when(productReader.readValue(any(String.class))).thenReturn(validProduct());
+        when(restApiService.createProduct(any(Product.class))).thenAnswer(invocation -> {
+            processing.countDown();
+            finish.await(5, TimeUnit.SECONDS);
+            return null;
+        });
+        when(sqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+        sqsMessageListener.start();
+        assertTrue(processing.await(5, TimeUnit.SECONDS));
+
+        // Act
+        Thread stopping = new Thread(sqsMessageListener::stop);
+        stopping.start();
+
+        // Assert
+        verify(sqsClient, timeout(2000)).changeMessageVisibilityBatch(argThat(
+                (ChangeMessageVisibilityBatchRequest request) -> request.queueUrl().equals(QUEUE_URL)
+                        && request.entries().size() == 2
+                        && request.entries().stream().allMatch(entry -> entry.visibilityTimeout() == 0)));
+        assertTrue(stopping.isAlive());
+        verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+        finish.countDown();
+        stopping.join(5000);
+        assertFalse(stopping.isAlive());
+        verify(sqsClient).deleteMessage(argThat((DeleteMessageRequest request) ->
+                request.receiptHandle().equals("receipt-0")));
+        verify(restApiService, times(1)).createProduct(any(Product.class));
+        assertEquals(ListenerState.STOPPED, sqsMessageListener.getState());
+    }
+
+    @Test
+    void stop_CancelsOutstandingLongPoll() throws Exception {
+        // Arrange
+        CountDownLatch polling = new CountDownLatch(1);
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> {
+            polling.countDown();
+            Thread.sleep(20000);
+            return ReceiveMessageResponse.builder().messages(List.of()).build();
+        });
+        sqsMessageListener.start();
+        assertTrue(polling.await(5, TimeUnit.SECONDS));
+
+        // Act
+        long start = System.nanoTime();
+        sqsMessageListener.stop();
+
+        // Assert
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000);
+        assertEquals(ListenerState.STOPPED, sqsMessageListener.getState());
+    }
+
+    @Test
+    void start_SkipsMessagesWhoseDeadlinePassedInBuffer() throws Exception {
+        // Arrange
+        ListenerProperties properties = new ListenerProperties();
+        properties.setVisibilityTimeoutSeconds(1);
+        properties.setDeadlineMarginMs(1000);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsMessageListener listener = listener(properties, registry);
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(Message.builder()
+                        .messageId("late")
+                        .body("{}")
+                        .receiptHandle("receipt-late")
+                        .build()).build())
+                .thenReturn(ReceiveMessageResponse.builder().messages(List.of()).build());
+
+        // Act
+        listener.start();
+
+        // Assert
+        try {
+            verify(sqsClient, timeout(2000).atLeastOnce()).receiveMessage(
+                    argThat((ReceiveMessageRequest request) -> request.visibilityTimeout() == 1));
+            waitFor(() -> registry.get("sqs.listener.expired").tags("queue", "default", "stage", "buffer")
+                    .counter().count() == 1);
+            verify(restApiService, never()).createProduct(any(Product.class));
+            verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+            verify(sqsClient, never()).changeMessageVisibility(any(ChangeMessageVisibilityRequest.class));
+        } finally {
+            listener.stop();
+        }
+    }
+
+    @Test
+    void start_BoundsApiCallByDeadlineAndAbandonsLateMessages() throws Exception {
+        // Arrange
+        ListenerProperties properties = new ListenerProperties();
+        properties.setVisibilityTimeoutSeconds(1);
+        properties.setDeadlineMarginMs(0);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsMessageListener listener = listener(properties, registry);
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(Message.builder()
+                        .messageId("slow")
+                        .body("{}")
+                        .receiptHandle("receipt-slow")
+                        .build()).build())
+                .thenReturn(ReceiveMessageResponse.builder().messages(List.of()).build());
+        when(productReader.readValue(any(String.class))).thenReturn(validProduct());
+        AtomicLong budget = new AtomicLong(-1);
+        when(restApiService.createProduct(any(Product.class))).thenAnswer(invocation -> {
+            budget.set(RequestDeadline.remainingNanos().orElse(-1));
+            Thread.sleep(1200);
+            throw new IllegalStateException("Read timed out");
+        });
+
+        // Act
+        listener.start();
+
+        // Assert
+        try {
+            waitFor(() -> registry.get("sqs.listener.expired").tags("queue", "default", "stage", "process")
+                    .counter().count() == 1);
+            assertTrue(budget.get() > 0 && budget.get() <= TimeUnit.SECONDS.toNanos(1));
+            assertEquals(1, registry.get("sqs.listener.message").tags("queue", "default", "outcome", "expired")
+                    .timer().count());
+            verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+            verify(sqsClient, never()).changeMessageVisibility(any(ChangeMessageVisibilityRequest.class));
+        } finally {
+            listener.stop();
+        }
+    }
+
+    @Test
+    void processMessage_HandlesEnvelopeItemsOnTheirOwn() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        QuarantineService quarantineService = new QuarantineService(new InMemoryQuarantineStore(), sqsClient);
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient,
+                new ObjectMapper().registerModule(new ProductModule()), restApiService, QUEUE_URL, VALIDATOR)
+                .metrics(new ListenerMetrics(registry))
+                .payloadSampler(new PayloadSampler(1, 512))
+                .failureHandler(new MessageFailureHandler(new FailureClassifier(), quarantineService, sqsClient,
+                        MessageEncoder.inMemory(), 5, 2, 60)));
+        Message message = Message.builder()
+                .messageId("envelope-id")
+                .body("[{\"name\":\"A\",\"price\":1,\"quantity\":1},"
+                        + "{\"name\":\"\",\"price\":1,\"quantity\":1},"
+                        + "{\"name\":\"C\",\"price\":1,\"quantity\":1},"
+                        + "{\"name\":\"D\",\"price\":2,\"quantity\":2}]")
+                .receiptHandle("test-receipt-handle")
+                .build();
+        when(restApiService.createProduct(any(Product.class))).thenAnswer(invocation -> {
+            Product product = invocation.getArgument(0);
+            if ("C".equals(product.getName())) {
+                throw new RuntimeException("API Error");
+            }
+            return product;
+        });
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("retry-id").build());
+
+        try {
+            // Act
+            listener.processMessage(message);
+
+            // Assert
+            verify(restApiService, times(3)).createProduct(any(Product.class));
+            List<QuarantinedMessage> quarantined = quarantineService.list(10);
+            assertEquals(1, quarantined.size());
+            assertEquals("envelope-id#1", quarantined.get(0).getMessageId());
+            assertEquals("invalid", quarantined.get(0).getReason());
+            ArgumentCaptor<SendMessageRequest> send = ArgumentCaptor.forClass(SendMessageRequest.class);
+            verify(sqsClient).sendMessage(send.capture());
+            assertEquals("[{\"name\":\"C\",\"price\":1,\"quantity\":1}]", send.getValue().messageBody());
+            verify(sqsClient).deleteMessage(argThat((DeleteMessageRequest request) ->
+                    "test-receipt-handle".equals(request.receiptHandle())));
+            for (Map.Entry<String, Double> outcome : Map.of("created", 2.0, "rejected", 1.0, "failed", 1.0,
+                    "expired", 0.0).entrySet()) {
+                assertEquals(outcome.getValue(), registry.get("sqs.listener.envelope.items")
+                        .tag("outcome", outcome.getKey()).counter().count(), outcome.getKey());
+            }
+            assertEquals(1, registry.get("sqs.listener.message").tag("outcome", "success").timer().count());
+        } finally {
+            listener.shutdown();
+        }
+    }
+
+    @Test
+    void processMessage_StreamsClaimCheckedEnvelopeAndReleasesIt() throws Exception {
+        // Arrange
+        InMemoryBlobStore store = new InMemoryBlobStore();
+        ClaimCheck claimCheck = new ClaimCheck(store, true, 1);
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient,
+                new ObjectMapper().registerModule(new ProductModule()), restApiService, QUEUE_URL, VALIDATOR)
+                .payloadSampler(new PayloadSampler(1, 512))
+                .claimCheck(claimCheck)
+                .pollingEnabled(false));
+        String reference = claimCheck.store(IntStream.range(0, 50)
+                .mapToObj(i -> "{\"name\":\"P" + i + "\",\"price\":1,\"quantity\":1}")
+                .collect(Collectors.joining(",", "\n [", "]")));
+        String single = claimCheck.store("{\"name\":\"Single\",\"price\":1,\"quantity\":1}");
+
+        try {
+            // Act
+            listener.processMessage(Message.builder().body(reference).receiptHandle("receipt-1")
+                    .messageAttributes(ClaimCheck.attributes()).build());
+            listener.processMessage(Message.builder().body(single).receiptHandle("receipt-2")
+                    .messageAttributes(ClaimCheck.attributes()).build());
+
+            // Assert
+            verify(restApiService, times(51)).createProduct(any(Product.class));
+            verify(restApiService).createProduct(argThat((Product product) -> "Single".equals(product.getName())));
+            verify(sqsClient, times(2)).deleteMessage(any(DeleteMessageRequest.class));
+            assertFalse(store.contains(reference.substring(ClaimCheck.PREFIX.length())));
+            assertFalse(store.contains(single.substring(ClaimCheck.PREFIX.length())));
+        } finally {
+            listener.shutdown();
+        }
+    }
+
+    @Test
+    void processMessage_KeepsClaimCheckedPayloadWhenProcessingFails() throws Exception {
+        // Arrange
+        InMemoryBlobStore store = new InMemoryBlobStore();
+        ClaimCheck claimCheck = new ClaimCheck(store, true, 1);
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient,
+                new ObjectMapper().registerModule(new ProductModule()), restApiService, QUEUE_URL, VALIDATOR)
+                .payloadSampler(new PayloadSampler(1, 512))
+                .claimCheck(claimCheck)
+                .pollingEnabled(false));
+        String reference = claimCheck.store("{\"name\":\"Single\",\"price\":1,\"quantity\":1}");
+        when(restApiService.createProduct(any(Product.class))).thenThrow(new RuntimeException("API Error"));
+
+        try {
+            // Act & Assert
+            assertThrows(RuntimeException.class, () -> listener.processMessage(Message.builder().messageId("m")
+                    .body(reference).receiptHandle("receipt-1").messageAttributes(ClaimCheck.attributes()).build()));
+            verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+            assertTrue(store.contains(reference.substring(ClaimCheck.PREFIX.length())));
+        } finally {
+            listener.shutdown();
+        }
+    }
+
+    @Test
+    void processMessage_IgnoresReferencesTheProducerDidNotFlag() throws Exception {
+        // Arrange
+        InMemoryBlobStore store = new InMemoryBlobStore();
+        ClaimCheck claimCheck = new ClaimCheck(store, true, 1);
+        QuarantineService quarantineService = new QuarantineService(new InMemoryQuarantineStore(), sqsClient);
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient,
+                new ObjectMapper().registerModule(new ProductModule()), restApiService, QUEUE_URL, VALIDATOR)
+                .claimCheck(claimCheck)
+                .failureHandler(new MessageFailureHandler(new FailureClassifier(), quarantineService, sqsClient,
+                        MessageEncoder.inMemory(), 5, 2, 60))
+                .pollingEnabled(false));
+        String reference = claimCheck.store("{\"name\":\"Someone else's\",\"price\":1,\"quantity\":1}");
+
+        try {
+            // Act
+            assertThrows(Exception.class, () -> listener.processMessage(
+                    Message.builder().messageId("m").body(reference).receiptHandle("receipt-1").build()));
+
+            // Assert
+            verify(restApiService, never()).createProduct(any(Product.class));
+            assertTrue(store.contains(reference.substring(ClaimCheck.PREFIX.length())));
+            QuarantinedMessage entry = quarantineService.list(10).get(0);
+            assertEquals("malformed", entry.getReason());
+            assertFalse(entry.isClaimChecked());
+        } finally {
+            listener.shutdown();
+        }
+    }
+
+    @Test
+    void processMessage_SpillsToTheJournalWhileTheApiIsDown(@TempDir Path directory) throws Exception {
+        // Arrange
+        ObjectMapper mapper = new ObjectMapper().registerModule(new ProductModule());
+        SpillJournal spillJournal = new SpillJournal(directory, 4096, FsyncPolicy.NEVER);
+        JournalReplayer journal = journal(spillJournal, mapper, 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient, mapper, restApiService,
+                QUEUE_URL, VALIDATOR)
+                .metrics(new ListenerMetrics(registry))
+                .payloadSampler(new PayloadSampler(1, 512))
+                .journal(journal)
+                .pollingEnabled(false));
+        when(restApiService.createProduct(any(Product.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        try {
+            // Act
+            listener.processMessage(Message.builder().messageId("m1").receiptHandle("receipt-1")
+                    .body("{\"name\":\"First\",\"price\":1,\"quantity\":1}").build());
+            listener.processMessage(Message.builder().messageId("m2").receiptHandle("receipt-2")
+                    .body("{\"name\":\"Second\",\"price\":1,\"quantity\":1}").build());
+
+            // Assert
+            verify(restApiService, times(1)).createProduct(any(Product.class));
+            verify(sqsClient, times(2)).deleteMessage(any(DeleteMessageRequest.class));
+            verify(sqsClient, never()).changeMessageVisibility(any(ChangeMessageVisibilityRequest.class));
+            assertEquals(2, spillJournal.depth());
+            assertEquals(2, registry.get("sqs.listener.message").tag("outcome", "spilled").timer().count());
+        } finally {
+            listener.shutdown();
+            spillJournal.close();
+        }
+    }
+
+    @Test
+    void processMessage_RetriesAnIsolatedFailureThroughSqsAndKeepsCallingTheApi(@TempDir Path directory)
+            throws Exception {
+        // Arrange
+        ObjectMapper mapper = new ObjectMapper().registerModule(new ProductModule());
+        SpillJournal spillJournal = new SpillJournal(directory, 4096, FsyncPolicy.NEVER);
+        SqsMessageListener listener = new SqsMessageListener(new ListenerSettings(sqsClient, mapper, restApiService,
+                QUEUE_URL, VALIDATOR)
+                .journal(journal(spillJournal, mapper, 3))
+                .pollingEnabled(false));
+        when(restApiService.createProduct(any(Product.class)))
+                .thenThrow(new ResourceAccessException("Connection reset"))
+                .thenReturn(new Product());
+
+        try {
+            // Act
+            assertThrows(Exception.class, () -> listener.processMessage(Message.builder().messageId("m1")
+                    .receiptHandle("receipt-1").body("{\"name\":\"First\",\"price\":1,\"quantity\":1}").build()));
+            listener.processMessage(Message.builder().messageId("m2").receiptHandle("receipt-2")
+                    .body("{\"name\":\"Second\",\"price\":1,\"quantity\":1}").build());
+
+            // Assert
+            verify(restApiService, times(2)).createProduct(any(Product.class));
+            verify(sqsClient).changeMessageVisibility(any(ChangeMessageVisibilityRequest.class));
+            verify(sqsClient, times(1)).deleteMessage(any(DeleteMessageRequest.class));
+            assertEquals(0, spillJournal.depth());
+        } finally {
+            listener.shutdown();
+            spillJournal.close();
+        }
+    }
+
+    private JournalReplayer journal(SpillJournal spillJournal, ObjectMapper mapper, int outageFailures) {
+        return new JournalReplayer(spillJournal, mapper, restApiService, new FailureClassifier(),
+                new QuarantineService(new InMemoryQuarantineStore(), sqsClient), new SimpleMeterRegistry(), 50, 1000,
+                outageFailures, 60000);
+    }
+
+    private SqsMessageListener listener(ListenerProperties properties, SimpleMeterRegistry registry) {
+        return new SqsMessageListener(new ListenerSettings(sqsClient, objectMapper,
+                restApiService, QUEUE_URL, VALIDATOR)
+                .metrics(new ListenerMetrics(registry))
+                .payloadSampler(new PayloadSampler(1, 512))
+                .properties(properties));
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within 5 s");
+            Thread.sleep(10);
+        }
+    }
+
     @Test
     void startListening_InitializesPolling() {
         // Act & Assert
@@ -0,0 +1,154 @@
+package com.glic.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WeightedFairSchedulerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private QueueLane lane(String name, int weight, int concurrency) {
+        return new QueueLane(name, "https://sqs.test.amazonaws.com/123456789012/" + name, weight,
+                concurrency, concurrency, new ListenerMetrics(registry, name), 10, 20, 30);
+    }
+
+    private static List<Message> messages(String prefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Message.builder().messageId(prefix + "-" + i).build())
+                .toList();
+    }
+
+    @Test
+    void take_SharesWorkersInProportionToWeights() throws Exception {
+        // Arrange
+        QueueLane express = lane("express", 3, 4);
+        QueueLane bulk = lane("bulk", 1, 4);
+        WeightedFairScheduler scheduler = new WeightedFairScheduler(List.of(express, bulk));
+        scheduler.offer(express, messages("express", 40));
+        scheduler.offer(bulk, messages("bulk", 40));
+
+        // Act
+        Map<String, Integer> dispatched = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            WeightedFairScheduler.Dispatch dispatch = scheduler.take(0);
+            dispatched.merge(dispatch.lane().getName(), 1, Integer::sum);
+            scheduler.done(dispatch.lane());
+        }
+
+        // Assert
+        assertEquals(30, dispatched.get("express"));
+        assertEquals(10, dispatched.get("bulk"));
+    }
+
+    @Test
+    void take_GivesIdleCapacityToQueuesWithBacklog() throws Exception {
+        // Arrange
+        QueueLane express = lane("express", 3, 4);
+        QueueLane bulk = lane("bulk", 1, 4);
+        WeightedFairScheduler scheduler = new WeightedFairScheduler(List.of(express, bulk));
+        scheduler.offer(bulk, messages("bulk", 4));
+
+        // Act
+        List<WeightedFairScheduler.Dispatch> dispatched = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            dispatched.add(scheduler.take(0));
+        }
+
+        // Assert
+        assertTrue(dispatched.stream().allMatch(dispatch -> dispatch.lane() == bulk));
+        assertEquals(4, bulk.getInFlight());
+    }
+
+    @Test
+    void take_DoesNotReplayCreditOfIdleQueue() throws Exception {
+        // Arrange
+        QueueLane express = lane("express", 1, 10);
+        QueueLane bulk = lane("bulk", 1, 10);
+        WeightedFairScheduler scheduler = new WeightedFairScheduler(List.of(express, bulk));
+        scheduler.offer(bulk, messages("bulk", 20));
+        for (int i = 0; i < 10; i++) {
+            scheduler.done(scheduler.take(0).lane());
+        }
+
+        // Act
+        scheduler.offer(express, messages("express", 10));
+        Map<String, Integer> dispatched = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            WeightedFairScheduler.Dispatch dispatch = scheduler.take(0);
+            dispatched.merge(dispatch.lane().getName(), 1, Integer::sum);
+            scheduler.done(dispatch.lane());
+        }
+
+        // Assert
+        assertEquals(5, dispatched.get("express"));
+        assertEquals(5, dispatched.get("bulk"));
+    }
+
+    @Test
+    void take_RespectsQueueConcurrency() throws Exception {
+        // Arrange
+        QueueLane bulk = lane("bulk", 1, 2);
+        WeightedFairScheduler scheduler = new WeightedFairScheduler(List.of(bulk));
+        scheduler.offer(bulk, messages("bulk", 5));
+        scheduler.take(0);
+        scheduler.take(0);
+
+        // Act
+        WeightedFairScheduler.Dispatch blocked = scheduler.take(0);
+        scheduler.done(bulk);
+        WeightedFairScheduler.Dispatch released = scheduler.take(0);
+
+        // Assert
+        assertNull(blocked);
+        assertNotNull(released);
+        assertEquals(2, bulk.getInFlight());
+        assertEquals(2, bulk.getBuffered());
+        assertEquals(2.0, registry.get("sqs.listener.buffered").tag("queue", "bulk").gauge().value());
+    }
+
+    @Test
+    void awaitDemand_WaitsWhileBufferCoversConcurrency() throws Exception {
+        // Arrange
+        QueueLane bulk = lane("bulk", 1, 2);
+        WeightedFairScheduler scheduler = new WeightedFairScheduler(List.of(bulk));
+
+        // Act & Assert
+        assertTrue(scheduler.awaitDemand(bulk, 0));
+        scheduler.offer(bulk, messages("bulk", 2));
+        assertFalse(scheduler.awaitDemand(bulk, 0));
+        scheduler.take(0);
+        assertTrue(scheduler.awaitDemand(bulk, 0));
+    }
+
+    @Test
+    void drainBuffered_ReturnsUntakenMessagesAndKeepsInFlight() throws Exception {
+        // Arrange
+        QueueLane express = lane("express", 3, 4);
+        QueueLane bulk = lane("bulk", 1, 4);
+        WeightedFairScheduler scheduler = new WeightedFairScheduler(List.of(express, bulk));
+        scheduler.offer(bulk, messages("bulk", 3));
+        WeightedFairScheduler.Dispatch taken = scheduler.take(0);
+
+        // Act
+        Map<QueueLane, List<Message>> drained = scheduler.drainBuffered();
+
+        // Assert
+        assertEquals(List.of(bulk), List.copyOf(drained.keySet()));
+        assertEquals(List.of("bulk-1", "bulk-2"), drained.get(bulk).stream().map(Message::messageId).toList());
+        assertEquals(0, bulk.getBuffered());
+        assertEquals(1, bulk.getInFlight());
+        assertFalse(scheduler.awaitInFlight(0));
+        scheduler.done(taken.lane());
+        assertTrue(scheduler.awaitInFlight(0));
+        assertTrue(scheduler.awaitIdle(0));
+    }
+}
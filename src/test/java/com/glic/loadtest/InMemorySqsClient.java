@@ -0,0 +1,510 @@
+package com.glic.loadtest;
+
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchEntryIdsNotDistinctException;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageResponse;
+import software.amazon.awssdk.services.sqs.model.EmptyBatchRequestException;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesRequest;
+import software.amazon.awssdk.services.sqs.model.GetQueueAttributesResponse;
+import software.amazon.awssdk.services.sqs.model.InvalidMessageContentsException;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.MessageNotInflightException;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.PurgeQueueRequest;
+import software.amazon.awssdk.services.sqs.model.PurgeQueueResponse;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiptHandleIsInvalidException;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+import software.amazon.awssdk.services.sqs.model.TooManyEntriesInBatchRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory stand-in for SQS standard queues, for tests and offline load runs.
+ * Queues are created on first use of their URL. The model follows SQS where it
+ * matters to a consumer:
+ * <ul>
+ *   <li>a received message is hidden for the visibility timeout and becomes
+ *       visible again, with a higher receive count, unless it is deleted;</li>
+ *   <li>every receive issues a new receipt handle; deletes accept any handle
+ *       issued for the message, visibility changes only the latest one;</li>
+ *   <li>receives long poll for up to {@code WaitTimeSeconds};</li>
+ *   <li>batch operations report per-entry success and failure.</li>
+ * </ul>
+ * FIFO ordering, dead-letter queues and message retention are not modelled.
+ * Visibility is evaluated against the supplied clock; long polling waits in real time.
+ */
+public class InMemorySqsClient implements SqsClient {
+
+    /**
+     * A message removed from a queue by a successful delete.
+     *
+     * @param queueUrl the queue the message was deleted from
+     * @param messageId the message ID
+     * @param body the message body
+     * @param receiveCount how many times the message was received
+     * @param sentNanos {@link System#nanoTime()} when the message was sent
+     * @param deletedNanos {@link System#nanoTime()} when the message was deleted
+     */
+    public record DeletedMessage(String queueUrl, String messageId, String body, int receiveCount,
+                                 long sentNanos, long deletedNanos) {
+    }
+
+    /**
+     * Maximum number of entries in a batch request and messages in a receive.
+     */
+    private static final int MAX_BATCH_ENTRIES = 10;
+
+    /**
+     * Maximum message size SQS accepts.
+     */
+    private static final int MAX_MESSAGE_BYTES = 256 * 1024;
+
+    /**
+     * Longest a receive waits between visibility checks while long polling.
+     */
+    private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * Clock used for visibility timeouts and timestamps.
+     */
+    private final Clock clock;
+
+    /**
+     * Visibility timeout applied when a receive does not specify one.
+     */
+    private final int defaultVisibilityTimeoutSeconds;
+
+    /**
+     * Queues by URL.
+     */
+    private final Map<String, InMemoryQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * Notified after every successful delete.
+     */
+    private volatile Consumer<DeletedMessage> deleteListener = deleted -> {
+    };
+
+    /**
+     * Creates a client on the system clock with the SQS default visibility timeout of 30 seconds.
+     */
+    public InMemorySqsClient() {
+        this(Clock.systemUTC(), 30);
+    }
+
+    /**
+     * Creates a client.
+     *
+     * @param clock clock used for visibility timeouts and timestamps
+     * @param defaultVisibilityTimeoutSeconds visibility timeout applied when a receive does not specify one
+     */
+    public InMemorySqsClient(Clock clock, int defaultVisibilityTimeoutSeconds) {
+        this.clock = clock;
+        this.defaultVisibilityTimeoutSeconds = defaultVisibilityTimeoutSeconds;
+    }
+
+    /**
+     * Registers a callback invoked after every successful delete, on the deleting thread.
+     *
+     * @param listener the callback
+     */
+    public void onDelete(Consumer<DeletedMessage> listener) {
+        this.deleteListener = listener;
+    }
+
+    /**
+     * Gets the number of messages in a queue, visible or in flight.
+     *
+     * @param queueUrl the queue URL
+     * @return the number of messages not yet deleted
+     */
+    public int size(String queueUrl) {
+        InMemoryQueue queue = queue(queueUrl);
+        queue.lock.lock();
+        try {
+            return queue.messages.size();
+        } finally {
+            queue.lock.unlock();
+        }
+    }
+
+    @Override
+    public SendMessageResponse sendMessage(SendMessageRequest request) {
+        String messageId = queue(request.queueUrl()).add(request.messageBody(), request.messageAttributes(),
+                request.delaySeconds());
+        return SendMessageResponse.builder().messageId(messageId).build();
+    }
+
+    @Override
+    public SendMessageBatchResponse sendMessageBatch(SendMessageBatchRequest request) {
+        checkBatch(request.entries().stream().map(SendMessageBatchRequestEntry::id).toList());
+        InMemoryQueue queue = queue(request.queueUrl());
+        List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+        List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (SendMessageBatchRequestEntry entry : request.entries()) {
+            try {
+                String messageId = queue.add(entry.messageBody(), entry.messageAttributes(), entry.delaySeconds());
+                successful.add(SendMessageBatchResultEntry.builder().id(entry.id()).messageId(messageId).build());
+            } catch (InvalidMessageContentsException e) {
+                failed.add(failure(entry.id(), "InvalidMessageContents", e.getMessage()));
+            }
+        }
+        return SendMessageBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    public ReceiveMessageResponse receiveMessage(ReceiveMessageRequest request) {
+        int max = request.maxNumberOfMessages() == null ? 1 : Math.min(request.maxNumberOfMessages(), MAX_BATCH_ENTRIES);
+        int visibility = request.visibilityTimeout() == null ? defaultVisibilityTimeoutSeconds : request.visibilityTimeout();
+        long waitNanos = TimeUnit.SECONDS.toNanos(request.waitTimeSeconds() == null ? 0 : request.waitTimeSeconds());
+        try {
+            return ReceiveMessageResponse.builder()
+                    .messages(queue(request.queueUrl()).receive(max, visibility, waitNanos,
+                            request.attributeNamesAsStrings(), request.messageAttributeNames()))
+                    .build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ReceiveMessageResponse.builder().build();
+        }
+    }
+
+    @Override
+    public DeleteMessageResponse deleteMessage(DeleteMessageRequest request) {
+        if (!queue(request.queueUrl()).delete(request.receiptHandle())) {
+            throw ReceiptHandleIsInvalidException.builder()
+                    .message("The receipt handle \"" + request.receiptHandle() + "\" is not valid.")
+                    .build();
+        }
+        return DeleteMessageResponse.builder().build();
+    }
+
+    @Override
+    public DeleteMessageBatchResponse deleteMessageBatch(DeleteMessageBatchRequest request) {
+        checkBatch(request.entries().stream().map(DeleteMessageBatchRequestEntry::id).toList());
+        InMemoryQueue queue = queue(request.queueUrl());
+        List<DeleteMessageBatchResultEntry> successful = new ArrayList<>();
+        List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (DeleteMessageBatchRequestEntry entry : request.entries()) {
+            if (queue.delete(entry.receiptHandle())) {
+                successful.add(DeleteMessageBatchResultEntry.builder().id(entry.id()).build());
+            } else {
+                failed.add(failure(entry.id(), "ReceiptHandleIsInvalid", "The receipt handle is not valid."));
+            }
+        }
+        return DeleteMessageBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    public ChangeMessageVisibilityResponse changeMessageVisibility(ChangeMessageVisibilityRequest request) {
+        String error = queue(request.queueUrl()).changeVisibility(request.receiptHandle(), request.visibilityTimeout());
+        if (error != null) {
+            throw MessageNotInflightException.builder().message(error).build();
+        }
+        return ChangeMessageVisibilityResponse.builder().build();
+    }
+
+    @Override
+    public ChangeMessageVisibilityBatchResponse changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest request) {
+        checkBatch(request.entries().stream().map(ChangeMessageVisibilityBatchRequestEntry::id).toList());
+        InMemoryQueue queue = queue(request.queueUrl());
+        List<ChangeMessageVisibilityBatchResultEntry> successful = new ArrayList<>();
+        List<BatchResultErrorEntry> failed = new ArrayList<>();
+        for (ChangeMessageVisibilityBatchRequestEntry entry : request.entries()) {
+            String error = queue.changeVisibility(entry.receiptHandle(), entry.visibilityTimeout());
+            if (error == null) {
+                successful.add(ChangeMessageVisibilityBatchResultEntry.builder().id(entry.id()).build());
+            } else {
+                failed.add(failure(entry.id(), "MessageNotInflight", error));
+            }
+        }
+        return ChangeMessageVisibilityBatchResponse.builder().successful(successful).failed(failed).build();
+    }
+
+    @Override
+    public GetQueueAttributesResponse getQueueAttributes(GetQueueAttributesRequest request) {
+        InMemoryQueue queue = queue(request.queueUrl());
+        Map<QueueAttributeName, String> attributes = new HashMap<>();
+        queue.lock.lock();
+        try {
+            long now = clock.millis();
+            long visible = queue.messages.values().stream().filter(m -> m.visibleAt <= now).count();
+            attributes.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES, Long.toString(visible));
+            attributes.put(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE,
+                    Long.toString(queue.messages.size() - visible));
+            attributes.put(QueueAttributeName.VISIBILITY_TIMEOUT, Integer.toString(defaultVisibilityTimeoutSeconds));
+        } finally {
+            queue.lock.unlock();
+        }
+        return GetQueueAttributesResponse.builder().attributes(attributes).build();
+    }
+
+    @Override
+    public PurgeQueueResponse purgeQueue(PurgeQueueRequest request) {
+        InMemoryQueue queue = queue(request.queueUrl());
+        queue.lock.lock();
+        try {
+            queue.messages.clear();
+            queue.byHandle.clear();
+        } finally {
+            queue.lock.unlock();
+        }
+        return PurgeQueueResponse.builder().build();
+    }
+
+    @Override
+    public String serviceName() {
+        return SERVICE_NAME;
+    }
+
+    @Override
+    public void close() {
+    }
+
+    /**
+     * Gets or creates a queue.
+     *
+     * @param queueUrl the queue URL
+     * @return the queue
+     */
+    private InMemoryQueue queue(String queueUrl) {
+        return queues.computeIfAbsent(queueUrl, InMemoryQueue::new);
+    }
+
+    /**
+     * Rejects batches SQS would reject as a whole.
+     *
+     * @param ids the entry IDs of the batch
+     */
+    private static void checkBatch(List<String> ids) {
+        if (ids.isEmpty()) {
+            throw EmptyBatchRequestException.builder().message("The batch request doesn't contain any entries.").build();
+        }
+        if (ids.size() > MAX_BATCH_ENTRIES) {
+            throw TooManyEntriesInBatchRequestException.builder()
+                    .message("Maximum number of entries per request are " + MAX_BATCH_ENTRIES + ".").build();
+        }
+        if (new HashSet<>(ids).size() != ids.size()) {
+            throw BatchEntryIdsNotDistinctException.builder().message("Two or more batch entries have the same Id.").build();
+        }
+    }
+
+    /**
+     * Builds a sender-fault batch error entry.
+     *
+     * @param id the entry ID
+     * @param code the error code
+     * @param message the error message
+     * @return the error entry
+     */
+    private static BatchResultErrorEntry failure(String id, String code, String message) {
+        return BatchResultErrorEntry.builder().id(id).code(code).message(message).senderFault(true).build();
+    }
+
+    /**
+     * A message stored in a queue.
+     */
+    private static final class StoredMessage {
+        private final String messageId = UUID.randomUUID().toString();
+        private final String body;
+        private final Map<String, MessageAttributeValue> attributes;
+        private final long sentMillis;
+        private final long sentNanos = System.nanoTime();
+        private final Set<String> handles = new HashSet<>();
+        private long visibleAt;
+        private long firstReceiveMillis;
+        private int receiveCount;
+        private String latestHandle;
+
+        StoredMessage(String body, Map<String, MessageAttributeValue> attributes, long sentMillis, long visibleAt) {
+            this.body = body;
+            this.attributes = attributes;
+            this.sentMillis = sentMillis;
+            this.visibleAt = visibleAt;
+        }
+    }
+
+    /**
+     * One queue. All state is guarded by {@link #lock}; long-polling receives
+     * wait on {@link #arrived}, which is signalled when messages are added or
+     * made visible explicitly.
+     */
+    private final class InMemoryQueue {
+        private final String url;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition arrived = lock.newCondition();
+        private final LinkedHashMap<String, StoredMessage> messages = new LinkedHashMap<>();
+        private final Map<String, StoredMessage> byHandle = new HashMap<>();
+
+        InMemoryQueue(String url) {
+            this.url = url;
+        }
+
+        String add(String body, Map<String, MessageAttributeValue> attributes, Integer delaySeconds) {
+            if (body == null || body.isEmpty() || body.getBytes(StandardCharsets.UTF_8).length > MAX_MESSAGE_BYTES) {
+                throw InvalidMessageContentsException.builder()
+                        .message("Message body must be between 1 byte and " + MAX_MESSAGE_BYTES + " bytes.").build();
+            }
+            long now = clock.millis();
+            long delay = delaySeconds == null ? 0 : TimeUnit.SECONDS.toMillis(delaySeconds);
+            StoredMessage message = new StoredMessage(body, attributes, now, now + delay);
+            lock.lock();
+            try {
+                messages.put(message.messageId, message);
+                arrived.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            return message.messageId;
+        }
+
+        List<Message> receive(int max, int visibilitySeconds, long waitNanos, List<String> attributeNames,
+                              Collection<String> messageAttributeNames) throws InterruptedException {
+            long deadline = System.nanoTime() + waitNanos;
+            lock.lock();
+            try {
+                while (true) {
+                    List<Message> received = takeVisible(max, visibilitySeconds, attributeNames, messageAttributeNames);
+                    long remaining = deadline - System.nanoTime();
+                    if (!received.isEmpty() || remaining <= 0) {
+                        return received;
+                    }
+                    arrived.awaitNanos(Math.min(remaining, POLL_SLICE_NANOS));
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<Message> takeVisible(int max, int visibilitySeconds, List<String> attributeNames,
+                                          Collection<String> messageAttributeNames) {
+            long now = clock.millis();
+            List<Message> received = new ArrayList<>(max);
+            for (StoredMessage message : messages.values()) {
+                if (received.size() == max) {
+                    break;
+                }
+                if (message.visibleAt > now) {
+                    continue;
+                }
+                String handle = UUID.randomUUID().toString();
+                message.handles.add(handle);
+                message.latestHandle = handle;
+                message.receiveCount++;
+                if (message.receiveCount == 1) {
+                    message.firstReceiveMillis = now;
+                }
+                message.visibleAt = now + TimeUnit.SECONDS.toMillis(visibilitySeconds);
+                byHandle.put(handle, message);
+                received.add(toMessage(message, handle, attributeNames, messageAttributeNames));
+            }
+            return received;
+        }
+
+        boolean delete(String receiptHandle) {
+            StoredMessage message;
+            lock.lock();
+            try {
+                message = byHandle.get(receiptHandle);
+                if (message == null) {
+                    return false;
+                }
+                messages.remove(message.messageId);
+                message.handles.forEach(byHandle::remove);
+            } finally {
+                lock.unlock();
+            }
+            deleteListener.accept(new DeletedMessage(url, message.messageId, message.body, message.receiveCount,
+                    message.sentNanos, System.nanoTime()));
+            return true;
+        }
+
+        String changeVisibility(String receiptHandle, Integer visibilitySeconds) {
+            lock.lock();
+            try {
+                StoredMessage message = byHandle.get(receiptHandle);
+                if (message == null || !receiptHandle.equals(message.latestHandle)) {
+                    return "The receipt handle is not valid for the current receive of the message.";
+                }
+                long now = clock.millis();
+                if (message.visibleAt <= now) {
+                    return "The message is not in flight.";
+                }
+                message.visibleAt = now + TimeUnit.SECONDS.toMillis(visibilitySeconds == null ? 0 : visibilitySeconds);
+                if (message.visibleAt <= now) {
+                    arrived.signalAll();
+                }
+                return null;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Message toMessage(StoredMessage message, String handle, List<String> attributeNames,
+                                  Collection<String> messageAttributeNames) {
+            Map<MessageSystemAttributeName, String> attributes = new HashMap<>();
+            boolean all = attributeNames.contains("All");
+            if (all || attributeNames.contains(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT.toString())) {
+                attributes.put(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT, Integer.toString(message.receiveCount));
+            }
+            if (all || attributeNames.contains(MessageSystemAttributeName.SENT_TIMESTAMP.toString())) {
+                attributes.put(MessageSystemAttributeName.SENT_TIMESTAMP, Long.toString(message.sentMillis));
+            }
+            if (all || attributeNames.contains(MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP.toString())) {
+                attributes.put(MessageSystemAttributeName.APPROXIMATE_FIRST_RECEIVE_TIMESTAMP,
+                        Long.toString(message.firstReceiveMillis));
+            }
+            Map<String, MessageAttributeValue> messageAttributes = new HashMap<>();
+            if (message.attributes != null) {
+                boolean allAttributes = messageAttributeNames.contains("All") || messageAttributeNames.contains(".*");
+                message.attributes.forEach((name, value) -> {
+                    if (allAttributes || messageAttributeNames.contains(name)) {
+                        messageAttributes.put(name, value);
+                    }
+                });
+            }
+            return Message.builder()
+                    .messageId(message.messageId)
+                    .receiptHandle(handle)
+                    .body(message.body)
+                    .attributes(attributes)
+                    .messageAttributes(messageAttributes)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.glic.loadtest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
+import software.amazon.awssdk.services.sqs.model.ReceiptHandleIsInvalidException;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.TooManyEntriesInBatchRequestException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemorySqsClientTest {
+
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+
+    private MutableClock clock;
+    private InMemorySqsClient sqsClient;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock();
+        sqsClient = new InMemorySqsClient(clock, 30);
+    }
+
+    private void send(String body) {
+        sqsClient.sendMessage(SendMessageRequest.builder().queueUrl(QUEUE_URL).messageBody(body).build());
+    }
+
+    private List<Message> receive(int max) {
+        return sqsClient.receiveMessage(ReceiveMessageRequest.builder()
+                .queueUrl(QUEUE_URL)
+                .maxNumberOfMessages(max)
+                .attributeNamesWithStrings("All")
+                .build()).messages();
+    }
+
+    @Test
+    void receive_HidesMessageUntilVisibilityTimeoutExpires() {
+        // Arrange
+        send("a");
+
+        // Act
+        Message first = receive(10).get(0);
+        List<Message> whileHidden = receive(10);
+        clock.advanceSeconds(31);
+        Message second = receive(10).get(0);
+
+        // Assert
+        assertTrue(whileHidden.isEmpty());
+        assertEquals(first.messageId(), second.messageId());
+        assertNotEquals(first.receiptHandle(), second.receiptHandle());
+        assertEquals("1", first.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT));
+        assertEquals("2", second.attributes().get(MessageSystemAttributeName.APPROXIMATE_RECEIVE_COUNT));
+    }
+
+    @Test
+    void receive_ReturnsMessagesInSendOrderUpToMax() {
+        // Arrange
+        IntStream.range(0, 15).forEach(i -> send("m" + i));
+
+        // Act
+        List<Message> first = receive(10);
+        List<Message> second = receive(10);
+
+        // Assert
+        assertEquals(10, first.size());
+        assertEquals("m0", first.get(0).body());
+        assertEquals(5, second.size());
+        assertEquals("m10", second.get(0).body());
+    }
+
+    @Test
+    void receive_LongPollReturnsWhenMessageArrives() throws Exception {
+        // Arrange
+        CompletableFuture<List<Message>> pending = CompletableFuture.supplyAsync(() -> sqsClient.receiveMessage(
+                ReceiveMessageRequest.builder().queueUrl(QUEUE_URL).waitTimeSeconds(10).build()).messages());
+
+        // Act
+        Thread.sleep(50);
+        send("late");
+
+        // Assert
+        assertEquals("late", pending.get(5, TimeUnit.SECONDS).get(0).body());
+    }
+
+    @Test
+    void deleteMessage_RemovesMessageAndNotifiesListener() {
+        // Arrange
+        List<InMemorySqsClient.DeletedMessage> deleted = new ArrayList<>();
+        sqsClient.onDelete(deleted::add);
+        send("a");
+        Message message = receive(1).get(0);
+
+        // Act
+        sqsClient.deleteMessage(DeleteMessageRequest.builder().queueUrl(QUEUE_URL).receiptHandle(message.receiptHandle()).build());
+
+        // Assert
+        assertEquals(0, sqsClient.size(QUEUE_URL));
+        assertEquals(1, deleted.size());
+        assertEquals(message.messageId(), deleted.get(0).messageId());
+        assertThrows(ReceiptHandleIsInvalidException.class, () -> sqsClient.deleteMessage(
+                DeleteMessageRequest.builder().queueUrl(QUEUE_URL).receiptHandle(message.receiptHandle()).build()));
+    }
+
+    @Test
+    void changeMessageVisibility_ZeroMakesMessageVisibleAgain() {
+        // Arrange
+        send("a");
+        Message message = receive(1).get(0);
+
+        // Act
+        sqsClient.changeMessageVisibility(ChangeMessageVisibilityRequest.builder()
+                .queueUrl(QUEUE_URL).receiptHandle(message.receiptHandle()).visibilityTimeout(0).build());
+
+        // Assert
+        assertEquals(1, receive(1).size());
+    }
+
+    @Test
+    void batchOperations_ReportPerEntryResults() {
+        // Arrange
+        send("a");
+        Message message = receive(1).get(0);
+
+        // Act
+        DeleteMessageBatchResponse response = sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                .queueUrl(QUEUE_URL)
+                .entries(DeleteMessageBatchRequestEntry.builder().id("ok").receiptHandle(message.receiptHandle()).build(),
+                        DeleteMessageBatchRequestEntry.builder().id("bad").receiptHandle("unknown").build())
+                .build());
+
+        // Assert
+        assertEquals("ok", response.successful().get(0).id());
+        assertEquals("bad", response.failed().get(0).id());
+        assertThrows(TooManyEntriesInBatchRequestException.class, () -> sqsClient.sendMessageBatch(
+                SendMessageBatchRequest.builder()
+                        .queueUrl(QUEUE_URL)
+                        .entries(IntStream.range(0, 11)
+                                .mapToObj(i -> SendMessageBatchRequestEntry.builder().id("e" + i).messageBody("b").build())
+                                .toList())
+                        .build()));
+    }
+
+    /**
+     * Clock that only moves when told to.
+     */
+    private static final class MutableClock extends Clock {
+        private volatile Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advanceSeconds(long seconds) {
+            now = now.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
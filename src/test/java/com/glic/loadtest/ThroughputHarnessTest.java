@@ -0,0 +1,169 @@
+package com.glic.loadtest;
+
+import com.glic.SqsListenerRestAPI;
+import com.glic.model.Product;
+import com.glic.repository.ProductRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Offline end-to-end throughput run.
+ * Starts the whole application, with the product API on H2 and the real
+ * listener polling an {@link InMemorySqsClient}, injects synthetic product
+ * messages at a fixed rate and reports throughput, end-to-end latency (send to
+ * delete), duplicate deliveries and how long the backlog took to drain.
+ * <p>
+ * Excluded from the regular build; run with
+ * {@code ./mvnw test -Pload-test -Dload.messages=5000 -Dload.rate=1000}.
+ * Settings: {@code load.messages}, {@code load.rate} (messages per second),
+ * {@code load.visibility-timeout} (seconds) and {@code load.timeout} (seconds).
+ */
+@Tag("load")
+@SpringBootTest(classes = {SqsListenerRestAPI.class, ThroughputHarnessTest.InMemorySqsConfig.class},
+        webEnvironment = SpringBootTest.WebEnvironment.DEFINED_PORT)
+@TestPropertySource(locations = "classpath:application-test.properties", properties = {
+        "aws.sqs.url=http://localhost/000000000000/load-test",
+        "aws.sqs.polling.enabled=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.com.glic=WARN",
+        "logging.level.org.hibernate.SQL=WARN"
+})
+class ThroughputHarnessTest {
+
+    private static final int MESSAGES = Integer.getInteger("load.messages", 2000);
+    private static final int RATE = Integer.getInteger("load.rate", 500);
+    private static final int VISIBILITY_TIMEOUT = Integer.getInteger("load.visibility-timeout", 30);
+    private static final int TIMEOUT_SECONDS = Integer.getInteger("load.timeout", 300);
+    private static final int PORT = freePort();
+
+    @Autowired
+    private InMemorySqsClient sqsClient;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Value("${aws.sqs.url}")
+    private String queueUrl;
+
+    @TestConfiguration
+    static class InMemorySqsConfig {
+
+        @Bean
+        @Primary
+        public InMemorySqsClient inMemorySqsClient() {
+            return new InMemorySqsClient(Clock.systemUTC(), VISIBILITY_TIMEOUT);
+        }
+    }
+
+    @DynamicPropertySource
+    static void serverPort(DynamicPropertyRegistry registry) {
+        registry.add("server.port", () -> PORT);
+        registry.add("api.base.url", () -> "http://localhost:" + PORT);
+    }
+
+    @Test
+    void drainsInjectedBacklog() throws Exception {
+        // Arrange
+        Map<String, Long> latencies = new ConcurrentHashMap<>();
+        AtomicInteger deletes = new AtomicInteger();
+        AtomicLong lastDelete = new AtomicLong();
+        sqsClient.onDelete(deleted -> {
+            deletes.incrementAndGet();
+            latencies.putIfAbsent(deleted.messageId(), deleted.deletedNanos() - deleted.sentNanos());
+            lastDelete.accumulateAndGet(deleted.deletedNanos(), Math::max);
+        });
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+
+        // Act
+        long start = System.nanoTime();
+        long interval = TimeUnit.SECONDS.toNanos(1) / RATE;
+        for (int i = 0; i < MESSAGES; i++) {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            sqsClient.sendMessage(SendMessageRequest.builder()
+                    .queueUrl(queueUrl)
+                    .messageBody(body(runId, i))
+                    .build());
+        }
+        long injected = System.nanoTime();
+        long deadline = injected + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (sqsClient.size(queueUrl) > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+
+        // Assert
+        long[] sorted = latencies.values().stream().mapToLong(Long::longValue).sorted().toArray();
+        Map<String, Long> rows = productRepository.findAll().stream()
+                .map(Product::getName)
+                .filter(name -> name.startsWith("load-" + runId + "-"))
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        long duplicates = rows.values().stream().mapToLong(count -> count - 1).sum();
+        double elapsedSeconds = (lastDelete.get() - start) / 1e9;
+
+        System.out.printf("%n[load] messages=%d rate=%d/s visibility-timeout=%ds%n", MESSAGES, RATE, VISIBILITY_TIMEOUT);
+        System.out.printf("[load] injected in %.2fs, processed %d in %.2fs: %.1f msgs/sec%n",
+                (injected - start) / 1e9, sorted.length, elapsedSeconds, sorted.length / elapsedSeconds);
+        System.out.printf("[load] latency p50=%.1fms p99=%.1fms p999=%.1fms max=%.1fms%n",
+                millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                millis(percentile(sorted, 0.999)), millis(percentile(sorted, 1.0)));
+        System.out.printf("[load] deletes=%d duplicates=%d backlog drained %.2fs after injection ended%n%n",
+                deletes.get(), duplicates, Math.max(0, lastDelete.get() - injected) / 1e9);
+
+        assertEquals(0, sqsClient.size(queueUrl), "backlog not drained within " + TIMEOUT_SECONDS + "s");
+        assertEquals(MESSAGES, sorted.length);
+        assertEquals(MESSAGES, rows.size());
+    }
+
+    private static String body(String runId, int index) {
+        return "{\"name\":\"load-" + runId + "-" + index + "\",\"description\":\"Synthetic load test product " + index
+                + "\",\"price\":" + (10 + index % 90) + ".99,\"quantity\":" + (index % 100) + "}";
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
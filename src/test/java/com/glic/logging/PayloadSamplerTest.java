@@ -0,0 +1,42 @@
+package com.glic.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PayloadSamplerTest {
+
+    @Test
+    void sample_LogsOneInEverySampleRate() {
+        // Arrange
+        PayloadSampler sampler = new PayloadSampler(10, 512);
+
+        // Act
+        long sampled = IntStream.range(0, 100).filter(i -> sampler.sample()).count();
+
+        // Assert
+        assertEquals(10, sampled);
+    }
+
+    @Test
+    void sample_DisabledWhenRateIsZero() {
+        // Arrange
+        PayloadSampler sampler = new PayloadSampler(0, 512);
+
+        // Act & Assert
+        assertFalse(sampler.sample());
+    }
+
+    @Test
+    void abbreviate_CutsLongPayloads() {
+        // Arrange
+        PayloadSampler sampler = new PayloadSampler(1, 5);
+
+        // Act & Assert
+        assertEquals("short", sampler.abbreviate("short"));
+        assertEquals("{\"nam...(15 chars)", sampler.abbreviate("{\"name\":\"long\"}"));
+        assertNull(sampler.abbreviate(null));
+    }
+}
@@ -0,0 +1,182 @@
+package com.glic.outbox;
+
+import com.glic.model.ProductOutboxEvent;
+import com.glic.repository.ProductOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductOutboxRelayTest {
+
+    @Mock
+    private ProductOutboxRepository outboxRepository;
+
+    @Mock
+    private SqsClient sqsClient;
+
+    private ProductOutboxRelay relay;
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/product-events";
+
+    @BeforeEach
+    void setUp() {
+        relay = new ProductOutboxRelay(outboxRepository, sqsClient, QUEUE_URL, 50);
+    }
+
+    private static List<ProductOutboxEvent> events(long firstId, int count, Instant createdAt) {
+        List<ProductOutboxEvent> events = new ArrayList<>();
+        for (long id = firstId; id < firstId + count; id++) {
+            events.add(event(id, id, createdAt));
+        }
+        return events;
+    }
+
+    private static ProductOutboxEvent event(long id, long productId, Instant createdAt) {
+        ProductOutboxEvent event = new ProductOutboxEvent(productId, "CREATED",
+                "{\"productId\":" + productId + "}", createdAt);
+        event.setId(id);
+        return event;
+    }
+
+    private static SendMessageBatchResponse accepted(List<ProductOutboxEvent> events) {
+        return SendMessageBatchResponse.builder()
+                .successful(events.stream()
+                        .map(e -> SendMessageBatchResultEntry.builder().id(e.getId().toString()).messageId("m" + e.getId()).build())
+                        .toList())
+                .build();
+    }
+
+    @Test
+    void drain_PublishesFullBatchesAndDeletesSentRows() {
+        // Arrange
+        List<ProductOutboxEvent> first = events(1, 10, Instant.now());
+        when(outboxRepository.findByOrderByIdAsc(any(Pageable.class)))
+                .thenReturn(first)
+                .thenReturn(List.of());
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(accepted(first));
+
+        // Act
+        relay.drain();
+
+        // Assert
+        ArgumentCaptor<SendMessageBatchRequest> request = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(request.capture());
+        assertEquals(QUEUE_URL, request.getValue().queueUrl());
+        assertEquals(10, request.getValue().entries().size());
+        assertEquals("1", request.getValue().entries().get(0).id());
+        assertNull(request.getValue().entries().get(0).messageGroupId());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L));
+    }
+
+    @Test
+    void drain_HoldsPartialBatchWhileLingering() {
+        // Arrange
+        when(outboxRepository.findByOrderByIdAsc(any(Pageable.class)))
+                .thenReturn(events(1, 3, Instant.now().plusSeconds(60)));
+
+        // Act
+        relay.drain();
+
+        // Assert
+        verify(sqsClient, never()).sendMessageBatch(any(SendMessageBatchRequest.class));
+        verify(outboxRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void drain_SendsPartialBatchAfterLinger() {
+        // Arrange
+        List<ProductOutboxEvent> pending = events(1, 3, Instant.now().minusSeconds(1));
+        when(outboxRepository.findByOrderByIdAsc(any(Pageable.class)))
+                .thenReturn(pending)
+                .thenReturn(List.of());
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(accepted(pending));
+
+        // Act
+        relay.drain();
+
+        // Assert
+        verify(sqsClient).sendMessageBatch(any(SendMessageBatchRequest.class));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    void drain_KeepsFailedRowsAndStops() {
+        // Arrange
+        List<ProductOutboxEvent> pending = events(1, 10, Instant.now());
+        SendMessageBatchResponse partial = SendMessageBatchResponse.builder()
+                .successful(accepted(pending.subList(0, 9)).successful())
+                .failed(BatchResultErrorEntry.builder().id("10").code("InternalError").senderFault(false).build())
+                .build();
+        when(outboxRepository.findByOrderByIdAsc(any(Pageable.class))).thenReturn(pending);
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(partial);
+
+        // Act
+        relay.drain();
+
+        // Assert
+        verify(sqsClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L));
+    }
+
+    @Test
+    void drain_SetsGroupAndDeduplicationIdsForFifoQueues() {
+        // Arrange
+        ProductOutboxRelay fifoRelay = new ProductOutboxRelay(outboxRepository, sqsClient, QUEUE_URL + ".fifo", 0);
+        List<ProductOutboxEvent> pending = events(5, 1, Instant.now().minusSeconds(1));
+        when(outboxRepository.findByOrderByIdAsc(any(Pageable.class)))
+                .thenReturn(pending)
+                .thenReturn(List.of());
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(accepted(pending));
+
+        // Act
+        fifoRelay.drain();
+
+        // Assert
+        ArgumentCaptor<SendMessageBatchRequest> request = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(request.capture());
+        assertEquals("product-5", request.getValue().entries().get(0).messageGroupId());
+        assertEquals("5", request.getValue().entries().get(0).messageDeduplicationId());
+    }
+
+    @Test
+    void drain_SendsOneChangePerProductPerBatch() {
+        // Arrange
+        Instant old = Instant.now().minusSeconds(1);
+        List<ProductOutboxEvent> pending = List.of(event(1, 7, old), event(2, 8, old), event(3, 7, old),
+                event(4, 9, old));
+        List<ProductOutboxEvent> sent = List.of(pending.get(0), pending.get(1), pending.get(3));
+        SendMessageBatchResponse partial = SendMessageBatchResponse.builder()
+                .successful(accepted(sent.subList(1, 3)).successful())
+                .failed(BatchResultErrorEntry.builder().id("1").code("InternalError").senderFault(false).build())
+                .build();
+        when(outboxRepository.findByOrderByIdAsc(any(Pageable.class))).thenReturn(pending);
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(partial);
+
+        // Act
+        relay.drain();
+
+        // Assert
+        ArgumentCaptor<SendMessageBatchRequest> request = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(request.capture());
+        assertEquals(List.of("1", "2", "4"), request.getValue().entries().stream()
+                .map(entry -> entry.id()).toList());
+        verify(outboxRepository).deleteAllByIdInBatch(List.of(2L, 4L));
+    }
+}
@@ -0,0 +1,58 @@
+package com.glic.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.glic.model.Product;
+import com.glic.model.ProductOutboxEvent;
+import com.glic.repository.ProductOutboxRepository;
+import com.glic.service.ProductChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductOutboxTest {
+
+    @Mock
+    private ProductOutboxRepository outboxRepository;
+
+    private ProductOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        outbox = new ProductOutbox(outboxRepository, new ObjectMapper());
+    }
+
+    @Test
+    void record_FlushesTheProductWriteBeforeInsertingItsRow() {
+        // Arrange
+        Product product = new Product();
+        product.setId(7L);
+        product.setName("Lamp");
+
+        // Act
+        outbox.record(ProductChangedEvent.created(product));
+        outbox.record(ProductChangedEvent.deleted(7L));
+
+        // Assert
+        InOrder order = inOrder(outboxRepository);
+        order.verify(outboxRepository).flush();
+        order.verify(outboxRepository).save(any(ProductOutboxEvent.class));
+        order.verify(outboxRepository).flush();
+        order.verify(outboxRepository).save(any(ProductOutboxEvent.class));
+        ArgumentCaptor<ProductOutboxEvent> rows = ArgumentCaptor.forClass(ProductOutboxEvent.class);
+        verify(outboxRepository, times(2)).save(rows.capture());
+        assertEquals(List.of(7L, 7L), rows.getAllValues().stream().map(ProductOutboxEvent::getProductId).toList());
+        assertEquals(List.of("CREATED", "DELETED"),
+                rows.getAllValues().stream().map(ProductOutboxEvent::getEventType).toList());
+    }
+}
@@ -0,0 +1,192 @@
+package com.glic.producer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResultEntry;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchingSqsProducerTest {
+
+    @Mock
+    private SqsClient sqsClient;
+
+    private BatchingSqsProducer producer;
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+
+    @AfterEach
+    void tearDown() {
+        if (producer != null) {
+            producer.close();
+        }
+    }
+
+    private void acceptAll() {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenAnswer(invocation -> {
+            SendMessageBatchRequest request = invocation.getArgument(0);
+            List<SendMessageBatchResultEntry> successful = new ArrayList<>();
+            for (SendMessageBatchRequestEntry entry : request.entries()) {
+                successful.add(SendMessageBatchResultEntry.builder()
+                        .id(entry.id())
+                        .messageId("id-" + entry.messageBody())
+                        .build());
+            }
+            return SendMessageBatchResponse.builder().successful(successful).build();
+        });
+    }
+
+    @Test
+    void send_FlushesWhenBatchIsFull() throws Exception {
+        // Arrange
+        producer = new BatchingSqsProducer(sqsClient, QUEUE_URL, 60_000, 1);
+        acceptAll();
+
+        // Act
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(producer.send("m" + i));
+        }
+
+        // Assert
+        for (int i = 0; i < 10; i++) {
+            assertEquals("id-m" + i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        ArgumentCaptor<SendMessageBatchRequest> request = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(request.capture());
+        assertEquals(QUEUE_URL, request.getValue().queueUrl());
+        assertEquals(10, request.getValue().entries().size());
+    }
+
+    @Test
+    void send_FlushesPartialBatchAfterLinger() throws Exception {
+        // Arrange
+        producer = new BatchingSqsProducer(sqsClient, QUEUE_URL, 10, 1);
+        acceptAll();
+
+        // Act
+        CompletableFuture<String> first = producer.send("a");
+        CompletableFuture<String> second = producer.send("b");
+
+        // Assert
+        assertEquals("id-a", first.get(5, TimeUnit.SECONDS));
+        assertEquals("id-b", second.get(5, TimeUnit.SECONDS));
+        verify(sqsClient, times(1)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    void send_FlushesBeforeExceedingPayloadLimit() throws Exception {
+        // Arrange
+        producer = new BatchingSqsProducer(sqsClient, QUEUE_URL, 60_000, 1);
+        acceptAll();
+        String large = "x".repeat(200 * 1024);
+
+        // Act
+        CompletableFuture<String> first = producer.send(large);
+        CompletableFuture<String> second = producer.send(large);
+        producer.flush();
+
+        // Assert
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        verify(sqsClient, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+    }
+
+    @Test
+    void send_ForwardsAttributesAndCountsThemTowardsTheLimit() throws Exception {
+        // Arrange
+        producer = new BatchingSqsProducer(sqsClient, QUEUE_URL, 10, 1);
+        acceptAll();
+        Map<String, MessageAttributeValue> attributes = Map.of("content-encoding",
+                MessageAttributeValue.builder().dataType("String").stringValue("gzip").build());
+
+        // Act
+        CompletableFuture<String> sent = producer.send("H4sI", attributes);
+        CompletableFuture<String> oversized = producer.send("x".repeat(BatchingSqsProducer.MAX_BATCH_BYTES - 10),
+                attributes);
+
+        // Assert
+        assertEquals("id-H4sI", sent.get(5, TimeUnit.SECONDS));
+        ExecutionException thrown = assertThrows(ExecutionException.class, oversized::get);
+        assertInstanceOf(IllegalArgumentException.class, thrown.getCause());
+        ArgumentCaptor<SendMessageBatchRequest> request = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(request.capture());
+        assertEquals(attributes, request.getValue().entries().get(0).messageAttributes());
+    }
+
+    @Test
+    void send_RejectsOversizedMessage() {
+        // Arrange
+        producer = new BatchingSqsProducer(sqsClient, QUEUE_URL, 10, 1);
+
+        // Act
+        CompletableFuture<String> result = producer.send("x".repeat(BatchingSqsProducer.MAX_BATCH_BYTES + 1));
+
+        // Assert
+        ExecutionException thrown = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(IllegalArgumentException.class, thrown.getCause());
+        verifyNoInteractions(sqsClient);
+    }
+
+    @Test
+    void send_MapsEntryFailuresToTheirCallers() throws Exception {
+        // Arrange
+        producer = new BatchingSqsProducer(sqsClient, QUEUE_URL, 10, 1);
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenReturn(SendMessageBatchResponse.builder()
+                .successful(SendMessageBatchResultEntry.builder().id("1").messageId("ok").build())
+                .failed(BatchResultErrorEntry.builder().id("0").code("InvalidMessageContents").message("bad").senderFault(true).build())
+                .build());
+
+        // Act
+        CompletableFuture<String> rejected = producer.send("bad");
+        CompletableFuture<String> accepted = producer.send("good");
+
+        // Assert
+        assertEquals("ok", accepted.get(5, TimeUnit.SECONDS));
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        SqsBatchEntryException cause = assertInstanceOf(SqsBatchEntryException.class, thrown.getCause());
+        assertEquals("InvalidMessageContents", cause.getCode());
+        assertTrue(cause.isSenderFault());
+    }
+
+    @Test
+    void send_FailsAllCallersWhenBatchCallFails() {
+        // Arrange
+        producer = new BatchingSqsProducer(sqsClient, QUEUE_URL, 10, 1);
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class))).thenThrow(new RuntimeException("SQS Error"));
+
+        // Act
+        CompletableFuture<String> first = producer.send("a");
+        CompletableFuture<String> second = producer.send("b");
+
+        // Assert
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void utf8Length_CountsMultiByteCharacters() {
+        assertEquals("aé€😀".getBytes(StandardCharsets.UTF_8).length,
+                BatchingSqsProducer.utf8Length("aé€😀"));
+    }
+}
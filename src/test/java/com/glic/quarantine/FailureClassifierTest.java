@@ -0,0 +1,57 @@
+package com.glic.quarantine;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.glic.compression.MalformedPayloadException;
+import com.glic.listener.InvalidMessageException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+import java.net.SocketTimeoutException;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailureClassifierTest {
+
+    private final FailureClassifier classifier = new FailureClassifier();
+
+    @Test
+    void classify_PermanentFailures() {
+        // Arrange
+        RuntimeException apiRejected = new RuntimeException("Failed to create product",
+                HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", null, null, null));
+
+        // Act & Assert
+        assertEquals(new Failure(true, "malformed"), classifier.classify(new JsonParseException(null, "bad")));
+        assertEquals(new Failure(true, "malformed"),
+                classifier.classify(new MalformedPayloadException("Gzip data is corrupt")));
+        assertEquals(new Failure(true, "payload-missing"), classifier.classify(new NoSuchFileException("blob")));
+        assertEquals(new Failure(true, "invalid"),
+                classifier.classify(new InvalidMessageException(List.of("name: Name is required"))));
+        assertEquals(new Failure(true, "http-400"), classifier.classify(apiRejected));
+    }
+
+    @Test
+    void classify_TransientFailures() {
+        // Arrange
+        RuntimeException serverError = new RuntimeException("Failed to create product",
+                HttpServerErrorException.create(HttpStatus.SERVICE_UNAVAILABLE, "Unavailable", null, null, null));
+        RuntimeException throttled = new RuntimeException("Failed to create product",
+                HttpClientErrorException.create(HttpStatus.TOO_MANY_REQUESTS, "Slow down", null, null, null));
+        RuntimeException timeout = new RuntimeException("Failed to create product",
+                new ResourceAccessException("I/O error", new SocketTimeoutException("Read timed out")));
+
+        // Act & Assert
+        assertEquals(new Failure(false, "http-503"), classifier.classify(serverError));
+        assertEquals(new Failure(false, "http-429"), classifier.classify(throttled));
+        assertEquals(new Failure(false, "io"), classifier.classify(timeout));
+        assertEquals(new Failure(false, "timeout"), classifier.classify(new SocketTimeoutException("timed out")));
+        assertEquals(new Failure(false, "sqs"), classifier.classify(SqsException.builder().message("down").build()));
+        assertEquals(new Failure(false, "unknown"), classifier.classify(new IllegalStateException("?")));
+    }
+}
@@ -0,0 +1,268 @@
+package com.glic.quarantine;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.glic.claimcheck.ClaimCheck;
+import com.glic.claimcheck.InMemoryBlobStore;
+import com.glic.compression.MessageCompression;
+import com.glic.model.QuarantinedMessage;
+import com.glic.producer.MessageEncoder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageAttributeValue;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MessageFailureHandlerTest {
+
+    private static final String QUEUE_URL = "https://sqs.test.amazonaws.com/123456789012/test-queue";
+
+    @Mock
+    private SqsClient sqsClient;
+
+    private InMemoryBlobStore blobStore;
+    private InMemoryQuarantineStore store;
+    private QuarantineService quarantineService;
+    private MessageFailureHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        blobStore = new InMemoryBlobStore();
+        store = new InMemoryQuarantineStore();
+        quarantineService = new QuarantineService(store, sqsClient);
+        MessageEncoder encoder = new MessageEncoder(new MessageCompression(true, "gzip", 1024),
+                new ClaimCheck(blobStore, true, 64 * 1024));
+        handler = new MessageFailureHandler(new FailureClassifier(), quarantineService, sqsClient, encoder, 5, 2, 60);
+    }
+
+    private static Message message(int receiveCount) {
+        return Message.builder()
+                .messageId("message-" + receiveCount)
+                .body("{\"name\":\"Test Product\"}")
+                .receiptHandle("receipt-" + receiveCount)
+                .attributesWithStrings(Map.of("ApproximateReceiveCount", Integer.toString(receiveCount)))
+                .build();
+    }
+
+    @Test
+    void handle_QuarantinesPermanentFailureAtOnce() {
+        // Arrange
+        Message message = message(1);
+
+        // Act
+        Failure failure = handler.handle(message, QUEUE_URL, "parse", new JsonParseException(null, "Unexpected"));
+
+        // Assert
+        assertTrue(failure.permanent());
+        List<QuarantinedMessage> quarantined = quarantineService.list(10);
+        assertEquals(1, quarantined.size());
+        QuarantinedMessage entry = quarantined.get(0);
+        assertEquals("message-1", entry.getMessageId());
+        assertEquals(QUEUE_URL, entry.getSourceQueueUrl());
+        assertEquals(message.body(), entry.getBody());
+        assertEquals("parse", entry.getStage());
+        assertEquals("malformed", entry.getReason());
+        assertTrue(entry.getError().startsWith("JsonParseException: Unexpected"));
+        ArgumentCaptor<DeleteMessageRequest> delete = ArgumentCaptor.forClass(DeleteMessageRequest.class);
+        verify(sqsClient).deleteMessage(delete.capture());
+        assertEquals("receipt-1", delete.getValue().receiptHandle());
+        verify(sqsClient, never()).changeMessageVisibility(any(ChangeMessageVisibilityRequest.class));
+    }
+
+    @Test
+    void handle_BacksOffTransientFailure() {
+        // Act
+        Failure failure = handler.handle(message(3), QUEUE_URL, "create", new RuntimeException("API down"));
+
+        // Assert
+        assertFalse(failure.permanent());
+        ArgumentCaptor<ChangeMessageVisibilityRequest> change =
+                ArgumentCaptor.forClass(ChangeMessageVisibilityRequest.class);
+        verify(sqsClient).changeMessageVisibility(change.capture());
+        assertEquals("receipt-3", change.getValue().receiptHandle());
+        assertTrue(change.getValue().visibilityTimeout() >= 4 && change.getValue().visibilityTimeout() <= 8);
+        verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+        assertTrue(quarantineService.list(10).isEmpty());
+    }
+
+    @Test
+    void handle_QuarantinesWhenRetriesAreExhausted() {
+        // Act
+        handler.handle(message(5), QUEUE_URL, "create", new RuntimeException("API down"));
+
+        // Assert
+        assertEquals("retries-exhausted", quarantineService.list(10).get(0).getReason());
+        verify(sqsClient).deleteMessage(any(DeleteMessageRequest.class));
+    }
+
+    @Test
+    void handleItems_QuarantinesPermanentItemsAndResendsTheRest() {
+        // Arrange
+        Message envelope = message(1).toBuilder()
+                .messageAttributes(Map.of(MessageFailureHandler.ATTEMPTS_ATTRIBUTE,
+                        MessageAttributeValue.builder().dataType("Number").stringValue("2").build()))
+                .build();
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("retry").build());
+
+        // Act
+        String messageId = handler.handleItems(envelope, QUEUE_URL, List.of(
+                new FailedItem(0, "{\"name\":}", "parse", new JsonParseException(null, "Unexpected")),
+                new FailedItem(2, "{\"name\":\"b\"}", "create", new RuntimeException("API down")),
+                new FailedItem(3, "{\"name\":\"c\"}", "create", new TimeoutException("Deadline passed"))));
+
+        // Assert
+        assertEquals("retry", messageId);
+        List<QuarantinedMessage> quarantined = quarantineService.list(10);
+        assertEquals(1, quarantined.size());
+        assertEquals("message-1#0", quarantined.get(0).getMessageId());
+        assertEquals("{\"name\":}", quarantined.get(0).getBody());
+        ArgumentCaptor<SendMessageRequest> send = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient).sendMessage(send.capture());
+        assertEquals("[{\"name\":\"b\"},{\"name\":\"c\"}]", send.getValue().messageBody());
+        assertEquals("3", send.getValue().messageAttributes().get(MessageFailureHandler.ATTEMPTS_ATTRIBUTE)
+                .stringValue());
+        assertTrue(send.getValue().delaySeconds() >= 4 && send.getValue().delaySeconds() <= 8);
+        verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+    }
+
+    @Test
+    void handleItems_QuarantinesEveryItemWhenAttemptsAreExhausted() {
+        // Arrange
+        Message envelope = message(1).toBuilder()
+                .messageAttributes(Map.of(MessageFailureHandler.ATTEMPTS_ATTRIBUTE,
+                        MessageAttributeValue.builder().dataType("Number").stringValue("4").build()))
+                .build();
+
+        // Act
+        String messageId = handler.handleItems(envelope, QUEUE_URL, List.of(
+                new FailedItem(1, "{\"name\":\"a\"}", "create", new RuntimeException("API down"))));
+
+        // Assert
+        assertNull(messageId);
+        assertEquals("retries-exhausted", quarantineService.list(10).get(0).getReason());
+        verify(sqsClient, never()).sendMessage(any(SendMessageRequest.class));
+    }
+
+    @Test
+    void handleItems_CompressesAndClaimChecksLargeRetries() {
+        // Arrange
+        Random random = new Random(7);
+        List<FailedItem> items = IntStream.range(0, 300)
+                .mapToObj(index -> new FailedItem(index, "{\"name\":\"" + new BigInteger(2000, random).toString(36)
+                        + "\"}", "create", new RuntimeException("API down")))
+                .toList();
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("retry").build());
+
+        // Act
+        handler.handleItems(message(1), QUEUE_URL, items.subList(0, 10));
+        handler.handleItems(message(1), QUEUE_URL, items);
+
+        // Assert
+        ArgumentCaptor<SendMessageRequest> send = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient, times(2)).sendMessage(send.capture());
+        SendMessageRequest compressed = send.getAllValues().get(0);
+        assertEquals("gzip", compressed.messageAttributes().get(MessageCompression.ATTRIBUTE).stringValue());
+        assertEquals("1", compressed.messageAttributes().get(MessageFailureHandler.ATTEMPTS_ATTRIBUTE).stringValue());
+        SendMessageRequest stored = send.getAllValues().get(1);
+        assertTrue(ClaimCheck.isReference(Message.builder().body(stored.messageBody())
+                .messageAttributes(stored.messageAttributes()).build()));
+        assertTrue(blobStore.contains(stored.messageBody().substring(ClaimCheck.PREFIX.length())));
+        assertEquals("1", stored.messageAttributes().get(MessageFailureHandler.ATTEMPTS_ATTRIBUTE).stringValue());
+    }
+
+    @Test
+    void handleItems_QuarantinesItemsThatCannotBeResent() {
+        // Arrange
+        when(sqsClient.sendMessage(any(SendMessageRequest.class))).thenThrow(SqsException.builder()
+                .message("Message too long").build());
+
+        // Act
+        String messageId = handler.handleItems(message(1), QUEUE_URL, List.of(
+                new FailedItem(2, "{\"name\":\"b\"}", "create", new RuntimeException("API down"))));
+
+        // Assert
+        assertNull(messageId);
+        List<QuarantinedMessage> quarantined = quarantineService.list(10);
+        assertEquals(1, quarantined.size());
+        assertEquals("message-1#2", quarantined.get(0).getMessageId());
+        assertEquals("resend-failed", quarantined.get(0).getReason());
+    }
+
+    @Test
+    void backoffSeconds_DoublesUpToTheCap() {
+        for (int receiveCount = 1; receiveCount <= 40; receiveCount++) {
+            // Act
+            int delay = handler.backoffSeconds(receiveCount);
+
+            // Assert
+            long expected = Math.min(60, 2L << Math.min(receiveCount - 1, 30));
+            assertTrue(delay >= expected - expected / 2 && delay <= expected, receiveCount + " -> " + delay);
+        }
+    }
+
+    @Test
+    void redrive_SendsBodyBackToSourceQueue() {
+        // Arrange
+        handler.handle(message(1), QUEUE_URL, "parse", new JsonParseException(null, "Unexpected"));
+        long id = quarantineService.list(1).get(0).getId();
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("redriven").build());
+
+        // Act
+        String messageId = quarantineService.redrive(id).orElseThrow();
+
+        // Assert
+        assertEquals("redriven", messageId);
+        ArgumentCaptor<SendMessageRequest> send = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient).sendMessage(send.capture());
+        assertEquals(QUEUE_URL, send.getValue().queueUrl());
+        assertEquals("{\"name\":\"Test Product\"}", send.getValue().messageBody());
+        assertTrue(store.findById(id).isEmpty());
+        assertTrue(quarantineService.redrive(id).isEmpty());
+        assertFalse(quarantineService.discard(id));
+    }
+
+    @Test
+    void redrive_SendsClaimCheckedMessageBackAsAFlaggedReference() {
+        // Arrange
+        Message message = message(1).toBuilder()
+                .body(ClaimCheck.PREFIX + "payload-key")
+                .messageAttributes(ClaimCheck.attributes())
+                .build();
+        handler.handle(message, QUEUE_URL, "parse", new JsonParseException(null, "Unexpected"));
+        long id = quarantineService.list(1).get(0).getId();
+        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+                .thenReturn(SendMessageResponse.builder().messageId("redriven").build());
+
+        // Act
+        quarantineService.redrive(id);
+
+        // Assert
+        ArgumentCaptor<SendMessageRequest> send = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient).sendMessage(send.capture());
+        assertEquals(ClaimCheck.PREFIX + "payload-key", send.getValue().messageBody());
+        assertEquals(ClaimCheck.attributes(), send.getValue().messageAttributes());
+    }
+}
@@ -0,0 +1,68 @@
+package com.glic.readmodel;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueSnapshotTest {
+
+    private static byte[] json(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void of_SortsAndDeduplicatesEntries() {
+        // Arrange & Act
+        CatalogueSnapshot snapshot = CatalogueSnapshot.of(
+                new long[]{3, 1, 3},
+                new byte[][]{json("{\"id\":3}"), json("{\"id\":1}"), json("{\"id\":3,\"v\":2}")});
+
+        // Assert
+        assertEquals(2, snapshot.size());
+        assertEquals("{\"id\":3,\"v\":2}", text(snapshot.get(3)));
+        assertEquals("[{\"id\":1},{\"id\":3,\"v\":2}]", text(snapshot.listJson()));
+    }
+
+    @Test
+    void with_InsertsAndReplacesWithoutMutatingOriginal() {
+        // Arrange
+        CatalogueSnapshot original = CatalogueSnapshot.EMPTY.with(5, json("{\"id\":5}"));
+
+        // Act
+        CatalogueSnapshot inserted = original.with(2, json("{\"id\":2}"));
+        CatalogueSnapshot replaced = inserted.with(5, json("{\"id\":5,\"v\":2}"));
+
+        // Assert
+        assertEquals(1, original.size());
+        assertNull(original.get(2));
+        assertEquals("[{\"id\":2},{\"id\":5}]", text(inserted.listJson()));
+        assertEquals("[{\"id\":2},{\"id\":5,\"v\":2}]", text(replaced.listJson()));
+    }
+
+    @Test
+    void without_RemovesEntry() {
+        // Arrange
+        CatalogueSnapshot snapshot = CatalogueSnapshot.EMPTY
+                .with(1, json("{\"id\":1}"))
+                .with(2, json("{\"id\":2}"));
+
+        // Act
+        CatalogueSnapshot removed = snapshot.without(1);
+
+        // Assert
+        assertNull(removed.get(1));
+        assertEquals("[{\"id\":2}]", text(removed.listJson()));
+        assertSame(removed, removed.without(42));
+    }
+
+    @Test
+    void listJson_EmptyCatalogue() {
+        assertEquals("[]", text(CatalogueSnapshot.EMPTY.listJson()));
+    }
+}
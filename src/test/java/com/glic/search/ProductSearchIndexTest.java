@@ -0,0 +1,135 @@
+package com.glic.search;
+
+import com.glic.model.Product;
+import com.glic.service.ProductChangedEvent;
+import com.glic.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductService productService;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private ProductSearchIndex index(int mergeThreshold) {
+        return new ProductSearchIndex(productService, registry, 2, mergeThreshold, 100, Runnable::run);
+    }
+
+    private static Product product(long id, String name) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription("Catalogue item");
+        return product;
+    }
+
+    private static List<Long> search(ProductSearchIndex index, String query) {
+        return index.search(query, 10).stream().map(SearchHit::productId).toList();
+    }
+
+    @Test
+    void load_ReadsTheCatalogueInSlicesAndStartsServing() {
+        // Arrange
+        ProductSearchIndex index = index(10);
+        when(productService.getMaxProductId()).thenReturn(5L);
+        when(productService.getProductsBetween(1L, 2L)).thenReturn(List.of(product(1, "Red mug"),
+                product(2, "Blue mug")));
+        when(productService.getProductsBetween(3L, 4L)).thenReturn(List.of(product(4, "Red teapot")));
+        when(productService.getProductsBetween(5L, 6L)).thenReturn(List.of(product(5, "Red kettle")));
+        assertFalse(index.isReady());
+
+        // Act
+        index.load();
+
+        // Assert
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L, 4L, 5L), search(index, "red"));
+        assertEquals(List.of(1L, 2L), search(index, "mug"));
+        assertEquals(4, registry.get("products.search.documents").gauge().value());
+        assertEquals(2, registry.get("products.search.query").timer().count());
+    }
+
+    @Test
+    void onProductChanged_AppliesChangesMadeDuringAndAfterTheLoad() {
+        // Arrange
+        ProductSearchIndex index = index(10);
+        when(productService.getMaxProductId()).thenReturn(2L);
+        when(productService.getProductsBetween(1L, 2L)).thenReturn(List.of(product(1, "Red mug"),
+                product(2, "Blue mug")));
+        index.onProductChanged(ProductChangedEvent.updated(product(1, "Red cup")));
+
+        // Act
+        index.load();
+        index.onProductChanged(ProductChangedEvent.created(product(3, "Green mug")));
+        index.onProductChanged(ProductChangedEvent.deleted(2L));
+
+        // Assert
+        assertEquals(List.of(3L), search(index, "mug"));
+        assertEquals(List.of(1L), search(index, "cup"));
+        assertEquals(List.of(), search(index, "blue"));
+        assertEquals(2, registry.get("products.search.documents").gauge().value());
+    }
+
+    @Test
+    void onProductChanged_FoldsChangesIntoTheBaseOnceThereAreMoreThanTheThreshold() {
+        // Arrange
+        ProductSearchIndex index = index(2);
+        when(productService.getMaxProductId()).thenReturn(0L);
+        index.load();
+
+        // Act
+        for (long id = 1; id <= 7; id++) {
+            index.onProductChanged(ProductChangedEvent.created(product(id, "Lamp " + id)));
+        }
+        index.onProductChanged(ProductChangedEvent.updated(product(2, "Desk light")));
+        index.onProductChanged(ProductChangedEvent.deleted(5L));
+
+        // Assert
+        assertEquals(List.of(1L, 3L, 4L, 6L, 7L), search(index, "lamp"));
+        assertEquals(List.of(2L), search(index, "light"));
+        assertEquals(6, registry.get("products.search.documents").gauge().value());
+        verify(productService, never()).getProductsBetween(anyLong(), anyLong());
+    }
+
+    @Test
+    void onProductChanged_LeavesThePublishingToOneRefreshOffTheCommittingThread() {
+        // Arrange
+        List<Runnable> refreshes = new ArrayList<>();
+        ProductSearchIndex index = new ProductSearchIndex(productService, registry, 2, 2, 100, refreshes::add);
+        when(productService.getMaxProductId()).thenReturn(0L);
+        index.load();
+
+        // Act
+        for (long id = 1; id <= 3; id++) {
+            index.onProductChanged(ProductChangedEvent.created(product(id, "Lamp " + id)));
+        }
+
+        // Assert
+        assertEquals(List.of(), search(index, "lamp"));
+        assertEquals(1, refreshes.size());
+        refreshes.remove(0).run();
+        assertEquals(List.of(1L, 2L, 3L), search(index, "lamp"));
+        index.onProductChanged(ProductChangedEvent.deleted(2L));
+        assertEquals(1, refreshes.size());
+        refreshes.remove(0).run();
+        assertEquals(List.of(1L, 3L), search(index, "lamp"));
+    }
+}
@@ -0,0 +1,155 @@
+package com.glic.search;
+
+import com.glic.model.Product;
+import com.glic.search.IndexSegment.Document;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchSnapshotTest {
+
+    private static Product product(long id, String name, String description) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription(description);
+        return product;
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::productId).toList();
+    }
+
+    @Test
+    void tokens_FoldsCaseAndAccentsAndSplitsOnPunctuation() {
+        // Act
+        List<String> tokens = ProductTokenizer.tokens("Café-Table, 2x USB_C!");
+
+        // Assert
+        assertEquals(List.of("cafe", "table", "2x", "usb", "c"), tokens);
+        assertTrue(ProductTokenizer.tokens(null).isEmpty());
+    }
+
+    @Test
+    void search_RanksNameMatchesAboveDescriptionMatches() {
+        // Arrange
+        SearchSnapshot snapshot = SearchSnapshot.of(List.of(
+                product(1, "Desk lamp", "Works well next to a wireless keyboard"),
+                product(2, "Wireless keyboard", "Slim and quiet"),
+                product(3, "Office chair", "Adjustable height")));
+
+        // Act
+        List<SearchHit> hits = snapshot.search("Wireless Keyboard", 10);
+
+        // Assert
+        assertEquals(List.of(2L, 1L), ids(hits));
+        assertTrue(hits.get(0).score() > hits.get(1).score());
+    }
+
+    @Test
+    void search_MatchesPrefixesBelowWholeWordsAndRequiresEveryTerm() {
+        // Arrange
+        SearchSnapshot snapshot = SearchSnapshot.of(List.of(
+                product(1, "Keyboard", "Mechanical"),
+                product(2, "Key", "Brass"),
+                product(3, "Keyboard tray", "Mounts under a desk")));
+
+        // Act & Assert
+        assertEquals(List.of(2L, 1L, 3L), ids(snapshot.search("key", 10)));
+        assertEquals(List.of(3L), ids(snapshot.search("keyb des", 10)));
+        assertEquals(List.of(), ids(snapshot.search("k", 10)));
+        assertEquals(List.of(), ids(snapshot.search("keyboard chair", 10)));
+        assertEquals(List.of(), ids(snapshot.search("  ,; ", 10)));
+    }
+
+    @Test
+    void search_ReturnsTheBestHitsUpToTheLimit() {
+        // Arrange
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            products.add(product(id, "Cable " + id, id % 10 == 0 ? "cable cable cable" : "cable"));
+        }
+        SearchSnapshot snapshot = SearchSnapshot.of(products);
+
+        // Act
+        List<SearchHit> hits = snapshot.search("cable", 3);
+
+        // Assert
+        assertEquals(List.of(10L, 20L, 30L), ids(hits));
+    }
+
+    @Test
+    void of_BuildsTheSameIndexInParallelChunksAsInOneSegment() {
+        // Arrange
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= SearchSnapshot.BUILD_CHUNK * 2L + 10; id++) {
+            products.add(product(id, "Item " + id, "word" + id % 7 + " shared"));
+        }
+
+        // Act
+        SearchSnapshot snapshot = SearchSnapshot.of(products);
+
+        // Assert
+        assertEquals(products.size(), snapshot.size());
+        List<SearchHit> hits = snapshot.search("word3 shared", products.size());
+        assertEquals(products.stream().filter(product -> product.getId() % 7 == 3).count(), hits.size());
+        assertEquals(List.of(SearchSnapshot.BUILD_CHUNK + 1L), ids(snapshot.search(
+                "item " + (SearchSnapshot.BUILD_CHUNK + 1), 1)));
+    }
+
+    @Test
+    void search_ScoresTheSameTextEquallyInTheBaseAndTheDelta() {
+        // Arrange
+        IndexSegment base = IndexSegment.build(List.of(
+                new Document(1, "Walnut desk", null),
+                new Document(2, "Oak desk", null),
+                new Document(3, "Walnut shelf", null),
+                new Document(4, "Walnut stool", null)));
+        IndexSegment delta = IndexSegment.build(List.of(
+                new Document(3, "Pine shelf", null),
+                new Document(5, "Walnut desk", null)));
+
+        // Act
+        SearchSnapshot layered = new SearchSnapshot(base, new long[] {3}, delta);
+        SearchSnapshot merged = new SearchSnapshot(IndexSegment.merge(base, new long[] {3}, delta),
+                SearchSnapshot.NO_IDS, IndexSegment.EMPTY);
+
+        // Assert
+        for (String query : List.of("walnut", "walnut desk", "desk", "shelf", "wal")) {
+            assertEquals(merged.search(query, 10), layered.search(query, 10), query);
+        }
+        List<SearchHit> hits = layered.search("walnut desk", 10);
+        assertEquals(List.of(1L, 5L), ids(hits));
+        assertEquals(hits.get(0).score(), hits.get(1).score());
+    }
+
+    @Test
+    void merge_HidesReplacedProductsAndAddsTheirNewVersions() {
+        // Arrange
+        IndexSegment base = IndexSegment.build(List.of(
+                new Document(1, "Red mug", null),
+                new Document(2, "Blue mug", null),
+                new Document(3, "Green mug", null)));
+        IndexSegment delta = IndexSegment.build(List.of(
+                new Document(2, "Blue teapot", null),
+                new Document(4, "Red teapot", null)));
+        long[] hidden = {2, 3};
+
+        // Act
+        SearchSnapshot layered = new SearchSnapshot(base, hidden, delta);
+        SearchSnapshot merged = new SearchSnapshot(IndexSegment.merge(base, hidden, delta), SearchSnapshot.NO_IDS,
+                IndexSegment.EMPTY);
+
+        // Assert
+        for (SearchSnapshot snapshot : List.of(layered, merged)) {
+            assertEquals(3, snapshot.size());
+            assertEquals(List.of(1L), ids(snapshot.search("mug", 10)));
+            assertEquals(List.of(2L, 4L), ids(snapshot.search("teapot", 10)));
+            assertEquals(List.of(), ids(snapshot.search("green", 10)));
+        }
+        assertThrows(IllegalArgumentException.class, () -> IndexSegment.merge(base, SearchSnapshot.NO_IDS, delta));
+    }
+}
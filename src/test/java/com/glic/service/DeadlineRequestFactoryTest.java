@@ -0,0 +1,43 @@
+package com.glic.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeadlineRequestFactoryTest {
+
+    private final DeadlineRequestFactory factory =
+            new DeadlineRequestFactory(Duration.ofSeconds(2), Duration.ofSeconds(10));
+
+    @Test
+    void timeoutMillis_CutsResponseTimeoutToDeadline() {
+        // Act & Assert
+        assertEquals(10000, factory.timeoutMillis(OptionalLong.empty()));
+        assertEquals(10000, factory.timeoutMillis(OptionalLong.of(TimeUnit.SECONDS.toNanos(60))));
+        assertEquals(1500, factory.timeoutMillis(OptionalLong.of(TimeUnit.MILLISECONDS.toNanos(1500))));
+        assertEquals(1, factory.timeoutMillis(OptionalLong.of(-TimeUnit.SECONDS.toNanos(1))));
+    }
+
+    @Test
+    void open_KeepsTheCloserDeadlineAndRestoresOnClose() {
+        // Arrange
+        long now = System.nanoTime();
+
+        // Act & Assert
+        assertTrue(RequestDeadline.remainingNanos().isEmpty());
+        try (RequestDeadline.Scope outer = RequestDeadline.open(now + TimeUnit.SECONDS.toNanos(5))) {
+            try (RequestDeadline.Scope inner = RequestDeadline.open(now + TimeUnit.SECONDS.toNanos(60))) {
+                assertTrue(RequestDeadline.remainingNanos().getAsLong() <= TimeUnit.SECONDS.toNanos(5));
+            }
+            try (RequestDeadline.Scope inner = RequestDeadline.open(now + TimeUnit.SECONDS.toNanos(1))) {
+                assertTrue(RequestDeadline.remainingNanos().getAsLong() <= TimeUnit.SECONDS.toNanos(1));
+            }
+            assertTrue(RequestDeadline.remainingNanos().getAsLong() > TimeUnit.SECONDS.toNanos(1));
+        }
+        assertTrue(RequestDeadline.remainingNanos().isEmpty());
+    }
+}
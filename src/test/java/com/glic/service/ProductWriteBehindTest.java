@@ -0,0 +1,208 @@
+package com.glic.service;
+
+import com.glic.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductWriteBehindTest {
+
+    private static final String INSERT = "INSERT INTO product (name, description, price, quantity) VALUES (?, ?, ?, ?)";
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private SimpleMeterRegistry registry;
+    private ProductWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE product (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL,"
+                + " description VARCHAR(1000), price DECIMAL(10,2) NOT NULL, quantity INT NOT NULL)");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        registry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writeBehind != null) {
+            writeBehind.stop();
+        }
+    }
+
+    private ProductWriteBehind writeBehind(int capacity, int batchSize, long lingerMs) {
+        writeBehind = new ProductWriteBehind(jdbcTemplate, transactionManager, INSERT, productService,
+                eventPublisher, registry, capacity, batchSize, lingerMs, 10);
+        return writeBehind;
+    }
+
+    private void holdFirstBatch(ProductWriteBehind writeBehind, CountDownLatch release) throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).doNothing().when(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+        writeBehind.submit(product("Held"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+    }
+
+    private static Product product(String name) {
+        Product product = new Product();
+        product.setName(name);
+        product.setPrice(BigDecimal.TEN);
+        product.setQuantity(1);
+        return product;
+    }
+
+    @Test
+    void submit_WritesProductsWaitingTogetherInOneTransactionAndCompletesEachWithItsId() throws Exception {
+        // Arrange
+        ProductWriteBehind writeBehind = writeBehind(100, 3, 60000);
+        writeBehind.start();
+        CountDownLatch release = new CountDownLatch(1);
+        holdFirstBatch(writeBehind, release);
+
+        // Act
+        List<CompletableFuture<Product>> results = List.of(writeBehind.submit(product("First")),
+                writeBehind.submit(product("Second")), writeBehind.submit(product("Third")));
+        release.countDown();
+
+        // Assert
+        List<Long> ids = results.stream().map(result -> result.orTimeout(5, TimeUnit.SECONDS).join().getId()).toList();
+        assertEquals(3, ids.stream().distinct().count());
+        assertEquals(List.of("Held", "First", "Second", "Third"),
+                jdbcTemplate.queryForList("SELECT name FROM product ORDER BY id", String.class));
+        verify(eventPublisher, times(4)).publishEvent(any(ProductChangedEvent.class));
+        assertEquals(2, registry.get("products.write-behind.batch.size").summary().count());
+        assertEquals(3, registry.get("products.write-behind.batch.size").summary().max());
+        verifyNoInteractions(productService);
+    }
+
+    @Test
+    void submit_WritesALoneProductWithoutWaitingForTheLinger() throws Exception {
+        // Arrange
+        ProductWriteBehind writeBehind = writeBehind(100, 500, 60000);
+        writeBehind.start();
+
+        // Act
+        Product created = writeBehind.submit(product("Single")).get(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertNotNull(created.getId());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM product", Integer.class));
+    }
+
+    @Test
+    void submit_WritesAPartialBatchOnceTheLingerIsUp() throws Exception {
+        // Arrange
+        ProductWriteBehind writeBehind = writeBehind(100, 500, 20);
+        writeBehind.start();
+        CountDownLatch release = new CountDownLatch(1);
+        holdFirstBatch(writeBehind, release);
+
+        // Act
+        CompletableFuture<Product> first = writeBehind.submit(product("First"));
+        CompletableFuture<Product> second = writeBehind.submit(product("Second"));
+        release.countDown();
+
+        // Assert
+        assertNotNull(first.get(5, TimeUnit.SECONDS).getId());
+        assertNotNull(second.get(5, TimeUnit.SECONDS).getId());
+        assertEquals(2, registry.get("products.write-behind.batch.size").summary().max());
+    }
+
+    @Test
+    void submit_CreatesProductsOneByOneWhenTheBatchFails() throws Exception {
+        // Arrange
+        ProductWriteBehind writeBehind = writeBehind(100, 2, 60000);
+        Product good = product("Good");
+        Product bad = product(null);
+        Product saved = product("Good");
+        saved.setId(42L);
+        when(productService.createProduct(good)).thenReturn(saved);
+        when(productService.createProduct(bad)).thenThrow(new IllegalStateException("name is required"));
+        writeBehind.start();
+        CountDownLatch release = new CountDownLatch(1);
+        holdFirstBatch(writeBehind, release);
+
+        // Act
+        CompletableFuture<Product> goodResult = writeBehind.submit(good);
+        CompletableFuture<Product> badResult = writeBehind.submit(bad);
+        release.countDown();
+
+        // Assert
+        assertEquals(42L, goodResult.get(5, TimeUnit.SECONDS).getId());
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> badResult.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, failure.getCause());
+        assertEquals(List.of("Held"), jdbcTemplate.queryForList("SELECT name FROM product", String.class));
+        assertEquals(1, registry.get("products.write-behind.fallbacks").counter().count());
+        verify(eventPublisher, times(1)).publishEvent(any(ProductChangedEvent.class));
+    }
+
+    @Test
+    void submit_RefusesProductsWhileTheBufferIsFull() throws Exception {
+        // Arrange
+        ProductWriteBehind writeBehind = writeBehind(1, 1, 0);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(eventPublisher).publishEvent(any(ProductChangedEvent.class));
+        writeBehind.start();
+        CompletableFuture<Product> written = writeBehind.submit(product("Writing"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Product> buffered = writeBehind.submit(product("Buffered"));
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> writeBehind.submit(product("Refused")));
+        assertEquals(1, registry.get("products.write-behind.rejected").counter().count());
+        assertEquals(1, registry.get("products.write-behind.buffered").gauge().value());
+        release.countDown();
+        assertNotNull(written.get(5, TimeUnit.SECONDS).getId());
+        assertNotNull(buffered.get(5, TimeUnit.SECONDS).getId());
+    }
+
+    @Test
+    void submit_RefusesProductsOnceStopped() {
+        // Arrange
+        ProductWriteBehind writeBehind = writeBehind(10, 1, 0);
+        writeBehind.start();
+        writeBehind.stop();
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> writeBehind.submit(product("Late")));
+    }
+}
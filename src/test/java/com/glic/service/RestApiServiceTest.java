@@ -1,17 +1,27 @@
 package com.glic.service;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.glic.logging.PayloadSampler;
 import com.glic.model.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.ArgumentCaptor;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestTemplate;
 
 import java.math.BigDecimal;
+import java.util.List;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -26,11 +36,25 @@ class RestApiServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private ObjectReader productReader;
+
+    @Mock
+    private ObjectWriter productWriter;
+
     private RestApiService restApiService;
 
     @BeforeEach
     void setUp() {
-        restApiService = new RestApiService(restTemplate, objectMapper, "http://localhost:8080");
+        when(objectMapper.readerFor(Product.class)).thenReturn(productReader);
+        when(objectMapper.writerFor(Product.class)).thenReturn(productWriter);
+        restApiService = service(objectMapper, WireFormat.JSON);
+    }
+
+    private RestApiService service(ObjectMapper mapper, WireFormat wireFormat) {
+        return new RestApiService(restTemplate, mapper, "http://localhost:8080", wireFormat,
+                new RestApiMetrics(new SimpleMeterRegistry()),
+                new PayloadSampler(PayloadSampler.DEFAULT_SAMPLE_RATE, PayloadSampler.DEFAULT_MAX_LENGTH));
     }
 
     @Test
@@ -54,7 +78,7 @@ class RestApiServiceTest {
                 any(HttpEntity.class),
                 eq(String.class)))
                 .thenReturn(responseEntity);
-        when(objectMapper.readValue(eq(jsonResponse), eq(Product.class)))
+        when(productReader.readValue(eq(jsonResponse)))
                 .thenReturn(expectedResponse);
 
         // Act
@@ -70,7 +94,7 @@ class RestApiServiceTest {
                 eq("http://localhost:8080/api/products"),
                 any(HttpEntity.class),
                 eq(String.class));
-        verify(objectMapper).readValue(eq(jsonResponse), eq(Product.class));
+        verify(productReader).readValue(eq(jsonResponse));
     }
 
     @Test
@@ -104,4 +128,84 @@ class RestApiServiceTest {
                 any(),
                 any());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void getProductById_ReusesCachedBodyWhenNotModified() throws Exception {
+        // Arrange
+        String url = "http://localhost:8080/api/products/1";
+        String json = "{\"id\":1,\"name\":\"Test Product\",\"price\":100.0,\"quantity\":10}";
+        Product product = new Product();
+        product.setId(1L);
+
+        when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok().eTag("\"v1\"").body(json))
+                .thenReturn(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("\"v1\"").build());
+        when(productReader.readValue(eq(json))).thenReturn(product);
+
+        // Act
+        Product first = restApiService.getProductById(1L);
+        Product second = restApiService.getProductById(1L);
+
+        // Assert
+        assertSame(product, first);
+        assertSame(product, second);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<HttpEntity<?>> requests = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(2)).exchange(eq(url), eq(HttpMethod.GET), requests.capture(), eq(String.class));
+        List<HttpEntity<?>> sent = requests.getAllValues();
+        assertTrue(sent.get(0).getHeaders().getIfNoneMatch().isEmpty());
+        assertEquals(List.of("\"v1\""), sent.get(1).getHeaders().getIfNoneMatch());
+        verify(productReader, times(2)).readValue(eq(json));
+    }
+
+    @Test
+    void getAllProducts_SendsUnconditionalRequestWithoutETag() throws Exception {
+        // Arrange
+        String url = "http://localhost:8080/api/products";
+        when(restTemplate.exchange(eq(url), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenReturn(ResponseEntity.ok("[]"));
+        when(objectMapper.readValue(eq("[]"), any(TypeReference.class)))
+                .thenReturn(List.of());
+
+        // Act
+        restApiService.getAllProducts();
+        restApiService.getAllProducts();
+
+        // Assert
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<HttpEntity<?>> requests = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate, times(2)).exchange(eq(url), eq(HttpMethod.GET), requests.capture(), eq(String.class));
+        for (HttpEntity<?> request : requests.getAllValues()) {
+            assertNull(request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH));
+        }
+    }
+
+    @Test
+    void createProduct_WithBinaryFormatNegotiatesSmile() throws Exception {
+        // Arrange
+        ObjectMapper smileMapper = WireFormat.SMILE.mapper(new ObjectMapper());
+        RestApiService smileService = service(new ObjectMapper(), WireFormat.SMILE);
+        Product product = new Product();
+        product.setName("Test Product");
+        product.setPrice(new BigDecimal("100.0"));
+        product.setQuantity(10);
+        Product created = new Product();
+        created.setId(7L);
+        created.setName("Test Product");
+
+        when(restTemplate.postForEntity(eq("http://localhost:8080/api/products"), any(HttpEntity.class), eq(byte[].class)))
+                .thenReturn(ResponseEntity.ok(smileMapper.writeValueAsBytes(created)));
+
+        // Act
+        Product result = smileService.createProduct(product);
+
+        // Assert
+        assertEquals(7L, result.getId());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<HttpEntity<byte[]>> request = ArgumentCaptor.forClass(HttpEntity.class);
+        verify(restTemplate).postForEntity(eq("http://localhost:8080/api/products"), request.capture(), eq(byte[].class));
+        assertEquals(WireFormat.SMILE.mediaType(), request.getValue().getHeaders().getContentType());
+        assertEquals(List.of(WireFormat.SMILE.mediaType()), request.getValue().getHeaders().getAccept());
+        assertEquals("Test Product", smileMapper.readValue(request.getValue().getBody(), Product.class).getName());
+    }
+}